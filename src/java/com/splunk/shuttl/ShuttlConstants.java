@@ -39,10 +39,13 @@ public final class ShuttlConstants {
 	public static final String ENDPOINT_BUCKET_ARCHIVE = "/bucket/archive";
 	public static final String ENDPOINT_BUCKET_COPY = "/bucket/copy";
 	public static final String ENDPOINT_BUCKET_THAW = "/bucket/thaw";
+	public static final String ENDPOINT_THAW_JOB = "/thaw/job";
 	public static final String ENDPOINT_BUCKET_FLUSH = "/bucket/flush";
 	public static final String ENDPOINT_LIST_THAW = "/thaw/list";
 	public static final String ENDPOINT_LIST_BUCKETS = "/bucket/list";
 	public static final String ENDPOINT_LIST_INDEXES = "/index/list";
+	public static final String ENDPOINT_METRICS = "/metrics";
+	public static final String ENDPOINT_CATALOG_REBUILD = "/catalog/rebuild";
 	public static final String ENDPOINT_ARCHIVER = "/archiver";
 	public static final String ENDPOINT_SHUTDOWN = "/shutdown";
 	public static final String ENDPOINT_EXPORT_SRVC_STATUS = "/exportservicestatus";
@@ -47,6 +47,8 @@ public class LocalFileSystemPaths {
 
 	final String THAW_TRANSFERS_NAME = "thaw-transfers-dir";
 
+	final String UPLOAD_CHECKPOINTS_NAME = "upload-checkpoints-dir";
+
 	final String METADATA_DIR_NAME = "metadata-dir";
 
 	final String METADATA_TRANSFERS_NAME = "metadata-transfers-dir";
@@ -57,6 +59,9 @@ public class LocalFileSystemPaths {
 
 	final String PUT_TRANSFER_LOCKS_NAME = "put-transfers-locks-dir";
 
+	final String ARCHIVE_CATALOG_NAME = "archive-catalog-dir";
+	final String METADATA_MANIFESTS_NAME = "metadata-manifests-dir";
+
 	private final String archiverDirectoryPath;
 
 	public LocalFileSystemPaths(File directory) {
@@ -161,6 +166,14 @@ public class LocalFileSystemPaths {
 		return createDirectoryUnderArchiverDir(THAW_TRANSFERS_NAME);
 	}
 
+	/**
+	 * Contains the checkpoints of the uploads that haven't finished, by the path
+	 * they're uploaded to.
+	 */
+	public File getUploadCheckpointsDirectory() {
+		return createDirectoryUnderArchiverDir(UPLOAD_CHECKPOINTS_NAME);
+	}
+
 	/**
 	 * Directory for bucket metadata that the archiver adds to a bucket. Unique
 	 * path for each bucket within a Splunk indexer.
@@ -190,6 +203,20 @@ public class LocalFileSystemPaths {
 				bucket);
 	}
 
+	/**
+	 * Contains the local catalogs of the archives.
+	 */
+	public File getArchiveCatalogDirectory() {
+		return createDirectoryUnderArchiverDir(ARCHIVE_CATALOG_NAME);
+	}
+
+	/**
+	 * Contains the metadata manifests downloaded from the archives.
+	 */
+	public File getMetadataManifestsDirectory() {
+		return createDirectoryUnderArchiverDir(METADATA_MANIFESTS_NAME);
+	}
+
 	public static LocalFileSystemPaths create() {
 		String archiverPath = getPathForArchiverData();
 		return new LocalFileSystemPaths(archiverPath);
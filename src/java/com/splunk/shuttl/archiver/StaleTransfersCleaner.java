@@ -0,0 +1,175 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver;
+
+import static com.splunk.shuttl.archiver.LogFormatter.*;
+import static java.util.Arrays.*;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.log4j.Logger;
+
+import com.splunk.shuttl.archiver.archive.ArchiveConfiguration;
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileStatus;
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystemFactory;
+import com.splunk.shuttl.archiver.filesystem.DeletesPaths;
+
+/**
+ * Deletes what failed transfers left behind, once it's too old to be resumed.
+ * Failed transfers keep their partial files, locally and in the archive's temp
+ * path, so that a retry can resume them. A bucket that is never retried would
+ * keep them forever. Like the {@link StartUpCleaner}, it's intended to be run
+ * when the archiver starts, when no transfers are running.
+ */
+public class StaleTransfersCleaner {
+
+	private static final Logger logger = Logger
+			.getLogger(StaleTransfersCleaner.class);
+
+	/**
+	 * Partial transfers that haven't been touched for this long are deleted.
+	 */
+	static final long DEFAULT_STALE_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+	private final List<File> localTransferDirectories;
+	private final ArchiveFileSystem archiveFileSystem;
+	private final String archiveTempPath;
+	private final long staleMillis;
+
+	/**
+	 * @param localTransferDirectories
+	 *          local directories with partial transfers.
+	 * @param archiveTempPath
+	 *          the archive's temp path for this server, where the partial
+	 *          uploads are.
+	 * @param staleMillis
+	 *          files and directories not modified for this long are deleted.
+	 */
+	public StaleTransfersCleaner(List<File> localTransferDirectories,
+			ArchiveFileSystem archiveFileSystem, String archiveTempPath,
+			long staleMillis) {
+		this.localTransferDirectories = localTransferDirectories;
+		this.archiveFileSystem = archiveFileSystem;
+		this.archiveTempPath = archiveTempPath;
+		this.staleMillis = staleMillis;
+	}
+
+	/**
+	 * Deletes the stale files, and the stale directories that only had stale
+	 * files. Failing to clean the archive is logged, since the partial
+	 * transfers are only taking space.
+	 */
+	public void clean() {
+		long staleBefore = System.currentTimeMillis() - staleMillis;
+		for (File dir : localTransferDirectories)
+			deleteStaleChildren(dir, staleBefore);
+		if (archiveFileSystem instanceof DeletesPaths)
+			cleanArchiveTemp(staleBefore);
+	}
+
+	/**
+	 * @return true if all children were deleted.
+	 */
+	private boolean deleteStaleChildren(File dir, long staleBefore) {
+		boolean deletedAll = true;
+		File[] children = dir.listFiles();
+		if (children != null)
+			for (File child : children)
+				deletedAll &= deleteStale(child, staleBefore);
+		return deletedAll;
+	}
+
+	private boolean deleteStale(File file, long staleBefore) {
+		long lastModified = file.lastModified();
+		if (file.isDirectory() && !deleteStaleChildren(file, staleBefore))
+			return false;
+		return lastModified < staleBefore && FileUtils.deleteQuietly(file);
+	}
+
+	private void cleanArchiveTemp(long staleBefore) {
+		try {
+			deleteStaleChildren(archiveTempPath, staleBefore);
+		} catch (Exception e) {
+			logger.warn(warn("Deleted stale transfers in the archive's temp path",
+					e, "will try again next start up", "temp_path", archiveTempPath));
+		}
+	}
+
+	private boolean deleteStaleChildren(String path, long staleBefore)
+			throws IOException {
+		boolean deletedAll = true;
+		for (ArchiveFileStatus child : listStatus(path))
+			deletedAll &= deleteStale(child, staleBefore);
+		return deletedAll;
+	}
+
+	/**
+	 * The modification time is the one from before the children were deleted,
+	 * since deleting them updates it on some file systems.
+	 */
+	private boolean deleteStale(ArchiveFileStatus status, long staleBefore)
+			throws IOException {
+		if (status.isDirectory()
+				&& !deleteStaleChildren(status.getPath(), staleBefore))
+			return false;
+		if (status.getModificationTime() >= staleBefore)
+			return false;
+		((DeletesPaths) archiveFileSystem).deletePath(status.getPath());
+		logger.info(done("Deleted stale transfer", "path", status.getPath()));
+		return true;
+	}
+
+	private List<ArchiveFileStatus> listStatus(String path) throws IOException {
+		try {
+			return archiveFileSystem.listStatus(path);
+		} catch (FileNotFoundException e) {
+			return Collections.emptyList();
+		}
+	}
+
+	/**
+	 * @return cleaner of the thaw transfers, the upload checkpoints and the
+	 *         configured archive's temp path.
+	 */
+	public static StaleTransfersCleaner create() {
+		LocalFileSystemPaths fsPaths = LocalFileSystemPaths.create();
+		return new StaleTransfersCleaner(asList(
+				fsPaths.getThawTransfersDirectoryForAllBuckets(),
+				fsPaths.getUploadCheckpointsDirectory()),
+				ArchiveFileSystemFactory.getConfiguredArchiveFileSystem(),
+				ArchiveConfiguration.getSharedInstance().getArchiveTempPath(),
+				DEFAULT_STALE_MILLIS);
+	}
+
+	/**
+	 * Cleans the stale transfers of the configured archiver. Failing to clean
+	 * them doesn't stop the archiver from starting.
+	 */
+	public static void cleanAtStartUp() {
+		try {
+			create().clean();
+		} catch (RuntimeException e) {
+			logger.warn(warn("Cleaned stale transfers at start up", e,
+					"will try again next start up"));
+		}
+	}
+}
@@ -55,12 +55,13 @@ public class StartUpCleaner {
 
 	/**
 	 * @return integrated instance containing all the directories that should be
-	 *         cleaned at start up.
+	 *         cleaned at start up. The thaw transfers are not cleaned, since a
+	 *         partial transfer is resumed the next time the bucket is thawed.
+	 *         {@link StaleTransfersCleaner} deletes the ones that are too old.
 	 */
 	public static StartUpCleaner create() {
 		LocalFileSystemPaths fsPaths = LocalFileSystemPaths.create();
-		return new StartUpCleaner(asList(
-				fsPaths.getThawLocksDirectoryForAllBuckets(),
-				fsPaths.getThawTransfersDirectoryForAllBuckets()));
+		return new StartUpCleaner(
+				asList(fsPaths.getThawLocksDirectoryForAllBuckets()));
 	}
 }
@@ -18,18 +18,34 @@ package com.splunk.shuttl.archiver.archive;
 import static com.splunk.shuttl.archiver.LogFormatter.*;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
+import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.log4j.Logger;
 
+import com.splunk.shuttl.archiver.catalog.AddsArchivedBuckets;
+import com.splunk.shuttl.archiver.catalog.ArchiveCatalog;
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileStatus;
 import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
 import com.splunk.shuttl.archiver.filesystem.PathResolver;
+import com.splunk.shuttl.archiver.filesystem.WritesFiles;
 import com.splunk.shuttl.archiver.filesystem.transaction.Transaction;
 import com.splunk.shuttl.archiver.filesystem.transaction.TransactionException;
 import com.splunk.shuttl.archiver.filesystem.transaction.TransactionExecuter;
 import com.splunk.shuttl.archiver.filesystem.transaction.bucket.PutBucketTransaction;
+import com.splunk.shuttl.archiver.importexport.tgz.CreatesBucketTgz;
 import com.splunk.shuttl.archiver.metastore.ArchiveBucketSize;
+import com.splunk.shuttl.archiver.metrics.BackendMetrics;
+import com.splunk.shuttl.archiver.metrics.Stage;
+import com.splunk.shuttl.archiver.metrics.StageMetrics.Timer;
 import com.splunk.shuttl.archiver.model.Bucket;
+import com.splunk.shuttl.archiver.model.LocalBucket;
+import com.splunk.shuttl.archiver.model.RemoteBucket;
 
 /**
  * Class for transferring buckets
@@ -43,14 +59,44 @@ public class ArchiveBucketTransferer {
 	private final PathResolver pathResolver;
 	private final ArchiveBucketSize archiveBucketSize;
 	private final TransactionExecuter transactionExecuter;
+	private final CreatesBucketTgz createsBucketTgz;
+	private final BackendMetrics metrics;
+	private final AddsArchivedBuckets catalog;
 
+	/**
+	 * @param createsBucketTgz
+	 *          for exporting buckets to tgz while transferring them, when the
+	 *          archive {@link WritesFiles}. Can be {@code null}, to not export
+	 *          buckets while transferring them.
+	 * @param metrics
+	 *          measures the bytes transferred and the storing of metadata.
+	 * @param catalog
+	 *          to add the buckets to, once they are archived.
+	 */
 	public ArchiveBucketTransferer(ArchiveFileSystem archive,
 			PathResolver pathResolver, ArchiveBucketSize archiveBucketSize,
-			TransactionExecuter transactionExecuter) {
+			TransactionExecuter transactionExecuter,
+			CreatesBucketTgz createsBucketTgz, BackendMetrics metrics,
+			AddsArchivedBuckets catalog) {
 		this.archiveFileSystem = archive;
 		this.pathResolver = pathResolver;
 		this.archiveBucketSize = archiveBucketSize;
 		this.transactionExecuter = transactionExecuter;
+		this.createsBucketTgz = createsBucketTgz;
+		this.metrics = metrics;
+		this.catalog = catalog;
+	}
+
+	/**
+	 * @return transferer that can not export buckets while transferring them,
+	 *         and that doesn't measure or catalog the transferred buckets.
+	 */
+	public static ArchiveBucketTransferer create(ArchiveFileSystem archive,
+			PathResolver pathResolver, ArchiveBucketSize archiveBucketSize,
+			TransactionExecuter transactionExecuter) {
+		return new ArchiveBucketTransferer(archive, pathResolver,
+				archiveBucketSize, transactionExecuter, null,
+				BackendMetrics.unregistered(), ArchiveCatalog.none());
 	}
 
 	/**
@@ -67,13 +113,148 @@ public class ArchiveBucketTransferer {
 		logger.info(will("attempting to transfer bucket to archive", "bucket",
 				bucket, "destination", destination));
 		Transaction bucketTransaction = PutBucketTransaction.create(
-				archiveFileSystem, bucket, tempPath, destination);
+				archiveFileSystem, bucket, tempPath, destination,
+				bucketSizeTransactions(bucket));
 
-		// TODO: Merge the bucket transaction and the bucketsize transaction. They
-		// should be able to be run at once with
-		// transactionExecuter.execute(Transaction... transactions)
 		bucketTransaction(bucket, bucketTransaction);
-		bucketSizeTransaction(bucket);
+		if (bucket.getSize() != null)
+			metrics.get(Stage.PREPARE).addBytes(bucket.getSize());
+		addToCatalog(bucket);
+	}
+
+	/**
+	 * @return true if the bucket can be exported to the format with
+	 *         {@link #exportBucketToArchive(LocalBucket, BucketFormat)}.
+	 */
+	public boolean canExportWhileTransferring(Bucket bucket,
+			BucketFormat format) {
+		return bucket.getFormat().equals(BucketFormat.SPLUNK_BUCKET)
+				&& format.equals(BucketFormat.SPLUNK_BUCKET_TGZ)
+				&& createsBucketTgz != null
+				&& archiveFileSystem instanceof WritesFiles;
+	}
+
+	/**
+	 * Exports the bucket to the format while it's transferred to the archive, so
+	 * that the exported bucket is never written to the local file system. The
+	 * transfer is committed the same way as
+	 * {@link #transferBucketToArchive(Bucket)}. The archived size is the size of
+	 * the written tgz. Nothing is written if the bucket was already archived, in
+	 * which case the catalog reads the size from the archive.
+	 * 
+	 * @throws FailedToArchiveBucketException
+	 *           if bucket failed to be transfered to the archive for any reason.
+	 * @throws IllegalArgumentException
+	 *           if the bucket can not be exported to the format while it's
+	 *           transferred.
+	 */
+	public void exportBucketToArchive(LocalBucket bucket, BucketFormat format) {
+		if (!canExportWhileTransferring(bucket, format))
+			throw new IllegalArgumentException("Can not export bucket: " + bucket
+					+ ", to format: " + format + " while transferring it.");
+		LocalBucket tgzBucket = bucketWithTgzFormat(bucket);
+		String destination = pathResolver.resolveArchivePath(tgzBucket);
+		String tempPath = pathResolver.resolveTempPathForBucket(tgzBucket);
+		logger.info(will("attempting to export bucket to archive", "bucket",
+				bucket, "format", format, "destination", destination));
+		CountsWrittenBytes countsWrittenBytes = new CountsWrittenBytes(
+				(WritesFiles) archiveFileSystem);
+		Transaction bucketTransaction = PutBucketTransaction.createStreamingTgz(
+				archiveFileSystem, countsWrittenBytes, createsBucketTgz, tgzBucket,
+				tempPath, destination, Collections
+						.<Transaction> singletonList(new TgzSizeTransaction(tgzBucket,
+								destination, countsWrittenBytes)));
+
+		bucketTransaction(tgzBucket, bucketTransaction);
+		long tgzSize = countsWrittenBytes.getByteCount();
+		metrics.get(Stage.PREPARE).addBytes(tgzSize);
+		addToCatalog(archivedTgz(tgzBucket, destination, tgzSize > 0 ? tgzSize
+				: null));
+	}
+
+	private static RemoteBucket archivedTgz(Bucket tgzBucket, String path,
+			Long size) {
+		return new RemoteBucket(path, tgzBucket.getIndex(), tgzBucket.getName(),
+				tgzBucket.getFormat(), size);
+	}
+
+	/**
+	 * Puts the size of the tgz once it has been written, since it's not known
+	 * before.
+	 */
+	private class TgzSizeTransaction implements Transaction {
+
+		private final Bucket tgzBucket;
+		private final String destination;
+		private final CountsWrittenBytes countsWrittenBytes;
+		private Transaction sizeTransaction;
+
+		public TgzSizeTransaction(Bucket tgzBucket, String destination,
+				CountsWrittenBytes countsWrittenBytes) {
+			this.tgzBucket = tgzBucket;
+			this.destination = destination;
+			this.countsWrittenBytes = countsWrittenBytes;
+		}
+
+		@Override
+		public void prepare() {
+			sizeTransaction = bucketSizeTransaction(archivedTgz(tgzBucket,
+					destination, countsWrittenBytes.getByteCount()));
+			sizeTransaction.prepare();
+		}
+
+		@Override
+		public void commit() {
+			if (sizeTransaction != null)
+				sizeTransaction.commit();
+		}
+
+		@Override
+		public void clean() {
+			if (sizeTransaction != null)
+				sizeTransaction.clean();
+		}
+	}
+
+	/**
+	 * Counts the bytes of the tgz as it's written, since the bucket only has the
+	 * size of its directory.
+	 */
+	private static class CountsWrittenBytes implements WritesFiles {
+
+		private final WritesFiles writesFiles;
+		private final List<CountingOutputStream> createdFiles = new ArrayList<CountingOutputStream>();
+
+		public CountsWrittenBytes(WritesFiles writesFiles) {
+			this.writesFiles = writesFiles;
+		}
+
+		@Override
+		public synchronized OutputStream createFile(String path)
+				throws IOException {
+			CountingOutputStream file = new CountingOutputStream(
+					writesFiles.createFile(path));
+			createdFiles.add(file);
+			return file;
+		}
+
+		public synchronized long getByteCount() {
+			long byteCount = 0;
+			for (CountingOutputStream file : createdFiles)
+				byteCount += file.getByteCount();
+			return byteCount;
+		}
+	}
+
+	private LocalBucket bucketWithTgzFormat(LocalBucket bucket) {
+		try {
+			return new LocalBucket(bucket.getDirectory(), bucket.getIndex(),
+					bucket.getName(), BucketFormat.SPLUNK_BUCKET_TGZ, bucket.getSize());
+		} catch (IOException e) {
+			logger.error(did("Created bucket with tgz format", e,
+					"To create the bucket", "bucket", bucket));
+			throw new FailedToArchiveBucketException(e);
+		}
 	}
 
 	private void bucketTransaction(Bucket bucket, Transaction bucketTransaction) {
@@ -82,12 +263,65 @@ public class ArchiveBucketTransferer {
 		} catch (TransactionException e) {
 			logger.error(did("Executed a bucket transaction.", e,
 					"To transfer the bucket to the archive.", "bucket", bucket));
+			addToCatalogIfCommitted(bucket);
 			throw new FailedToArchiveBucketException(e);
 		}
 	}
 
-	private void bucketSizeTransaction(Bucket bucket) {
-		archiveBucketSize.persistBucketSize(bucket);
+	/**
+	 * The bucket size is put in the temp path of the bucket before the bucket is
+	 * committed, so that the bucket is never in the archive without its size.
+	 */
+	private List<Transaction> bucketSizeTransactions(Bucket bucket) {
+		return Collections.singletonList(bucketSizeTransaction(bucket));
+	}
+
+	private Transaction bucketSizeTransaction(Bucket bucket) {
+		Timer timer = metrics.startTimer(Stage.METADATA);
+		try {
+			Transaction transaction = archiveBucketSize
+					.putBucketSizeTransaction(bucket);
+			timer.succeeded();
+			return transaction;
+		} finally {
+			timer.stop();
+		}
+	}
+
+	private void addToCatalog(Bucket bucket) {
+		catalog.add(bucket);
+	}
+
+	/**
+	 * A transaction can fail after the bucket was committed, in which case the
+	 * bucket is archived and has to be in the catalog.
+	 */
+	private void addToCatalogIfCommitted(Bucket bucket) {
+		try {
+			if (isArchived(bucket, bucket.getFormat()))
+				catalog.addIfMissing(bucket);
+		} catch (RuntimeException e) {
+			logger.warn(warn("Checked if a failed bucket transaction was committed",
+					e, "The bucket is added to the catalog if it's archived again",
+					"bucket", bucket));
+		}
+	}
+
+	/**
+	 * Adds the formats of the bucket that are archived to the catalog, if it
+	 * doesn't have them. The bucket was archived in these formats by an earlier
+	 * attempt, that may have stopped before it added them.
+	 */
+	public void addArchivedFormatsToCatalog(Bucket bucket,
+			Set<BucketFormat> archivedFormats) {
+		for (BucketFormat format : archivedFormats) {
+			String path = pathResolver.resolveArchivedBucketPath(bucket.getIndex(),
+					bucket.getName(), format);
+			Long size = archiveBucketSize.readBucketSize(new RemoteBucket(path,
+					bucket.getIndex(), bucket.getName(), format));
+			catalog.addIfMissing(new RemoteBucket(path, bucket.getIndex(),
+					bucket.getName(), format, size));
+		}
 	}
 
 	/**
@@ -101,16 +335,31 @@ public class ArchiveBucketTransferer {
 	 * @return true if the {@link Bucket} in {@link BucketFormat} is archived.
 	 */
 	public boolean isArchived(Bucket bucket, BucketFormat format) {
-		String bucketPathWithFormat = pathResolver.resolveArchivedBucketPath(
-				bucket.getIndex(), bucket.getName(), format);
-		return !listPathsForBucketPath(bucketPathWithFormat).isEmpty();
+		return getArchivedFormats(bucket).contains(format);
+	}
+
+	/**
+	 * Lists the formats home of the bucket once, instead of checking each format
+	 * with {@link #isArchived(Bucket, BucketFormat)}.
+	 * 
+	 * @return formats that the {@link Bucket} is archived in.
+	 */
+	public Set<BucketFormat> getArchivedFormats(Bucket bucket) {
+		String formatsHome = pathResolver.getFormatsHome(bucket.getIndex(),
+				bucket.getName());
+		Set<BucketFormat> archivedFormats = EnumSet.noneOf(BucketFormat.class);
+		for (ArchiveFileStatus status : listStatusOfFormatsHome(formatsHome))
+			for (BucketFormat format : BucketFormat.values())
+				if (status.isDirectory() && format.name().equals(status.getName()))
+					archivedFormats.add(format);
+		return archivedFormats;
 	}
 
-	private List<String> listPathsForBucketPath(String bucketPathWithFormat) {
+	private List<ArchiveFileStatus> listStatusOfFormatsHome(String formatsHome) {
 		try {
-			return archiveFileSystem.listPath(bucketPathWithFormat);
+			return archiveFileSystem.listStatus(formatsHome);
 		} catch (IOException e) {
-			logIOException(bucketPathWithFormat, e);
+			logIOException(formatsHome, e);
 			throw new RuntimeException(e);
 		}
 	}
@@ -19,6 +19,7 @@ import static com.splunk.shuttl.archiver.LogFormatter.*;
 
 import java.lang.ref.SoftReference;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import javax.management.InstanceNotFoundException;
@@ -33,6 +34,32 @@ public class ArchiveConfiguration {
 	private static final String ARCHIVE_DATA_DIRECTORY_NAME = "archive_data";
 	private static final String TEMPORARY_DATA_DIRECTORY_NAME = "temporary_data";
 
+	static final int DEFAULT_ARCHIVE_WORKERS = 0;
+	static final int DEFAULT_ARCHIVE_QUEUE_SIZE = 100;
+	static final int DEFAULT_ARCHIVE_FORMAT_THREADS = 0;
+	static final int DEFAULT_TGZ_COMPRESSION_LEVEL = 6;
+	static final int DEFAULT_TGZ_COMPRESSION_THREADS = 0;
+	static final int DEFAULT_ARCHIVE_UPLOAD_THREADS = 16;
+	static final int DEFAULT_ARCHIVE_UPLOAD_THREADS_PER_BUCKET = 4;
+	static final int DEFAULT_THAW_DOWNLOAD_THREADS = 16;
+	static final int DEFAULT_THAW_DOWNLOAD_THREADS_PER_BUCKET = 4;
+	static final int DEFAULT_UPLOAD_BANDWIDTH_LIMIT = 0;
+	static final int DEFAULT_UPLOAD_OPERATIONS_LIMIT = 0;
+	static final int DEFAULT_DOWNLOAD_BANDWIDTH_LIMIT = 0;
+	static final int DEFAULT_DOWNLOAD_OPERATIONS_LIMIT = 0;
+	static final int DEFAULT_BUCKET_SIZE_THREADS = 8;
+	static final int DEFAULT_BUCKET_SIZE_CACHE_SIZE = 10000;
+	static final int DEFAULT_METADATA_MANIFEST_ROLL_MINUTES = 0;
+	static final int DEFAULT_INDEX_LISTING_THREADS = 8;
+	static final int DEFAULT_THAW_BUCKET_THREADS = 4;
+	static final int DEFAULT_THAW_IMPORT_THREADS = 2;
+	static final int DEFAULT_THAW_DISK_HIGH_WATERMARK_PERCENT = 90;
+	static final int DEFAULT_THAW_EVICTION_MINUTES = 5;
+	static final List<String> DEFAULT_THAW_BUDGETS = Collections
+			.<String> emptyList();
+	static final List<String> DEFAULT_BANDWIDTH_SCHEDULE = Collections
+			.<String> emptyList();
+
 	private final String localArchiverDir;
 	private final List<BucketFormat> bucketFormats;
 	private final String clusterName;
@@ -41,11 +68,20 @@ public class ArchiveConfiguration {
 	private final String tempPath;
 	private final String archivePath;
 	private final String backendName;
+	private final Tuning tuning;
 
 	ArchiveConfiguration(String localArchiverDir,
 			List<BucketFormat> bucketFormats, String clusterName, String serverName,
 			List<BucketFormat> bucketFormatPriority, String tempPath,
 			String archivePath, String backendName) {
+		this(localArchiverDir, bucketFormats, clusterName, serverName,
+				bucketFormatPriority, tempPath, archivePath, backendName, new Tuning());
+	}
+
+	private ArchiveConfiguration(String localArchiverDir,
+			List<BucketFormat> bucketFormats, String clusterName, String serverName,
+			List<BucketFormat> bucketFormatPriority, String tempPath,
+			String archivePath, String backendName, Tuning tuning) {
 		this.localArchiverDir = localArchiverDir;
 		this.bucketFormats = bucketFormats;
 		this.clusterName = clusterName;
@@ -54,6 +90,7 @@ public class ArchiveConfiguration {
 		this.tempPath = tempPath;
 		this.archivePath = archivePath;
 		this.backendName = backendName;
+		this.tuning = tuning;
 	}
 
 	/**
@@ -103,22 +140,39 @@ public class ArchiveConfiguration {
 		String clusterName = mBean.getClusterName();
 		String serverName = mBean.getServerName();
 		List<BucketFormat> bucketFormatPriority = createFormatPriorityList(mBean);
-		return createSafeConfiguration(mBean.getLocalArchiverDir(), archivePath,
-				bucketFormats, clusterName, serverName, bucketFormatPriority,
-				backendName);
+		return new ArchiveConfiguration(mBean.getLocalArchiverDir(), bucketFormats,
+				clusterName, serverName, bucketFormatPriority,
+				getArchiveTempPath(archivePath, serverName),
+				getArchiveDataPath(archivePath), backendName, Tuning.fromMBean(mBean));
 	}
 
 	public static ArchiveConfiguration createSafeConfiguration(
 			String localArchiverDir, String archivePath,
 			List<BucketFormat> bucketFormats, String clusterName, String serverName,
 			List<BucketFormat> bucketFormatPriority, String backendName) {
-		String archiveDataPath = getChildToArchivingRoot(archivePath,
-				ARCHIVE_DATA_DIRECTORY_NAME);
-		String archiveTempPath = getChildToArchivingRoot(archivePath,
-				TEMPORARY_DATA_DIRECTORY_NAME) + "/" + serverName;
 		return new ArchiveConfiguration(localArchiverDir, bucketFormats,
-				clusterName, serverName, bucketFormatPriority, archiveTempPath,
-				archiveDataPath, backendName);
+				clusterName, serverName, bucketFormatPriority, getArchiveTempPath(
+						archivePath, serverName), getArchiveDataPath(archivePath),
+				backendName);
+	}
+
+	private static String getArchiveDataPath(String archivePath) {
+		return getChildToArchivingRoot(archivePath, ARCHIVE_DATA_DIRECTORY_NAME);
+	}
+
+	private static String getArchiveTempPath(String archivePath,
+			String serverName) {
+		return getChildToArchivingRoot(archivePath, TEMPORARY_DATA_DIRECTORY_NAME)
+				+ "/" + serverName;
+	}
+
+	private static int valueOrDefault(Integer value, int defaultValue) {
+		return value != null ? value : defaultValue;
+	}
+
+	private static List<String> valueOrDefault(List<String> value,
+			List<String> defaultValue) {
+		return value != null ? value : defaultValue;
 	}
 
 	private static List<BucketFormat> bucketFormatsFromMBean(
@@ -160,7 +214,7 @@ public class ArchiveConfiguration {
 	public ArchiveConfiguration newConfigWithServerName(String serverName) {
 		return new ArchiveConfiguration(localArchiverDir, bucketFormats,
 				clusterName, serverName, bucketFormatPriority, tempPath, archivePath,
-				backendName);
+				backendName, tuning);
 	}
 
 	/**
@@ -200,4 +254,292 @@ public class ArchiveConfiguration {
 		return backendName;
 	}
 
+	/**
+	 * @return number of workers per backend that archive buckets in the
+	 *         background. Zero means that buckets are archived on the request
+	 *         thread.
+	 */
+	public int getArchiveWorkers() {
+		return tuning.archiveWorkers;
+	}
+
+	/**
+	 * @return max number of archive jobs waiting for a worker, per backend.
+	 */
+	public int getArchiveQueueSize() {
+		return tuning.archiveQueueSize;
+	}
+
+	/**
+	 * @return number of threads exporting and transferring the formats of a
+	 *         bucket in parallel. Defaults to one thread per archive format.
+	 */
+	public int getArchiveFormatThreads() {
+		if (tuning.archiveFormatThreads > 0)
+			return tuning.archiveFormatThreads;
+		else
+			return Math.max(1, bucketFormats.size());
+	}
+
+	/**
+	 * @return gzip compression level, 1-9, for buckets exported to tgz.
+	 */
+	public int getTgzCompressionLevel() {
+		return tuning.tgzCompressionLevel;
+	}
+
+	/**
+	 * @return number of threads compressing buckets exported to tgz. Defaults to
+	 *         one thread per available processor.
+	 */
+	public int getTgzCompressionThreads() {
+		if (tuning.tgzCompressionThreads > 0)
+			return tuning.tgzCompressionThreads;
+		else
+			return Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * @return max number of files uploaded to a hadoop backend at the same time,
+	 *         shared by all buckets.
+	 */
+	public int getArchiveUploadThreads() {
+		return Math.max(1, tuning.archiveUploadThreads);
+	}
+
+	/**
+	 * @return max number of files of a bucket uploaded to a hadoop backend at
+	 *         the same time.
+	 */
+	public int getArchiveUploadThreadsPerBucket() {
+		return Math.max(1, tuning.archiveUploadThreadsPerBucket);
+	}
+
+	/**
+	 * @return max number of files downloaded from a hadoop backend at the same
+	 *         time when thawing, shared by all buckets.
+	 */
+	public int getThawDownloadThreads() {
+		return Math.max(1, tuning.thawDownloadThreads);
+	}
+
+	/**
+	 * @return max number of files of a bucket downloaded from a hadoop backend
+	 *         at the same time when thawing.
+	 */
+	public int getThawDownloadThreadsPerBucket() {
+		return Math.max(1, tuning.thawDownloadThreadsPerBucket);
+	}
+
+	/**
+	 * @return max bytes per second uploaded to the backend, for all transfers.
+	 *         Zero is unlimited.
+	 */
+	public long getUploadBandwidthLimit() {
+		return kilobytesToBytes(tuning.uploadBandwidthLimit);
+	}
+
+	private long kilobytesToBytes(int kilobytes) {
+		return Math.max(0, kilobytes) * 1024L;
+	}
+
+	/**
+	 * @return max files per second uploaded to the backend, for all transfers.
+	 *         Zero is unlimited.
+	 */
+	public int getUploadOperationsLimit() {
+		return Math.max(0, tuning.uploadOperationsLimit);
+	}
+
+	/**
+	 * @return periods of the day with another upload bandwidth limit, formatted
+	 *         as "HH:mm-HH:mm=kilobytes per second".
+	 */
+	public List<String> getUploadBandwidthSchedule() {
+		return tuning.uploadBandwidthSchedule;
+	}
+
+	/**
+	 * @return max bytes per second downloaded from the backend, for all
+	 *         transfers. Zero is unlimited.
+	 */
+	public long getDownloadBandwidthLimit() {
+		return kilobytesToBytes(tuning.downloadBandwidthLimit);
+	}
+
+	/**
+	 * @return max files per second downloaded from the backend, for all
+	 *         transfers. Zero is unlimited.
+	 */
+	public int getDownloadOperationsLimit() {
+		return Math.max(0, tuning.downloadOperationsLimit);
+	}
+
+	/**
+	 * @return periods of the day with another download bandwidth limit,
+	 *         formatted as "HH:mm-HH:mm=kilobytes per second".
+	 */
+	public List<String> getDownloadBandwidthSchedule() {
+		return tuning.downloadBandwidthSchedule;
+	}
+
+	/**
+	 * @return max number of bucket sizes read from the archive at the same time
+	 *         when listing buckets.
+	 */
+	public int getBucketSizeThreads() {
+		return Math.max(1, tuning.bucketSizeThreads);
+	}
+
+	/**
+	 * @return number of resolved bucket sizes to keep for listing buckets.
+	 */
+	public int getBucketSizeCacheSize() {
+		return tuning.bucketSizeCacheSize;
+	}
+
+	/**
+	 * @return minutes between compacting the metadata of each index into a
+	 *         manifest. Zero or less means the metadata is never compacted.
+	 */
+	public int getMetadataManifestRollMinutes() {
+		return Math.max(0, tuning.metadataManifestRollMinutes);
+	}
+
+	/**
+	 * @return number of indexes to list at the same time.
+	 */
+	public int getIndexListingThreads() {
+		return Math.max(1, tuning.indexListingThreads);
+	}
+
+	/**
+	 * @return number of buckets to thaw at the same time from the backend.
+	 */
+	public int getThawBucketThreads() {
+		return Math.max(1, tuning.thawBucketThreads);
+	}
+
+	/**
+	 * @return number of thawed buckets to import at the same time.
+	 */
+	public int getThawImportThreads() {
+		return Math.max(1, tuning.thawImportThreads);
+	}
+
+	/**
+	 * @return percentage of the thaw disk that may be used, including the space
+	 *         reserved for buckets that are being thawed. 100 means that thawing
+	 *         may fill the disk.
+	 */
+	public int getThawDiskHighWatermarkPercent() {
+		return Math.max(0, Math.min(100, tuning.thawDiskHighWatermarkPercent));
+	}
+
+	/**
+	 * @return minutes between evictions of thawed buckets that are over the
+	 *         thaw budget of their index. 0 means no eviction.
+	 */
+	public int getThawEvictionMinutes() {
+		return Math.max(0, tuning.thawEvictionMinutes);
+	}
+
+	/**
+	 * @return thaw budgets on the form index=megabytes, where the index * is the
+	 *         budget of the indexes without their own budget.
+	 */
+	public List<String> getThawBudgets() {
+		return tuning.thawBudgets;
+	}
+
+	/**
+	 * Settings that tune the archiving and thawing. Each setting has its default
+	 * until it's configured.
+	 */
+	private static class Tuning {
+
+		int archiveWorkers = DEFAULT_ARCHIVE_WORKERS;
+		int archiveQueueSize = DEFAULT_ARCHIVE_QUEUE_SIZE;
+		int archiveFormatThreads = DEFAULT_ARCHIVE_FORMAT_THREADS;
+		int tgzCompressionLevel = DEFAULT_TGZ_COMPRESSION_LEVEL;
+		int tgzCompressionThreads = DEFAULT_TGZ_COMPRESSION_THREADS;
+		int archiveUploadThreads = DEFAULT_ARCHIVE_UPLOAD_THREADS;
+		int archiveUploadThreadsPerBucket =
+				DEFAULT_ARCHIVE_UPLOAD_THREADS_PER_BUCKET;
+		int thawDownloadThreads = DEFAULT_THAW_DOWNLOAD_THREADS;
+		int thawDownloadThreadsPerBucket = DEFAULT_THAW_DOWNLOAD_THREADS_PER_BUCKET;
+		int uploadBandwidthLimit = DEFAULT_UPLOAD_BANDWIDTH_LIMIT;
+		int uploadOperationsLimit = DEFAULT_UPLOAD_OPERATIONS_LIMIT;
+		int downloadBandwidthLimit = DEFAULT_DOWNLOAD_BANDWIDTH_LIMIT;
+		int downloadOperationsLimit = DEFAULT_DOWNLOAD_OPERATIONS_LIMIT;
+		List<String> uploadBandwidthSchedule = DEFAULT_BANDWIDTH_SCHEDULE;
+		List<String> downloadBandwidthSchedule = DEFAULT_BANDWIDTH_SCHEDULE;
+		int bucketSizeThreads = DEFAULT_BUCKET_SIZE_THREADS;
+		int bucketSizeCacheSize = DEFAULT_BUCKET_SIZE_CACHE_SIZE;
+		int metadataManifestRollMinutes = DEFAULT_METADATA_MANIFEST_ROLL_MINUTES;
+		int indexListingThreads = DEFAULT_INDEX_LISTING_THREADS;
+		int thawBucketThreads = DEFAULT_THAW_BUCKET_THREADS;
+		int thawImportThreads = DEFAULT_THAW_IMPORT_THREADS;
+		int thawDiskHighWatermarkPercent = DEFAULT_THAW_DISK_HIGH_WATERMARK_PERCENT;
+		int thawEvictionMinutes = DEFAULT_THAW_EVICTION_MINUTES;
+		List<String> thawBudgets = DEFAULT_THAW_BUDGETS;
+
+		static Tuning fromMBean(ShuttlArchiverMBean mBean) {
+			Tuning tuning = new Tuning();
+			tuning.archiveWorkers = valueOrDefault(mBean.getArchiveWorkers(),
+					DEFAULT_ARCHIVE_WORKERS);
+			tuning.archiveQueueSize = valueOrDefault(mBean.getArchiveQueueSize(),
+					DEFAULT_ARCHIVE_QUEUE_SIZE);
+			tuning.archiveFormatThreads = valueOrDefault(
+					mBean.getArchiveFormatThreads(), DEFAULT_ARCHIVE_FORMAT_THREADS);
+			tuning.tgzCompressionLevel = valueOrDefault(
+					mBean.getTgzCompressionLevel(), DEFAULT_TGZ_COMPRESSION_LEVEL);
+			tuning.tgzCompressionThreads = valueOrDefault(
+					mBean.getTgzCompressionThreads(), DEFAULT_TGZ_COMPRESSION_THREADS);
+			tuning.archiveUploadThreads = valueOrDefault(
+					mBean.getArchiveUploadThreads(), DEFAULT_ARCHIVE_UPLOAD_THREADS);
+			tuning.archiveUploadThreadsPerBucket = valueOrDefault(
+					mBean.getArchiveUploadThreadsPerBucket(),
+					DEFAULT_ARCHIVE_UPLOAD_THREADS_PER_BUCKET);
+			tuning.thawDownloadThreads = valueOrDefault(
+					mBean.getThawDownloadThreads(), DEFAULT_THAW_DOWNLOAD_THREADS);
+			tuning.thawDownloadThreadsPerBucket = valueOrDefault(
+					mBean.getThawDownloadThreadsPerBucket(),
+					DEFAULT_THAW_DOWNLOAD_THREADS_PER_BUCKET);
+			tuning.uploadBandwidthLimit = valueOrDefault(
+					mBean.getUploadBandwidthLimit(), DEFAULT_UPLOAD_BANDWIDTH_LIMIT);
+			tuning.uploadOperationsLimit = valueOrDefault(
+					mBean.getUploadOperationsLimit(), DEFAULT_UPLOAD_OPERATIONS_LIMIT);
+			tuning.downloadBandwidthLimit = valueOrDefault(
+					mBean.getDownloadBandwidthLimit(), DEFAULT_DOWNLOAD_BANDWIDTH_LIMIT);
+			tuning.downloadOperationsLimit = valueOrDefault(
+					mBean.getDownloadOperationsLimit(),
+					DEFAULT_DOWNLOAD_OPERATIONS_LIMIT);
+			tuning.uploadBandwidthSchedule = valueOrDefault(
+					mBean.getUploadBandwidthSchedule(), DEFAULT_BANDWIDTH_SCHEDULE);
+			tuning.downloadBandwidthSchedule = valueOrDefault(
+					mBean.getDownloadBandwidthSchedule(), DEFAULT_BANDWIDTH_SCHEDULE);
+			tuning.bucketSizeThreads = valueOrDefault(mBean.getBucketSizeThreads(),
+					DEFAULT_BUCKET_SIZE_THREADS);
+			tuning.bucketSizeCacheSize = valueOrDefault(
+					mBean.getBucketSizeCacheSize(), DEFAULT_BUCKET_SIZE_CACHE_SIZE);
+			tuning.metadataManifestRollMinutes = valueOrDefault(
+					mBean.getMetadataManifestRollMinutes(),
+					DEFAULT_METADATA_MANIFEST_ROLL_MINUTES);
+			tuning.indexListingThreads = valueOrDefault(
+					mBean.getIndexListingThreads(), DEFAULT_INDEX_LISTING_THREADS);
+			tuning.thawBucketThreads = valueOrDefault(mBean.getThawBucketThreads(),
+					DEFAULT_THAW_BUCKET_THREADS);
+			tuning.thawImportThreads = valueOrDefault(mBean.getThawImportThreads(),
+					DEFAULT_THAW_IMPORT_THREADS);
+			tuning.thawDiskHighWatermarkPercent = valueOrDefault(
+					mBean.getThawDiskHighWatermarkPercent(),
+					DEFAULT_THAW_DISK_HIGH_WATERMARK_PERCENT);
+			tuning.thawEvictionMinutes = valueOrDefault(
+					mBean.getThawEvictionMinutes(), DEFAULT_THAW_EVICTION_MINUTES);
+			tuning.thawBudgets = valueOrDefault(mBean.getThawBudgets(),
+					DEFAULT_THAW_BUDGETS);
+			return tuning;
+		}
+	}
 }
@@ -0,0 +1,142 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.archive;
+
+import static com.splunk.shuttl.archiver.LogFormatter.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+import com.splunk.shuttl.archiver.util.DaemonThreadFactory;
+
+/**
+ * Queue of archive jobs, drained by a bounded pool of workers for each archive
+ * backend. A job is rejected with {@link ArchiveQueueFullException} when the
+ * queue of its backend is full, instead of blocking the caller.
+ */
+public class ArchiveJobQueue {
+
+	private static final Logger logger = Logger.getLogger(ArchiveJobQueue.class);
+
+	private final int workers;
+	private final int queueSize;
+	private final Map<String, ThreadPoolExecutor> executors;
+
+	/**
+	 * @param workers
+	 *          number of threads archiving buckets, per backend.
+	 * @param queueSize
+	 *          number of jobs that can wait for a worker, per backend.
+	 */
+	public ArchiveJobQueue(int workers, int queueSize) {
+		if (workers < 1 || queueSize < 1)
+			throw new IllegalArgumentException("Workers and queue size must be "
+					+ "positive. Was workers: " + workers + ", queue size: " + queueSize);
+		this.workers = workers;
+		this.queueSize = queueSize;
+		this.executors = new HashMap<String, ThreadPoolExecutor>();
+	}
+
+	/**
+	 * Queues the job to be run by a worker of the backend.
+	 * 
+	 * @return id of the queued job.
+	 * @throws ArchiveQueueFullException
+	 *           if the queue of the backend is full.
+	 */
+	public String enqueue(String backendName, Runnable job) {
+		String jobId = UUID.randomUUID().toString();
+		try {
+			getExecutor(backendName).execute(new ArchiveJob(jobId, job));
+		} catch (RejectedExecutionException e) {
+			logger.warn(warn("Queued archive job", "queue was full",
+					"will reject the job", "backend", backendName, "job_id", jobId,
+					"queue_size", queueSize));
+			throw new ArchiveQueueFullException("Archive queue for backend: "
+					+ backendName + " is full");
+		}
+		logger.info(done("Queued archive job", "backend", backendName, "job_id",
+				jobId));
+		return jobId;
+	}
+
+	/**
+	 * @return number of jobs waiting for a worker of the backend.
+	 */
+	public int getQueuedJobs(String backendName) {
+		return getExecutor(backendName).getQueue().size();
+	}
+
+	private synchronized ThreadPoolExecutor getExecutor(String backendName) {
+		ThreadPoolExecutor executor = executors.get(backendName);
+		if (executor == null) {
+			executor = new ThreadPoolExecutor(workers, workers, 0L,
+					TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(queueSize),
+					new DaemonThreadFactory("archive-worker-" + backendName));
+			executors.put(backendName, executor);
+		}
+		return executor;
+	}
+
+	private static class ArchiveJob implements Runnable {
+
+		private final String jobId;
+		private final Runnable job;
+
+		public ArchiveJob(String jobId, Runnable job) {
+			this.jobId = jobId;
+			this.job = job;
+		}
+
+		@Override
+		public void run() {
+			logger.info(will("Run archive job", "job_id", jobId));
+			try {
+				job.run();
+				logger.info(done("Run archive job", "job_id", jobId));
+			} catch (RuntimeException e) {
+				logger.error(did("Ran archive job", e, "job to archive bucket",
+						"job_id", jobId));
+			}
+		}
+	}
+
+	private static final Map<String, ArchiveJobQueue> sharedInstances = new HashMap<String, ArchiveJobQueue>();
+
+	/**
+	 * @return the archive job queue shared by the whole server for the backend,
+	 *         worker and queue sizes of the config. A config with other sizes
+	 *         gets its own queue, instead of the sizes of an earlier config.
+	 */
+	public static synchronized ArchiveJobQueue getSharedInstance(
+			ArchiveConfiguration config) {
+		int workers = config.getArchiveWorkers();
+		int queueSize = config.getArchiveQueueSize();
+		String key = config.getBackendName() + " " + workers + " " + queueSize;
+		ArchiveJobQueue queue = sharedInstances.get(key);
+		if (queue == null) {
+			queue = new ArchiveJobQueue(workers, queueSize);
+			sharedInstances.put(key, queue);
+		}
+		return queue;
+	}
+}
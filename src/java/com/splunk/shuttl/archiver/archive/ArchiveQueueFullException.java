@@ -0,0 +1,32 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.archive;
+
+import com.splunk.shuttl.archiver.archive.recovery.FailedBucketsArchiver;
+
+/**
+ * Thrown when an archive job could not be queued, because the
+ * {@link ArchiveJobQueue} was full. The bucket is left where it is, for the
+ * {@link FailedBucketsArchiver} to retry later.
+ */
+public class ArchiveQueueFullException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public ArchiveQueueFullException(String message) {
+		super(message);
+	}
+
+}
@@ -110,9 +110,13 @@ public class ArchiveRestHandler implements SharedLockBucketHandler {
 			HttpResponse response, Bucket bucket) throws HttpResponseException {
 		switch (response.getStatusLine().getStatusCode()) {
 		case HttpStatus.SC_OK:
+		case HttpStatus.SC_ACCEPTED:
 		case HttpStatus.SC_NO_CONTENT:
 			logSuccess(response, bucket, response.getStatusLine().getStatusCode());
 			break;
+		case HttpStatus.SC_SERVICE_UNAVAILABLE:
+			logArchiveQueueFull(bucket);
+			break;
 		default:
 			throw new HttpResponseException(response.getStatusLine().getStatusCode(),
 					"Unexpected response when archiving bucket.");
@@ -126,6 +130,12 @@ public class ArchiveRestHandler implements SharedLockBucketHandler {
 				entity));
 	}
 
+	private void logArchiveQueueFull(Bucket bucket) {
+		logger.warn(warn("Sent an archive bucket request",
+				"Archive queue was full", "Bucket will be retried later",
+				"bucket_name", bucket.getName()));
+	}
+
 	/**
 	 * @return entity from the response as a string.
 	 */
@@ -141,7 +151,8 @@ public class ArchiveRestHandler implements SharedLockBucketHandler {
 
 	private void logHttpResponseException(Bucket bucket, HttpResponseException e) {
 		logger.error(did("Sent an archive bucket reuqest",
-				"Got non ok http_status", "expected HttpStatus.SC_OK or SC_NO_CONTENT",
+				"Got non ok http_status",
+				"expected HttpStatus.SC_OK, SC_ACCEPTED or SC_NO_CONTENT",
 				"http_status", e.getStatusCode(), "bucket_name", bucket.getName()));
 	}
 
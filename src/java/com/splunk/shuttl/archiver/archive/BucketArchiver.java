@@ -15,6 +15,9 @@
 
 package com.splunk.shuttl.archiver.archive;
 
+import com.splunk.shuttl.archiver.metrics.Stage;
+import com.splunk.shuttl.archiver.metrics.StageMetrics.Timer;
+import com.splunk.shuttl.archiver.metrics.TransferMetrics;
 import com.splunk.shuttl.archiver.model.LocalBucket;
 
 /**
@@ -32,7 +35,18 @@ public class BucketArchiver implements BucketShuttler {
 
 	public void archiveBucket(LocalBucket bucket) {
 		bucketCopier.copyBucket(bucket);
-		bucketDeleter.deleteBucket(bucket);
+		deleteBucket(bucket);
+	}
+
+	private void deleteBucket(LocalBucket bucket) {
+		Timer timer = TransferMetrics.getShared().forIndexer()
+				.startTimer(Stage.DELETE);
+		try {
+			bucketDeleter.deleteBucket(bucket);
+			timer.succeeded();
+		} finally {
+			timer.stop();
+		}
 	}
 
 	@Override
@@ -18,14 +18,27 @@ import static com.splunk.shuttl.archiver.LogFormatter.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 
 import org.apache.log4j.Logger;
 
 import com.splunk.shuttl.archiver.importexport.BucketExportController;
+import com.splunk.shuttl.archiver.metrics.Stage;
+import com.splunk.shuttl.archiver.metrics.StageMetrics.Timer;
+import com.splunk.shuttl.archiver.metrics.TransferMetrics;
 import com.splunk.shuttl.archiver.model.LocalBucket;
+import com.splunk.shuttl.archiver.util.CallingThreadExecutor;
 
 /**
- * Copies a bucket in all formats with the {@link ArchiveBucketTransferer}.
+ * Copies a bucket in all formats with the {@link ArchiveBucketTransferer}. Each
+ * format is exported and transferred as a separate task on the
+ * {@link Executor}, so that the formats can be copied in parallel. Formats
+ * that can be exported while they are transferred are never written to the
+ * local file system.
  */
 public class BucketCopier implements BucketShuttler {
 
@@ -35,31 +48,110 @@ public class BucketCopier implements BucketShuttler {
 	private final ArchiveBucketTransferer archiveBucketTransferer;
 	private final List<BucketFormat> bucketFormats;
 	private final BucketDeleter bucketDeleter;
+	private final Executor formatExecutor;
 
+	/**
+	 * Copies the formats one at a time, on the calling thread.
+	 */
 	public BucketCopier(BucketExportController bucketExportController,
 			ArchiveBucketTransferer archiveBucketTransferer,
 			List<BucketFormat> bucketFormats, BucketDeleter bucketDeleter) {
+		this(bucketExportController, archiveBucketTransferer, bucketFormats,
+				bucketDeleter, new CallingThreadExecutor());
+	}
+
+	/**
+	 * @param formatExecutor
+	 *          runs the export and transfer of each format.
+	 */
+	public BucketCopier(BucketExportController bucketExportController,
+			ArchiveBucketTransferer archiveBucketTransferer,
+			List<BucketFormat> bucketFormats, BucketDeleter bucketDeleter,
+			Executor formatExecutor) {
 		this.bucketExportController = bucketExportController;
 		this.archiveBucketTransferer = archiveBucketTransferer;
 		this.bucketFormats = bucketFormats;
 		this.bucketDeleter = bucketDeleter;
+		this.formatExecutor = formatExecutor;
 	}
 
 	public void copyBucket(LocalBucket bucket) {
-		List<RuntimeException> copyExceptions = new ArrayList<RuntimeException>();
-		for (BucketFormat format : bucketFormats)
-			if (!archiveBucketTransferer.isArchived(bucket, format))
-				exportBucketThenCopy(bucket, format, copyExceptions);
+		Queue<RuntimeException> copyExceptions = new ConcurrentLinkedQueue<RuntimeException>();
+		List<BucketFormat> formatsToCopy = getFormatsNotArchived(bucket);
+		CountDownLatch formatsDone = new CountDownLatch(formatsToCopy.size());
+		for (BucketFormat format : formatsToCopy)
+			formatExecutor.execute(new CopyFormatTask(bucket, format,
+					copyExceptions, formatsDone));
+		waitForFormats(bucket, formatsDone);
 
 		if (!copyExceptions.isEmpty())
 			throw new RuntimeException("Got some exceptions when copying bucket: "
 					+ copyExceptions.toString());
 	}
 
+	/**
+	 * A bucket may have to be copied again after a failed attempt, where some of
+	 * the formats were archived. The attempt may have failed before it added
+	 * those formats to the catalog, so they're added now.
+	 */
+	private List<BucketFormat> getFormatsNotArchived(LocalBucket bucket) {
+		Set<BucketFormat> archivedFormats = archiveBucketTransferer
+				.getArchivedFormats(bucket);
+		if (!archivedFormats.isEmpty())
+			archiveBucketTransferer.addArchivedFormatsToCatalog(bucket,
+					archivedFormats);
+		List<BucketFormat> formatsNotArchived = new ArrayList<BucketFormat>();
+		for (BucketFormat format : bucketFormats)
+			if (!archivedFormats.contains(format))
+				formatsNotArchived.add(format);
+		return formatsNotArchived;
+	}
+
+	private void waitForFormats(LocalBucket bucket, CountDownLatch formatsDone) {
+		try {
+			formatsDone.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			logger.warn(warn("Waited for bucket formats to be copied", e,
+					"will throw exception", "bucket", bucket));
+			throw new RuntimeException(e);
+		}
+	}
+
+	private class CopyFormatTask implements Runnable {
+
+		private final LocalBucket bucket;
+		private final BucketFormat format;
+		private final Queue<RuntimeException> copyExceptions;
+		private final CountDownLatch formatsDone;
+
+		public CopyFormatTask(LocalBucket bucket, BucketFormat format,
+				Queue<RuntimeException> copyExceptions, CountDownLatch formatsDone) {
+			this.bucket = bucket;
+			this.format = format;
+			this.copyExceptions = copyExceptions;
+			this.formatsDone = formatsDone;
+		}
+
+		@Override
+		public void run() {
+			try {
+				if (archiveBucketTransferer.canExportWhileTransferring(bucket, format))
+					archiveBucketTransferer.exportBucketToArchive(bucket, format);
+				else
+					exportBucketThenCopy(bucket, format, copyExceptions);
+			} catch (RuntimeException e) {
+				logException(bucket, e);
+				copyExceptions.add(e);
+			} finally {
+				formatsDone.countDown();
+			}
+		}
+	}
+
 	private void exportBucketThenCopy(LocalBucket bucket, BucketFormat format,
-			List<RuntimeException> copyExceptions) {
-		LocalBucket exportedBucket = bucketExportController.exportBucket(bucket,
-				format);
+			Queue<RuntimeException> copyExceptions) {
+		LocalBucket exportedBucket = exportBucket(bucket, format);
 		try {
 			archiveBucketTransferer.transferBucketToArchive(exportedBucket);
 		} catch (RuntimeException e) {
@@ -71,6 +163,19 @@ public class BucketCopier implements BucketShuttler {
 		}
 	}
 
+	private LocalBucket exportBucket(LocalBucket bucket, BucketFormat format) {
+		Timer timer = TransferMetrics.getShared().forIndexer()
+				.startTimer(Stage.EXPORT);
+		try {
+			LocalBucket exportedBucket = bucketExportController.exportBucket(bucket,
+					format);
+			timer.succeeded();
+			return exportedBucket;
+		} finally {
+			timer.stop();
+		}
+	}
+
 	private void logException(LocalBucket exportedBucket, RuntimeException e) {
 		logger.debug(warn("Copied bucket", e,
 				"Will eventually throw this exception", "bucket", exportedBucket));
@@ -14,9 +14,15 @@
 // limitations under the License.
 package com.splunk.shuttl.archiver.archive;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import com.splunk.shuttl.archiver.LocalFileSystemPaths;
+import com.splunk.shuttl.archiver.catalog.ArchiveCatalog;
 import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
 import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystemFactory;
 import com.splunk.shuttl.archiver.filesystem.PathResolver;
@@ -27,6 +33,10 @@ import com.splunk.shuttl.archiver.importexport.csv.CsvExporter;
 import com.splunk.shuttl.archiver.importexport.tgz.CreatesBucketTgz;
 import com.splunk.shuttl.archiver.importexport.tgz.TgzFormatExporter;
 import com.splunk.shuttl.archiver.metastore.ArchiveBucketSize;
+import com.splunk.shuttl.archiver.metrics.BackendMetrics;
+import com.splunk.shuttl.archiver.metrics.Stage;
+import com.splunk.shuttl.archiver.metrics.TransferMetrics;
+import com.splunk.shuttl.archiver.util.DaemonThreadFactory;
 
 /**
  * Construction code for creating BucketArchivers that archives in different
@@ -52,7 +62,26 @@ public class BucketShuttlerFactory {
 	private static BucketCopier newCopierWithDependencies(
 			BucketCopierDependencies deps) {
 		return new BucketCopier(deps.exporter, deps.transferer, deps.formats,
-				deps.deleter);
+				deps.deleter, deps.formatExecutor);
+	}
+
+	private static final Map<Integer, ExecutorService> formatExecutors = new HashMap<Integer, ExecutorService>();
+
+	/**
+	 * Format copying is bounded for the whole server, no matter how many
+	 * buckets are copied at the same time. There is one pool per number of
+	 * threads, so a config never gets the number of threads of an earlier config.
+	 */
+	private static synchronized Executor getFormatExecutor(
+			ArchiveConfiguration config) {
+		int threads = Math.max(1, config.getArchiveFormatThreads());
+		ExecutorService executor = formatExecutors.get(threads);
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(threads,
+					new DaemonThreadFactory("archive-format"));
+			formatExecutors.put(threads, executor);
+		}
+		return executor;
 	}
 
 	/**
@@ -98,19 +127,27 @@ public class BucketShuttlerFactory {
 		ArchiveBucketSize archiveBucketSize = ArchiveBucketSize.create(
 				pathResolver, archiveFileSystem, localFileSystemPaths);
 
+		CreatesBucketTgz createsBucketTgz = CreatesBucketTgz.create(
+				localFileSystemPaths, config);
 		TgzFormatExporter tgzFormatExporter = TgzFormatExporter
-				.create(CreatesBucketTgz.create(localFileSystemPaths));
+				.create(createsBucketTgz);
 
 		BucketExportController bucketExportController = BucketExportController
 				.create(CsvExporter.create(bucketToCsvFileExporter), tgzFormatExporter);
+		BackendMetrics metrics = TransferMetrics.getShared().forBackend(
+				config.getBackendName());
 		ArchiveBucketTransferer bucketTransferer = new ArchiveBucketTransferer(
 				archiveFileSystem, pathResolver, archiveBucketSize,
-				new TransactionExecuter());
+				new TransactionExecuter(metrics.get(Stage.PREPARE),
+						metrics.get(Stage.COMMIT)), createsBucketTgz, metrics,
+				ArchiveCatalog.getShared(config, archiveFileSystem,
+						localFileSystemPaths));
 		BucketDeleter bucketDeleter = BucketDeleter.create();
 		List<BucketFormat> archiveFormats = config.getArchiveFormats();
 
 		BucketCopierDependencies deps = new BucketCopierDependencies(
-				bucketExportController, bucketTransferer, bucketDeleter, archiveFormats);
+				bucketExportController, bucketTransferer, bucketDeleter,
+				archiveFormats, getFormatExecutor(config));
 		return deps;
 	}
 
@@ -120,15 +157,17 @@ public class BucketShuttlerFactory {
 		public ArchiveBucketTransferer transferer;
 		public BucketDeleter deleter;
 		public List<BucketFormat> formats;
+		public Executor formatExecutor;
 
 		public BucketCopierDependencies(
 				BucketExportController bucketExportController,
 				ArchiveBucketTransferer bucketTransferer, BucketDeleter bucketDeleter,
-				List<BucketFormat> archiveFormats) {
+				List<BucketFormat> archiveFormats, Executor formatExecutor) {
 			this.exporter = bucketExportController;
 			this.transferer = bucketTransferer;
 			this.deleter = bucketDeleter;
 			this.formats = archiveFormats;
+			this.formatExecutor = formatExecutor;
 		}
 
 	}
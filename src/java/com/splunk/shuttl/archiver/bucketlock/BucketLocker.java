@@ -32,6 +32,27 @@ public abstract class BucketLocker {
 				bucketHandler);
 	}
 
+	/**
+	 * Locks the bucket the same way as
+	 * {@link #callBucketHandlerUnderSharedLock(Bucket, SharedLockBucketHandler)}
+	 * , but leaves closing the lock to the caller, so that the bucket can stay
+	 * locked while it's handed from one thread to another.
+	 * 
+	 * @return shared lock of the bucket, or null if the bucket was locked.
+	 */
+	public BucketLock tryLockShared(Bucket bucket) {
+		BucketLock bucketLock = getLockForBucket(bucket);
+		boolean locked = false;
+		try {
+			locked = bucketLock.tryLockExclusive()
+					&& bucketLock.tryConvertExclusiveToSharedLock();
+			return locked ? bucketLock : null;
+		} finally {
+			if (!locked)
+				bucketLock.closeLock();
+		}
+	}
+
 	/**
 	 * @return {@link BucketLock} instance for bucket, which knows where the
 	 *         buckets are stored.
@@ -0,0 +1,35 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.catalog;
+
+import com.splunk.shuttl.archiver.model.Bucket;
+
+/**
+ * Keeps track of the buckets that have been archived, such as an
+ * {@link ArchiveCatalog}.
+ */
+public interface AddsArchivedBuckets {
+
+	/**
+	 * Adds a bucket that has been archived.
+	 */
+	void add(Bucket bucket);
+
+	/**
+	 * Adds a bucket that was found in the archive, unless it has already been
+	 * added.
+	 */
+	void addIfMissing(Bucket bucket);
+}
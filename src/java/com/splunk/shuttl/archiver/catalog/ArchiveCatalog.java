@@ -0,0 +1,561 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.catalog;
+
+import static com.splunk.shuttl.archiver.LogFormatter.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+import com.splunk.shuttl.archiver.LocalFileSystemPaths;
+import com.splunk.shuttl.archiver.archive.ArchiveConfiguration;
+import com.splunk.shuttl.archiver.archive.BucketFormat;
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystemFactory;
+import com.splunk.shuttl.archiver.filesystem.PathResolver;
+import com.splunk.shuttl.archiver.listers.ConcurrentIndexTasks;
+import com.splunk.shuttl.archiver.metastore.ArchiveBucketSize;
+import com.splunk.shuttl.archiver.model.Bucket;
+import com.splunk.shuttl.archiver.model.RemoteBucket;
+import com.splunk.shuttl.archiver.thaw.BucketFilter;
+import com.splunk.shuttl.archiver.thaw.BucketIntervalIndex;
+
+/**
+ * Local catalog of the buckets in an archive, so that listing the archive is a
+ * local lookup instead of a crawl of the {@link ArchiveFileSystem}.<br/>
+ * <br/>
+ * The catalog is an append-only log on local disk, with an in-memory index that
+ * is read from the log the first time the catalog is used. Every archived
+ * bucket is appended and synced to the log before it's added to the index. A
+ * line that was only partly written when the server crashed is skipped, and
+ * the log is compacted every time it's read.<br/>
+ * <br/>
+ * When there is no log, or it can't be trusted, the catalog is rebuilt by
+ * crawling the archive with an {@link ArchiveCatalogCrawler}. Buckets that are
+ * archived while crawling are added once the crawl is done.<br/>
+ * <br/>
+ * The listers answer from the catalog, so listings that are asked for over and
+ * over, by polling or by every search peer, never reach the archive. There is
+ * nothing to expire, since the transferer adds each bucket to the catalog when
+ * it commits it.
+ */
+public class ArchiveCatalog implements AddsArchivedBuckets {
+
+	private static final Logger logger = Logger.getLogger(ArchiveCatalog.class);
+
+	static final String HEADER_PREFIX = "# shuttl archive catalog: ";
+
+	private static final ConcurrentMap<String, ArchiveCatalog> sharedCatalogs = new ConcurrentHashMap<String, ArchiveCatalog>();
+
+	private final File log;
+	private final String archiveKey;
+	private final ArchiveCatalogCrawler crawler;
+	private final PathResolver pathResolver;
+	private final Object loadLock = new Object();
+
+	private Indexes indexes;
+	private final Map<String, BucketIntervalIndex> intervalIndexes = new HashMap<String, BucketIntervalIndex>();
+	private List<CatalogEntry> archivedWhileCrawling;
+
+	/**
+	 * @param log
+	 *          file to keep the catalog in.
+	 * @param archiveKey
+	 *          identifies the archive, so that a log of another archive is never
+	 *          used.
+	 * @param crawler
+	 *          for rebuilding the catalog.
+	 * @param pathResolver
+	 *          for the paths of the listed buckets.
+	 */
+	public ArchiveCatalog(File log, String archiveKey,
+			ArchiveCatalogCrawler crawler, PathResolver pathResolver) {
+		this.log = log;
+		this.archiveKey = archiveKey;
+		this.crawler = crawler;
+		this.pathResolver = pathResolver;
+	}
+
+	/**
+	 * @return indexes with archived buckets.
+	 */
+	public List<String> listIndexes() {
+		Indexes loaded = getLoadedIndexes();
+		synchronized (this) {
+			return new ArrayList<String>(loaded.keySet());
+		}
+	}
+
+	/**
+	 * @return buckets archived in an index, with {@link BucketFormat} = null,
+	 *         the same way they are listed from the archive.
+	 */
+	public List<Bucket> listBucketsInIndex(String index) {
+		Indexes loaded = getLoadedIndexes();
+		synchronized (this) {
+			return createBuckets(loaded, index);
+		}
+	}
+
+	private List<Bucket> createBuckets(Indexes loaded, String index) {
+		List<Bucket> buckets = new ArrayList<Bucket>();
+		SortedMap<String, Map<BucketFormat, CatalogEntry>> bucketsInIndex = loaded
+				.get(index);
+		if (bucketsInIndex != null)
+			for (String bucketName : bucketsInIndex.keySet())
+				buckets.add(createBucket(index, bucketName));
+		return buckets;
+	}
+
+	private Bucket createBucket(String index, String bucketName) {
+		return new RemoteBucket(pathResolver.getFormatsHome(index, bucketName),
+				index, bucketName, (BucketFormat) null);
+	}
+
+	/**
+	 * Walks the buckets of the index in order of their names, from the bucket
+	 * after the name, and stops once it has the limit, so that a page never
+	 * goes through the rest of the index.
+	 * 
+	 * @param afterName
+	 *          to list the buckets after, or null to list from the first bucket.
+	 * @return at most limit buckets archived in an index within the time range,
+	 *         in order of their names, with {@link BucketFormat} = null.
+	 */
+	public List<Bucket> listBucketsInIndexAfter(String index, String afterName,
+			Date earliest, Date latest, int limit) {
+		Indexes loaded = getLoadedIndexes();
+		synchronized (this) {
+			List<Bucket> buckets = new ArrayList<Bucket>();
+			SortedMap<String, Map<BucketFormat, CatalogEntry>> bucketsInIndex = loaded
+					.get(index);
+			if (bucketsInIndex == null)
+				return buckets;
+			if (afterName != null)
+				bucketsInIndex = bucketsInIndex.tailMap(afterName);
+			for (String bucketName : bucketsInIndex.keySet()) {
+				if (buckets.size() >= limit)
+					break;
+				if (bucketName.equals(afterName))
+					continue;
+				Bucket bucket = createBucket(index, bucketName);
+				if (BucketFilter.isBucketWithinTimeRange(bucket, earliest, latest))
+					buckets.add(bucket);
+			}
+			return buckets;
+		}
+	}
+
+	/**
+	 * @return index over the time ranges of the buckets archived in an index. It
+	 *         is kept until a bucket is added to the index.
+	 */
+	public BucketIntervalIndex getBucketIntervalIndex(String index) {
+		Indexes loaded = getLoadedIndexes();
+		synchronized (this) {
+			BucketIntervalIndex intervalIndex = intervalIndexes.get(index);
+			if (intervalIndex == null) {
+				intervalIndex = new BucketIntervalIndex(createBuckets(loaded, index));
+				intervalIndexes.put(index, intervalIndex);
+			}
+			return intervalIndex;
+		}
+	}
+
+	/**
+	 * @return formats that the bucket is archived in.
+	 */
+	public List<BucketFormat> getFormats(String index, String bucketName) {
+		Indexes loaded = getLoadedIndexes();
+		synchronized (this) {
+			Map<BucketFormat, CatalogEntry> formats = loaded.getFormats(index,
+					bucketName);
+			if (formats == null)
+				return new ArrayList<BucketFormat>();
+			return new ArrayList<BucketFormat>(formats.keySet());
+		}
+	}
+
+	/**
+	 * @return the entry of a bucket's format, or null if it's not archived.
+	 */
+	public CatalogEntry getEntry(String index, String bucketName,
+			BucketFormat format) {
+		Indexes loaded = getLoadedIndexes();
+		synchronized (this) {
+			Map<BucketFormat, CatalogEntry> formats = loaded.getFormats(index,
+					bucketName);
+			return formats == null ? null : formats.get(format);
+		}
+	}
+
+	/**
+	 * Adds a bucket that has been archived. The bucket is written to the log,
+	 * when there is one, even if the catalog has not been read by this server
+	 * yet.
+	 */
+	@Override
+	public synchronized void add(Bucket bucket) {
+		CatalogEntry entry = CatalogEntry.of(bucket);
+		if (archivedWhileCrawling != null)
+			archivedWhileCrawling.add(entry);
+		else if (indexes != null || log.exists())
+			appendToLog(entry);
+		if (indexes != null)
+			indexes.put(entry);
+		intervalIndexes.remove(entry.getIndex());
+	}
+
+	/**
+	 * Adds a bucket that was found in the archive, unless the catalog has already
+	 * been read and has it. For buckets that were archived, but not added,
+	 * because the server stopped or the transfer failed after it was committed.
+	 * A bucket that is added twice is only kept once when the log is read.
+	 */
+	@Override
+	public synchronized void addIfMissing(Bucket bucket) {
+		if (indexes != null) {
+			Map<BucketFormat, CatalogEntry> formats = indexes.getFormats(
+					bucket.getIndex(), bucket.getName());
+			if (formats != null && formats.containsKey(bucket.getFormat()))
+				return;
+		}
+		add(bucket);
+	}
+
+	private void appendToLog(CatalogEntry entry) {
+		FileOutputStream out = null;
+		try {
+			out = new FileOutputStream(log, true);
+			out.write((entry.toLine() + "\n").getBytes(CatalogEntry.CHARSET));
+			out.getFD().sync();
+			out.close();
+		} catch (IOException e) {
+			logger.warn(warn("Appended an archived bucket to the catalog", e,
+					"Will rebuild the catalog the next time it's used", "entry",
+					entry, "log", log));
+			invalidate();
+		} finally {
+			IOUtils.closeQuietly(out);
+		}
+	}
+
+	/**
+	 * Throws away the catalog, so that it's rebuilt from the archive the next
+	 * time it's used.
+	 */
+	public synchronized void invalidate() {
+		indexes = null;
+		intervalIndexes.clear();
+		FileUtils.deleteQuietly(log);
+	}
+
+	/**
+	 * Only the formats are crawled while holding the load lock. The sizes are
+	 * read after it's released, so that other requests can use the catalog
+	 * while the sizes are read.
+	 */
+	private Indexes getLoadedIndexes() {
+		List<CatalogEntry> crawled;
+		Indexes loaded;
+		synchronized (loadLock) {
+			synchronized (this) {
+				if (indexes != null)
+					return indexes;
+				if (loadLog())
+					return indexes;
+				archivedWhileCrawling = new ArrayList<CatalogEntry>();
+			}
+			crawled = crawlWithErrorHandling();
+			synchronized (this) {
+				List<CatalogEntry> entries = new ArrayList<CatalogEntry>(crawled);
+				entries.addAll(archivedWhileCrawling);
+				archivedWhileCrawling = null;
+				indexes = new Indexes(entries);
+				intervalIndexes.clear();
+				writeLogWithErrorHandling();
+				loaded = indexes;
+			}
+		}
+		addSizes(loaded, crawled);
+		return loaded;
+	}
+
+	private void addSizes(Indexes loaded, List<CatalogEntry> crawled) {
+		List<CatalogEntry> sized;
+		try {
+			sized = crawler.readSizes(crawled);
+		} catch (RuntimeException e) {
+			logger.warn(warn("Read sizes of crawled buckets", e,
+					"Will read the sizes from the archive when they're needed",
+					"archive", archiveKey));
+			return;
+		}
+		synchronized (this) {
+			if (indexes != loaded)
+				return;
+			for (CatalogEntry entry : sized) {
+				Map<BucketFormat, CatalogEntry> formats = indexes.getFormats(
+						entry.getIndex(), entry.getBucketName());
+				CatalogEntry current = formats == null ? null : formats.get(entry
+						.getFormat());
+				if (current != null && current.getSize() == null)
+					indexes.put(entry);
+			}
+			writeLogWithErrorHandling();
+		}
+		logger.info(done("Read sizes of crawled buckets", "archive", archiveKey,
+				"sizes", sized.size()));
+	}
+
+	private boolean loadLog() {
+		List<CatalogEntry> entries = readLogWithErrorHandling();
+		if (entries == null)
+			return false;
+		indexes = new Indexes(entries);
+		intervalIndexes.clear();
+		writeLogWithErrorHandling();
+		return true;
+	}
+
+	private List<CatalogEntry> readLogWithErrorHandling() {
+		if (!log.exists())
+			return null;
+		try {
+			return readLog();
+		} catch (IOException e) {
+			logger.warn(warn("Read the archive catalog", e,
+					"Will rebuild the catalog from the archive", "log", log));
+			return null;
+		}
+	}
+
+	private List<CatalogEntry> readLog() throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new FileInputStream(log), CatalogEntry.CHARSET));
+		try {
+			if (!getHeader().equals(reader.readLine())) {
+				logger.info(happened("Archive catalog was of another archive",
+						"log", log, "archive", archiveKey));
+				return null;
+			}
+			List<CatalogEntry> entries = new ArrayList<CatalogEntry>();
+			String corruptLine = null;
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (corruptLine != null)
+					throw new IOException("Corrupt line in catalog: " + corruptLine);
+				CatalogEntry entry = CatalogEntry.parse(line);
+				if (entry == null)
+					corruptLine = line;
+				else
+					entries.add(entry);
+			}
+			if (corruptLine != null)
+				logger.info(happened("Skipped partly written last line of catalog",
+						"log", log, "line", corruptLine));
+			return entries;
+		} finally {
+			IOUtils.closeQuietly(reader);
+		}
+	}
+
+	private String getHeader() {
+		return HEADER_PREFIX + archiveKey;
+	}
+
+	private List<CatalogEntry> crawlWithErrorHandling() {
+		logger.info(will("Rebuild the archive catalog by crawling the archive",
+				"archive", archiveKey));
+		try {
+			List<CatalogEntry> entries = crawler.crawl();
+			logger.info(done("Rebuilt the archive catalog", "archive", archiveKey,
+					"entries", entries.size()));
+			return entries;
+		} catch (IOException e) {
+			logger.error(did("Crawled the archive", e, "To rebuild the catalog",
+					"archive", archiveKey));
+			synchronized (this) {
+				archivedWhileCrawling = null;
+			}
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void writeLogWithErrorHandling() {
+		try {
+			writeLog();
+		} catch (IOException e) {
+			logger.warn(warn("Wrote the archive catalog", e,
+					"Will rebuild the catalog the next time the server starts", "log",
+					log));
+			FileUtils.deleteQuietly(log);
+		}
+	}
+
+	/**
+	 * Writes every entry to a new file that replaces the log, so that the log is
+	 * never half written.
+	 */
+	private void writeLog() throws IOException {
+		File compacted = new File(log.getPath() + ".compacting");
+		FileOutputStream out = new FileOutputStream(compacted);
+		try {
+			StringBuilder lines = new StringBuilder(getHeader()).append('\n');
+			for (Map<String, Map<BucketFormat, CatalogEntry>> buckets : indexes
+					.values())
+				for (Map<BucketFormat, CatalogEntry> formats : buckets.values())
+					for (CatalogEntry entry : formats.values())
+						lines.append(entry.toLine()).append('\n');
+			out.write(lines.toString().getBytes(CatalogEntry.CHARSET));
+			out.getFD().sync();
+			out.close();
+		} finally {
+			IOUtils.closeQuietly(out);
+		}
+		if (!compacted.renameTo(log)) {
+			log.delete();
+			if (!compacted.renameTo(log))
+				throw new IOException("Could not replace catalog " + log + " with "
+						+ compacted);
+		}
+	}
+
+	/**
+	 * @return adds archived buckets to no catalog, for archiving without one.
+	 */
+	public static AddsArchivedBuckets none() {
+		return new AddsArchivedBuckets() {
+
+			@Override
+			public void add(Bucket bucket) {
+			}
+
+			@Override
+			public void addIfMissing(Bucket bucket) {
+			}
+		};
+	}
+
+	/**
+	 * @return the catalog shared by everything that archives to, or lists, the
+	 *         configured archive. The archive file system is only created when
+	 *         the catalog is.
+	 */
+	public static ArchiveCatalog getShared(ArchiveConfiguration config) {
+		LocalFileSystemPaths localFileSystemPaths = LocalFileSystemPaths
+				.create(config);
+		ArchiveCatalog catalog = sharedCatalogs.get(getLogPath(config,
+				localFileSystemPaths));
+		if (catalog != null)
+			return catalog;
+		return getShared(config,
+				ArchiveFileSystemFactory.getWithConfiguration(config),
+				localFileSystemPaths);
+	}
+
+	/**
+	 * @see #getShared(ArchiveConfiguration)
+	 */
+	public static ArchiveCatalog getShared(ArchiveConfiguration config,
+			ArchiveFileSystem archiveFileSystem,
+			LocalFileSystemPaths localFileSystemPaths) {
+		String logPath = getLogPath(config, localFileSystemPaths);
+		ArchiveCatalog catalog = sharedCatalogs.get(logPath);
+		if (catalog == null) {
+			PathResolver pathResolver = new PathResolver(config);
+			ArchiveCatalogCrawler crawler = new ArchiveCatalogCrawler(
+					archiveFileSystem, pathResolver, ArchiveBucketSize.create(
+							pathResolver, archiveFileSystem, localFileSystemPaths),
+					ConcurrentIndexTasks.getShared(config));
+			sharedCatalogs.putIfAbsent(logPath, new ArchiveCatalog(
+					new File(logPath), getArchiveKey(config), crawler, pathResolver));
+			catalog = sharedCatalogs.get(logPath);
+		}
+		return catalog;
+	}
+
+	private static String getLogPath(ArchiveConfiguration config,
+			LocalFileSystemPaths localFileSystemPaths) {
+		return new File(localFileSystemPaths.getArchiveCatalogDirectory(),
+				getLogName(getArchiveKey(config))).getAbsolutePath();
+	}
+
+	private static String getArchiveKey(ArchiveConfiguration config) {
+		return config.getBackendName() + " "
+				+ new PathResolver(config).getIndexesHome();
+	}
+
+	private static String getLogName(String archiveKey) {
+		return archiveKey.replaceAll("[^A-Za-z0-9.-]", "_") + "-"
+				+ Integer.toHexString(archiveKey.hashCode()) + ".log";
+	}
+
+	/**
+	 * Archived buckets by index, bucket name and format, sorted by index and
+	 * bucket name.
+	 */
+	private static class Indexes extends
+			TreeMap<String, SortedMap<String, Map<BucketFormat, CatalogEntry>>> {
+
+		private static final long serialVersionUID = 0;
+
+		public Indexes(Collection<CatalogEntry> entries) {
+			for (CatalogEntry entry : entries)
+				put(entry);
+		}
+
+		public void put(CatalogEntry entry) {
+			SortedMap<String, Map<BucketFormat, CatalogEntry>> buckets = get(entry
+					.getIndex());
+			if (buckets == null) {
+				buckets = new TreeMap<String, Map<BucketFormat, CatalogEntry>>();
+				put(entry.getIndex(), buckets);
+			}
+			Map<BucketFormat, CatalogEntry> formats = buckets.get(entry
+					.getBucketName());
+			if (formats == null) {
+				formats = new EnumMap<BucketFormat, CatalogEntry>(BucketFormat.class);
+				buckets.put(entry.getBucketName(), formats);
+			}
+			formats.put(entry.getFormat(), entry);
+		}
+
+		public Map<BucketFormat, CatalogEntry> getFormats(String index,
+				String bucketName) {
+			SortedMap<String, Map<BucketFormat, CatalogEntry>> buckets = get(index);
+			return buckets == null ? null : buckets.get(bucketName);
+		}
+	}
+}
@@ -0,0 +1,191 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.catalog;
+
+import static com.splunk.shuttl.archiver.LogFormatter.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.log4j.Logger;
+
+import com.splunk.shuttl.archiver.archive.BucketFormat;
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
+import com.splunk.shuttl.archiver.filesystem.PathResolver;
+import com.splunk.shuttl.archiver.listers.ConcurrentIndexTasks.IndexResults;
+import com.splunk.shuttl.archiver.listers.ConcurrentIndexTasks.IndexTask;
+import com.splunk.shuttl.archiver.listers.ConcurrentIndexTasks;
+import com.splunk.shuttl.archiver.metastore.ArchiveBucketSize;
+import com.splunk.shuttl.archiver.model.RemoteBucket;
+import com.splunk.shuttl.archiver.thaw.IndexFormatsLister;
+import com.splunk.shuttl.archiver.util.UtilsPath;
+
+/**
+ * Crawls the {@link ArchiveFileSystem} for every archived bucket format and its
+ * size. This is what the archive listings used to do on every request. Now
+ * it's only done when an {@link ArchiveCatalog} has to be rebuilt.<br/>
+ * <br/>
+ * The formats and the sizes are crawled separately, so that the catalog can be
+ * used as soon as the formats are known. Both run an index at a time on
+ * {@link ConcurrentIndexTasks}.
+ */
+public class ArchiveCatalogCrawler {
+
+	private static final Logger logger = Logger
+			.getLogger(ArchiveCatalogCrawler.class);
+
+	private final ArchiveFileSystem archiveFileSystem;
+	private final PathResolver pathResolver;
+	private final ArchiveBucketSize archiveBucketSize;
+	private final IndexFormatsLister indexFormatsLister;
+	private final ConcurrentIndexTasks indexTasks;
+
+	/**
+	 * The formats of an index are globbed in one call, when the archive can
+	 * glob paths.
+	 * 
+	 * @param indexTasks
+	 *          crawls the indexes.
+	 */
+	public ArchiveCatalogCrawler(ArchiveFileSystem archiveFileSystem,
+			PathResolver pathResolver, ArchiveBucketSize archiveBucketSize,
+			ConcurrentIndexTasks indexTasks) {
+		this.archiveFileSystem = archiveFileSystem;
+		this.pathResolver = pathResolver;
+		this.archiveBucketSize = archiveBucketSize;
+		this.indexFormatsLister = IndexFormatsLister.create(archiveFileSystem,
+				pathResolver);
+		this.indexTasks = indexTasks;
+	}
+
+	/**
+	 * @return an entry for every bucket format in the archive, without its size.
+	 * @throws IOException
+	 *           if the indexes or buckets could not be listed.
+	 * @see #readSizes(List)
+	 */
+	public List<CatalogEntry> crawl() throws IOException {
+		List<String> indexes = new ArrayList<String>();
+		for (String indexPath : archiveFileSystem.listPath(pathResolver
+				.getIndexesHome()))
+			indexes.add(UtilsPath.getNameOfPath(indexPath));
+
+		IndexResults<List<CatalogEntry>> entriesByIndex = indexTasks
+				.runForIndexes(indexes, new IndexTask<List<CatalogEntry>>() {
+
+					@Override
+					public List<CatalogEntry> runForIndex(String index)
+							throws IOException {
+						return crawlIndex(index);
+					}
+				});
+		Exception error = entriesByIndex.getFirstError();
+		if (error instanceof IOException)
+			throw (IOException) error;
+		entriesByIndex.throwFirstError();
+		return ConcurrentIndexTasks.concat(entriesByIndex.getResults());
+	}
+
+	private List<CatalogEntry> crawlIndex(String index) throws IOException {
+		List<CatalogEntry> entries = new ArrayList<CatalogEntry>();
+		if (indexFormatsLister != null)
+			addGlobbedFormats(entries, index);
+		else
+			for (String bucketPath : archiveFileSystem.listPath(pathResolver
+					.getBucketsHome(index)))
+				addBucketFormats(entries, index, UtilsPath.getNameOfPath(bucketPath));
+		return entries;
+	}
+
+	/**
+	 * @return the entries with their sizes read from the archive. Entries whose
+	 *         size could not be read are left out.
+	 */
+	public List<CatalogEntry> readSizes(List<CatalogEntry> entries) {
+		final Map<String, List<CatalogEntry>> entriesByIndex = new LinkedHashMap<String, List<CatalogEntry>>();
+		for (CatalogEntry entry : entries) {
+			List<CatalogEntry> entriesInIndex = entriesByIndex.get(entry.getIndex());
+			if (entriesInIndex == null) {
+				entriesInIndex = new ArrayList<CatalogEntry>();
+				entriesByIndex.put(entry.getIndex(), entriesInIndex);
+			}
+			entriesInIndex.add(entry);
+		}
+
+		IndexResults<List<CatalogEntry>> sized = indexTasks.runForIndexes(
+				new ArrayList<String>(entriesByIndex.keySet()),
+				new IndexTask<List<CatalogEntry>>() {
+
+					@Override
+					public List<CatalogEntry> runForIndex(String index) {
+						return readSizesInIndex(entriesByIndex.get(index));
+					}
+				});
+		return ConcurrentIndexTasks.concat(sized.getResults());
+	}
+
+	private List<CatalogEntry> readSizesInIndex(List<CatalogEntry> entries) {
+		List<CatalogEntry> sized = new ArrayList<CatalogEntry>();
+		for (CatalogEntry entry : entries) {
+			Long size = readSize(entry.getIndex(), entry.getBucketName(),
+					entry.getFormat());
+			if (size != null)
+				sized.add(new CatalogEntry(entry.getIndex(), entry.getBucketName(),
+						entry.getFormat(), size));
+		}
+		return sized;
+	}
+
+	private void addGlobbedFormats(List<CatalogEntry> entries, String index)
+			throws IOException {
+		for (Entry<String, List<BucketFormat>> bucketFormats : indexFormatsLister
+				.listFormatsInIndex(index).entrySet())
+			for (BucketFormat format : bucketFormats.getValue())
+				entries.add(new CatalogEntry(index, bucketFormats.getKey(), format,
+						null));
+	}
+
+	private void addBucketFormats(List<CatalogEntry> entries, String index,
+			String bucketName) throws IOException {
+		for (String formatPath : archiveFileSystem.listPath(pathResolver
+				.getFormatsHome(index, bucketName))) {
+			BucketFormat format = getFormat(formatPath);
+			if (format != null)
+				entries.add(new CatalogEntry(index, bucketName, format, null));
+		}
+	}
+
+	private BucketFormat getFormat(String formatPath) {
+		String formatName = UtilsPath.getNameOfPath(formatPath);
+		try {
+			return BucketFormat.valueOf(formatName);
+		} catch (IllegalArgumentException e) {
+			logger.warn(warn("Crawled the formats of a bucket", e,
+					"Will not add the path to the catalog", "path", formatPath));
+			return null;
+		}
+	}
+
+	private Long readSize(String index, String bucketName, BucketFormat format) {
+		String path = pathResolver.resolveArchivedBucketPath(index, bucketName,
+				format);
+		return archiveBucketSize.readBucketSize(new RemoteBucket(path, index,
+				bucketName, format));
+	}
+}
@@ -0,0 +1,119 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.catalog;
+
+import java.nio.charset.Charset;
+import java.util.zip.CRC32;
+
+import com.splunk.shuttl.archiver.archive.BucketFormat;
+import com.splunk.shuttl.archiver.model.Bucket;
+
+/**
+ * A bucket format that has been archived, as it's stored in an
+ * {@link ArchiveCatalog}. Every entry is one line in the catalog's log, with a
+ * CRC32 checksum so that a line that was only partly written can be detected.
+ */
+public class CatalogEntry {
+
+	static final Charset CHARSET = Charset.forName("UTF-8");
+
+	private static final String SEPARATOR = "\t";
+	private static final String NO_SIZE = "-";
+
+	private final String index;
+	private final String bucketName;
+	private final BucketFormat format;
+	private final Long size;
+
+	/**
+	 * @param size
+	 *          of the bucket on local disk, or null if it's unknown.
+	 */
+	public CatalogEntry(String index, String bucketName, BucketFormat format,
+			Long size) {
+		this.index = index;
+		this.bucketName = bucketName;
+		this.format = format;
+		this.size = size;
+	}
+
+	public String getIndex() {
+		return index;
+	}
+
+	public String getBucketName() {
+		return bucketName;
+	}
+
+	public BucketFormat getFormat() {
+		return format;
+	}
+
+	public Long getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the line that represents this entry in the catalog's log, without
+	 *         a line separator.
+	 */
+	public String toLine() {
+		String fields = index + SEPARATOR + bucketName + SEPARATOR + format
+				+ SEPARATOR + (size == null ? NO_SIZE : size.toString());
+		return checksum(fields) + SEPARATOR + fields;
+	}
+
+	private static long checksum(String fields) {
+		CRC32 crc = new CRC32();
+		crc.update(fields.getBytes(CHARSET));
+		return crc.getValue();
+	}
+
+	/**
+	 * @return entry from a {@link #toLine()}, or null if the line is corrupt.
+	 */
+	public static CatalogEntry parse(String line) {
+		int firstSeparator = line.indexOf(SEPARATOR);
+		if (firstSeparator < 0)
+			return null;
+		String fields = line.substring(firstSeparator + 1);
+		String[] values = fields.split(SEPARATOR);
+		if (values.length != 4)
+			return null;
+		try {
+			if (Long.parseLong(line.substring(0, firstSeparator)) != checksum(fields))
+				return null;
+			Long size = values[3].equals(NO_SIZE) ? null : Long.valueOf(values[3]);
+			return new CatalogEntry(values[0], values[1],
+					BucketFormat.valueOf(values[2]), size);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return entry for an archived bucket.
+	 */
+	public static CatalogEntry of(Bucket bucket) {
+		return new CatalogEntry(bucket.getIndex(), bucket.getName(),
+				bucket.getFormat(), bucket.getSize());
+	}
+
+	@Override
+	public String toString() {
+		return "CatalogEntry [index=" + index + ", bucketName=" + bucketName
+				+ ", format=" + format + ", size=" + size + "]";
+	}
+}
@@ -0,0 +1,73 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem;
+
+import com.splunk.shuttl.archiver.util.UtilsPath;
+
+/**
+ * What an {@link ArchiveFileSystem} knows about a listed path: its length,
+ * when it was last modified and whether it's a directory.
+ */
+public class ArchiveFileStatus {
+
+	private final String path;
+	private final long length;
+	private final long modificationTime;
+	private final boolean directory;
+
+	/**
+	 * @param length
+	 *          in bytes. Zero for directories.
+	 * @param modificationTime
+	 *          in milliseconds since the epoch.
+	 */
+	public ArchiveFileStatus(String path, long length, long modificationTime,
+			boolean directory) {
+		this.path = path;
+		this.length = length;
+		this.modificationTime = modificationTime;
+		this.directory = directory;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * @return last name of the path.
+	 */
+	public String getName() {
+		return UtilsPath.getNameOfPath(path);
+	}
+
+	public long getLength() {
+		return length;
+	}
+
+	public long getModificationTime() {
+		return modificationTime;
+	}
+
+	public boolean isDirectory() {
+		return directory;
+	}
+
+	@Override
+	public String toString() {
+		return "ArchiveFileStatus [path=" + path + ", length=" + length
+				+ ", modificationTime=" + modificationTime + ", directory="
+				+ directory + "]";
+	}
+}
@@ -39,4 +39,15 @@ public interface ArchiveFileSystem extends TransactionalFileSystem {
 	 *           If there was any other problem with the operation.
 	 */
 	List<String> listPath(String pathToBeListed) throws IOException;
+
+	/**
+	 * Lists the contents of the specified path, the same as
+	 * {@link #listPath(String)}, with the status of each listed path. Use it
+	 * instead of asking for the status of the listed paths one at a time.
+	 * 
+	 * @return status of the paths that {@link #listPath(String)} would return.
+	 * @throws IOException
+	 *           If there was any other problem with the operation.
+	 */
+	List<ArchiveFileStatus> listStatus(String pathToBeListed) throws IOException;
 }
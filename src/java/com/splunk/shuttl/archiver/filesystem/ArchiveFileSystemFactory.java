@@ -30,7 +30,10 @@ import com.splunk.shuttl.archiver.archive.ArchiveConfiguration;
 import com.splunk.shuttl.archiver.filesystem.glacier.GlacierArchiveFileSystemFactory;
 import com.splunk.shuttl.archiver.filesystem.hadoop.HadoopArchiveFileSystem;
 import com.splunk.shuttl.archiver.filesystem.hadoop.HadoopArchiveFileSystemFactory;
+import com.splunk.shuttl.archiver.filesystem.hadoop.HadoopDirectoryDownloader;
+import com.splunk.shuttl.archiver.filesystem.hadoop.HadoopDirectoryUploader;
 import com.splunk.shuttl.archiver.filesystem.s3.S3ArchiveFileSystemFactory;
+import com.splunk.shuttl.archiver.filesystem.throttle.TransferThrottle;
 
 /**
  * Factory for getting an {@link ArchiveFileSystem}
@@ -75,8 +78,23 @@ public class ArchiveFileSystemFactory {
 	 */
 	public static ArchiveFileSystem getWithConfiguration(
 			ArchiveConfiguration config) {
-		return getByNameAndLocalFileSystemPaths(config.getBackendName(),
-				LocalFileSystemPaths.create(config));
+		TransferThrottle.getShared().configure(config);
+		return withConfiguredTransfers(
+				getByNameAndLocalFileSystemPaths(config.getBackendName(),
+						LocalFileSystemPaths.create(config)), config);
+	}
+
+	private static ArchiveFileSystem withConfiguredTransfers(
+			ArchiveFileSystem archiveFileSystem, ArchiveConfiguration config) {
+		if (archiveFileSystem instanceof HadoopArchiveFileSystem) {
+			HadoopArchiveFileSystem hadoopArchive = (HadoopArchiveFileSystem) archiveFileSystem;
+			FileSystem hadoopFileSystem = hadoopArchive.getFileSystem();
+			return new HadoopArchiveFileSystem(hadoopFileSystem,
+					HadoopDirectoryUploader.create(hadoopFileSystem, config),
+					HadoopDirectoryDownloader.create(hadoopFileSystem, config));
+		} else {
+			return archiveFileSystem;
+		}
 	}
 
 	/**
@@ -0,0 +1,39 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * An {@link ArchiveFileSystem} that can list every path matching a glob
+ * pattern, such as <code>/path/*&#47;*</code>, in one call.
+ */
+public interface GlobsPaths {
+
+	/**
+	 * @return paths matching the pattern. An empty list if nothing matches.
+	 * @throws IOException
+	 *           if the paths could not be listed.
+	 */
+	List<String> globPaths(String pattern) throws IOException;
+
+	/**
+	 * @return status of the paths that {@link #globPaths(String)} would return.
+	 * @throws IOException
+	 *           if the paths could not be listed.
+	 */
+	List<ArchiveFileStatus> globStatus(String pattern) throws IOException;
+}
@@ -36,6 +36,7 @@ public class PathResolver {
 	 */
 	public static final String BUCKET_SIZE_FILE_NAME = "bucket.size";
 	private static final String METADATA_DIR_NAME = "archive_meta";
+	private static final String METADATA_MANIFESTS_DIR_NAME = "archive_manifests";
 
 	private final ArchiveConfiguration configuration;
 
@@ -122,6 +123,23 @@ public class PathResolver {
 		return getBucketsHome(index) + SEPARATOR + bucketName;
 	}
 
+	/**
+	 * @return glob pattern that matches the formats of every bucket in an index.
+	 *         The parent of a matched format is its bucket.
+	 */
+	public String getFormatsGlob(String index) {
+		return getBucketsHome(index) + SEPARATOR + "*" + SEPARATOR + "*";
+	}
+
+	/**
+	 * @return glob pattern that matches the metadata files of every bucket in an
+	 *         index. The parent of a matched file's parent is its format.
+	 */
+	public String getBucketMetadataGlob(String index) {
+		return getFormatsGlob(index) + SEPARATOR + METADATA_DIR_NAME + SEPARATOR
+				+ "*";
+	}
+
 	/**
 	 * Path to an archived bucket.
 	 * 
@@ -160,8 +178,43 @@ public class PathResolver {
 	 * @return Path to where a file with meta data for a bucket can be stored.
 	 */
 	public String resolvePathForBucketMetadata(Bucket bucket, File metadataFile) {
-		return resolveArchivePath(bucket) + SEPARATOR + METADATA_DIR_NAME
-				+ SEPARATOR + metadataFile.getName();
+		return getBucketMetadataHome(bucket) + SEPARATOR + metadataFile.getName();
+	}
+
+	/**
+	 * @return Path where the files with meta data for a bucket can be listed.
+	 */
+	public String getBucketMetadataHome(Bucket bucket) {
+		return resolveArchivePath(bucket) + SEPARATOR + METADATA_DIR_NAME;
+	}
+
+	/**
+	 * @return Path where the metadata manifests of all the indexes of the
+	 *         configured server are. It's outside of the cluster's directory, so
+	 *         that the manifests are never listed as servers, indexes or buckets.
+	 */
+	public String getMetadataManifestsHome() {
+		return configuration.getArchiveDataPath() + SEPARATOR
+				+ METADATA_MANIFESTS_DIR_NAME + SEPARATOR
+				+ configuration.getClusterName() + SEPARATOR
+				+ configuration.getServerName();
+	}
+
+	/**
+	 * @return Path where the metadata manifests of an index can be listed.
+	 */
+	public String getMetadataManifestsHome(String index) {
+		return getMetadataManifestsHome() + SEPARATOR + index;
+	}
+
+	/**
+	 * @return Path to a temporary location for a metadata manifest, where it can
+	 *         be transferred.
+	 */
+	public String resolveTempPathForMetadataManifest(String index,
+			String manifestName) {
+		return configuration.getArchiveTempPath()
+				+ getMetadataManifestsHome(index) + SEPARATOR + manifestName;
 	}
 
 	/**
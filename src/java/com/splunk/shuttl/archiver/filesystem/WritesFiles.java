@@ -0,0 +1,34 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An {@link ArchiveFileSystem} that can write its files from streams, without
+ * the data being on the local file system first.
+ */
+public interface WritesFiles {
+
+	/**
+	 * Creates the file at the path, overwriting any existing file.
+	 * 
+	 * @return stream to write the content of the file to. The caller closes it.
+	 * @throws IOException
+	 *           if the file could not be created.
+	 */
+	OutputStream createFile(String path) throws IOException;
+}
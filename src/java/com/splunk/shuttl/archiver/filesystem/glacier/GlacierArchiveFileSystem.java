@@ -24,7 +24,9 @@ import org.apache.log4j.Logger;
 
 import com.splunk.shuttl.archiver.archive.BucketDeleter;
 import com.splunk.shuttl.archiver.archive.BucketFormat;
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileStatus;
 import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
+import com.splunk.shuttl.archiver.filesystem.throttle.TransferThrottle;
 import com.splunk.shuttl.archiver.filesystem.transaction.bucket.BucketTransactionCleaner;
 import com.splunk.shuttl.archiver.filesystem.transaction.bucket.TransfersBuckets;
 import com.splunk.shuttl.archiver.filesystem.transaction.file.FileTransactionCleaner;
@@ -160,21 +162,34 @@ public class GlacierArchiveFileSystem implements ArchiveFileSystem {
 	}
 
 	@Override
-	public TransfersBuckets getBucketTransferer() {
-		return new TransfersBuckets() {
-
-			@Override
-			public void put(Bucket localBucket, String temp, String dst)
-					throws IOException {
-				putBucket((LocalBucket) localBucket, temp, dst);
-			}
+	public List<ArchiveFileStatus> listStatus(String pathToBeListed)
+			throws IOException {
+		return hadoop.listStatus(pathToBeListed);
+	}
 
-			@Override
-			public void get(Bucket remoteBucket, File temp, File dst)
-					throws IOException {
-				getBucket(remoteBucket, temp, dst);
-			}
-		};
+	/**
+	 * The glacier client only transfers whole files, so unlike the hadoop
+	 * transfers, the buckets can't be throttled per chunk. An upload takes the
+	 * limit of its whole archive before it starts, and a download is counted
+	 * once its archive is downloaded.
+	 */
+	@Override
+	public TransfersBuckets getBucketTransferer() {
+		return TransferThrottle.getShared().throttleWholeBuckets(
+				new TransfersBuckets() {
+
+					@Override
+					public void put(Bucket localBucket, String temp, String dst)
+							throws IOException {
+						putBucket((LocalBucket) localBucket, temp, dst);
+					}
+
+					@Override
+					public void get(Bucket remoteBucket, File temp, File dst)
+							throws IOException {
+						getBucket(remoteBucket, temp, dst);
+					}
+				});
 	}
 
 	@Override
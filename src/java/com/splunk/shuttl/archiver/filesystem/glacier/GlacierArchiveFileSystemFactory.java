@@ -51,7 +51,7 @@ public class GlacierArchiveFileSystemFactory {
 			LocalFileSystemPaths localFileSystemPaths, GlacierClient glacierClient,
 			ArchiveFileSystem archiveMetaStore, ArchiveConfiguration config) {
 		TgzFormatExporter tgzFormatExporter = TgzFormatExporter
-				.create(CreatesBucketTgz.create(localFileSystemPaths));
+				.create(CreatesBucketTgz.create(localFileSystemPaths, config));
 		Logger logger = Logger.getLogger(GlacierArchiveFileSystem.class);
 		BucketDeleter bucketDeleter = BucketDeleter.create();
 
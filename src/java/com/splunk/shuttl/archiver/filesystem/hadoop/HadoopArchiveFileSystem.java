@@ -17,16 +17,24 @@ package com.splunk.shuttl.archiver.filesystem.hadoop;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileStatus;
 import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
+import com.splunk.shuttl.archiver.filesystem.DeletesPaths;
 import com.splunk.shuttl.archiver.filesystem.FileOverwriteException;
+import com.splunk.shuttl.archiver.filesystem.GlobsPaths;
+import com.splunk.shuttl.archiver.filesystem.ReadsFiles;
+import com.splunk.shuttl.archiver.filesystem.WritesFiles;
+import com.splunk.shuttl.archiver.filesystem.transaction.ResumesTransfers;
 import com.splunk.shuttl.archiver.filesystem.transaction.TransactionalFileSystem;
 import com.splunk.shuttl.archiver.filesystem.transaction.bucket.BucketTransactionCleaner;
 import com.splunk.shuttl.archiver.filesystem.transaction.bucket.TransfersBuckets;
@@ -36,12 +44,27 @@ import com.splunk.shuttl.archiver.model.Bucket;
 import com.splunk.shuttl.archiver.model.LocalBucket;
 
 public class HadoopArchiveFileSystem implements ArchiveFileSystem,
-		TransactionalFileSystem {
+		TransactionalFileSystem, ReadsFiles, WritesFiles, GlobsPaths, DeletesPaths {
 
 	private final FileSystem hadoopFileSystem;
+	private final HadoopDirectoryUploader directoryUploader;
+	private final HadoopDirectoryDownloader directoryDownloader;
 
+	/**
+	 * Uploads and downloads directories as one copy.
+	 */
 	public HadoopArchiveFileSystem(FileSystem hadoopFileSystem) {
+		this(hadoopFileSystem, HadoopDirectoryUploader
+				.createSerial(hadoopFileSystem), HadoopDirectoryDownloader
+				.createSerial(hadoopFileSystem));
+	}
+
+	public HadoopArchiveFileSystem(FileSystem hadoopFileSystem,
+			HadoopDirectoryUploader directoryUploader,
+			HadoopDirectoryDownloader directoryDownloader) {
 		this.hadoopFileSystem = hadoopFileSystem;
+		this.directoryUploader = directoryUploader;
+		this.directoryDownloader = directoryDownloader;
 	}
 
 	@Override
@@ -54,20 +77,63 @@ public class HadoopArchiveFileSystem implements ArchiveFileSystem,
 			return Collections.emptyList();
 	}
 
+	@Override
+	public List<ArchiveFileStatus> listStatus(String pathToBeListed)
+			throws IOException {
+		FileStatus[] fileStatusOfPath = hadoopFileSystem.listStatus(new Path(
+				pathToBeListed));
+		List<ArchiveFileStatus> statuses = new ArrayList<ArchiveFileStatus>();
+		if (fileStatusOfPath != null)
+			for (FileStatus fileStatus : fileStatusOfPath)
+				statuses.add(toArchiveFileStatus(fileStatus));
+		return statuses;
+	}
+
+	private ArchiveFileStatus toArchiveFileStatus(FileStatus fileStatus) {
+		return new ArchiveFileStatus(fileStatus.getPath().toUri().getPath(),
+				fileStatus.getLen(), fileStatus.getModificationTime(),
+				fileStatus.isDir());
+	}
+
+	@Override
+	public List<String> globPaths(String pattern) throws IOException {
+		FileStatus[] matches = hadoopFileSystem.globStatus(new Path(pattern));
+		if (matches != null)
+			return new FileStatusBackedList(matches);
+		else
+			return Collections.emptyList();
+	}
+
+	@Override
+	public List<ArchiveFileStatus> globStatus(String pattern) throws IOException {
+		FileStatus[] matches = hadoopFileSystem.globStatus(new Path(pattern));
+		List<ArchiveFileStatus> statuses = new ArrayList<ArchiveFileStatus>();
+		if (matches != null)
+			for (FileStatus match : matches)
+				statuses.add(toArchiveFileStatus(match));
+		return statuses;
+	}
+
 	private void putFile(File src, Path temp, Path dst) throws IOException {
 		if (hadoopFileSystem.exists(dst))
 			throw new FileOverwriteException();
-		hadoopFileSystem.delete(temp, true);
-		hadoopFileSystem.copyFromLocalFile(new Path(src.getAbsoluteFile().toURI()),
-				temp);
+		directoryUploader.upload(src, temp);
 	}
 
 	private void getFile(Path src, File temp, File dst) throws IOException {
 		if (dst.exists())
 			throw new FileOverwriteException();
-		FileUtils.deleteDirectory(temp);
-		hadoopFileSystem.copyToLocalFile(src, new Path(temp.getAbsoluteFile()
-				.toURI()));
+		directoryDownloader.download(src, temp);
+	}
+
+	@Override
+	public InputStream openFile(String path) throws IOException {
+		return hadoopFileSystem.open(new Path(path));
+	}
+
+	@Override
+	public OutputStream createFile(String path) throws IOException {
+		return hadoopFileSystem.create(new Path(path), true);
 	}
 
 	@Override
@@ -90,6 +156,7 @@ public class HadoopArchiveFileSystem implements ArchiveFileSystem,
 		return hadoopFileSystem.exists(new Path(path));
 	}
 
+	@Override
 	public void deletePath(String path) {
 		try {
 			hadoopFileSystem.delete(new Path(path), true);
@@ -100,21 +167,27 @@ public class HadoopArchiveFileSystem implements ArchiveFileSystem,
 
 	@Override
 	public TransfersBuckets getBucketTransferer() {
-		return new TransfersBuckets() {
+		return new HadoopBucketTransferer();
+	}
 
-			@Override
-			public void put(Bucket bucket, String temp, String dst)
-					throws IOException {
-				LocalBucket localBucket = (LocalBucket) bucket;
-				putFile(localBucket.getDirectory(), new Path(temp), new Path(dst));
-			}
+	/**
+	 * Bucket transfers are checkpointed per file, so that a failed transfer can
+	 * be resumed.
+	 */
+	private class HadoopBucketTransferer implements TransfersBuckets,
+			ResumesTransfers {
+
+		@Override
+		public void put(Bucket bucket, String temp, String dst) throws IOException {
+			LocalBucket localBucket = (LocalBucket) bucket;
+			putFile(localBucket.getDirectory(), new Path(temp), new Path(dst));
+		}
 
-			@Override
-			public void get(Bucket remoteBucket, File temp, File dst)
-					throws IOException {
-				getFile(new Path(remoteBucket.getPath()), temp, dst);
-			}
-		};
+		@Override
+		public void get(Bucket remoteBucket, File temp, File dst)
+				throws IOException {
+			getFile(new Path(remoteBucket.getPath()), temp, dst);
+		}
 	}
 
 	@Override
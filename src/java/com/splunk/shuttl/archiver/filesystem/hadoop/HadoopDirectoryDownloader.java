@@ -0,0 +1,217 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.hadoop;
+
+import static com.splunk.shuttl.archiver.filesystem.hadoop.TransferCheckpoint.*;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import com.splunk.shuttl.archiver.archive.ArchiveConfiguration;
+import com.splunk.shuttl.archiver.filesystem.hadoop.ParallelFileCopies.FileCopy;
+import com.splunk.shuttl.archiver.filesystem.throttle.TransferThrottle;
+import com.splunk.shuttl.archiver.util.CallingThreadExecutor;
+import com.splunk.shuttl.archiver.util.DaemonThreadFactory;
+
+/**
+ * Downloads files and directories from a hadoop {@link FileSystem} to the local
+ * file system. The files of a directory are downloaded in parallel, so that
+ * thawing a bucket isn't bound by the latency of every single file.<br/>
+ * Directory downloads are checkpointed per file, so a download that is retried
+ * after failing only downloads the files that are missing or differ.
+ */
+public class HadoopDirectoryDownloader {
+
+	private final FileSystem fileSystem;
+	private final ParallelFileCopies parallelFileCopies;
+	private final TransferThrottle transferThrottle;
+
+	/**
+	 * @param downloadExecutor
+	 *          runs the file downloads. Its number of threads caps the downloads
+	 *          of all directories.
+	 * @param filesPerDirectory
+	 *          max number of files of a directory downloaded at the same time.
+	 * @param transferThrottle
+	 *          limits the bytes read from the file system.
+	 */
+	public HadoopDirectoryDownloader(FileSystem fileSystem,
+			Executor downloadExecutor, int filesPerDirectory,
+			TransferThrottle transferThrottle) {
+		this.fileSystem = fileSystem;
+		this.parallelFileCopies = new ParallelFileCopies(downloadExecutor,
+				filesPerDirectory);
+		this.transferThrottle = transferThrottle;
+	}
+
+	/**
+	 * Downloads the file or directory to dst. A directory's content ends up
+	 * directly under dst, same as {@link FileSystem#copyToLocalFile}. Files
+	 * already at dst from an earlier download of the directory are kept if they
+	 * are the same as the remote files, and deleted otherwise.
+	 */
+	public void download(Path src, File dst) throws IOException {
+		if (isDirectory(src)) {
+			downloadDirectory(src, dst);
+		} else {
+			FileUtils.deleteQuietly(dst);
+			downloadFile(src, dst);
+		}
+	}
+
+	private TransferCheckpoint downloadFile(Path src, File dst)
+			throws IOException {
+		return TransferCheckpoint.copy(
+				transferThrottle.throttleDownload(fileSystem.open(src)),
+				FileUtils.openOutputStream(dst));
+	}
+
+	private boolean isDirectory(Path src) throws IOException {
+		try {
+			return fileSystem.getFileStatus(src).isDir();
+		} catch (FileNotFoundException e) {
+			return false;
+		}
+	}
+
+	private void downloadDirectory(Path directory, File dst) throws IOException {
+		File checkpoints = new File(dst, CHECKPOINTS_DIRECTORY_NAME);
+		List<FileCopy> downloads = new ArrayList<FileCopy>();
+		makeDirectoriesAndListDownloads(directory, dst, checkpoints, downloads);
+		parallelFileCopies.copyAll(downloads);
+		FileUtils.deleteDirectory(checkpoints);
+	}
+
+	private void makeDirectoriesAndListDownloads(Path directory, File dst,
+			File checkpoints, List<FileCopy> downloads) throws IOException {
+		if (!dst.mkdirs() && !dst.isDirectory())
+			throw new IOException("Could not create directory: " + dst);
+		FileStatus[] children = fileSystem.listStatus(directory);
+		if (children == null)
+			throw new IOException("Could not list directory: " + directory);
+		deleteChildrenNotIn(dst, children);
+		for (FileStatus child : children) {
+			String name = child.getPath().getName();
+			File childDst = new File(dst, name);
+			File childCheckpoint = new File(checkpoints, name);
+			if (child.isDir())
+				makeDirectoriesAndListDownloads(child.getPath(), childDst,
+						childCheckpoint, downloads);
+			else
+				downloads.add(new DownloadFile(child, childDst, childCheckpoint));
+		}
+	}
+
+	/**
+	 * Left overs from an earlier download, which are not part of the directory.
+	 */
+	private void deleteChildrenNotIn(File dst, FileStatus[] children) {
+		Set<String> names = new HashSet<String>();
+		for (FileStatus child : children)
+			names.add(child.getPath().getName());
+		for (File downloaded : dst.listFiles())
+			if (!names.contains(downloaded.getName())
+					&& !downloaded.getName().equals(CHECKPOINTS_DIRECTORY_NAME))
+				FileUtils.deleteQuietly(downloaded);
+	}
+
+	private class DownloadFile implements FileCopy {
+
+		private final FileStatus file;
+		private final File dst;
+		private final File checkpoint;
+
+		public DownloadFile(FileStatus file, File dst, File checkpoint) {
+			this.file = file;
+			this.dst = dst;
+			this.checkpoint = checkpoint;
+		}
+
+		@Override
+		public void copy() throws IOException {
+			if (!isDownloaded())
+				writeCheckpoint(downloadFile(file.getPath(), dst));
+		}
+
+		private boolean isDownloaded() throws IOException {
+			TransferCheckpoint downloaded = readCheckpoint();
+			return downloaded != null && dst.exists()
+					&& file.getLen() == downloaded.getLength()
+					&& dst.length() == downloaded.getLength()
+					&& TransferCheckpoint.of(dst).equals(downloaded);
+		}
+
+		private TransferCheckpoint readCheckpoint() throws IOException {
+			if (!checkpoint.exists())
+				return null;
+			return TransferCheckpoint.parse(FileUtils.readFileToString(checkpoint,
+					"UTF-8"));
+		}
+
+		private void writeCheckpoint(TransferCheckpoint transferred)
+				throws IOException {
+			FileUtils.writeStringToFile(checkpoint, transferred.toString(), "UTF-8");
+		}
+
+		@Override
+		public String toString() {
+			return "DownloadFile [file=" + file.getPath() + ", dst=" + dst + "]";
+		}
+	}
+
+	private static ExecutorService sharedDownloadExecutor;
+
+	/**
+	 * All downloads of the server share the same threads, so that thawing many
+	 * buckets at the same time doesn't open a stream for every file.
+	 */
+	private static synchronized ExecutorService getSharedDownloadExecutor(
+			int threads) {
+		if (sharedDownloadExecutor == null)
+			sharedDownloadExecutor = Executors.newFixedThreadPool(threads,
+					new DaemonThreadFactory("thaw-download"));
+		return sharedDownloadExecutor;
+	}
+
+	/**
+	 * @return downloader that downloads one file at a time, on the calling
+	 *         thread.
+	 */
+	public static HadoopDirectoryDownloader createSerial(FileSystem fileSystem) {
+		return new HadoopDirectoryDownloader(fileSystem,
+				new CallingThreadExecutor(), 1, TransferThrottle.getShared());
+	}
+
+	public static HadoopDirectoryDownloader create(FileSystem fileSystem,
+			ArchiveConfiguration config) {
+		return new HadoopDirectoryDownloader(fileSystem,
+				getSharedDownloadExecutor(config.getThawDownloadThreads()),
+				config.getThawDownloadThreadsPerBucket(),
+				TransferThrottle.getShared());
+	}
+}
@@ -0,0 +1,246 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.hadoop;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import com.splunk.shuttl.archiver.LocalFileSystemPaths;
+import com.splunk.shuttl.archiver.archive.ArchiveConfiguration;
+import com.splunk.shuttl.archiver.filesystem.hadoop.ParallelFileCopies.FileCopy;
+import com.splunk.shuttl.archiver.filesystem.throttle.TransferThrottle;
+import com.splunk.shuttl.archiver.util.CallingThreadExecutor;
+import com.splunk.shuttl.archiver.util.DaemonThreadFactory;
+
+/**
+ * Uploads local files and directories to a hadoop {@link FileSystem}. The
+ * files of a directory are uploaded in parallel, so that a bucket with many
+ * files uses more than one write pipeline. For s3 and s3n, where every file is
+ * a separate request, this keeps the bandwidth from idling between files.<br/>
+ * Directory uploads are checkpointed per file, so an upload that is retried
+ * after failing only uploads the files that are missing or differ. The
+ * checkpoints are kept on the local file system, so that nothing but the files
+ * is written to the file system uploaded to.
+ */
+public class HadoopDirectoryUploader {
+
+	private final FileSystem fileSystem;
+	private final ParallelFileCopies parallelFileCopies;
+	private final TransferThrottle transferThrottle;
+	private final File checkpointsDirectory;
+
+	/**
+	 * @param uploadExecutor
+	 *          runs the file uploads. Its number of threads caps the uploads of
+	 *          all directories.
+	 * @param filesPerDirectory
+	 *          max number of files of a directory uploaded at the same time.
+	 * @param transferThrottle
+	 *          limits the bytes written to the file system.
+	 * @param checkpointsDirectory
+	 *          local directory for the checkpoints of the directory uploads, by
+	 *          the path they're uploaded to.
+	 */
+	public HadoopDirectoryUploader(FileSystem fileSystem,
+			Executor uploadExecutor, int filesPerDirectory,
+			TransferThrottle transferThrottle, File checkpointsDirectory) {
+		this.fileSystem = fileSystem;
+		this.parallelFileCopies = new ParallelFileCopies(uploadExecutor,
+				filesPerDirectory);
+		this.transferThrottle = transferThrottle;
+		this.checkpointsDirectory = checkpointsDirectory;
+	}
+
+	/**
+	 * Uploads the file or directory to dst. A directory's content ends up
+	 * directly under dst, same as {@link FileSystem#copyFromLocalFile}. Files
+	 * already at dst from an earlier upload of the directory are kept if they
+	 * are the same as the local files, and deleted otherwise.
+	 */
+	public void upload(File src, Path dst) throws IOException {
+		if (src.isDirectory()) {
+			uploadDirectory(src, dst);
+		} else {
+			fileSystem.delete(dst, true);
+			uploadFile(src, dst);
+		}
+	}
+
+	private TransferCheckpoint uploadFile(File src, Path dst)
+			throws IOException {
+		return TransferCheckpoint.copy(new FileInputStream(src),
+				transferThrottle.throttleUpload(fileSystem.create(dst, true)));
+	}
+
+	/**
+	 * The checkpoints are kept until all files are uploaded, so that a retry of a
+	 * failed upload can skip the files that are already done.
+	 */
+	private void uploadDirectory(File directory, Path dst) throws IOException {
+		File checkpoints = getCheckpoints(dst);
+		List<FileCopy> uploads = new ArrayList<FileCopy>();
+		makeDirectoriesAndListUploads(directory, dst, checkpoints, uploads);
+		parallelFileCopies.copyAll(uploads);
+		FileUtils.deleteDirectory(checkpoints);
+	}
+
+	private File getCheckpoints(Path dst) {
+		return new File(checkpointsDirectory, dst.toUri().getPath());
+	}
+
+	private void makeDirectoriesAndListUploads(File directory, Path dst,
+			File checkpoints, List<FileCopy> uploads) throws IOException {
+		fileSystem.mkdirs(dst);
+		File[] children = directory.listFiles();
+		if (children == null)
+			throw new IOException("Could not list directory: " + directory);
+		Map<String, FileStatus> uploaded = listUploaded(dst, children);
+		for (File child : children) {
+			String name = child.getName();
+			Path childDst = new Path(dst, name);
+			File childCheckpoint = new File(checkpoints, name);
+			if (child.isDirectory())
+				makeDirectoriesAndListUploads(child, childDst, childCheckpoint,
+						uploads);
+			else
+				uploads.add(new UploadFile(child, childDst, childCheckpoint,
+						uploaded.get(name)));
+		}
+	}
+
+	/**
+	 * Deletes left overs from an earlier upload, which are not part of the
+	 * directory.
+	 * 
+	 * @return status of the children that are already at dst, by name.
+	 */
+	private Map<String, FileStatus> listUploaded(Path dst, File[] children)
+			throws IOException {
+		Set<String> names = new HashSet<String>();
+		for (File child : children)
+			names.add(child.getName());
+		Map<String, FileStatus> uploaded = new HashMap<String, FileStatus>();
+		FileStatus[] statuses = fileSystem.listStatus(dst);
+		if (statuses != null)
+			for (FileStatus status : statuses) {
+				String name = status.getPath().getName();
+				if (names.contains(name))
+					uploaded.put(name, status);
+				else
+					fileSystem.delete(status.getPath(), true);
+			}
+		return uploaded;
+	}
+
+	private class UploadFile implements FileCopy {
+
+		private final File file;
+		private final Path dst;
+		private final File checkpoint;
+		private final FileStatus uploaded;
+
+		/**
+		 * @param uploaded
+		 *          status of dst, or null if it doesn't exist.
+		 */
+		public UploadFile(File file, Path dst, File checkpoint,
+				FileStatus uploaded) {
+			this.file = file;
+			this.dst = dst;
+			this.checkpoint = checkpoint;
+			this.uploaded = uploaded;
+		}
+
+		@Override
+		public void copy() throws IOException {
+			if (!isUploaded())
+				writeCheckpoint(uploadFile(file, dst));
+		}
+
+		private boolean isUploaded() throws IOException {
+			if (uploaded == null || uploaded.getLen() != file.length())
+				return false;
+			TransferCheckpoint transferred = readCheckpoint();
+			return transferred != null && transferred.getLength() == file.length()
+					&& TransferCheckpoint.of(file).equals(transferred);
+		}
+
+		private TransferCheckpoint readCheckpoint() throws IOException {
+			if (!checkpoint.exists())
+				return null;
+			return TransferCheckpoint.parse(FileUtils.readFileToString(checkpoint,
+					"UTF-8"));
+		}
+
+		private void writeCheckpoint(TransferCheckpoint transferred)
+				throws IOException {
+			FileUtils.writeStringToFile(checkpoint, transferred.toString(), "UTF-8");
+		}
+
+		@Override
+		public String toString() {
+			return "UploadFile [file=" + file + ", dst=" + dst + "]";
+		}
+	}
+
+	private static ExecutorService sharedUploadExecutor;
+
+	/**
+	 * All uploads of the server share the same threads, which caps the number of
+	 * files uploaded at the same time.
+	 */
+	private static synchronized ExecutorService getSharedUploadExecutor(
+			int threads) {
+		if (sharedUploadExecutor == null)
+			sharedUploadExecutor = Executors.newFixedThreadPool(threads,
+					new DaemonThreadFactory("archive-upload"));
+		return sharedUploadExecutor;
+	}
+
+	/**
+	 * @return uploader that uploads one file at a time, on the calling thread.
+	 *         It keeps its checkpoints in the temp directory, since it doesn't
+	 *         know the archiver's directory.
+	 */
+	public static HadoopDirectoryUploader createSerial(FileSystem fileSystem) {
+		return new HadoopDirectoryUploader(fileSystem,
+				new CallingThreadExecutor(), 1, TransferThrottle.getShared(),
+				new File(FileUtils.getTempDirectory(), "shuttl-upload-checkpoints"));
+	}
+
+	public static HadoopDirectoryUploader create(FileSystem fileSystem,
+			ArchiveConfiguration config) {
+		return new HadoopDirectoryUploader(fileSystem,
+				getSharedUploadExecutor(config.getArchiveUploadThreads()),
+				config.getArchiveUploadThreadsPerBucket(),
+				TransferThrottle.getShared(), LocalFileSystemPaths.create(config)
+						.getUploadCheckpointsDirectory());
+	}
+}
@@ -0,0 +1,121 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.hadoop;
+
+import static com.splunk.shuttl.archiver.LogFormatter.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Runs copies of files on an {@link Executor}, with at most a max number of
+ * copies at the same time, and waits for them to finish. Used for transferring
+ * the files of a directory in parallel.
+ */
+class ParallelFileCopies {
+
+	private static final Logger logger = Logger
+			.getLogger(ParallelFileCopies.class);
+
+	/**
+	 * A copy of one file.
+	 */
+	interface FileCopy {
+
+		void copy() throws IOException;
+	}
+
+	private final Executor executor;
+	private final int maxParallelCopies;
+
+	public ParallelFileCopies(Executor executor, int maxParallelCopies) {
+		if (maxParallelCopies < 1)
+			throw new IllegalArgumentException("maxParallelCopies must be positive,"
+					+ " was: " + maxParallelCopies);
+		this.executor = executor;
+		this.maxParallelCopies = maxParallelCopies;
+	}
+
+	/**
+	 * Runs all the copies. When a copy fails, no more copies are started and the
+	 * exception is thrown when the copies that are running are done.
+	 */
+	public void copyAll(List<FileCopy> copies) throws IOException {
+		Semaphore copySlots = new Semaphore(maxParallelCopies);
+		Queue<IOException> copyExceptions = new ConcurrentLinkedQueue<IOException>();
+		for (FileCopy copy : copies) {
+			acquire(copySlots, 1);
+			if (!copyExceptions.isEmpty()) {
+				copySlots.release();
+				break;
+			}
+			executor.execute(new CopyTask(copy, copySlots, copyExceptions));
+		}
+		acquire(copySlots, maxParallelCopies);
+		copySlots.release(maxParallelCopies);
+
+		if (!copyExceptions.isEmpty())
+			throw copyExceptions.peek();
+	}
+
+	private void acquire(Semaphore semaphore, int permits) throws IOException {
+		try {
+			semaphore.acquire(permits);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while copying files", e);
+		}
+	}
+
+	private static class CopyTask implements Runnable {
+
+		private final FileCopy copy;
+		private final Semaphore copySlots;
+		private final Queue<IOException> copyExceptions;
+
+		public CopyTask(FileCopy copy, Semaphore copySlots,
+				Queue<IOException> copyExceptions) {
+			this.copy = copy;
+			this.copySlots = copySlots;
+			this.copyExceptions = copyExceptions;
+		}
+
+		@Override
+		public void run() {
+			try {
+				copy.copy();
+			} catch (IOException e) {
+				logException(e);
+				copyExceptions.add(e);
+			} catch (RuntimeException e) {
+				logException(e);
+				copyExceptions.add(new IOException(e));
+			} finally {
+				copySlots.release();
+			}
+		}
+
+		private void logException(Exception e) {
+			logger.warn(warn("Copied file", e, "will fail the copying of all files",
+					"copy", copy));
+		}
+	}
+}
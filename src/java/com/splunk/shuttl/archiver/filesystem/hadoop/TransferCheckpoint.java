@@ -0,0 +1,131 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.hadoop;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * The length and CRC32 checksum of a file that has been transferred. It's
+ * stored on the local file system, so that a transfer that failed half way can
+ * skip the files that were already transferred when it's retried.
+ */
+class TransferCheckpoint {
+
+	/**
+	 * Directory in a download's local dst with a checkpoint for every file that
+	 * is done. It's removed when all files have been transferred.
+	 */
+	static final String CHECKPOINTS_DIRECTORY_NAME = ".shuttl-checkpoints";
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final long length;
+	private final long checksum;
+
+	public TransferCheckpoint(long length, long checksum) {
+		this.length = length;
+		this.checksum = checksum;
+	}
+
+	public long getLength() {
+		return length;
+	}
+
+	public long getChecksum() {
+		return checksum;
+	}
+
+	/**
+	 * @return checkpoint with the current length and checksum of the file.
+	 */
+	public static TransferCheckpoint of(File file) throws IOException {
+		CheckedInputStream in = new CheckedInputStream(new FileInputStream(file),
+				new CRC32());
+		try {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			long length = 0;
+			int read;
+			while ((read = in.read(buffer)) != -1)
+				length += read;
+			return new TransferCheckpoint(length, in.getChecksum().getValue());
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+	}
+
+	/**
+	 * Copies the stream and closes both streams.
+	 * 
+	 * @return checkpoint of the copied bytes.
+	 */
+	public static TransferCheckpoint copy(InputStream in, OutputStream out)
+			throws IOException {
+		CheckedInputStream checkedIn = new CheckedInputStream(in, new CRC32());
+		try {
+			long length = IOUtils.copyLarge(checkedIn, out);
+			out.close();
+			return new TransferCheckpoint(length, checkedIn.getChecksum()
+					.getValue());
+		} finally {
+			IOUtils.closeQuietly(checkedIn);
+			IOUtils.closeQuietly(out);
+		}
+	}
+
+	/**
+	 * @return checkpoint from the {@link #toString()} of a checkpoint, or null if
+	 *         it's not a checkpoint.
+	 */
+	public static TransferCheckpoint parse(String checkpoint) {
+		String[] lengthAndChecksum = checkpoint.trim().split(" ");
+		if (lengthAndChecksum.length != 2)
+			return null;
+		try {
+			return new TransferCheckpoint(Long.parseLong(lengthAndChecksum[0]),
+					Long.parseLong(lengthAndChecksum[1]));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return length + " " + checksum;
+	}
+
+	@Override
+	public int hashCode() {
+		int result = (int) (length ^ (length >>> 32));
+		return 31 * result + (int) (checksum ^ (checksum >>> 32));
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null || getClass() != obj.getClass())
+			return false;
+		TransferCheckpoint other = (TransferCheckpoint) obj;
+		return length == other.length && checksum == other.checksum;
+	}
+}
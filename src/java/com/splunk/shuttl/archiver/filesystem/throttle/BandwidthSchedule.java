@@ -0,0 +1,109 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.throttle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Periods of the day with their own bandwidth limit. A period is formatted as
+ * "HH:mm-HH:mm=kilobytes per second", and ends the next day if it ends before
+ * it starts, e.g. "22:00-06:00=10240".
+ */
+class BandwidthSchedule {
+
+	private static final Pattern PERIOD_PATTERN = Pattern
+			.compile("(\\d{1,2}):(\\d{2})-(\\d{1,2}):(\\d{2})=(\\d+)");
+	private static final int MINUTES_PER_DAY = 24 * 60;
+
+	private final List<Period> periods;
+
+	private BandwidthSchedule(List<Period> periods) {
+		this.periods = periods;
+	}
+
+	/**
+	 * @return bytes per second of the first period that contains the minute of
+	 *         the day, or the default limit if there is none.
+	 */
+	long getBandwidthLimit(int minuteOfDay, long defaultLimit) {
+		for (Period period : periods)
+			if (period.contains(minuteOfDay))
+				return period.bytesPerSecond;
+		return defaultLimit;
+	}
+
+	boolean isEmpty() {
+		return periods.isEmpty();
+	}
+
+	/**
+	 * @throws IllegalArgumentException
+	 *           if a period is not formatted as "HH:mm-HH:mm=kilobytes".
+	 */
+	static BandwidthSchedule parse(List<String> periods) {
+		List<Period> parsed = new ArrayList<Period>();
+		if (periods != null)
+			for (String period : periods)
+				parsed.add(parsePeriod(period.trim()));
+		return new BandwidthSchedule(parsed);
+	}
+
+	private static Period parsePeriod(String period) {
+		Matcher matcher = PERIOD_PATTERN.matcher(period);
+		if (!matcher.matches())
+			throw new IllegalArgumentException("Bandwidth period should be "
+					+ "formatted as HH:mm-HH:mm=kilobytes, but was: " + period);
+		int start = minuteOfDay(matcher.group(1), matcher.group(2), period);
+		int end = minuteOfDay(matcher.group(3), matcher.group(4), period);
+		long kilobytes = Long.parseLong(matcher.group(5));
+		return new Period(start, end, kilobytes * 1024);
+	}
+
+	private static int minuteOfDay(String hours, String minutes, String period) {
+		int h = Integer.parseInt(hours);
+		int m = Integer.parseInt(minutes);
+		if (h > 24 || m > 59 || (h == 24 && m > 0))
+			throw new IllegalArgumentException("Invalid time of day in bandwidth "
+					+ "period: " + period);
+		return (h * 60 + m) % MINUTES_PER_DAY;
+	}
+
+	static BandwidthSchedule empty() {
+		return new BandwidthSchedule(new ArrayList<Period>());
+	}
+
+	private static class Period {
+
+		private final int start;
+		private final int end;
+		private final long bytesPerSecond;
+
+		public Period(int start, int end, long bytesPerSecond) {
+			this.start = start;
+			this.end = end;
+			this.bytesPerSecond = bytesPerSecond;
+		}
+
+		public boolean contains(int minuteOfDay) {
+			if (start < end)
+				return start <= minuteOfDay && minuteOfDay < end;
+			else
+				return start <= minuteOfDay || minuteOfDay < end;
+		}
+	}
+}
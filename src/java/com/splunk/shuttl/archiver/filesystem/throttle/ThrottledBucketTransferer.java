@@ -0,0 +1,97 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.throttle;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.splunk.shuttl.archiver.filesystem.transaction.ResumesTransfers;
+import com.splunk.shuttl.archiver.filesystem.transaction.bucket.TransfersBuckets;
+import com.splunk.shuttl.archiver.model.Bucket;
+import com.splunk.shuttl.archiver.model.LocalBucket;
+
+/**
+ * Transfers buckets with another {@link TransfersBuckets}, within the limits
+ * of the upload and download {@link TransferLimiter}s. The limits are taken for
+ * whole buckets, so it's only for transferers that don't transfer through
+ * streams that can be throttled.
+ */
+class ThrottledBucketTransferer implements TransfersBuckets {
+
+	private final TransfersBuckets transfersBuckets;
+	private final TransferLimiter uploadLimiter;
+	private final TransferLimiter downloadLimiter;
+
+	ThrottledBucketTransferer(TransfersBuckets transfersBuckets,
+			TransferLimiter uploadLimiter, TransferLimiter downloadLimiter) {
+		this.transfersBuckets = transfersBuckets;
+		this.uploadLimiter = uploadLimiter;
+		this.downloadLimiter = downloadLimiter;
+	}
+
+	@Override
+	public void put(Bucket localBucket, String temp, String dst)
+			throws IOException {
+		File local = localFile(localBucket);
+		uploadLimiter.acquire(local);
+		transfersBuckets.put(localBucket, temp, dst);
+		uploadLimiter.transferred(local);
+	}
+
+	private File localFile(Bucket bucket) {
+		if (bucket instanceof LocalBucket)
+			return ((LocalBucket) bucket).getDirectory();
+		else
+			return new File(bucket.getPath());
+	}
+
+	/**
+	 * The size of a remote bucket isn't always known, so the bucket is counted
+	 * once it's downloaded, which makes the next downloads wait if the limit was
+	 * exceeded.
+	 */
+	@Override
+	public void get(Bucket remoteBucket, File temp, File dst) throws IOException {
+		downloadLimiter.acquire(0, 0);
+		transfersBuckets.get(remoteBucket, temp, dst);
+		File local = temp.exists() ? temp : dst;
+		downloadLimiter.charge(local);
+		downloadLimiter.transferred(local);
+	}
+
+	/**
+	 * @return {@link ThrottledBucketTransferer} which is also a
+	 *         {@link ResumesTransfers} if the throttled transferer is one.
+	 */
+	static ThrottledBucketTransferer create(TransfersBuckets transfersBuckets,
+			TransferLimiter uploadLimiter, TransferLimiter downloadLimiter) {
+		if (transfersBuckets instanceof ResumesTransfers)
+			return new ThrottledResumingBucketTransferer(transfersBuckets,
+					uploadLimiter, downloadLimiter);
+		else
+			return new ThrottledBucketTransferer(transfersBuckets, uploadLimiter,
+					downloadLimiter);
+	}
+
+	private static class ThrottledResumingBucketTransferer extends
+			ThrottledBucketTransferer implements ResumesTransfers {
+
+		public ThrottledResumingBucketTransferer(
+				TransfersBuckets transfersBuckets, TransferLimiter uploadLimiter,
+				TransferLimiter downloadLimiter) {
+			super(transfersBuckets, uploadLimiter, downloadLimiter);
+		}
+	}
+}
@@ -0,0 +1,56 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.throttle;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads within the limits of a {@link TransferLimiter}. Reads at most a chunk
+ * at a time, and takes the permits of what was read before returning it, which
+ * makes the next read wait if the limit was exceeded.
+ */
+class ThrottledInputStream extends FilterInputStream {
+
+	private final TransferLimiter limiter;
+
+	ThrottledInputStream(InputStream in, TransferLimiter limiter) {
+		super(in);
+		this.limiter = limiter;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = in.read();
+		if (b != -1)
+			charge(1);
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int read = in.read(b, off,
+				Math.min(len, ThrottledOutputStream.CHUNK_SIZE));
+		if (read > 0)
+			charge(read);
+		return read;
+	}
+
+	private void charge(int byteCount) throws IOException {
+		limiter.acquire(byteCount, 0);
+		limiter.transferred(byteCount);
+	}
+}
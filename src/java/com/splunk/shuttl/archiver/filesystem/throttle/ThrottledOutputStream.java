@@ -0,0 +1,55 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.throttle;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes within the limits of a {@link TransferLimiter}, by waiting for the
+ * permits of every chunk before it's written. Large writes are split into
+ * chunks, so that one write doesn't take a long burst of permits.
+ */
+class ThrottledOutputStream extends FilterOutputStream {
+
+	static final int CHUNK_SIZE = 64 * 1024;
+
+	private final TransferLimiter limiter;
+
+	ThrottledOutputStream(OutputStream out, TransferLimiter limiter) {
+		super(out);
+		this.limiter = limiter;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		limiter.acquire(1, 0);
+		out.write(b);
+		limiter.transferred(1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			int chunk = Math.min(len, CHUNK_SIZE);
+			limiter.acquire(chunk, 0);
+			out.write(b, off, chunk);
+			limiter.transferred(chunk);
+			off += chunk;
+			len -= chunk;
+		}
+	}
+}
@@ -0,0 +1,50 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.throttle;
+
+/**
+ * Measures bytes per second over the last few seconds.
+ */
+class ThroughputMeter {
+
+	private static final int WINDOW_SECONDS = 10;
+
+	private final long[] bytes = new long[WINDOW_SECONDS];
+	private final long[] seconds = new long[WINDOW_SECONDS];
+
+	ThroughputMeter() {
+		for (int i = 0; i < WINDOW_SECONDS; i++)
+			seconds[i] = Long.MIN_VALUE;
+	}
+
+	synchronized void record(long transferredBytes, long nowMillis) {
+		long second = nowMillis / 1000;
+		int slot = (int) (second % WINDOW_SECONDS);
+		if (seconds[slot] != second) {
+			seconds[slot] = second;
+			bytes[slot] = 0;
+		}
+		bytes[slot] += transferredBytes;
+	}
+
+	synchronized long getBytesPerSecond(long nowMillis) {
+		long second = nowMillis / 1000;
+		long sum = 0;
+		for (int i = 0; i < WINDOW_SECONDS; i++)
+			if (seconds[i] > second - WINDOW_SECONDS)
+				sum += bytes[i];
+		return sum / WINDOW_SECONDS;
+	}
+}
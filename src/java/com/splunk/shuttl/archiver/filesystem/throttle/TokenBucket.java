@@ -0,0 +1,82 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.throttle;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits permits, such as bytes or files, with a bucket of tokens that
+ * fills up with the configured permits per second. The bucket holds one second
+ * of permits at most. Taking more permits than the bucket holds puts it in
+ * debt, which the next takers wait for.
+ */
+class TokenBucket {
+
+	private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private long permitsPerSecond;
+	private double tokens;
+	private long lastRefill;
+
+	/**
+	 * @param permitsPerSecond
+	 *          zero or less is unlimited.
+	 * @param now
+	 *          nano time.
+	 */
+	TokenBucket(long permitsPerSecond, long now) {
+		this.permitsPerSecond = Math.max(0, permitsPerSecond);
+		this.tokens = this.permitsPerSecond;
+		this.lastRefill = now;
+	}
+
+	synchronized void setPermitsPerSecond(long permitsPerSecond, long now) {
+		refill(now);
+		if (this.permitsPerSecond == 0)
+			tokens = permitsPerSecond;
+		this.permitsPerSecond = Math.max(0, permitsPerSecond);
+		tokens = Math.min(tokens, this.permitsPerSecond);
+	}
+
+	synchronized long getPermitsPerSecond() {
+		return permitsPerSecond;
+	}
+
+	/**
+	 * Takes permits from the bucket, even if there are not enough tokens.
+	 * 
+	 * @return nanos to wait before using the permits. Zero if the bucket had
+	 *         enough tokens or if it is unlimited.
+	 */
+	synchronized long take(long permits, long now) {
+		if (permitsPerSecond == 0)
+			return 0;
+		refill(now);
+		tokens -= permits;
+		if (tokens >= 0)
+			return 0;
+		else
+			return (long) Math.ceil(-tokens / permitsPerSecond * NANOS_PER_SECOND);
+	}
+
+	private void refill(long now) {
+		if (now > lastRefill) {
+			double elapsedSeconds = (now - lastRefill) / NANOS_PER_SECOND;
+			tokens = Math.min(permitsPerSecond, tokens + elapsedSeconds
+					* permitsPerSecond);
+			lastRefill = now;
+		}
+	}
+}
@@ -0,0 +1,177 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.throttle;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Limits the bytes and files per second transferred in one direction, by all
+ * transfers that share the limiter. The bandwidth limit can be replaced during
+ * periods of the day, by a {@link BandwidthSchedule}.
+ */
+public class TransferLimiter {
+
+	private final TokenBucket bytes;
+	private final TokenBucket files;
+	private final ThroughputMeter throughputMeter;
+	private volatile long bandwidthLimit;
+	private volatile BandwidthSchedule schedule;
+
+	TransferLimiter(TokenBucket bytes, TokenBucket files,
+			ThroughputMeter throughputMeter) {
+		this.bytes = bytes;
+		this.files = files;
+		this.throughputMeter = throughputMeter;
+		this.schedule = BandwidthSchedule.empty();
+	}
+
+	/**
+	 * @param bandwidthLimit
+	 *          bytes per second. Zero is unlimited.
+	 * @param filesLimit
+	 *          files per second. Zero is unlimited.
+	 */
+	void setLimits(long bandwidthLimit, long filesLimit,
+			BandwidthSchedule schedule) {
+		long now = System.nanoTime();
+		this.bandwidthLimit = bandwidthLimit;
+		this.schedule = schedule;
+		bytes.setPermitsPerSecond(bandwidthLimit, now);
+		files.setPermitsPerSecond(filesLimit, now);
+	}
+
+	/**
+	 * Waits until the local file or directory may be transferred.
+	 */
+	void acquire(File local) throws InterruptedIOException {
+		acquire(sizeOf(local), filesIn(local));
+	}
+
+	/**
+	 * Waits until the bytes and files may be transferred.
+	 */
+	void acquire(long byteCount, long fileCount) throws InterruptedIOException {
+		sleep(reserve(byteCount, fileCount, System.nanoTime(), minuteOfDay()));
+	}
+
+	/**
+	 * Counts a transfer that is already done. Doesn't wait, but makes the next
+	 * transfers wait if the limit was exceeded.
+	 */
+	void charge(File local) {
+		reserve(sizeOf(local), filesIn(local), System.nanoTime(), minuteOfDay());
+	}
+
+	/**
+	 * @return nanos to wait before transferring the bytes and files.
+	 */
+	long reserve(long byteCount, long fileCount, long now, int minuteOfDay) {
+		if (!schedule.isEmpty())
+			bytes.setPermitsPerSecond(
+					schedule.getBandwidthLimit(minuteOfDay, bandwidthLimit), now);
+		return Math.max(bytes.take(byteCount, now), files.take(fileCount, now));
+	}
+
+	private static int minuteOfDay() {
+		Calendar now = Calendar.getInstance();
+		return now.get(Calendar.HOUR_OF_DAY) * 60 + now.get(Calendar.MINUTE);
+	}
+
+	private static void sleep(long nanos) throws InterruptedIOException {
+		try {
+			TimeUnit.NANOSECONDS.sleep(nanos);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for "
+					+ "transfer limit.");
+		}
+	}
+
+	/**
+	 * Waits until another file may be transferred, since a stream is one file.
+	 * The stream is closed if the wait is interrupted.
+	 * 
+	 * @return stream that writes within the limits.
+	 */
+	OutputStream throttle(OutputStream out) throws InterruptedIOException {
+		try {
+			acquire(0, 1);
+		} catch (InterruptedIOException e) {
+			IOUtils.closeQuietly(out);
+			throw e;
+		}
+		return new ThrottledOutputStream(out, this);
+	}
+
+	/**
+	 * @return stream that reads within the limits.
+	 * @see #throttle(OutputStream)
+	 */
+	InputStream throttle(InputStream in) throws InterruptedIOException {
+		try {
+			acquire(0, 1);
+		} catch (InterruptedIOException e) {
+			IOUtils.closeQuietly(in);
+			throw e;
+		}
+		return new ThrottledInputStream(in, this);
+	}
+
+	/**
+	 * Records bytes that were transferred, for measuring the throughput.
+	 */
+	void transferred(long byteCount) {
+		throughputMeter.record(byteCount, System.currentTimeMillis());
+	}
+
+	void transferred(File local) {
+		transferred(sizeOf(local));
+	}
+
+	/**
+	 * @return bytes per second transferred over the last few seconds.
+	 */
+	public long getThroughput() {
+		return throughputMeter.getBytesPerSecond(System.currentTimeMillis());
+	}
+
+	static long sizeOf(File local) {
+		return local.exists() ? FileUtils.sizeOf(local) : 0;
+	}
+
+	static long filesIn(File local) {
+		if (local.isDirectory())
+			return FileUtils.listFiles(local, null, true).size();
+		else
+			return local.exists() ? 1 : 0;
+	}
+
+	/**
+	 * @return limiter without limits.
+	 */
+	public static TransferLimiter create() {
+		long now = System.nanoTime();
+		return new TransferLimiter(new TokenBucket(0, now), new TokenBucket(0,
+				now), new ThroughputMeter());
+	}
+}
@@ -0,0 +1,121 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.throttle;
+
+import static com.splunk.shuttl.archiver.LogFormatter.*;
+
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+import com.splunk.shuttl.archiver.archive.ArchiveConfiguration;
+import com.splunk.shuttl.archiver.filesystem.transaction.bucket.TransfersBuckets;
+
+/**
+ * Limits the bandwidth and files per second of the transfers to and from the
+ * archive. Uploads and downloads have their own {@link TransferLimiter}, which
+ * is shared by all transfers in that direction. The transfers are limited
+ * within their streams, a chunk at a time.
+ */
+public class TransferThrottle {
+
+	private static final Logger logger = Logger
+			.getLogger(TransferThrottle.class);
+	private static final TransferThrottle sharedInstance = new TransferThrottle(
+			TransferLimiter.create(), TransferLimiter.create());
+
+	private final TransferLimiter uploadLimiter;
+	private final TransferLimiter downloadLimiter;
+
+	public TransferThrottle(TransferLimiter uploadLimiter,
+			TransferLimiter downloadLimiter) {
+		this.uploadLimiter = uploadLimiter;
+		this.downloadLimiter = downloadLimiter;
+	}
+
+	/**
+	 * @return throttle shared by all transfers. It's unlimited until it's
+	 *         configured.
+	 */
+	public static TransferThrottle getShared() {
+		return sharedInstance;
+	}
+
+	/**
+	 * Sets the limits and schedules of uploads and downloads. Invalid schedules
+	 * are logged and ignored.
+	 */
+	public void configure(ArchiveConfiguration config) {
+		uploadLimiter.setLimits(config.getUploadBandwidthLimit(),
+				config.getUploadOperationsLimit(),
+				parseSchedule(config.getUploadBandwidthSchedule()));
+		downloadLimiter.setLimits(config.getDownloadBandwidthLimit(),
+				config.getDownloadOperationsLimit(),
+				parseSchedule(config.getDownloadBandwidthSchedule()));
+	}
+
+	private BandwidthSchedule parseSchedule(List<String> periods) {
+		try {
+			return BandwidthSchedule.parse(periods);
+		} catch (IllegalArgumentException e) {
+			logger.warn(warn("Parsed bandwidth schedule", e,
+					"will ignore the schedule", "schedule", periods));
+			return BandwidthSchedule.empty();
+		}
+	}
+
+	/**
+	 * @return stream that uploads to the archive within the limits of this
+	 *         throttle. It counts as one file.
+	 */
+	public OutputStream throttleUpload(OutputStream out)
+			throws InterruptedIOException {
+		return uploadLimiter.throttle(out);
+	}
+
+	/**
+	 * @return stream that downloads from the archive within the limits of this
+	 *         throttle. It counts as one file.
+	 */
+	public InputStream throttleDownload(InputStream in)
+			throws InterruptedIOException {
+		return downloadLimiter.throttle(in);
+	}
+
+	/**
+	 * For transferers that don't transfer through streams, such as Glacier's.
+	 * They can only be limited per whole bucket, before an upload and after a
+	 * download.
+	 * 
+	 * @return {@link TransfersBuckets} that transfers within the limits of this
+	 *         throttle.
+	 */
+	public TransfersBuckets throttleWholeBuckets(
+			TransfersBuckets transfersBuckets) {
+		return ThrottledBucketTransferer.create(transfersBuckets, uploadLimiter,
+				downloadLimiter);
+	}
+
+	public TransferLimiter getUploadLimiter() {
+		return uploadLimiter;
+	}
+
+	public TransferLimiter getDownloadLimiter() {
+		return downloadLimiter;
+	}
+}
@@ -33,6 +33,7 @@ public abstract class AbstractTransaction<T> implements Transaction {
 	private final T data;
 	private final String temp;
 	private final String dst;
+	private boolean transferFailed;
 
 	protected AbstractTransaction(HasFileStructure hasFileStructure,
 			TransactionCleaner<T> transactionCleaner, T data, String temp, String dst) {
@@ -70,8 +71,10 @@ public abstract class AbstractTransaction<T> implements Transaction {
 	}
 
 	private void transferData() {
+		transferFailed = true;
 		try {
 			doTransferData(data, temp, dst);
+			transferFailed = false;
 		} catch (IOException e) {
 			throwAndLog(e);
 		}
@@ -80,6 +83,14 @@ public abstract class AbstractTransaction<T> implements Transaction {
 	protected abstract void doTransferData(T data, String temp, String dst)
 			throws IOException;
 
+	/**
+	 * @return true if the data is transferred by a {@link ResumesTransfers},
+	 *         which means that the temp path of a failed transfer is kept.
+	 */
+	protected boolean resumesTransfers() {
+		return false;
+	}
+
 	private void throwAndLog(IOException e) {
 		logger.error(did("Transferred data with transaction: " + this, e,
 				"To transfer file to remote file system via temp.", "from", data, "to",
@@ -105,7 +116,11 @@ public abstract class AbstractTransaction<T> implements Transaction {
 
 	@Override
 	public void clean() {
-		transactionCleaner.cleanTransaction(data, temp);
+		if (transferFailed && resumesTransfers())
+			logger.info(will("Keep temp of failed transfer, to resume it on retry",
+					"transaction", this));
+		else
+			transactionCleaner.cleanTransaction(data, temp);
 	}
 
 	/**
@@ -0,0 +1,23 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.transaction;
+
+/**
+ * A {@link TransfersData} that resumes a transfer from what an earlier, failed
+ * transfer left in the temp path. Transactions keep the temp path of a failed
+ * transfer that's done by a {@link ResumesTransfers}, instead of cleaning it.
+ */
+public interface ResumesTransfers {
+}
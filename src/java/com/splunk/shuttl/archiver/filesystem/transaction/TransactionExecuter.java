@@ -18,6 +18,9 @@ import static com.splunk.shuttl.archiver.LogFormatter.*;
 
 import org.apache.log4j.Logger;
 
+import com.splunk.shuttl.archiver.metrics.StageMetrics;
+import com.splunk.shuttl.archiver.metrics.StageMetrics.Timer;
+
 /**
  * Executes {@link Transactions}
  */
@@ -26,25 +29,39 @@ public class TransactionExecuter {
 	private static final Logger logger = Logger
 			.getLogger(TransactionExecuter.class);
 
+	private final StageMetrics prepareMetrics;
+	private final StageMetrics commitMetrics;
+
 	/**
-	 * Execute a transaction in the right order. Makes sure that clean is always
-	 * called last, even if any other step throws exception.
+	 * Executes transactions without measuring them.
 	 */
-	public void execute(Transaction transaction) {
-		TransactionExecuter.executeTransaction(transaction);
+	public TransactionExecuter() {
+		this(new StageMetrics(), new StageMetrics());
+	}
+
+	/**
+	 * @param prepareMetrics
+	 *          measures the prepare step of the transactions.
+	 * @param commitMetrics
+	 *          measures the commit step of the transactions.
+	 */
+	public TransactionExecuter(StageMetrics prepareMetrics,
+			StageMetrics commitMetrics) {
+		this.prepareMetrics = prepareMetrics;
+		this.commitMetrics = commitMetrics;
 	}
 
 	/**
 	 * Execute a transaction in the right order. Makes sure that clean is always
 	 * called last, even if any other step throws exception.
 	 */
-	public static void executeTransaction(Transaction transaction) {
+	public void execute(Transaction transaction) {
 		try {
 			logger.info(will("Prepare transaction", "transaction", transaction));
-			transaction.prepare();
+			prepare(transaction);
 			logger.info(done("Preparing transaction", "transaction", transaction));
 			logger.info(will("Commit transaction", "transaction", transaction));
-			transaction.commit();
+			commit(transaction);
 			logger.info(done("Commit transaction", "transaction", transaction));
 		} catch (RuntimeException e) {
 			logger.error(did("Executed transaction", e,
@@ -54,4 +71,32 @@ public class TransactionExecuter {
 			transaction.clean();
 		}
 	}
+
+	private void prepare(Transaction transaction) {
+		Timer timer = prepareMetrics.startTimer();
+		try {
+			transaction.prepare();
+			timer.succeeded();
+		} finally {
+			timer.stop();
+		}
+	}
+
+	private void commit(Transaction transaction) {
+		Timer timer = commitMetrics.startTimer();
+		try {
+			transaction.commit();
+			timer.succeeded();
+		} finally {
+			timer.stop();
+		}
+	}
+
+	/**
+	 * Execute a transaction in the right order. Makes sure that clean is always
+	 * called last, even if any other step throws exception.
+	 */
+	public static void executeTransaction(Transaction transaction) {
+		new TransactionExecuter().execute(transaction);
+	}
 }
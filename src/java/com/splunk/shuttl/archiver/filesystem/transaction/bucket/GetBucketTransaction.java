@@ -17,10 +17,15 @@ package com.splunk.shuttl.archiver.filesystem.transaction.bucket;
 import java.io.File;
 import java.io.IOException;
 
+import com.splunk.shuttl.archiver.archive.BucketFormat;
+import com.splunk.shuttl.archiver.filesystem.ReadsFiles;
+import com.splunk.shuttl.archiver.filesystem.throttle.TransferThrottle;
 import com.splunk.shuttl.archiver.filesystem.transaction.AbstractTransaction;
 import com.splunk.shuttl.archiver.filesystem.transaction.HasFileStructure;
+import com.splunk.shuttl.archiver.filesystem.transaction.ResumesTransfers;
 import com.splunk.shuttl.archiver.filesystem.transaction.LocalTransactionalFileSystemFactory;
 import com.splunk.shuttl.archiver.filesystem.transaction.TransactionalFileSystem;
+import com.splunk.shuttl.archiver.importexport.tgz.TgzExtractor;
 import com.splunk.shuttl.archiver.model.Bucket;
 
 /**
@@ -28,20 +33,25 @@ import com.splunk.shuttl.archiver.model.Bucket;
  */
 public class GetBucketTransaction extends AbstractTransaction<Bucket> {
 
-	private final TransfersBuckets transfersData;
+	private final GetsBuckets getsBuckets;
 
-	private GetBucketTransaction(TransfersBuckets transfersData,
+	private GetBucketTransaction(GetsBuckets getsBuckets,
 			HasFileStructure hasFileStructure,
 			BucketTransactionCleaner transactionCleaner, Bucket data, String temp,
 			String dst) {
 		super(hasFileStructure, transactionCleaner, data, temp, dst);
-		this.transfersData = transfersData;
+		this.getsBuckets = getsBuckets;
 	}
 
 	@Override
 	protected void doTransferData(Bucket data, String temp, String dst)
 			throws IOException {
-		transfersData.get(data, new File(temp), new File(dst));
+		getsBuckets.get(data, new File(temp), new File(dst));
+	}
+
+	@Override
+	protected boolean resumesTransfers() {
+		return getsBuckets instanceof ResumesTransfers;
 	}
 
 	public static GetBucketTransaction create(TransactionalFileSystem fs,
@@ -50,4 +60,18 @@ public class GetBucketTransaction extends AbstractTransaction<Bucket> {
 				LocalTransactionalFileSystemFactory.create(),
 				fs.getBucketTransactionCleaner(), src, temp, dst);
 	}
+
+	/**
+	 * Gets a tgz bucket by extracting it while it's read from the file system.
+	 * The bucket at dst is in {@link BucketFormat#SPLUNK_BUCKET} format after the
+	 * transaction.
+	 */
+	public static GetBucketTransaction createExtractingTgz(
+			TransactionalFileSystem fs, ReadsFiles readsFiles,
+			TgzExtractor tgzExtractor, Bucket src, String temp, String dst) {
+		return new GetBucketTransaction(new TgzExtractingBucketTransferer(
+				readsFiles, tgzExtractor, TransferThrottle.getShared()),
+				LocalTransactionalFileSystemFactory.create(),
+				fs.getBucketTransactionCleaner(), src, temp, dst);
+	}
 }
@@ -0,0 +1,36 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.transaction.bucket;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.splunk.shuttl.archiver.model.Bucket;
+
+/**
+ * Gets buckets from somewhere, as a {@link GetBucketTransaction}.
+ */
+public interface GetsBuckets {
+
+	/**
+	 * @param remoteBucket
+	 *          - The remote bucket to get.
+	 * @param temp
+	 *          - The temporary local transfer location.
+	 * @param dst
+	 *          - The final local destination.
+	 */
+	void get(Bucket remoteBucket, File temp, File dst) throws IOException;
+}
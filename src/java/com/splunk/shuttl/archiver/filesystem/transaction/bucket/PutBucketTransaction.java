@@ -15,36 +15,107 @@
 package com.splunk.shuttl.archiver.filesystem.transaction.bucket;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
+import com.splunk.shuttl.archiver.archive.BucketFormat;
+import com.splunk.shuttl.archiver.filesystem.WritesFiles;
+import com.splunk.shuttl.archiver.filesystem.throttle.TransferThrottle;
 import com.splunk.shuttl.archiver.filesystem.transaction.AbstractTransaction;
 import com.splunk.shuttl.archiver.filesystem.transaction.HasFileStructure;
+import com.splunk.shuttl.archiver.filesystem.transaction.ResumesTransfers;
+import com.splunk.shuttl.archiver.filesystem.transaction.Transaction;
 import com.splunk.shuttl.archiver.filesystem.transaction.TransactionalFileSystem;
+import com.splunk.shuttl.archiver.importexport.tgz.CreatesBucketTgz;
 import com.splunk.shuttl.archiver.model.Bucket;
+import com.splunk.shuttl.archiver.model.LocalBucket;
 
 /**
  *
  */
 public class PutBucketTransaction extends AbstractTransaction<Bucket> {
 
-	private TransfersBuckets transfersBuckets;
+	private PutsBuckets putsBuckets;
+	private List<Transaction> metadataTransactions;
 
-	private PutBucketTransaction(TransfersBuckets transfersBuckets,
+	private PutBucketTransaction(PutsBuckets putsBuckets,
 			HasFileStructure hasFileStructure,
 			BucketTransactionCleaner transactionCleaner, Bucket data, String temp,
-			String dst) {
+			String dst, List<Transaction> metadataTransactions) {
 		super(hasFileStructure, transactionCleaner, data, temp, dst);
-		this.transfersBuckets = transfersBuckets;
+		this.putsBuckets = putsBuckets;
+		this.metadataTransactions = metadataTransactions;
 	}
 
 	@Override
 	protected void doTransferData(Bucket data, String temp, String dst)
 			throws IOException {
-		transfersBuckets.put(data, temp, dst);
+		putsBuckets.put(data, temp, dst);
+		for (Transaction metadataTransaction : metadataTransactions)
+			metadataTransaction.prepare();
+	}
+
+	/**
+	 * Cleans the metadata transactions as well, so that their temp paths are
+	 * cleaned even if they're not inside the temp path of the bucket.
+	 */
+	@Override
+	public void clean() {
+		super.clean();
+		for (Transaction metadataTransaction : metadataTransactions)
+			metadataTransaction.clean();
+	}
+
+	@Override
+	protected boolean resumesTransfers() {
+		return putsBuckets instanceof ResumesTransfers;
 	}
 
 	public static PutBucketTransaction create(TransactionalFileSystem fs,
 			Bucket src, String temp, String dst) {
+		return create(fs, src, temp, dst, Collections.<Transaction> emptyList());
+	}
+
+	/**
+	 * Puts a bucket together with its metadata. The metadata transactions are
+	 * prepared after the bucket has been transferred, and cleaned with the
+	 * bucket. They are never committed, so their temp paths have to be inside the
+	 * temp path of the bucket, for the metadata to be committed with the same
+	 * rename as the bucket.
+	 */
+	public static PutBucketTransaction create(TransactionalFileSystem fs,
+			Bucket src, String temp, String dst,
+			List<Transaction> metadataTransactions) {
 		return new PutBucketTransaction(fs.getBucketTransferer(), fs,
-				fs.getBucketTransactionCleaner(), src, temp, dst);
+				fs.getBucketTransactionCleaner(), src, temp, dst, metadataTransactions);
+	}
+
+	/**
+	 * Puts a bucket as a tgz, which is created while it's written to the file
+	 * system.
+	 * 
+	 * @param src
+	 *          in {@link BucketFormat#SPLUNK_BUCKET_TGZ} format, with the
+	 *          directory of the bucket to create the tgz from.
+	 */
+	public static PutBucketTransaction createStreamingTgz(
+			TransactionalFileSystem fs, WritesFiles writesFiles,
+			CreatesBucketTgz createsBucketTgz, LocalBucket src, String temp,
+			String dst) {
+		return createStreamingTgz(fs, writesFiles, createsBucketTgz, src, temp,
+				dst, Collections.<Transaction> emptyList());
+	}
+
+	/**
+	 * Puts a bucket as a tgz together with its metadata, the same way as
+	 * {@link #create(TransactionalFileSystem, Bucket, String, String, List)}.
+	 */
+	public static PutBucketTransaction createStreamingTgz(
+			TransactionalFileSystem fs, WritesFiles writesFiles,
+			CreatesBucketTgz createsBucketTgz, LocalBucket src, String temp,
+			String dst, List<Transaction> metadataTransactions) {
+		return new PutBucketTransaction(new TgzStreamingBucketTransferer(
+				writesFiles, createsBucketTgz, TransferThrottle.getShared()), fs,
+				fs.getBucketTransactionCleaner(), src, temp, dst, metadataTransactions);
 	}
 }
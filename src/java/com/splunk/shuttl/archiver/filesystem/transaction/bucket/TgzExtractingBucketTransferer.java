@@ -0,0 +1,61 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.transaction.bucket;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+
+import com.splunk.shuttl.archiver.archive.BucketFormat;
+import com.splunk.shuttl.archiver.filesystem.FileOverwriteException;
+import com.splunk.shuttl.archiver.filesystem.ReadsFiles;
+import com.splunk.shuttl.archiver.filesystem.throttle.TransferThrottle;
+import com.splunk.shuttl.archiver.importexport.tgz.TgzExtractor;
+import com.splunk.shuttl.archiver.model.Bucket;
+
+/**
+ * Gets a {@link BucketFormat#SPLUNK_BUCKET_TGZ} bucket by extracting the tgz
+ * while it's streamed from the archive, so the gotten bucket is in
+ * {@link BucketFormat#SPLUNK_BUCKET} format and the tgz is never stored
+ * locally.
+ */
+public class TgzExtractingBucketTransferer implements GetsBuckets {
+
+	private final ReadsFiles readsFiles;
+	private final TgzExtractor tgzExtractor;
+	private final TransferThrottle transferThrottle;
+
+	public TgzExtractingBucketTransferer(ReadsFiles readsFiles,
+			TgzExtractor tgzExtractor, TransferThrottle transferThrottle) {
+		this.readsFiles = readsFiles;
+		this.tgzExtractor = tgzExtractor;
+		this.transferThrottle = transferThrottle;
+	}
+
+	@Override
+	public void get(Bucket remoteBucket, File temp, File dst) throws IOException {
+		if (dst.exists())
+			throw new FileOverwriteException();
+		FileUtils.deleteDirectory(temp);
+		tgzExtractor.extract(
+				transferThrottle.throttleDownload(readsFiles
+						.openFile(getTgzPath(remoteBucket))), temp);
+	}
+
+	private String getTgzPath(Bucket remoteBucket) {
+		return remoteBucket.getPath() + "/" + remoteBucket.getName() + ".tgz";
+	}
+}
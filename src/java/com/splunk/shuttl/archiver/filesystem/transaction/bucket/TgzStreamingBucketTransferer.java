@@ -0,0 +1,52 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.transaction.bucket;
+
+import java.io.IOException;
+
+import com.splunk.shuttl.archiver.filesystem.WritesFiles;
+import com.splunk.shuttl.archiver.filesystem.throttle.TransferThrottle;
+import com.splunk.shuttl.archiver.importexport.tgz.CreatesBucketTgz;
+import com.splunk.shuttl.archiver.model.Bucket;
+import com.splunk.shuttl.archiver.model.LocalBucket;
+
+/**
+ * Puts a local bucket as a tgz, by writing the tgz straight to the temp path of
+ * the file system. The tgz is never written to the local file system.
+ */
+public class TgzStreamingBucketTransferer implements PutsBuckets {
+
+	private final WritesFiles writesFiles;
+	private final CreatesBucketTgz createsBucketTgz;
+	private final TransferThrottle transferThrottle;
+
+	public TgzStreamingBucketTransferer(WritesFiles writesFiles,
+			CreatesBucketTgz createsBucketTgz, TransferThrottle transferThrottle) {
+		this.writesFiles = writesFiles;
+		this.createsBucketTgz = createsBucketTgz;
+		this.transferThrottle = transferThrottle;
+	}
+
+	/**
+	 * @param bucket
+	 *          a {@link LocalBucket} with the directory to create the tgz from.
+	 */
+	@Override
+	public void put(Bucket bucket, String temp, String dst) throws IOException {
+		createsBucketTgz.writeTgz((LocalBucket) bucket,
+				transferThrottle.throttleUpload(writesFiles.createFile(temp + "/"
+						+ bucket.getName() + ".tgz")));
+	}
+}
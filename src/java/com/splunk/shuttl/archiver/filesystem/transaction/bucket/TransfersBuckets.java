@@ -14,11 +14,8 @@
 // limitations under the License.
 package com.splunk.shuttl.archiver.filesystem.transaction.bucket;
 
-import com.splunk.shuttl.archiver.filesystem.transaction.TransfersData;
-import com.splunk.shuttl.archiver.model.Bucket;
-
 /**
  * Transfers buckets from and to somewhere.
  */
-public interface TransfersBuckets extends TransfersData<Bucket> {
+public interface TransfersBuckets extends PutsBuckets, GetsBuckets {
 }
@@ -17,6 +17,7 @@ package com.splunk.shuttl.archiver.flush;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -29,12 +30,13 @@ import com.splunk.shuttl.archiver.thaw.SplunkIndexesLayer;
 import com.splunk.shuttl.archiver.util.IllegalRegexGroupException;
 
 /**
- * Removes aka flushes, buckets in an index for a time range.
+ * Removes aka flushes, buckets in an index for a time range. Indexes can be
+ * flushed at the same time.
  */
 public class Flusher {
 
 	private final SplunkIndexesLayer splunkIndexesLayer;
-	private ArrayList<Bucket> flushedBuckets;
+	private final List<Bucket> flushedBuckets;
 
 	/**
 	 * @param splunkIndexesLayer
@@ -42,7 +44,8 @@ public class Flusher {
 	 */
 	public Flusher(SplunkIndexesLayer splunkIndexesLayer) {
 		this.splunkIndexesLayer = splunkIndexesLayer;
-		this.flushedBuckets = new ArrayList<Bucket>();
+		this.flushedBuckets = Collections
+				.synchronizedList(new ArrayList<Bucket>());
 	}
 
 	/**
@@ -97,6 +100,8 @@ public class Flusher {
 	 * @return the buckets flushed.
 	 */
 	public List<Bucket> getFlushedBuckets() {
-		return flushedBuckets;
+		synchronized (flushedBuckets) {
+			return new ArrayList<Bucket>(flushedBuckets);
+		}
 	}
 }
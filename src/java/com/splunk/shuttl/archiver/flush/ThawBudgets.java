@@ -0,0 +1,82 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.flush;
+
+import static com.splunk.shuttl.archiver.LogFormatter.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Budgets for how many bytes of thawed buckets each index may keep, from
+ * entries on the form index=megabytes. The index {@value #ALL_INDEXES} is the
+ * budget of the indexes without their own.
+ */
+public class ThawBudgets {
+
+	private static final Logger logger = Logger.getLogger(ThawBudgets.class);
+
+	public static final String ALL_INDEXES = "*";
+	private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+
+	private final Map<String, Long> budgets;
+
+	/**
+	 * @param entries
+	 *          on the form index=megabytes. Invalid entries are ignored.
+	 */
+	public ThawBudgets(List<String> entries) {
+		this.budgets = new HashMap<String, Long>();
+		for (String entry : entries)
+			parseEntry(entry);
+	}
+
+	private void parseEntry(String entry) {
+		int separator = entry.lastIndexOf('=');
+		try {
+			if (separator <= 0)
+				throw new NumberFormatException("No index=megabytes");
+			String index = entry.substring(0, separator).trim();
+			long megabytes = Long.parseLong(entry.substring(separator + 1).trim());
+			if (megabytes < 0)
+				throw new NumberFormatException("Negative megabytes");
+			budgets.put(index, megabytes * BYTES_PER_MEGABYTE);
+		} catch (NumberFormatException e) {
+			logger.warn(warn("Parsed thaw budget", e, "will ignore the budget",
+					"budget", entry));
+		}
+	}
+
+	/**
+	 * @return bytes of thawed buckets the index may keep, or {@code -1} if the
+	 *         index has no budget.
+	 */
+	public long getBudgetBytes(String index) {
+		Long budget = budgets.get(index);
+		if (budget == null)
+			budget = budgets.get(ALL_INDEXES);
+		return budget == null ? -1 : budget;
+	}
+
+	/**
+	 * @return true if no index has a budget.
+	 */
+	public boolean isEmpty() {
+		return budgets.isEmpty();
+	}
+}
@@ -0,0 +1,192 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.flush;
+
+import static com.splunk.shuttl.archiver.LogFormatter.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+import com.splunk.shuttl.archiver.LocalFileSystemPaths;
+import com.splunk.shuttl.archiver.archive.ArchiveConfiguration;
+import com.splunk.shuttl.archiver.bucketlock.BucketLock;
+import com.splunk.shuttl.archiver.bucketlock.BucketLocker;
+import com.splunk.shuttl.archiver.listers.ArchivedIndexesListerFactory;
+import com.splunk.shuttl.archiver.model.IllegalIndexException;
+import com.splunk.shuttl.archiver.model.LocalBucket;
+import com.splunk.shuttl.archiver.thaw.SplunkIndexedLayerFactory;
+import com.splunk.shuttl.archiver.thaw.SplunkIndexesLayer;
+import com.splunk.shuttl.archiver.thaw.ThawBucketLocker;
+import com.splunk.shuttl.archiver.util.DaemonThreadFactory;
+
+/**
+ * Keeps the thawed buckets of an index within its {@link ThawBudgets budget},
+ * by deleting its least recently thawed buckets. A bucket was last thawed when
+ * its directory was last modified, which the thawing updates both when it
+ * thaws the bucket and when it finds the bucket already thawed.<br/>
+ * <br/>
+ * Buckets that are locked by a thaw are not evicted.
+ */
+public class ThawCacheEvictor {
+
+	private static final Logger logger = Logger.getLogger(ThawCacheEvictor.class);
+	private static ScheduledExecutorService evictingExecutor;
+
+	private final SplunkIndexesLayer splunkIndexesLayer;
+	private final BucketLocker thawBucketLocker;
+	private final ThawBudgets thawBudgets;
+
+	/**
+	 * @param thawBucketLocker
+	 *          the locks the buckets are thawed under.
+	 */
+	public ThawCacheEvictor(SplunkIndexesLayer splunkIndexesLayer,
+			BucketLocker thawBucketLocker, ThawBudgets thawBudgets) {
+		this.splunkIndexesLayer = splunkIndexesLayer;
+		this.thawBucketLocker = thawBucketLocker;
+		this.thawBudgets = thawBudgets;
+	}
+
+	/**
+	 * Evicts the least recently thawed buckets of the index until it's within
+	 * its budget. Does nothing if the index has no budget.
+	 * 
+	 * @return the evicted buckets.
+	 */
+	public List<LocalBucket> evict(String index) throws IllegalIndexException {
+		List<LocalBucket> evicted = new ArrayList<LocalBucket>();
+		long budget = thawBudgets.getBudgetBytes(index);
+		if (budget < 0)
+			return evicted;
+
+		List<ThawedBucket> buckets = new ArrayList<ThawedBucket>();
+		long thawedBytes = 0;
+		for (LocalBucket bucket : ThawedBuckets.getBucketsFromThawLocation(index,
+				splunkIndexesLayer.getThawLocation(index))) {
+			ThawedBucket thawed = new ThawedBucket(bucket);
+			buckets.add(thawed);
+			thawedBytes += thawed.size;
+		}
+		Collections.sort(buckets);
+		for (int i = 0; i < buckets.size() && thawedBytes > budget; i++)
+			if (evictBucket(buckets.get(i).bucket)) {
+				thawedBytes -= buckets.get(i).size;
+				evicted.add(buckets.get(i).bucket);
+			}
+
+		if (!evicted.isEmpty())
+			logger.info(done("Evicted thawed buckets over budget", "index", index,
+					"evicted_buckets", evicted.size(), "thawed_bytes", thawedBytes,
+					"budget_bytes", budget));
+		return evicted;
+	}
+
+	/**
+	 * Bucket with its size and last thawed time read once, so that the sorting
+	 * isn't affected by thaws touching the buckets while they're sorted. Sorts
+	 * least recently thawed first.
+	 */
+	private static class ThawedBucket implements Comparable<ThawedBucket> {
+
+		private final LocalBucket bucket;
+		private final long lastThawed;
+		private final long size;
+
+		public ThawedBucket(LocalBucket bucket) {
+			this.bucket = bucket;
+			this.lastThawed = bucket.getDirectory().lastModified();
+			this.size = bucket.getSize();
+		}
+
+		@Override
+		public int compareTo(ThawedBucket other) {
+			if (lastThawed == other.lastThawed)
+				return 0;
+			return lastThawed < other.lastThawed ? -1 : 1;
+		}
+	}
+
+	private boolean evictBucket(LocalBucket bucket) {
+		BucketLock bucketLock = thawBucketLocker.getLockForBucket(bucket);
+		if (!bucketLock.tryLockExclusive())
+			return false;
+		try {
+			bucket.deleteBucket();
+			return true;
+		} catch (IOException e) {
+			logger.warn(warn("Deleted thawed bucket over budget", e,
+					"will try again at the next eviction", "bucket", bucket));
+			return false;
+		} finally {
+			bucketLock.closeLock();
+		}
+	}
+
+	/**
+	 * Evicts the thawed buckets of each index, continuing with the next index
+	 * if one fails.
+	 */
+	public void evictIndexes(List<String> indexes) {
+		for (String index : indexes)
+			try {
+				evict(index);
+			} catch (Exception e) {
+				logger.warn(warn("Evicted thawed buckets of index", e,
+						"will evict them again next time", "index", index));
+			}
+	}
+
+	/**
+	 * Evicts thawed buckets of the indexes in the archive every configured
+	 * number of minutes. Does nothing if there are no thaw budgets, eviction is
+	 * not configured, or already started.
+	 */
+	public static synchronized void startEvicting() {
+		ArchiveConfiguration config = ArchiveConfiguration.getSharedInstance();
+		int minutes = config.getThawEvictionMinutes();
+		final ThawBudgets thawBudgets = new ThawBudgets(config.getThawBudgets());
+		if (minutes <= 0 || thawBudgets.isEmpty() || evictingExecutor != null)
+			return;
+		evictingExecutor = Executors
+				.newSingleThreadScheduledExecutor(new DaemonThreadFactory(
+						"thaw-evictor"));
+		evictingExecutor.scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					createConfigured(thawBudgets).evictIndexes(
+							ArchivedIndexesListerFactory.create().listIndexes());
+				} catch (Exception e) {
+					logger.warn(warn("Evicted thawed buckets", e,
+							"will evict them again next time"));
+				}
+			}
+		}, minutes, minutes, TimeUnit.MINUTES);
+		logger.info(done("Started evicting thawed buckets", "minutes", minutes));
+	}
+
+	private static ThawCacheEvictor createConfigured(ThawBudgets thawBudgets) {
+		return new ThawCacheEvictor(SplunkIndexedLayerFactory.create(),
+				new ThawBucketLocker(LocalFileSystemPaths.create()), thawBudgets);
+	}
+}
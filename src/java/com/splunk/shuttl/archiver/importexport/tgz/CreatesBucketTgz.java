@@ -14,19 +14,31 @@
 // limitations under the License.
 package com.splunk.shuttl.archiver.importexport.tgz;
 
-import static java.util.Arrays.*;
+import static com.splunk.shuttl.archiver.LogFormatter.*;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.log4j.Logger;
 
 import com.splunk.shuttl.archiver.LocalFileSystemPaths;
+import com.splunk.shuttl.archiver.archive.ArchiveConfiguration;
 import com.splunk.shuttl.archiver.importexport.GetsBucketsExportFile;
-import com.splunk.shuttl.archiver.importexport.ShellExecutor;
 import com.splunk.shuttl.archiver.model.LocalBucket;
+import com.splunk.shuttl.archiver.util.DaemonThreadFactory;
 
 /**
  * Creates a tgz file from a bucket. Useful when either compressing the buckets
- * or when wanting to represent a bucket as a single file.
+ * or when wanting to represent a bucket as a single file. The tar is written
+ * in the JVM and compressed in parallel, so it doesn't fork a shell and isn't
+ * limited to the speed of a single gzip process.
  */
 public class CreatesBucketTgz {
 
@@ -34,15 +46,33 @@ public class CreatesBucketTgz {
 
 		private static final long serialVersionUID = 1L;
 
+		public TgzBucketCreationFailedException(Throwable cause) {
+			super(cause);
+		}
 	}
 
-	private final ShellExecutor shellExecutor;
-	private GetsBucketsExportFile getsBucketsExportFile;
+	private static final Logger logger = Logger.getLogger(CreatesBucketTgz.class);
+
+	private final GetsBucketsExportFile getsBucketsExportFile;
+	private final ExecutorService compressionExecutor;
+	private final int compressionLevel;
+	private final int compressionThreads;
 
-	public CreatesBucketTgz(ShellExecutor shellExecutor,
-			GetsBucketsExportFile getsBucketsExportFile) {
-		this.shellExecutor = shellExecutor;
+	/**
+	 * @param compressionExecutor
+	 *          compressing blocks of the tar.
+	 * @param compressionLevel
+	 *          gzip compression level, 1-9.
+	 * @param compressionThreads
+	 *          max number of blocks compressed at the same time, per tgz.
+	 */
+	public CreatesBucketTgz(GetsBucketsExportFile getsBucketsExportFile,
+			ExecutorService compressionExecutor, int compressionLevel,
+			int compressionThreads) {
 		this.getsBucketsExportFile = getsBucketsExportFile;
+		this.compressionExecutor = compressionExecutor;
+		this.compressionLevel = compressionLevel;
+		this.compressionThreads = compressionThreads;
 	}
 
 	/**
@@ -52,36 +82,77 @@ public class CreatesBucketTgz {
 		File tgz = getsBucketsExportFile.getExportFile(bucket, "tgz");
 		try {
 			createTgzFileFromBucket(bucket, tgz);
-		} catch (TgzBucketCreationFailedException e) {
+		} catch (IOException e) {
+			logger.error(did("Created tgz from bucket", e, "tgz to be created",
+					"bucket", bucket, "tgz", tgz));
 			tgz.delete();
-			throw e;
+			throw new TgzBucketCreationFailedException(e);
 		}
 		return tgz;
 	}
 
-	private void createTgzFileFromBucket(LocalBucket bucket, File tgz) {
-		String[] command = buildTgzCommand(bucket, tgz);
-		executeCommand(command);
+	private void createTgzFileFromBucket(LocalBucket bucket, File tgz)
+			throws IOException {
+		writeTgz(bucket, new BufferedOutputStream(new FileOutputStream(tgz)));
 	}
 
-	private String[] buildTgzCommand(LocalBucket bucket, File tgz) {
-		File bucketDir = bucket.getDirectory();
-		String parentPath = bucketDir.getParentFile().getAbsolutePath();
-		String tgzCmd = "tar -C " + parentPath + " -c " + bucketDir.getName()
-				+ " | gzip -c > " + tgz.getAbsolutePath();
-		return new String[] { "/bin/sh", "-c", tgzCmd };
+	/**
+	 * Writes the bucket as a tgz to the stream, without creating any local
+	 * files. Closes the stream. The end of the archive is only written when the
+	 * whole bucket was written, so a failed tgz can't be read as a complete one.
+	 */
+	public void writeTgz(LocalBucket bucket, OutputStream out)
+			throws IOException {
+		ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(out,
+				compressionExecutor, compressionLevel, compressionThreads);
+		TarWriter tarWriter = new TarWriter(gzip);
+		boolean written = false;
+		try {
+			tarWriter.putDirectoryRecursively(bucket.getDirectory());
+			written = true;
+		} finally {
+			if (written)
+				tarWriter.close();
+			else
+				gzip.abort();
+		}
 	}
 
-	private void executeCommand(String[] cmd) {
-		HashMap<String, String> emptyMap = new HashMap<String, String>();
-		int exit = shellExecutor.executeCommand(emptyMap, asList(cmd));
-		if (exit != 0)
-			throw new TgzBucketCreationFailedException();
+	private static final Map<Integer, ExecutorService> sharedCompressionExecutors = new HashMap<Integer, ExecutorService>();
+
+	/**
+	 * All tgz compression of the server shares the same threads, so that
+	 * exporting many buckets at the same time doesn't oversubscribe the cores.
+	 * There is one pool per number of threads, so a config never gets the number
+	 * of threads of an earlier config.
+	 */
+	private static synchronized ExecutorService getSharedCompressionExecutor(
+			int threads) {
+		ExecutorService executor = sharedCompressionExecutors.get(threads);
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(threads,
+					new DaemonThreadFactory("tgz-compression"));
+			sharedCompressionExecutors.put(threads, executor);
+		}
+		return executor;
 	}
 
 	public static CreatesBucketTgz create(
 			LocalFileSystemPaths localFileSystemPaths) {
-		return new CreatesBucketTgz(ShellExecutor.getInstance(),
-				new GetsBucketsExportFile(localFileSystemPaths));
+		return create(localFileSystemPaths, ParallelGzipOutputStream.DEFAULT_LEVEL,
+				Runtime.getRuntime().availableProcessors());
+	}
+
+	public static CreatesBucketTgz create(
+			LocalFileSystemPaths localFileSystemPaths, ArchiveConfiguration config) {
+		return create(localFileSystemPaths, config.getTgzCompressionLevel(),
+				config.getTgzCompressionThreads());
+	}
+
+	private static CreatesBucketTgz create(
+			LocalFileSystemPaths localFileSystemPaths, int level, int threads) {
+		return new CreatesBucketTgz(new GetsBucketsExportFile(
+				localFileSystemPaths), getSharedCompressionExecutor(threads), level,
+				threads);
 	}
 }
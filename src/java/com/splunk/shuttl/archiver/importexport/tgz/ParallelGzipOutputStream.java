@@ -0,0 +1,212 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.importexport.tgz;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip compresses blocks of the written data in parallel, like pigz. Every
+ * block is written as a separate gzip member, and concatenated gzip members
+ * are read as a single stream by gzip, tar and
+ * {@link java.util.zip.GZIPInputStream}.
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+	public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+	public static final int DEFAULT_LEVEL = 6;
+
+	private final OutputStream out;
+	private final ExecutorService executor;
+	private final int level;
+	private final int maxPendingBlocks;
+	private final int blockSize;
+	private final LinkedList<Future<byte[]>> pendingBlocks;
+
+	private byte[] block;
+	private int blockLength;
+	private boolean hasWrittenMember;
+	private boolean closed;
+
+	/**
+	 * @param out
+	 *          where the compressed data is written.
+	 * @param executor
+	 *          compressing the blocks.
+	 * @param level
+	 *          of compression, 1-9.
+	 * @param threads
+	 *          number of blocks compressed at the same time by this stream.
+	 */
+	public ParallelGzipOutputStream(OutputStream out, ExecutorService executor,
+			int level, int threads) {
+		this(out, executor, level, threads, DEFAULT_BLOCK_SIZE);
+	}
+
+	public ParallelGzipOutputStream(OutputStream out, ExecutorService executor,
+			int level, int threads, int blockSize) {
+		if (level < 1 || level > 9)
+			throw new IllegalArgumentException("Compression level must be 1-9. Was: "
+					+ level);
+		if (threads < 1 || blockSize < 1)
+			throw new IllegalArgumentException("Threads and block size must be "
+					+ "positive. Was threads: " + threads + ", block size: " + blockSize);
+		this.out = out;
+		this.executor = executor;
+		this.level = level;
+		this.maxPendingBlocks = threads;
+		this.blockSize = blockSize;
+		this.pendingBlocks = new LinkedList<Future<byte[]>>();
+		this.block = new byte[blockSize];
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		throwIfClosed();
+		while (len > 0) {
+			int copied = Math.min(len, blockSize - blockLength);
+			System.arraycopy(b, off, block, blockLength, copied);
+			blockLength += copied;
+			off += copied;
+			len -= copied;
+			if (blockLength == blockSize)
+				compressBlock();
+		}
+	}
+
+	private void throwIfClosed() throws IOException {
+		if (closed)
+			throw new IOException("Stream is closed");
+	}
+
+	private void compressBlock() throws IOException {
+		pendingBlocks.add(executor.submit(new CompressBlock(block, blockLength,
+				level)));
+		block = new byte[blockSize];
+		blockLength = 0;
+		while (pendingBlocks.size() > maxPendingBlocks)
+			writeOldestBlock();
+	}
+
+	private void writeOldestBlock() throws IOException {
+		Future<byte[]> oldest = pendingBlocks.removeFirst();
+		out.write(getCompressedBlock(oldest));
+		hasWrittenMember = true;
+	}
+
+	private byte[] getCompressedBlock(Future<byte[]> compressed)
+			throws IOException {
+		try {
+			return compressed.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while compressing");
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * Only flushes the underlying stream. Partial blocks are not compressed until
+	 * they are full, or the stream is closed.
+	 */
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	/**
+	 * Compresses the last block and waits for all blocks to be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		try {
+			if (blockLength > 0 || !hasWrittenMember && pendingBlocks.isEmpty())
+				compressBlock();
+			while (!pendingBlocks.isEmpty())
+				writeOldestBlock();
+		} finally {
+			cancelPendingBlocks();
+			out.close();
+		}
+	}
+
+	/**
+	 * Closes the underlying stream without compressing the last block or writing
+	 * the pending ones. Used when the data written so far shouldn't be read as a
+	 * complete gzip.
+	 */
+	public void abort() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		cancelPendingBlocks();
+		out.close();
+	}
+
+	private void cancelPendingBlocks() {
+		for (Future<byte[]> pending : pendingBlocks)
+			pending.cancel(true);
+		pendingBlocks.clear();
+	}
+
+	private static class CompressBlock implements Callable<byte[]> {
+
+		private final byte[] data;
+		private final int length;
+		private final int level;
+
+		public CompressBlock(byte[] data, int length, int level) {
+			this.data = data;
+			this.length = length;
+			this.level = level;
+		}
+
+		@Override
+		public byte[] call() throws IOException {
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream(
+					length / 2 + 64);
+			GZIPOutputStream gzip = new LeveledGzipOutputStream(compressed, level);
+			gzip.write(data, 0, length);
+			gzip.close();
+			return compressed.toByteArray();
+		}
+	}
+
+	private static class LeveledGzipOutputStream extends GZIPOutputStream {
+
+		public LeveledGzipOutputStream(OutputStream out, int level)
+				throws IOException {
+			super(out);
+			def.setLevel(level);
+		}
+	}
+}
@@ -0,0 +1,226 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.importexport.tgz;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Reads entries of a tar stream, as written by {@link TarWriter} or by tar in
+ * the ustar and gnu formats. GNU long names and pax paths are supported, other
+ * extended headers are skipped.
+ */
+public class TarReader {
+
+	/**
+	 * Header of an entry in the tar.
+	 */
+	public static class TarEntry {
+
+		public final String name;
+		public final long size;
+		public final char type;
+		public final long lastModified;
+
+		public TarEntry(String name, long size, char type, long lastModified) {
+			this.name = name;
+			this.size = size;
+			this.type = type;
+			this.lastModified = lastModified;
+		}
+
+		public boolean isDirectory() {
+			return type == '5' || name.endsWith("/");
+		}
+
+		public boolean isFile() {
+			return !isDirectory() && (type == '0' || type == 0 || type == '7');
+		}
+
+		@Override
+		public String toString() {
+			return "TarEntry [name=" + name + ", size=" + size + ", type=" + type
+					+ "]";
+		}
+	}
+
+	private static final int BLOCK_SIZE = TarWriter.BLOCK_SIZE;
+
+	private final InputStream in;
+	private final byte[] header = new byte[BLOCK_SIZE];
+
+	private long remainingInEntry;
+	private long paddingOfEntry;
+
+	public TarReader(InputStream in) {
+		this.in = in;
+	}
+
+	/**
+	 * Skips what is left of the current entry and reads the next one.
+	 * 
+	 * @return next entry, or null when there are no more entries.
+	 */
+	public TarEntry nextEntry() throws IOException {
+		skipRestOfEntry();
+		String longName = null;
+		while (true) {
+			if (!readHeader())
+				return null;
+			char type = (char) header[156];
+			long size = parseNumber(124, 12);
+			String name = longName != null ? longName : readHeaderName();
+			if (type == 'L') {
+				longName = trimNulls(readContent(size));
+			} else if (type == 'x') {
+				String paxPath = parsePaxPath(readContent(size));
+				longName = paxPath != null ? paxPath : longName;
+			} else if (type == 'g' || type == 'K') {
+				readContent(size);
+			} else {
+				startEntry(size);
+				return new TarEntry(name, size, type, parseNumber(136, 12) * 1000);
+			}
+		}
+	}
+
+	/**
+	 * Reads content of the current entry.
+	 * 
+	 * @return number of bytes read, or -1 at the end of the entry.
+	 */
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (remainingInEntry == 0)
+			return -1;
+		int read = in.read(b, off, (int) Math.min(len, remainingInEntry));
+		if (read < 0)
+			throw new EOFException("Tar ended in the middle of an entry");
+		remainingInEntry -= read;
+		return read;
+	}
+
+	private void skipRestOfEntry() throws IOException {
+		IOUtils.skipFully(in, remainingInEntry + paddingOfEntry);
+		remainingInEntry = 0;
+		paddingOfEntry = 0;
+	}
+
+	private void startEntry(long size) {
+		remainingInEntry = size;
+		paddingOfEntry = (BLOCK_SIZE - size % BLOCK_SIZE) % BLOCK_SIZE;
+	}
+
+	/**
+	 * @return false at the end of archive marker.
+	 */
+	private boolean readHeader() throws IOException {
+		int read = IOUtils.read(in, header);
+		if (read < BLOCK_SIZE)
+			throw new EOFException("Tar ended before the end of archive marker");
+		if (isZeroBlock())
+			return false;
+		verifyChecksum();
+		return true;
+	}
+
+	private boolean isZeroBlock() {
+		for (byte b : header)
+			if (b != 0)
+				return false;
+		return true;
+	}
+
+	private void verifyChecksum() throws IOException {
+		long expected = parseNumber(148, 8);
+		long actual = 0;
+		for (int i = 0; i < BLOCK_SIZE; i++)
+			actual += i >= 148 && i < 156 ? ' ' : header[i] & 0xff;
+		if (expected != actual)
+			throw new IOException("Tar header has bad checksum. Not a tar?");
+	}
+
+	private String readHeaderName() throws IOException {
+		String name = readString(0, 100);
+		String prefix = isUstar() ? readString(345, 155) : "";
+		return prefix.isEmpty() ? name : prefix + "/" + name;
+	}
+
+	private boolean isUstar() {
+		return header[257] == 'u' && header[258] == 's' && header[259] == 't'
+				&& header[260] == 'a' && header[261] == 'r' && header[262] == 0;
+	}
+
+	private byte[] readContent(long size) throws IOException {
+		if (size > Integer.MAX_VALUE)
+			throw new IOException("Tar extended header is too large: " + size);
+		byte[] content = new byte[(int) size];
+		IOUtils.readFully(in, content);
+		IOUtils.skipFully(in, (BLOCK_SIZE - size % BLOCK_SIZE) % BLOCK_SIZE);
+		return content;
+	}
+
+	private String parsePaxPath(byte[] pax) throws IOException {
+		String records = new String(pax, "UTF-8");
+		String path = null;
+		int offset = 0;
+		while (offset < records.length()) {
+			int space = records.indexOf(' ', offset);
+			int length = Integer.parseInt(records.substring(offset, space));
+			String record = records.substring(space + 1, offset + length - 1);
+			if (record.startsWith("path="))
+				path = record.substring("path=".length());
+			offset += length;
+		}
+		return path;
+	}
+
+	private long parseNumber(int offset, int length) {
+		if ((header[offset] & 0x80) != 0)
+			return parseBase256(offset, length);
+		long value = 0;
+		for (int i = offset; i < offset + length; i++) {
+			byte b = header[i];
+			if (b >= '0' && b <= '7')
+				value = value * 8 + (b - '0');
+			else if (b == 0 || b == ' ' && value != 0)
+				break;
+		}
+		return value;
+	}
+
+	private long parseBase256(int offset, int length) {
+		long value = header[offset] & 0x7f;
+		for (int i = offset + 1; i < offset + length; i++)
+			value = value << 8 | header[i] & 0xff;
+		return value;
+	}
+
+	private String readString(int offset, int length) throws IOException {
+		int end = offset;
+		while (end < offset + length && header[end] != 0)
+			end++;
+		return new String(header, offset, end - offset, "UTF-8");
+	}
+
+	private String trimNulls(byte[] bytes) throws IOException {
+		int end = bytes.length;
+		while (end > 0 && bytes[end - 1] == 0)
+			end--;
+		return new String(bytes, 0, end, "UTF-8");
+	}
+}
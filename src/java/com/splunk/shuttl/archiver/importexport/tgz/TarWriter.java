@@ -0,0 +1,189 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.importexport.tgz;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Writes files and directories to an output stream in the ustar format, as
+ * read by tar. File sizes that don't fit the ustar size field are written with
+ * the base-256 encoding of GNU tar.
+ */
+public class TarWriter implements Closeable {
+
+	static final int BLOCK_SIZE = 512;
+	private static final int NAME_LENGTH = 100;
+	private static final int PREFIX_LENGTH = 155;
+	private static final long MAX_OCTAL_SIZE = 077777777777L;
+
+	private final OutputStream out;
+	private final byte[] buffer = new byte[64 * 1024];
+
+	public TarWriter(OutputStream out) {
+		this.out = out;
+	}
+
+	/**
+	 * Writes the directory and everything in it, with entry names relative to
+	 * the parent of the directory. Same as: tar -C parent -c directoryName
+	 */
+	public void putDirectoryRecursively(File directory) throws IOException {
+		putDirectory(directory, directory.getName());
+	}
+
+	private void putDirectory(File directory, String name) throws IOException {
+		writeHeader(name + "/", 0, '5', 0755, directory.lastModified());
+		File[] children = directory.listFiles();
+		if (children == null)
+			throw new IOException("Could not list directory: " + directory);
+		Arrays.sort(children);
+		for (File child : children)
+			if (child.isDirectory())
+				putDirectory(child, name + "/" + child.getName());
+			else
+				putFile(child, name + "/" + child.getName());
+	}
+
+	/**
+	 * Writes the file as an entry with the specified name.
+	 */
+	public void putFile(File file, String name) throws IOException {
+		long size = file.length();
+		int mode = file.canExecute() ? 0755 : 0644;
+		writeHeader(name, size, '0', mode, file.lastModified());
+		InputStream in = new FileInputStream(file);
+		try {
+			copyExactly(in, size, file);
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+		writePadding(size);
+	}
+
+	private void copyExactly(InputStream in, long size, File file)
+			throws IOException {
+		long remaining = size;
+		while (remaining > 0) {
+			int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+			if (read < 0)
+				throw new IOException("File: " + file + " was shorter than "
+						+ size + " bytes while it was written to tar");
+			out.write(buffer, 0, read);
+			remaining -= read;
+		}
+	}
+
+	private void writePadding(long size) throws IOException {
+		int lastBlockLength = (int) (size % BLOCK_SIZE);
+		if (lastBlockLength != 0)
+			out.write(new byte[BLOCK_SIZE - lastBlockLength]);
+	}
+
+	private void writeHeader(String name, long size, char type, int mode,
+			long lastModified) throws IOException {
+		byte[] header = new byte[BLOCK_SIZE];
+		writeName(header, name);
+		writeOctal(header, 100, 8, mode);
+		writeOctal(header, 108, 8, 0);
+		writeOctal(header, 116, 8, 0);
+		writeSize(header, size);
+		writeOctal(header, 136, 12, lastModified / 1000);
+		header[156] = (byte) type;
+		writeAscii(header, 257, "ustar");
+		writeAscii(header, 263, "00");
+		writeChecksum(header);
+		out.write(header);
+	}
+
+	private void writeName(byte[] header, String name) throws IOException {
+		byte[] nameBytes = name.getBytes("UTF-8");
+		if (nameBytes.length <= NAME_LENGTH) {
+			System.arraycopy(nameBytes, 0, header, 0, nameBytes.length);
+		} else {
+			int split = getPrefixSplit(nameBytes);
+			if (split < 0)
+				throw new IOException("Name is too long for tar: " + name);
+			System.arraycopy(nameBytes, split + 1, header, 0, nameBytes.length
+					- split - 1);
+			System.arraycopy(nameBytes, 0, header, 345, split);
+		}
+	}
+
+	/**
+	 * @return index of a '/' that splits the name into a prefix and a name that
+	 *         fit the header, or -1 if there's no such '/'.
+	 */
+	private int getPrefixSplit(byte[] nameBytes) {
+		for (int i = Math.min(PREFIX_LENGTH, nameBytes.length - 1); i > 0; i--)
+			if (nameBytes[i] == '/')
+				return nameBytes.length - i - 1 <= NAME_LENGTH ? i : -1;
+		return -1;
+	}
+
+	private void writeSize(byte[] header, long size) {
+		if (size <= MAX_OCTAL_SIZE) {
+			writeOctal(header, 124, 12, size);
+		} else {
+			header[124] = (byte) 0x80;
+			for (int i = 135; i > 124; i--) {
+				header[i] = (byte) size;
+				size >>>= 8;
+			}
+		}
+	}
+
+	private void writeOctal(byte[] header, int offset, int length, long value) {
+		String octal = Long.toOctalString(value);
+		int digits = length - 1;
+		for (int i = 0; i < digits - octal.length(); i++)
+			header[offset + i] = '0';
+		writeAscii(header, offset + digits - octal.length(), octal);
+	}
+
+	private void writeAscii(byte[] header, int offset, String value) {
+		for (int i = 0; i < value.length(); i++)
+			header[offset + i] = (byte) value.charAt(i);
+	}
+
+	private void writeChecksum(byte[] header) {
+		Arrays.fill(header, 148, 156, (byte) ' ');
+		long checksum = 0;
+		for (byte b : header)
+			checksum += b & 0xff;
+		writeOctal(header, 148, 7, checksum);
+		header[154] = 0;
+		header[155] = ' ';
+	}
+
+	/**
+	 * Writes the end of archive marker and closes the output stream.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			out.write(new byte[BLOCK_SIZE * 2]);
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,267 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.importexport.tgz;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.PushbackInputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+import com.splunk.shuttl.archiver.importexport.tgz.TarReader.TarEntry;
+import com.splunk.shuttl.archiver.util.DaemonThreadFactory;
+
+/**
+ * Extracts a tgz stream to a directory, without storing the tgz on disk. The
+ * stream is decompressed on the calling thread while chunks of the files are
+ * written concurrently on an executor.
+ */
+public class TgzExtractor {
+
+	private static final int CHUNK_SIZE = 1024 * 1024;
+
+	private final ExecutorService writeExecutor;
+	private final int maxPendingWrites;
+
+	/**
+	 * @param writeExecutor
+	 *          writing chunks of the extracted files.
+	 * @param maxPendingWrites
+	 *          max number of chunks, per extraction, read but not yet written.
+	 */
+	public TgzExtractor(ExecutorService writeExecutor, int maxPendingWrites) {
+		this.writeExecutor = writeExecutor;
+		this.maxPendingWrites = maxPendingWrites;
+	}
+
+	/**
+	 * Extracts the tgz into the directory. The first directory of the entry
+	 * paths, which is the name of the bucket directory when the tgz was created,
+	 * is replaced by the directory. Closes the stream.
+	 */
+	public void extract(InputStream tgz, File directory) throws IOException {
+		try {
+			new Extraction(new TarReader(new GZIPInputStream(
+					new AvailableUntilEndInputStream(tgz), 64 * 1024)), directory)
+					.extract();
+		} finally {
+			tgz.close();
+		}
+	}
+
+	private class Extraction {
+
+		private final TarReader tarReader;
+		private final File directory;
+		private final LinkedList<Future<Void>> pendingWrites;
+		private final Map<File, Long> lastModifiedTimes;
+
+		public Extraction(TarReader tarReader, File directory) {
+			this.tarReader = tarReader;
+			this.directory = directory;
+			this.pendingWrites = new LinkedList<Future<Void>>();
+			this.lastModifiedTimes = new LinkedHashMap<File, Long>();
+		}
+
+		public void extract() throws IOException {
+			mkdirs(directory);
+			try {
+				TarEntry entry;
+				while ((entry = tarReader.nextEntry()) != null)
+					extractEntry(entry);
+				while (!pendingWrites.isEmpty())
+					waitForOldestWrite();
+			} finally {
+				cancelPendingWrites();
+			}
+			setLastModifiedTimes();
+		}
+
+		private void extractEntry(TarEntry entry) throws IOException {
+			File file = getFileInDirectory(entry.name);
+			if (entry.isDirectory()) {
+				mkdirs(file);
+			} else if (entry.isFile()) {
+				mkdirs(file.getParentFile());
+				extractFile(entry, file);
+			} else {
+				return;
+			}
+			lastModifiedTimes.put(file, entry.lastModified);
+		}
+
+		private File getFileInDirectory(String entryName) throws IOException {
+			String[] parts = entryName.split("/");
+			List<String> relativeParts = new ArrayList<String>();
+			for (String part : parts)
+				if (part.equals(".."))
+					throw new IOException("Tar entry outside of bucket: " + entryName);
+				else if (!part.isEmpty() && !part.equals("."))
+					relativeParts.add(part);
+			File file = directory;
+			for (String part : relativeParts.subList(
+					Math.min(1, relativeParts.size()), relativeParts.size()))
+				file = new File(file, part);
+			return file;
+		}
+
+		private void extractFile(TarEntry entry, File file) throws IOException {
+			truncate(file);
+			long offset = 0;
+			while (offset < entry.size) {
+				byte[] chunk = new byte[(int) Math.min(CHUNK_SIZE, entry.size
+						- offset)];
+				int length = readChunk(chunk);
+				pendingWrites.add(writeExecutor.submit(new WriteChunk(file, offset,
+						chunk, length)));
+				offset += length;
+				while (pendingWrites.size() > maxPendingWrites)
+					waitForOldestWrite();
+			}
+		}
+
+		private void truncate(File file) throws IOException {
+			RandomAccessFile emptyFile = new RandomAccessFile(file, "rw");
+			try {
+				emptyFile.setLength(0);
+			} finally {
+				emptyFile.close();
+			}
+		}
+
+		private int readChunk(byte[] chunk) throws IOException {
+			int length = 0;
+			while (length < chunk.length) {
+				int read = tarReader.read(chunk, length, chunk.length - length);
+				if (read < 0)
+					break;
+				length += read;
+			}
+			return length;
+		}
+
+		private void waitForOldestWrite() throws IOException {
+			try {
+				pendingWrites.removeFirst().get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while extracting");
+			} catch (ExecutionException e) {
+				throw new IOException(e.getCause());
+			}
+		}
+
+		private void cancelPendingWrites() {
+			for (Future<Void> pending : pendingWrites)
+				pending.cancel(true);
+		}
+
+		private void setLastModifiedTimes() {
+			List<Entry<File, Long>> entries = new ArrayList<Entry<File, Long>>(
+					lastModifiedTimes.entrySet());
+			for (int i = entries.size() - 1; i >= 0; i--)
+				entries.get(i).getKey().setLastModified(entries.get(i).getValue());
+		}
+
+		private void mkdirs(File dir) throws IOException {
+			if (!dir.isDirectory() && !dir.mkdirs())
+				throw new IOException("Could not create directory: " + dir);
+		}
+	}
+
+	private static class WriteChunk implements Callable<Void> {
+
+		private final File file;
+		private final long offset;
+		private final byte[] chunk;
+		private final int length;
+
+		public WriteChunk(File file, long offset, byte[] chunk, int length) {
+			this.file = file;
+			this.offset = offset;
+			this.chunk = chunk;
+			this.length = length;
+		}
+
+		@Override
+		public Void call() throws IOException {
+			RandomAccessFile out = new RandomAccessFile(file, "rw");
+			try {
+				out.seek(offset);
+				out.write(chunk, 0, length);
+			} finally {
+				out.close();
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * {@link GZIPInputStream} only continues with the next gzip member when the
+	 * stream has bytes available. Remote streams can have nothing available
+	 * between members, which would end the extraction early, so this stream
+	 * reports bytes as available until it has actually ended.
+	 */
+	private static class AvailableUntilEndInputStream extends
+			PushbackInputStream {
+
+		public AvailableUntilEndInputStream(InputStream in) {
+			super(new BufferedInputStream(in, 64 * 1024));
+		}
+
+		@Override
+		public int available() throws IOException {
+			int available = super.available();
+			if (available > 0)
+				return available;
+			int next = read();
+			if (next < 0)
+				return 0;
+			unread(next);
+			return 1;
+		}
+	}
+
+	private static ExecutorService sharedWriteExecutor;
+
+	private static synchronized ExecutorService getSharedWriteExecutor() {
+		if (sharedWriteExecutor == null)
+			sharedWriteExecutor = Executors.newFixedThreadPool(Runtime.getRuntime()
+					.availableProcessors(), new DaemonThreadFactory("tgz-extraction"));
+		return sharedWriteExecutor;
+	}
+
+	/**
+	 * @return extractor writing on threads shared by the whole server.
+	 */
+	public static TgzExtractor create() {
+		return new TgzExtractor(getSharedWriteExecutor(), Runtime.getRuntime()
+				.availableProcessors() * 2);
+	}
+}
@@ -18,15 +18,23 @@ import static com.splunk.shuttl.archiver.LogFormatter.*;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
 
 import org.apache.log4j.Logger;
 
 import com.splunk.shuttl.archiver.archive.BucketFormat;
+import com.splunk.shuttl.archiver.catalog.ArchiveCatalog;
 import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
 import com.splunk.shuttl.archiver.filesystem.PathResolver;
+import com.splunk.shuttl.archiver.listers.ConcurrentIndexTasks.IndexResults;
+import com.splunk.shuttl.archiver.listers.ConcurrentIndexTasks.IndexTask;
 import com.splunk.shuttl.archiver.model.Bucket;
 import com.splunk.shuttl.archiver.model.RemoteBucket;
+import com.splunk.shuttl.archiver.thaw.BucketFilter;
+import com.splunk.shuttl.archiver.thaw.BucketIntervalIndex;
 import com.splunk.shuttl.archiver.util.UtilsPath;
 
 /**
@@ -36,9 +44,19 @@ public class ArchiveBucketsLister {
 
 	private final static Logger logger = Logger
 			.getLogger(ArchiveBucketsLister.class);
+
+	private static final Comparator<Bucket> BY_NAME = new Comparator<Bucket>() {
+
+		@Override
+		public int compare(Bucket b1, Bucket b2) {
+			return b1.getName().compareTo(b2.getName());
+		}
+	};
+
 	private final ArchivedIndexesLister indexesLister;
 	private final PathResolver pathResolver;
 	private final ArchiveFileSystem archiveFileSystem;
+	private final ConcurrentIndexTasks indexTasks;
 
 	/**
 	 * 
@@ -48,25 +66,102 @@ public class ArchiveBucketsLister {
 	 *          to list indexes where {@link Bucket}s can be listed.
 	 * @param pathResolver
 	 *          for resolving paths on the {@link ArchiveFileSystem}
+	 * @param indexTasks
+	 *          lists the buckets of the indexes at the same time.
 	 */
 	public ArchiveBucketsLister(ArchiveFileSystem archiveFileSystem,
-			ArchivedIndexesLister indexesLister, PathResolver pathResolver) {
+			ArchivedIndexesLister indexesLister, PathResolver pathResolver,
+			ConcurrentIndexTasks indexTasks) {
 		this.archiveFileSystem = archiveFileSystem;
 		this.indexesLister = indexesLister;
 		this.pathResolver = pathResolver;
+		this.indexTasks = indexTasks;
 	}
 
 	/**
-	 * List buckets in an {@link ArchiveFileSystem}.<br/>
+	 * @return lister that lists the buckets of one index at a time.
+	 */
+	public static ArchiveBucketsLister create(
+			ArchiveFileSystem archiveFileSystem, ArchivedIndexesLister indexesLister,
+			PathResolver pathResolver) {
+		return new ArchiveBucketsLister(archiveFileSystem, indexesLister,
+				pathResolver, ConcurrentIndexTasks.serial());
+	}
+
+	/**
+	 * @param catalog
+	 *          to list the {@link Bucket}s in, instead of the
+	 *          {@link ArchiveFileSystem}.
+	 */
+	public static ArchiveBucketsLister withCatalog(
+			ArchiveFileSystem archiveFileSystem, ArchivedIndexesLister indexesLister,
+			PathResolver pathResolver, ArchiveCatalog catalog,
+			ConcurrentIndexTasks indexTasks) {
+		return new CatalogBucketsLister(archiveFileSystem, indexesLister,
+				pathResolver, catalog, indexTasks);
+	}
+
+	/**
+	 * The catalog keeps its index over the time ranges of the buckets between
+	 * calls.
+	 */
+	private static class CatalogBucketsLister extends ArchiveBucketsLister {
+
+		private final ArchiveCatalog catalog;
+
+		public CatalogBucketsLister(ArchiveFileSystem archiveFileSystem,
+				ArchivedIndexesLister indexesLister, PathResolver pathResolver,
+				ArchiveCatalog catalog, ConcurrentIndexTasks indexTasks) {
+			super(archiveFileSystem, indexesLister, pathResolver, indexTasks);
+			this.catalog = catalog;
+		}
+
+		@Override
+		public List<Bucket> listBucketsInIndex(String index) {
+			return catalog.listBucketsInIndex(index);
+		}
+
+		@Override
+		public BucketIntervalIndex getBucketIntervalIndex(String index) {
+			return catalog.getBucketIntervalIndex(index);
+		}
+
+		@Override
+		public List<Bucket> listBucketsInIndexAfter(String index,
+				String afterName, Date earliest, Date latest, int limit) {
+			return catalog.listBucketsInIndexAfter(index, afterName, earliest,
+					latest, limit);
+		}
+	}
+
+	/**
+	 * List buckets in an {@link ArchiveFileSystem}. The indexes are listed at
+	 * the same time.<br/>
 	 * Note: Buckets returned will have {@link BucketFormat} = null;
 	 * 
-	 * @return list of buckets with null {@link BucketFormat}.
+	 * @return list of buckets with null {@link BucketFormat}, in the order of
+	 *         the indexes.
+	 * @throws RuntimeException
+	 *           of the first index that could not be listed.
 	 */
 	public List<Bucket> listBuckets() {
-		List<Bucket> buckets = new ArrayList<Bucket>();
-		for (String index : indexesLister.listIndexes())
-			buckets.addAll(listBucketsInIndex(index));
-		return buckets;
+		IndexResults<List<Bucket>> bucketsByIndex = indexTasks.runForIndexes(
+				listIndexes(), new IndexTask<List<Bucket>>() {
+
+					@Override
+					public List<Bucket> runForIndex(String index) {
+						return listBucketsInIndex(index);
+					}
+				});
+		bucketsByIndex.throwFirstError();
+		return ConcurrentIndexTasks.concat(bucketsByIndex.getResults());
+	}
+
+	/**
+	 * @return indexes with archived {@link Bucket}s.
+	 */
+	public List<String> listIndexes() {
+		return indexesLister.listIndexes();
 	}
 
 	/**
@@ -83,6 +178,38 @@ public class ArchiveBucketsLister {
 		return buckets;
 	}
 
+	/**
+	 * @return index over the time ranges of the {@link Bucket}s archived for an
+	 *         index, built from a new listing.
+	 */
+	public BucketIntervalIndex getBucketIntervalIndex(String index) {
+		return new BucketIntervalIndex(listBucketsInIndex(index));
+	}
+
+	/**
+	 * The {@link ArchiveFileSystem} can only list the whole index, so the page
+	 * is taken from the sorted listing.
+	 * 
+	 * @param afterName
+	 *          to list the buckets after, or null to list from the first bucket.
+	 * @return at most limit {@link Bucket}s archived for an index within the
+	 *         time range, in order of their names.
+	 */
+	public List<Bucket> listBucketsInIndexAfter(String index, String afterName,
+			Date earliest, Date latest, int limit) {
+		List<Bucket> buckets = listBucketsInIndex(index);
+		Collections.sort(buckets, BY_NAME);
+		List<Bucket> page = new ArrayList<Bucket>();
+		for (Bucket bucket : buckets) {
+			if (page.size() >= limit)
+				break;
+			if ((afterName == null || bucket.getName().compareTo(afterName) > 0)
+					&& BucketFilter.isBucketWithinTimeRange(bucket, earliest, latest))
+				page.add(bucket);
+		}
+		return page;
+	}
+
 	private List<String> getPathToBucketsWithIndex(String index) {
 		String bucketsHome = pathResolver.getBucketsHome(index);
 		List<String> pathsToBuckets = listBucketsHomeInArchive(bucketsHome);
@@ -15,6 +15,7 @@
 package com.splunk.shuttl.archiver.listers;
 
 import com.splunk.shuttl.archiver.archive.ArchiveConfiguration;
+import com.splunk.shuttl.archiver.catalog.ArchiveCatalog;
 import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
 import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystemFactory;
 import com.splunk.shuttl.archiver.filesystem.PathResolver;
@@ -32,10 +33,12 @@ public class ArchiveBucketsListerFactory {
 				.getWithConfiguration(config);
 		PathResolver pathResolver = new PathResolver(config);
 
-		ArchivedIndexesLister indexesLister = new ArchivedIndexesLister(
-				pathResolver, archiveFileSystem);
-		return new ArchiveBucketsLister(archiveFileSystem, indexesLister,
-				pathResolver);
+		ArchiveCatalog catalog = ArchiveCatalog.getShared(config);
+
+		ArchivedIndexesLister indexesLister = ArchivedIndexesLister.withCatalog(
+				pathResolver, archiveFileSystem, catalog);
+		return ArchiveBucketsLister.withCatalog(archiveFileSystem, indexesLister,
+				pathResolver, catalog, ConcurrentIndexTasks.getShared(config));
 	}
 
 }
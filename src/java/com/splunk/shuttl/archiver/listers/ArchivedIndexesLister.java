@@ -22,6 +22,7 @@ import java.util.List;
 
 import org.apache.log4j.Logger;
 
+import com.splunk.shuttl.archiver.catalog.ArchiveCatalog;
 import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
 import com.splunk.shuttl.archiver.filesystem.PathResolver;
 import com.splunk.shuttl.archiver.util.UtilsPath;
@@ -48,6 +49,31 @@ public class ArchivedIndexesLister {
 		this.fileSystem = fileSystem;
 	}
 
+	/**
+	 * @param catalog
+	 *          to list the indexes in, instead of the {@link ArchiveFileSystem}.
+	 */
+	public static ArchivedIndexesLister withCatalog(PathResolver pathResolver,
+			ArchiveFileSystem fileSystem, ArchiveCatalog catalog) {
+		return new CatalogIndexesLister(pathResolver, fileSystem, catalog);
+	}
+
+	private static class CatalogIndexesLister extends ArchivedIndexesLister {
+
+		private final ArchiveCatalog catalog;
+
+		public CatalogIndexesLister(PathResolver pathResolver,
+				ArchiveFileSystem fileSystem, ArchiveCatalog catalog) {
+			super(pathResolver, fileSystem);
+			this.catalog = catalog;
+		}
+
+		@Override
+		public List<String> listIndexes() {
+			return catalog.listIndexes();
+		}
+	}
+
 	/**
 	 * @return {@link List} of indexes that are archived in a
 	 *         {@link ArchiveFileSystem}
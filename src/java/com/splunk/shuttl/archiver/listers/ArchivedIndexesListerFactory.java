@@ -15,6 +15,7 @@
 package com.splunk.shuttl.archiver.listers;
 
 import com.splunk.shuttl.archiver.archive.ArchiveConfiguration;
+import com.splunk.shuttl.archiver.catalog.ArchiveCatalog;
 import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystemFactory;
 import com.splunk.shuttl.archiver.filesystem.PathResolver;
 
@@ -32,8 +33,9 @@ public class ArchivedIndexesListerFactory {
 	 * @return
 	 */
 	public static ArchivedIndexesLister create(ArchiveConfiguration config) {
-		return new ArchivedIndexesLister(new PathResolver(config),
-				ArchiveFileSystemFactory.getWithConfiguration(config));
+		return ArchivedIndexesLister.withCatalog(new PathResolver(config),
+				ArchiveFileSystemFactory.getWithConfiguration(config),
+				ArchiveCatalog.getShared(config));
 	}
 
 }
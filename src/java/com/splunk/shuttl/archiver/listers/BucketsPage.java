@@ -0,0 +1,65 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.listers;
+
+import java.util.List;
+
+import com.splunk.shuttl.archiver.model.Bucket;
+
+/**
+ * A page of listed {@link Bucket}s, with the cursor that lists the page after
+ * it.
+ */
+public class BucketsPage {
+
+	private static final String CURSOR_SEPARATOR = "/";
+
+	private final List<Bucket> buckets;
+	private final String nextCursor;
+
+	public BucketsPage(List<Bucket> buckets, String nextCursor) {
+		this.buckets = buckets;
+		this.nextCursor = nextCursor;
+	}
+
+	public List<Bucket> getBuckets() {
+		return buckets;
+	}
+
+	/**
+	 * @return cursor to list the next page with, or null if this is the last
+	 *         page.
+	 */
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	/**
+	 * @return cursor that continues a listing after the bucket.
+	 */
+	public static String getCursor(Bucket bucket) {
+		return bucket.getIndex() + CURSOR_SEPARATOR + bucket.getName();
+	}
+
+	static String getIndexOfCursor(String cursor) {
+		int separator = cursor.indexOf(CURSOR_SEPARATOR);
+		return separator < 0 ? cursor : cursor.substring(0, separator);
+	}
+
+	static String getBucketNameOfCursor(String cursor) {
+		int separator = cursor.indexOf(CURSOR_SEPARATOR);
+		return separator < 0 ? "" : cursor.substring(separator + 1);
+	}
+}
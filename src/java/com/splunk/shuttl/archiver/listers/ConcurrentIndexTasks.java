@@ -0,0 +1,207 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.listers;
+
+import static com.splunk.shuttl.archiver.LogFormatter.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+import org.apache.log4j.Logger;
+
+import com.splunk.shuttl.archiver.archive.ArchiveConfiguration;
+import com.splunk.shuttl.archiver.util.CallingThreadExecutor;
+import com.splunk.shuttl.archiver.util.DaemonThreadFactory;
+
+/**
+ * Runs a task for each index, with the indexes running at the same time on an
+ * {@link Executor}. Listing every index of an archive is one remote listing
+ * per index, which adds up when there are hundreds of indexes.
+ */
+public class ConcurrentIndexTasks {
+
+	private static final Logger logger = Logger
+			.getLogger(ConcurrentIndexTasks.class);
+	private static Executor sharedExecutor;
+
+	private final Executor executor;
+
+	/**
+	 * @param executor
+	 *          runs the tasks of the indexes.
+	 */
+	public ConcurrentIndexTasks(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * A task for one index.
+	 */
+	public interface IndexTask<T> {
+
+		T runForIndex(String index) throws Exception;
+	}
+
+	/**
+	 * Results and errors of the tasks, in the order of the indexes.
+	 */
+	public static class IndexResults<T> {
+
+		private final List<T> results;
+		private final Map<String, Exception> errors;
+
+		private IndexResults(List<T> results, Map<String, Exception> errors) {
+			this.results = results;
+			this.errors = errors;
+		}
+
+		/**
+		 * @return results of the indexes whose tasks did not fail.
+		 */
+		public List<T> getResults() {
+			return results;
+		}
+
+		/**
+		 * @return exceptions of the failed tasks by index.
+		 */
+		public Map<String, Exception> getErrors() {
+			return errors;
+		}
+
+		/**
+		 * @return exception of the first failed index, or null if none failed.
+		 */
+		public Exception getFirstError() {
+			return errors.isEmpty() ? null : errors.values().iterator().next();
+		}
+
+		/**
+		 * @throws RuntimeException
+		 *           with the exception of the first failed index, if any failed.
+		 */
+		public void throwFirstError() {
+			Exception e = getFirstError();
+			if (e == null)
+				return;
+			if (e instanceof RuntimeException)
+				throw (RuntimeException) e;
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Runs the task for every index and waits for all of them to finish. Tasks
+	 * that have not started when they are waited on are run by the calling
+	 * thread, so a task can run more tasks on the same executor without waiting
+	 * for a free thread.
+	 * 
+	 * @return results and errors in the order of the indexes.
+	 */
+	public <T> IndexResults<T> runForIndexes(List<String> indexes,
+			IndexTask<T> task) {
+		List<FutureTask<T>> futures = new ArrayList<FutureTask<T>>();
+		for (String index : indexes) {
+			FutureTask<T> future = new FutureTask<T>(new RunForIndex<T>(task, index));
+			futures.add(future);
+			executor.execute(future);
+		}
+
+		List<T> results = new ArrayList<T>();
+		Map<String, Exception> errors = new LinkedHashMap<String, Exception>();
+		for (int i = 0; i < indexes.size(); i++) {
+			String index = indexes.get(i);
+			FutureTask<T> future = futures.get(i);
+			future.run();
+			try {
+				results.add(future.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				logger.warn(warn("Waited for task of index", e,
+						"will throw exception", "index", index));
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				logger.warn(warn("Ran task for index", e.getCause(),
+						"will report the error for the index", "index", index));
+				errors.put(index, asException(e.getCause()));
+			}
+		}
+		return new IndexResults<T>(results, errors);
+	}
+
+	private Exception asException(Throwable cause) {
+		if (cause instanceof Exception)
+			return (Exception) cause;
+		if (cause instanceof Error)
+			throw (Error) cause;
+		return new RuntimeException(cause);
+	}
+
+	private static class RunForIndex<T> implements Callable<T> {
+
+		private final IndexTask<T> task;
+		private final String index;
+
+		public RunForIndex(IndexTask<T> task, String index) {
+			this.task = task;
+			this.index = index;
+		}
+
+		@Override
+		public T call() throws Exception {
+			return task.runForIndex(index);
+		}
+	}
+
+	/**
+	 * @return tasks that run one index at a time on the calling thread.
+	 */
+	public static ConcurrentIndexTasks serial() {
+		return new ConcurrentIndexTasks(new CallingThreadExecutor());
+	}
+
+	/**
+	 * @return tasks sharing the configured number of threads with all other
+	 *         listings of indexes.
+	 */
+	public static ConcurrentIndexTasks getShared(ArchiveConfiguration config) {
+		return new ConcurrentIndexTasks(getSharedExecutor(config
+				.getIndexListingThreads()));
+	}
+
+	private static synchronized Executor getSharedExecutor(int threads) {
+		if (sharedExecutor == null)
+			sharedExecutor = Executors.newFixedThreadPool(threads,
+					new DaemonThreadFactory("index-listing"));
+		return sharedExecutor;
+	}
+
+	/**
+	 * Results in lists are concatenated in the order of the indexes.
+	 */
+	public static <T> List<T> concat(List<? extends List<? extends T>> lists) {
+		List<T> all = new ArrayList<T>();
+		for (List<? extends T> list : lists)
+			all.addAll(list);
+		return all;
+	}
+}
@@ -14,11 +14,16 @@
 // limitations under the License.
 package com.splunk.shuttl.archiver.listers;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
+import com.splunk.shuttl.archiver.listers.ConcurrentIndexTasks.IndexResults;
+import com.splunk.shuttl.archiver.listers.ConcurrentIndexTasks.IndexTask;
 import com.splunk.shuttl.archiver.model.Bucket;
 import com.splunk.shuttl.archiver.thaw.BucketFilter;
+import com.splunk.shuttl.archiver.thaw.BucketIntervalIndex;
 import com.splunk.shuttl.archiver.thaw.BucketFormatResolver;
 
 /**
@@ -29,22 +34,49 @@ public class ListsBucketsFiltered {
 	private final ArchiveBucketsLister bucketsLister;
 	private final BucketFilter bucketFilter;
 	private final BucketFormatResolver bucketFormatResolver;
+	private final ConcurrentIndexTasks indexTasks;
 
 	public ListsBucketsFiltered(ArchiveBucketsLister bucketsLister,
 			BucketFilter bucketFilter, BucketFormatResolver bucketFormatResolver) {
+		this(bucketsLister, bucketFilter, bucketFormatResolver,
+				ConcurrentIndexTasks.serial());
+	}
+
+	/**
+	 * @param indexTasks
+	 *          filters the buckets of the indexes at the same time.
+	 */
+	public ListsBucketsFiltered(ArchiveBucketsLister bucketsLister,
+			BucketFilter bucketFilter, BucketFormatResolver bucketFormatResolver,
+			ConcurrentIndexTasks indexTasks) {
 		this.bucketsLister = bucketsLister;
 		this.bucketFilter = bucketFilter;
 		this.bucketFormatResolver = bucketFormatResolver;
+		this.indexTasks = indexTasks;
 	}
 
 	/**
-	 * @return all archived buckets filtered by earliest and latest time.
+	 * @return all archived buckets filtered by earliest and latest time. The
+	 *         indexes are filtered at the same time.
+	 * @throws RuntimeException
+	 *           of the first index that could not be listed.
 	 * 
 	 * @see ListsBucketsFiltered#listFilteredBucketsAtIndex(String, Date, Date)
 	 */
-	public List<Bucket> listFilteredBuckets(Date earliestTime, Date latestTime) {
-		List<Bucket> allBuckets = bucketsLister.listBuckets();
-		return filterBucketsAndGiveThemFormats(allBuckets, earliestTime, latestTime);
+	public List<Bucket> listFilteredBuckets(final Date earliestTime,
+			final Date latestTime) {
+		IndexResults<List<Bucket>> bucketsByIndex = indexTasks.runForIndexes(
+				bucketsLister.listIndexes(), new IndexTask<List<Bucket>>() {
+
+					@Override
+					public List<Bucket> runForIndex(String index) {
+						return filterBucketsAtIndex(index, earliestTime, latestTime);
+					}
+				});
+		bucketsByIndex.throwFirstError();
+		List<Bucket> filteredBuckets = ConcurrentIndexTasks
+				.concat(bucketsByIndex.getResults());
+		return bucketFormatResolver.resolveBucketsFormats(filteredBuckets);
 	}
 
 	/**
@@ -55,16 +87,74 @@ public class ListsBucketsFiltered {
 	 */
 	public List<Bucket> listFilteredBucketsAtIndex(String index,
 			Date earliestTime, Date latestTime) {
-		List<Bucket> bucketsInIndex = bucketsLister.listBucketsInIndex(index);
-		return filterBucketsAndGiveThemFormats(bucketsInIndex, earliestTime,
+		return bucketFormatResolver.resolveBucketsFormats(filterBucketsAtIndex(
+				index, earliestTime, latestTime));
+	}
+
+	private List<Bucket> filterBucketsAtIndex(String index, Date earliestTime,
+			Date latestTime) {
+		BucketIntervalIndex intervalIndex = bucketsLister
+				.getBucketIntervalIndex(index);
+		return bucketFilter.filterBucketsByTimeRange(intervalIndex, earliestTime,
 				latestTime);
 	}
 
-	private List<Bucket> filterBucketsAndGiveThemFormats(
-			List<Bucket> bucketsToFilter, Date earliestTime, Date latestTime) {
-		List<Bucket> filteredBuckets = bucketFilter.filterBucketsByTimeRange(
-				bucketsToFilter, earliestTime, latestTime);
-		return bucketFormatResolver.resolveBucketsFormats(filteredBuckets);
+	/**
+	 * Lists a page of the filtered buckets. The indexes are listed in order, and
+	 * the buckets of an index in order of their names, so that a listing can
+	 * continue after a cursor. Each index is asked only for the buckets that the
+	 * page still needs, plus one to know if there is a next page. Only the
+	 * formats of the buckets on the page are resolved.
+	 * 
+	 * @param index
+	 *          to list the buckets of, or null for all indexes.
+	 * @param cursor
+	 *          from {@link BucketsPage#getCursor(Bucket)} to list the buckets
+	 *          after, or null to list from the first bucket.
+	 * @return the page of at most limit filtered buckets after the cursor.
+	 */
+	public BucketsPage listFilteredBucketsPage(String index, Date earliestTime,
+			Date latestTime, String cursor, int limit) {
+		List<Bucket> buckets = new ArrayList<Bucket>();
+		if (bucketFilter.isValidTimeRange(earliestTime, latestTime))
+			buckets = listBucketsAfterCursor(index, earliestTime, latestTime,
+					cursor, limit + 1);
+		List<Bucket> page = buckets.subList(0, Math.min(limit, buckets.size()));
+		String nextCursor = null;
+		if (buckets.size() > limit)
+			nextCursor = BucketsPage.getCursor(page.get(page.size() - 1));
+		return new BucketsPage(bucketFormatResolver
+				.resolveBucketsFormats(new ArrayList<Bucket>(page)), nextCursor);
+	}
+
+	private List<Bucket> listBucketsAfterCursor(String index, Date earliestTime,
+			Date latestTime, String cursor, int limit) {
+		String cursorIndex = cursor == null ? null : BucketsPage
+				.getIndexOfCursor(cursor);
+		String cursorBucketName = cursor == null ? null : BucketsPage
+				.getBucketNameOfCursor(cursor);
+		List<Bucket> buckets = new ArrayList<Bucket>();
+		for (String i : getIndexesFrom(index, cursorIndex)) {
+			if (buckets.size() >= limit)
+				break;
+			String afterName = i.equals(cursorIndex) ? cursorBucketName : null;
+			buckets.addAll(bucketsLister.listBucketsInIndexAfter(i, afterName,
+					earliestTime, latestTime, limit - buckets.size()));
+		}
+		return buckets;
 	}
 
+	private List<String> getIndexesFrom(String index, String cursorIndex) {
+		List<String> indexes = new ArrayList<String>();
+		if (index != null)
+			indexes.add(index);
+		else
+			indexes.addAll(bucketsLister.listIndexes());
+		Collections.sort(indexes);
+		List<String> indexesFrom = new ArrayList<String>();
+		for (String i : indexes)
+			if (cursorIndex == null || i.compareTo(cursorIndex) >= 0)
+				indexesFrom.add(i);
+		return indexesFrom;
+	}
 }
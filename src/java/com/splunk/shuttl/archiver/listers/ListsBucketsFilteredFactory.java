@@ -35,7 +35,7 @@ public class ListsBucketsFilteredFactory {
 		BucketFormatResolver bucketFormatResolver = BucketFormatResolverFactory
 				.create(config);
 		return new ListsBucketsFiltered(bucketsLister, bucketFilter,
-				bucketFormatResolver);
+				bucketFormatResolver, ConcurrentIndexTasks.getShared(config));
 	}
 
 }
@@ -17,6 +17,7 @@ package com.splunk.shuttl.archiver.metastore;
 import com.splunk.shuttl.archiver.LocalFileSystemPaths;
 import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
 import com.splunk.shuttl.archiver.filesystem.PathResolver;
+import com.splunk.shuttl.archiver.filesystem.transaction.Transaction;
 import com.splunk.shuttl.archiver.filesystem.transaction.TransactionExecuter;
 import com.splunk.shuttl.archiver.metastore.MetadataStore.CouldNotReadMetadataException;
 import com.splunk.shuttl.archiver.model.Bucket;
@@ -71,6 +72,17 @@ public class ArchiveBucketSize {
 		metadataStore.put(bucket, getSizeMetadataFileName(), "" + bucket.getSize());
 	}
 
+	/**
+	 * @param bucket
+	 *          to persist bucket size for.
+	 * @return transaction that puts the bucket size in the archive, for
+	 *         preparing it together with the transaction of the bucket.
+	 */
+	public Transaction putBucketSizeTransaction(Bucket bucket) {
+		return metadataStore.putTransaction(bucket, getSizeMetadataFileName(), ""
+				+ bucket.getSize());
+	}
+
 	/**
 	 * Instance with path resolver and archive file system.
 	 * 
@@ -81,6 +93,8 @@ public class ArchiveBucketSize {
 			LocalFileSystemPaths localFileSystemPaths) {
 		return new ArchiveBucketSize(new MetadataStore(pathResolver,
 				new FlatFileStorage(localFileSystemPaths), archiveFileSystem,
-				new TransactionExecuter(), localFileSystemPaths));
+				new TransactionExecuter(), localFileSystemPaths,
+				MetadataManifests.getShared(pathResolver, archiveFileSystem,
+						localFileSystemPaths)));
 	}
 }
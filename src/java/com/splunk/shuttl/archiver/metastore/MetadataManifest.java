@@ -0,0 +1,219 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.metastore;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.io.IOUtils;
+
+import com.splunk.shuttl.archiver.archive.BucketFormat;
+
+/**
+ * The metadata of many buckets in one file. The entries are sorted by key and
+ * stored in compressed blocks, followed by an index with the first key of each
+ * block. Looking up a key reads the index once, when the manifest is opened,
+ * and then only the one block that can contain the key.
+ */
+public class MetadataManifest {
+
+	static final int ENTRIES_PER_BLOCK = 512;
+	private static final int MAGIC = 0x53484d46;
+	private static final int VERSION = 1;
+
+	private final File file;
+	private final List<String> firstKeys;
+	private final long[] blockOffsets;
+	private final int[] blockLengths;
+	private final int[] blockEntries;
+
+	private MetadataManifest(File file, List<String> firstKeys,
+			long[] blockOffsets, int[] blockLengths, int[] blockEntries) {
+		this.file = file;
+		this.firstKeys = firstKeys;
+		this.blockOffsets = blockOffsets;
+		this.blockLengths = blockLengths;
+		this.blockEntries = blockEntries;
+	}
+
+	/**
+	 * @return key of a metadata file of a bucket.
+	 */
+	public static String getKey(String bucketName, BucketFormat format,
+			String fileName) {
+		return bucketName + "/" + format + "/" + fileName;
+	}
+
+	/**
+	 * @return the data of the key, or null if the key is not in the manifest.
+	 */
+	public String get(String key) throws IOException {
+		int block = Collections.binarySearch(firstKeys, key);
+		if (block < 0)
+			block = -block - 2;
+		if (block < 0)
+			return null;
+		return readBlock(block).get(key);
+	}
+
+	/**
+	 * @return every entry in the manifest, sorted by key.
+	 */
+	public SortedMap<String, String> readAll() throws IOException {
+		SortedMap<String, String> entries = new TreeMap<String, String>();
+		for (int i = 0; i < firstKeys.size(); i++)
+			entries.putAll(readBlock(i));
+		return entries;
+	}
+
+	/**
+	 * @return number of entries in the manifest.
+	 */
+	public int size() {
+		int size = 0;
+		for (int entries : blockEntries)
+			size += entries;
+		return size;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	private SortedMap<String, String> readBlock(int block) throws IOException {
+		byte[] compressed = new byte[blockLengths[block]];
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try {
+			in.seek(blockOffsets[block]);
+			in.readFully(compressed);
+		} finally {
+			in.close();
+		}
+		DataInputStream entriesIn = new DataInputStream(new InflaterInputStream(
+				new ByteArrayInputStream(compressed)));
+		SortedMap<String, String> entries = new TreeMap<String, String>();
+		for (int i = 0; i < blockEntries[block]; i++)
+			entries.put(entriesIn.readUTF(), entriesIn.readUTF());
+		return entries;
+	}
+
+	/**
+	 * Reads the index of a manifest.
+	 * 
+	 * @throws IOException
+	 *           if the file could not be read or is not a manifest.
+	 */
+	public static MetadataManifest open(File file) throws IOException {
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try {
+			if (in.length() < 16 || in.readInt() != MAGIC
+					|| in.readInt() != VERSION)
+				throw new IOException("Not a metadata manifest: " + file);
+			in.seek(in.length() - 8);
+			in.seek(in.readLong());
+			int blocks = in.readInt();
+			List<String> firstKeys = new ArrayList<String>(blocks);
+			long[] offsets = new long[blocks];
+			int[] lengths = new int[blocks];
+			int[] entries = new int[blocks];
+			for (int i = 0; i < blocks; i++) {
+				firstKeys.add(in.readUTF());
+				offsets[i] = in.readLong();
+				lengths[i] = in.readInt();
+				entries[i] = in.readInt();
+			}
+			return new MetadataManifest(file, firstKeys, offsets, lengths, entries);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Writes the entries as a manifest to the file.
+	 */
+	public static MetadataManifest write(File file,
+			SortedMap<String, String> entries) throws IOException {
+		List<String> firstKeys = new ArrayList<String>();
+		List<byte[]> blocks = new ArrayList<byte[]>();
+		List<Integer> blockSizes = new ArrayList<Integer>();
+		List<Entry<String, String>> block = new ArrayList<Entry<String, String>>();
+		for (Entry<String, String> entry : entries.entrySet()) {
+			block.add(entry);
+			if (block.size() == ENTRIES_PER_BLOCK) {
+				addBlock(block, firstKeys, blocks, blockSizes);
+				block.clear();
+			}
+		}
+		if (!block.isEmpty())
+			addBlock(block, firstKeys, blocks, blockSizes);
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			long[] offsets = new long[blocks.size()];
+			for (int i = 0; i < blocks.size(); i++) {
+				offsets[i] = out.size();
+				out.write(blocks.get(i));
+			}
+			long indexOffset = out.size();
+			out.writeInt(blocks.size());
+			for (int i = 0; i < blocks.size(); i++) {
+				out.writeUTF(firstKeys.get(i));
+				out.writeLong(offsets[i]);
+				out.writeInt(blocks.get(i).length);
+				out.writeInt(blockSizes.get(i));
+			}
+			out.writeLong(indexOffset);
+			out.close();
+		} finally {
+			IOUtils.closeQuietly(out);
+		}
+		return open(file);
+	}
+
+	private static void addBlock(List<Entry<String, String>> block,
+			List<String> firstKeys, List<byte[]> blocks, List<Integer> blockSizes)
+			throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(
+				compressed, new Deflater(Deflater.BEST_COMPRESSION)));
+		for (Entry<String, String> entry : block) {
+			out.writeUTF(entry.getKey());
+			out.writeUTF(entry.getValue());
+		}
+		out.close();
+		firstKeys.add(block.get(0).getKey());
+		blocks.add(compressed.toByteArray());
+		blockSizes.add(block.size());
+	}
+}
@@ -0,0 +1,277 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.metastore;
+
+import static com.splunk.shuttl.archiver.LogFormatter.*;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.log4j.Logger;
+
+import com.splunk.shuttl.archiver.LocalFileSystemPaths;
+import com.splunk.shuttl.archiver.archive.ArchiveConfiguration;
+import com.splunk.shuttl.archiver.archive.BucketFormat;
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileStatus;
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystemFactory;
+import com.splunk.shuttl.archiver.filesystem.DeletesPaths;
+import com.splunk.shuttl.archiver.filesystem.GlobsPaths;
+import com.splunk.shuttl.archiver.filesystem.PathResolver;
+import com.splunk.shuttl.archiver.metastore.MetadataStore.CouldNotReadMetadataException;
+import com.splunk.shuttl.archiver.model.RemoteBucket;
+import com.splunk.shuttl.archiver.util.DaemonThreadFactory;
+import com.splunk.shuttl.archiver.util.UtilsPath;
+
+/**
+ * Compacts the metadata files of the buckets of an index into the next
+ * {@link MetadataManifest} of the index. Once a later manifest has been rolled,
+ * the metadata files that are in the manifest before it are deleted from the
+ * archive, if the archive can delete paths.
+ */
+public class MetadataManifestRoller {
+
+	private static final Logger logger = Logger
+			.getLogger(MetadataManifestRoller.class);
+	private static ScheduledExecutorService rollingExecutor;
+
+	private final ArchiveFileSystem archiveFileSystem;
+	private final PathResolver pathResolver;
+	private final MetadataManifests metadataManifests;
+	private final MetadataStore metadataStore;
+	private final long readersRecheckMillis;
+
+	/**
+	 * @param readersRecheckMillis
+	 *          how long readers can keep using an older manifest. Metadata files
+	 *          are only deleted when they have been in a manifest for longer.
+	 */
+	public MetadataManifestRoller(ArchiveFileSystem archiveFileSystem,
+			PathResolver pathResolver, MetadataManifests metadataManifests,
+			MetadataStore metadataStore, long readersRecheckMillis) {
+		this.archiveFileSystem = archiveFileSystem;
+		this.pathResolver = pathResolver;
+		this.metadataManifests = metadataManifests;
+		this.metadataStore = metadataStore;
+		this.readersRecheckMillis = readersRecheckMillis;
+	}
+
+	/**
+	 * Rolls the manifest of every index in the archive.
+	 */
+	public void rollAllIndexes() throws IOException {
+		for (ArchiveFileStatus status : listStatus(pathResolver.getIndexesHome()))
+			if (status.isDirectory())
+				try {
+					rollIndex(status.getName());
+				} catch (Exception e) {
+					logger.warn(warn("Rolled metadata manifest of index", e,
+							"will roll it again next time", "index", status.getName()));
+				}
+	}
+
+	/**
+	 * Puts the metadata files of the index that are not in its latest manifest
+	 * into a new manifest, and deletes what the latest manifest made redundant.
+	 */
+	public void rollIndex(String index) throws IOException {
+		List<String> manifestNames = metadataManifests.listManifestNames(index);
+		MetadataManifest latest = metadataManifests.getLatest(index);
+		long latestGeneration = manifestNames.isEmpty() ? 0 : MetadataManifests
+				.getGeneration(manifestNames.get(manifestNames.size() - 1));
+		SortedMap<String, String> entries = latest == null
+				? new TreeMap<String, String>() : latest.readAll();
+
+		int rolledFiles = 0;
+		List<String> compactedFiles = new ArrayList<String>();
+		for (MetadataFile metadataFile : listMetadataFiles(index)) {
+			ArchiveFileStatus file = metadataFile.status;
+			RemoteBucket bucket = metadataFile.bucket;
+			String key = MetadataManifest.getKey(bucket.getName(),
+					bucket.getFormat(), file.getName());
+			if (!entries.containsKey(key)
+					|| file.getModificationTime() >= latestGeneration) {
+				if (putMetadata(entries, key, bucket, file.getName()))
+					rolledFiles++;
+			} else {
+				compactedFiles.add(file.getPath());
+			}
+		}
+
+		if (rolledFiles > 0) {
+			String name = metadataManifests.commit(index, entries);
+			logger.info(done("Rolled metadata manifest", "index", index,
+					"manifest", name, "rolled_files", rolledFiles, "entries",
+					entries.size()));
+		}
+		if (archiveFileSystem instanceof DeletesPaths
+				&& isOlderThanReadersRecheck(latestGeneration))
+			deleteRedundant(index, manifestNames, compactedFiles);
+	}
+
+	/**
+	 * Lists the metadata files of every bucket in the index with one glob, when
+	 * the archive can glob paths. Otherwise walks the buckets and their formats.
+	 * Compacted files are deleted, so the files still listed are mostly the
+	 * ones that are new since the latest manifest.
+	 */
+	private List<MetadataFile> listMetadataFiles(String index)
+			throws IOException {
+		if (archiveFileSystem instanceof GlobsPaths)
+			return globMetadataFiles(index);
+		List<MetadataFile> metadataFiles = new ArrayList<MetadataFile>();
+		for (ArchiveFileStatus bucket : listStatus(pathResolver
+				.getBucketsHome(index)))
+			if (bucket.isDirectory())
+				for (ArchiveFileStatus format : listStatus(pathResolver
+						.getFormatsHome(index, bucket.getName())))
+					if (format.isDirectory() && isFormatName(format.getName())) {
+						RemoteBucket remoteBucket = new RemoteBucket(format.getPath(),
+								index, bucket.getName(),
+								BucketFormat.valueOf(format.getName()));
+						for (ArchiveFileStatus file : listStatus(pathResolver
+								.getBucketMetadataHome(remoteBucket)))
+							if (!file.isDirectory())
+								metadataFiles.add(new MetadataFile(remoteBucket, file));
+					}
+		return metadataFiles;
+	}
+
+	private List<MetadataFile> globMetadataFiles(String index)
+			throws IOException {
+		List<MetadataFile> metadataFiles = new ArrayList<MetadataFile>();
+		for (ArchiveFileStatus file : ((GlobsPaths) archiveFileSystem)
+				.globStatus(pathResolver.getBucketMetadataGlob(index))) {
+			String formatPath = getParent(getParent(file.getPath()));
+			String formatName = UtilsPath.getNameOfPath(formatPath);
+			if (file.isDirectory() || !isFormatName(formatName))
+				continue;
+			String bucketName = UtilsPath.getNameOfPath(getParent(formatPath));
+			metadataFiles.add(new MetadataFile(new RemoteBucket(formatPath, index,
+					bucketName, BucketFormat.valueOf(formatName)), file));
+		}
+		return metadataFiles;
+	}
+
+	private static String getParent(String path) {
+		return FilenameUtils.getPathNoEndSeparator(path);
+	}
+
+	private boolean putMetadata(SortedMap<String, String> entries, String key,
+			RemoteBucket bucket, String fileName) {
+		try {
+			entries.put(key, metadataStore.read(bucket, fileName));
+			return true;
+		} catch (CouldNotReadMetadataException e) {
+			logger.warn(warn("Read metadata file to roll into manifest", e,
+					"will try again next roll", "bucket", bucket, "file_name",
+					fileName));
+			return false;
+		}
+	}
+
+	private boolean isOlderThanReadersRecheck(long generation) {
+		return generation > 0
+				&& System.currentTimeMillis() - generation >= readersRecheckMillis;
+	}
+
+	private void deleteRedundant(String index, List<String> manifestNames,
+			List<String> compactedFiles) {
+		DeletesPaths deletesPaths = (DeletesPaths) archiveFileSystem;
+		for (String path : compactedFiles)
+			deletesPaths.deletePath(path);
+		for (String name : manifestNames.subList(0,
+				Math.max(0, manifestNames.size() - 1)))
+			deletesPaths.deletePath(metadataManifests.getManifestPath(index, name));
+		if (!compactedFiles.isEmpty())
+			logger.info(done("Deleted metadata files that are in a manifest",
+					"index", index, "deleted_files", compactedFiles.size()));
+	}
+
+	private List<ArchiveFileStatus> listStatus(String path) throws IOException {
+		try {
+			return archiveFileSystem.listStatus(path);
+		} catch (FileNotFoundException e) {
+			return Collections.emptyList();
+		}
+	}
+
+	private boolean isFormatName(String name) {
+		for (BucketFormat format : BucketFormat.values())
+			if (format.name().equals(name))
+				return true;
+		return false;
+	}
+
+	private static class MetadataFile {
+
+		private final RemoteBucket bucket;
+		private final ArchiveFileStatus status;
+
+		private MetadataFile(RemoteBucket bucket, ArchiveFileStatus status) {
+			this.bucket = bucket;
+			this.status = status;
+		}
+	}
+
+	/**
+	 * Rolls the manifests of the configured archive every configured number of
+	 * minutes. Does nothing if rolling is not configured, or already started.
+	 */
+	public static synchronized void startRolling() {
+		int minutes = ArchiveConfiguration.getSharedInstance()
+				.getMetadataManifestRollMinutes();
+		if (minutes <= 0 || rollingExecutor != null)
+			return;
+		rollingExecutor = Executors
+				.newSingleThreadScheduledExecutor(new DaemonThreadFactory(
+						"metadata-manifest-roll"));
+		rollingExecutor.scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					createConfigured().rollAllIndexes();
+				} catch (Exception e) {
+					logger.warn(warn("Rolled metadata manifests", e,
+							"will roll them again next time"));
+				}
+			}
+		}, minutes, minutes, TimeUnit.MINUTES);
+		logger.info(done("Started rolling metadata manifests", "minutes", minutes));
+	}
+
+	private static MetadataManifestRoller createConfigured() {
+		ArchiveConfiguration config = ArchiveConfiguration.getSharedInstance();
+		ArchiveFileSystem archiveFileSystem = ArchiveFileSystemFactory
+				.getConfiguredArchiveFileSystem();
+		LocalFileSystemPaths localFileSystemPaths = LocalFileSystemPaths.create();
+		PathResolver pathResolver = new PathResolver(config);
+		return new MetadataManifestRoller(archiveFileSystem, pathResolver,
+				MetadataManifests.getShared(pathResolver, archiveFileSystem,
+						localFileSystemPaths), MetadataStore.create(config,
+						archiveFileSystem, localFileSystemPaths),
+				MetadataManifests.DEFAULT_RECHECK_MILLIS);
+	}
+}
@@ -0,0 +1,289 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.metastore;
+
+import static com.splunk.shuttl.archiver.LogFormatter.*;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.log4j.Logger;
+
+import com.splunk.shuttl.archiver.LocalFileSystemPaths;
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileStatus;
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
+import com.splunk.shuttl.archiver.filesystem.PathResolver;
+import com.splunk.shuttl.archiver.filesystem.transaction.TransactionException;
+import com.splunk.shuttl.archiver.filesystem.transaction.TransactionExecuter;
+import com.splunk.shuttl.archiver.filesystem.transaction.file.GetFileTransaction;
+import com.splunk.shuttl.archiver.filesystem.transaction.file.PutFileTransaction;
+import com.splunk.shuttl.archiver.model.Bucket;
+
+/**
+ * The {@link MetadataManifest}s of the indexes in an archive. Each index has a
+ * generation of manifests in the archive, named after when they were rolled.
+ * The latest one is downloaded and read locally.
+ */
+public class MetadataManifests {
+
+	private static final Logger logger = Logger
+			.getLogger(MetadataManifests.class);
+	private static final ConcurrentMap<String, MetadataManifests> sharedManifests = new ConcurrentHashMap<String, MetadataManifests>();
+
+	static final String MANIFEST_PREFIX = "manifest-";
+	static final long DEFAULT_RECHECK_MILLIS = 60 * 1000;
+	private static final String TRANSFERS_DIR_NAME = "transfers";
+
+	private final ArchiveFileSystem archiveFileSystem;
+	private final PathResolver pathResolver;
+	private final File localDirectory;
+	private final TransactionExecuter transactionExecuter;
+	private final long recheckMillis;
+	private final Map<String, LoadedManifest> loadedManifests;
+
+	/**
+	 * @param localDirectory
+	 *          to download the manifests to.
+	 * @param recheckMillis
+	 *          least time between looking for a newer manifest of an index, when
+	 *          a key is not in the latest one.
+	 */
+	public MetadataManifests(ArchiveFileSystem archiveFileSystem,
+			PathResolver pathResolver, File localDirectory,
+			TransactionExecuter transactionExecuter, long recheckMillis) {
+		this.archiveFileSystem = archiveFileSystem;
+		this.pathResolver = pathResolver;
+		this.localDirectory = localDirectory;
+		this.transactionExecuter = transactionExecuter;
+		this.recheckMillis = recheckMillis;
+		this.loadedManifests = new HashMap<String, LoadedManifest>();
+	}
+
+	/**
+	 * @return data of a metadata file of the bucket, from the latest manifest of
+	 *         its index. Null if it's not in the manifest, or if the manifest
+	 *         could not be read.
+	 */
+	public String read(Bucket bucket, String fileName) {
+		String key = MetadataManifest.getKey(bucket.getName(), bucket.getFormat(),
+				fileName);
+		try {
+			LoadedManifest loaded = getLoadedManifest(bucket.getIndex(), null);
+			String data = loaded.get(key);
+			if (data == null && loaded.isOlderThan(recheckMillis))
+				data = getLoadedManifest(bucket.getIndex(), loaded).get(key);
+			return data;
+		} catch (IOException e) {
+			logger.warn(warn("Read bucket metadata from manifest", e,
+					"will read the metadata file of the bucket instead", "bucket",
+					bucket, "file_name", fileName));
+			return null;
+		}
+	}
+
+	/**
+	 * @return the latest manifest of the index in the archive, or null if the
+	 *         index has no manifest.
+	 */
+	public MetadataManifest getLatest(String index) throws IOException {
+		LoadedManifest loaded;
+		synchronized (this) {
+			loaded = loadedManifests.get(index);
+		}
+		return getLoadedManifest(index, loaded).manifest;
+	}
+
+	/**
+	 * @param seen
+	 *          the manifest that should be replaced by the latest one. Null to
+	 *          only load the latest one if none is loaded.
+	 */
+	private synchronized LoadedManifest getLoadedManifest(String index,
+			LoadedManifest seen) throws IOException {
+		LoadedManifest loaded = loadedManifests.get(index);
+		if (loaded == null || loaded == seen) {
+			loaded = loadLatest(index, loaded);
+			loadedManifests.put(index, loaded);
+		}
+		return loaded;
+	}
+
+	private LoadedManifest loadLatest(String index, LoadedManifest loaded)
+			throws IOException {
+		List<String> names = listManifestNames(index);
+		if (names.isEmpty())
+			return new LoadedManifest(null, null);
+		String latest = names.get(names.size() - 1);
+		if (loaded != null && latest.equals(loaded.name))
+			return new LoadedManifest(loaded.manifest, latest);
+		MetadataManifest manifest = MetadataManifest.open(download(index, latest));
+		deleteOtherLocalManifests(index, latest);
+		return new LoadedManifest(manifest, latest);
+	}
+
+	/**
+	 * @return names of the manifests of the index in the archive, oldest first.
+	 */
+	public List<String> listManifestNames(String index) throws IOException {
+		List<String> names = new ArrayList<String>();
+		for (ArchiveFileStatus status : listManifestsHome(index))
+			if (!status.isDirectory() && status.getName().startsWith(MANIFEST_PREFIX))
+				names.add(status.getName());
+		Collections.sort(names);
+		return names;
+	}
+
+	private List<ArchiveFileStatus> listManifestsHome(String index)
+			throws IOException {
+		try {
+			return archiveFileSystem.listStatus(pathResolver
+					.getMetadataManifestsHome(index));
+		} catch (FileNotFoundException e) {
+			return Collections.emptyList();
+		}
+	}
+
+	/**
+	 * @return milliseconds since epoch when the manifest was rolled.
+	 */
+	public static long getGeneration(String name) {
+		return Long.parseLong(name.substring(MANIFEST_PREFIX.length()));
+	}
+
+	/**
+	 * @return path to the manifest in the archive.
+	 */
+	public String getManifestPath(String index, String name) {
+		return pathResolver.getMetadataManifestsHome(index) + PathResolver.SEPARATOR
+				+ name;
+	}
+
+	private File download(String index, String name) throws IOException {
+		File manifest = getLocalManifest(index, name);
+		File temp = new File(new File(new File(localDirectory, TRANSFERS_DIR_NAME),
+				index), name);
+		try {
+			transactionExecuter.execute(GetFileTransaction.create(archiveFileSystem,
+					getManifestPath(index, name), temp.getAbsolutePath(),
+					manifest.getAbsolutePath()));
+		} catch (TransactionException e) {
+			throw new IOException(e);
+		}
+		return manifest;
+	}
+
+	private File getLocalManifest(String index, String name) {
+		return new File(new File(localDirectory, index), name);
+	}
+
+	private void deleteOtherLocalManifests(String index, String name) {
+		File[] manifests = new File(localDirectory, index).listFiles();
+		if (manifests != null)
+			for (File manifest : manifests)
+				if (!manifest.getName().equals(name))
+					FileUtils.deleteQuietly(manifest);
+	}
+
+	/**
+	 * Writes the entries as the next manifest of the index and puts it in the
+	 * archive.
+	 * 
+	 * @return name of the new manifest.
+	 */
+	public String commit(String index, SortedMap<String, String> entries)
+			throws IOException {
+		String name = getManifestName(System.currentTimeMillis());
+		File local = getLocalManifest(index, name);
+		local.getParentFile().mkdirs();
+		MetadataManifest manifest = MetadataManifest.write(local, entries);
+		try {
+			transactionExecuter.execute(PutFileTransaction.create(archiveFileSystem,
+					local.getAbsolutePath(),
+					pathResolver.resolveTempPathForMetadataManifest(index, name),
+					getManifestPath(index, name)));
+		} catch (TransactionException e) {
+			FileUtils.deleteQuietly(local);
+			throw new IOException(e);
+		}
+		synchronized (this) {
+			loadedManifests.put(index, new LoadedManifest(manifest, name));
+			deleteOtherLocalManifests(index, name);
+		}
+		return name;
+	}
+
+	static String getManifestName(long generation) {
+		return MANIFEST_PREFIX + String.format("%019d", generation);
+	}
+
+	private static class LoadedManifest {
+
+		private final MetadataManifest manifest;
+		private final String name;
+		private final long loadedAt;
+
+		public LoadedManifest(MetadataManifest manifest, String name) {
+			this.manifest = manifest;
+			this.name = name;
+			this.loadedAt = System.currentTimeMillis();
+		}
+
+		public String get(String key) throws IOException {
+			return manifest == null ? null : manifest.get(key);
+		}
+
+		public boolean isOlderThan(long millis) {
+			return System.currentTimeMillis() - loadedAt >= millis;
+		}
+	}
+
+	/**
+	 * @return manifests shared by everything that reads the metadata of the
+	 *         archive that the path resolver resolves paths in.
+	 */
+	public static MetadataManifests getShared(PathResolver pathResolver,
+			ArchiveFileSystem archiveFileSystem,
+			LocalFileSystemPaths localFileSystemPaths) {
+		String manifestsHome = pathResolver.getMetadataManifestsHome();
+		File localDirectory = new File(
+				localFileSystemPaths.getMetadataManifestsDirectory(),
+				getLocalDirectoryName(manifestsHome));
+		MetadataManifests manifests = sharedManifests.get(localDirectory
+				.getAbsolutePath());
+		if (manifests == null) {
+			sharedManifests.putIfAbsent(localDirectory.getAbsolutePath(),
+					new MetadataManifests(archiveFileSystem, pathResolver,
+							localDirectory, new TransactionExecuter(),
+							DEFAULT_RECHECK_MILLIS));
+			manifests = sharedManifests.get(localDirectory.getAbsolutePath());
+		}
+		return manifests;
+	}
+
+	private static String getLocalDirectoryName(String manifestsHome) {
+		return manifestsHome.replaceAll("[^A-Za-z0-9.-]", "_") + "-"
+				+ Integer.toHexString(manifestsHome.hashCode());
+	}
+}
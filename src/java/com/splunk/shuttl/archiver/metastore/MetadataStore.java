@@ -46,16 +46,32 @@ public class MetadataStore {
 	private final ArchiveFileSystem archiveFileSystem;
 	private final TransactionExecuter transactionExecuter;
 	private final LocalFileSystemPaths localFileSystemPaths;
+	private final MetadataManifests metadataManifests;
 
 	public MetadataStore(PathResolver pathResolver,
 			FlatFileStorage flatFileStorage, ArchiveFileSystem archiveFileSystem,
 			TransactionExecuter transactionExecuter,
 			LocalFileSystemPaths localFileSystemPaths) {
+		this(pathResolver, flatFileStorage, archiveFileSystem,
+				transactionExecuter, localFileSystemPaths, null);
+	}
+
+	/**
+	 * @param metadataManifests
+	 *          to read metadata from before reading the metadata file of a
+	 *          bucket in the archive. Null to always read the metadata file.
+	 */
+	public MetadataStore(PathResolver pathResolver,
+			FlatFileStorage flatFileStorage, ArchiveFileSystem archiveFileSystem,
+			TransactionExecuter transactionExecuter,
+			LocalFileSystemPaths localFileSystemPaths,
+			MetadataManifests metadataManifests) {
 		this.pathResolver = pathResolver;
 		this.flatFileStorage = flatFileStorage;
 		this.archiveFileSystem = archiveFileSystem;
 		this.transactionExecuter = transactionExecuter;
 		this.localFileSystemPaths = localFileSystemPaths;
+		this.metadataManifests = metadataManifests;
 	}
 
 	/**
@@ -63,8 +79,7 @@ public class MetadataStore {
 	 */
 	public void put(Bucket bucket, String fileName, String data) {
 		try {
-			transactionExecuter.execute(putBucketSizeTransaction(bucket, fileName,
-					data));
+			transactionExecuter.execute(putTransaction(bucket, fileName, data));
 		} catch (TransactionException e) {
 			logger.error(did("Tried to transactionally transfer"
 					+ " the bucketSize metadata to the archive.", e,
@@ -73,7 +88,13 @@ public class MetadataStore {
 		}
 	}
 
-	private Transaction putBucketSizeTransaction(Bucket bucket, String fileName,
+	/**
+	 * Writes the metadata locally.
+	 * 
+	 * @return transaction that puts the metadata in the archive. Its temp path
+	 *         is inside the temp path of the bucket.
+	 */
+	public Transaction putTransaction(Bucket bucket, String fileName,
 			String data) {
 		flatFileStorage.writeFlatFile(bucket, fileName, data);
 		File fileWithBucketSize = flatFileStorage.getFlatFile(bucket, fileName);
@@ -103,10 +124,21 @@ public class MetadataStore {
 	private void getRemoteFileIfNeeded(Bucket bucket, File metadataFile) {
 		if (!metadataFile.exists() || readLocalMetadataFile(metadataFile) == null) {
 			FileUtils.deleteQuietly(metadataFile);
-			getRemoteFile(bucket, metadataFile);
+			if (!readFromManifest(bucket, metadataFile))
+				getRemoteFile(bucket, metadataFile);
 		}
 	}
 
+	private boolean readFromManifest(Bucket bucket, File metadataFile) {
+		if (metadataManifests == null)
+			return false;
+		String data = metadataManifests.read(bucket, metadataFile.getName());
+		if (data == null)
+			return false;
+		flatFileStorage.writeFlatFile(metadataFile, data);
+		return true;
+	}
+
 	private String readLocalMetadataFile(File metadata) {
 		try {
 			return flatFileStorage.readFlatFile(metadata);
@@ -148,8 +180,10 @@ public class MetadataStore {
 	public static MetadataStore create(ArchiveConfiguration config,
 			ArchiveFileSystem archiveFileSystem,
 			LocalFileSystemPaths localFileSystemPaths) {
-		return new MetadataStore(new PathResolver(config), new FlatFileStorage(
+		PathResolver pathResolver = new PathResolver(config);
+		return new MetadataStore(pathResolver, new FlatFileStorage(
 				localFileSystemPaths), archiveFileSystem, new TransactionExecuter(),
-				localFileSystemPaths);
+				localFileSystemPaths, MetadataManifests.getShared(pathResolver,
+						archiveFileSystem, localFileSystemPaths));
 	}
 }
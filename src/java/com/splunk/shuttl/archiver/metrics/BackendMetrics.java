@@ -0,0 +1,60 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.metrics;
+
+/**
+ * The {@link StageMetrics} of one backend.
+ */
+public class BackendMetrics {
+
+	private final TransferMetrics transferMetrics;
+	private final String backend;
+
+	BackendMetrics(TransferMetrics transferMetrics, String backend) {
+		this.transferMetrics = transferMetrics;
+		this.backend = backend;
+	}
+
+	public StageMetrics get(Stage stage) {
+		return transferMetrics.get(backend, stage);
+	}
+
+	/**
+	 * Records a stage that started at {@link System#nanoTime()} startNanos and
+	 * ended now.
+	 */
+	public void record(Stage stage, long startNanos, boolean succeeded) {
+		get(stage).record(startNanos, succeeded);
+	}
+
+	/**
+	 * @see StageMetrics#startTimer()
+	 */
+	public StageMetrics.Timer startTimer(Stage stage) {
+		return get(stage).startTimer();
+	}
+
+	public String getBackend() {
+		return backend;
+	}
+
+	/**
+	 * @return metrics that are not shared with anything, for code that doesn't
+	 *         have to be measured.
+	 */
+	public static BackendMetrics unregistered() {
+		return new TransferMetrics().forBackend("unregistered");
+	}
+}
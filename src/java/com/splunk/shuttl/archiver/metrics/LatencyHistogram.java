@@ -0,0 +1,101 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts latencies in buckets of exponentially growing bounds, so that
+ * percentiles can be estimated without keeping every latency.
+ */
+public class LatencyHistogram {
+
+	private static final long[] BOUNDS_MILLIS = { 1, 2, 5, 10, 20, 50, 100,
+			200, 500, 1000, 2000, 5000, 10000, 20000, 60000, 120000, 300000, 600000,
+			1800000, 3600000 };
+
+	private final AtomicLongArray counts = new AtomicLongArray(
+			BOUNDS_MILLIS.length + 1);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong totalNanos = new AtomicLong();
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	public void record(long nanos) {
+		long latency = Math.max(0, nanos);
+		counts.incrementAndGet(indexOf(TimeUnit.NANOSECONDS.toMillis(latency)));
+		count.incrementAndGet();
+		totalNanos.addAndGet(latency);
+		updateMax(latency);
+	}
+
+	private int indexOf(long millis) {
+		for (int i = 0; i < BOUNDS_MILLIS.length; i++)
+			if (millis < BOUNDS_MILLIS[i])
+				return i;
+		return BOUNDS_MILLIS.length;
+	}
+
+	private void updateMax(long nanos) {
+		long max;
+		do {
+			max = maxNanos.get();
+		} while (nanos > max && !maxNanos.compareAndSet(max, nanos));
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public double getMeanMillis() {
+		long n = count.get();
+		return n == 0 ? 0 : nanosToMillis(totalNanos.get()) / n;
+	}
+
+	public double getMaxMillis() {
+		return nanosToMillis(maxNanos.get());
+	}
+
+	private static double nanosToMillis(long nanos) {
+		return nanos / 1000000.0;
+	}
+
+	/**
+	 * @param percentile
+	 *          between 0 and 100.
+	 * @return upper bound in millis of the histogram bucket that contains the
+	 *         percentile, or the max latency if it's in the last bucket. Zero if
+	 *         nothing has been recorded.
+	 */
+	public double getPercentileMillis(double percentile) {
+		long total = 0;
+		long[] snapshot = new long[counts.length()];
+		for (int i = 0; i < snapshot.length; i++) {
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0)
+			return 0;
+		long rank = (long) Math.ceil(total * percentile / 100.0);
+		long seen = 0;
+		for (int i = 0; i < BOUNDS_MILLIS.length; i++) {
+			seen += snapshot[i];
+			if (seen >= rank)
+				return Math.min(BOUNDS_MILLIS[i], getMaxMillis());
+		}
+		return getMaxMillis();
+	}
+}
@@ -0,0 +1,47 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.metrics;
+
+/**
+ * Stages of archiving and thawing a bucket, that are measured by
+ * {@link TransferMetrics}.
+ */
+public enum Stage {
+	/** Locking the bucket before archiving it. */
+	LOCK,
+	/** Moving or renaming the bucket before archiving it. */
+	MOVE,
+	/** Exporting the bucket to an archive format on the local disk. */
+	EXPORT,
+	/** Transferring the bucket to the archive temp path. */
+	PREPARE,
+	/** Renaming the bucket from the temp path to its archive path. */
+	COMMIT,
+	/** Storing the bucket's metadata, such as its size, in the archive. */
+	METADATA,
+	/** Deleting the bucket from the local disk after archiving it. */
+	DELETE,
+	/** Transferring an archived bucket to the local thaw temp path. */
+	THAW_PREPARE,
+	/** Moving the transferred bucket into the thaw directory. */
+	THAW_COMMIT;
+
+	/**
+	 * @return name of the stage in metrics.
+	 */
+	public String getName() {
+		return name().toLowerCase();
+	}
+}
@@ -0,0 +1,106 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts, failures, bytes and latencies of a {@link Stage} on a backend.
+ */
+public class StageMetrics {
+
+	private final AtomicLong failures = new AtomicLong();
+	private final AtomicLong bytes = new AtomicLong();
+	private final LatencyHistogram latencies = new LatencyHistogram();
+
+	/**
+	 * Records a stage that started at {@link System#nanoTime()} startNanos and
+	 * ended now.
+	 */
+	public void record(long startNanos, boolean succeeded) {
+		latencies.record(System.nanoTime() - startNanos);
+		if (!succeeded)
+			failures.incrementAndGet();
+	}
+
+	/**
+	 * @return timer of a stage that starts now.
+	 */
+	public Timer startTimer() {
+		return new Timer(this);
+	}
+
+	public void addBytes(long byteCount) {
+		bytes.addAndGet(byteCount);
+	}
+
+	public long getCount() {
+		return latencies.getCount();
+	}
+
+	public long getFailures() {
+		return failures.get();
+	}
+
+	public long getBytes() {
+		return bytes.get();
+	}
+
+	public LatencyHistogram getLatencies() {
+		return latencies;
+	}
+
+	/**
+	 * Times a stage, so that it doesn't have to keep track of its start and
+	 * whether it succeeded:<br/>
+	 * 
+	 * <pre>
+	 * Timer timer = metrics.startTimer();
+	 * try {
+	 * 	doStage();
+	 * 	timer.succeeded();
+	 * } finally {
+	 * 	timer.stop();
+	 * }
+	 * </pre>
+	 */
+	public static class Timer {
+
+		private final StageMetrics stageMetrics;
+		private final long startNanos;
+		private boolean succeeded;
+		private boolean stopped;
+
+		private Timer(StageMetrics stageMetrics) {
+			this.stageMetrics = stageMetrics;
+			this.startNanos = System.nanoTime();
+		}
+
+		public void succeeded() {
+			succeeded = true;
+		}
+
+		/**
+		 * Records the stage, as failed unless {@link #succeeded()} was called. Only
+		 * the first stop is recorded.
+		 */
+		public void stop() {
+			if (stopped)
+				return;
+			stopped = true;
+			stageMetrics.record(startNanos, succeeded);
+		}
+	}
+}
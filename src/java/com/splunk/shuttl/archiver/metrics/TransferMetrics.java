@@ -0,0 +1,112 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.amazonaws.util.json.JSONException;
+import com.amazonaws.util.json.JSONObject;
+
+/**
+ * Metrics of the stages of archiving and thawing buckets, per backend. Stages
+ * that only use the indexer's disk are measured under the
+ * {@link #INDEXER_BACKEND} name.
+ */
+public class TransferMetrics {
+
+	public static final String INDEXER_BACKEND = "indexer";
+
+	private static final TransferMetrics sharedInstance = new TransferMetrics();
+
+	private final ConcurrentMap<String, StageMetrics> stages = new ConcurrentHashMap<String, StageMetrics>();
+
+	/**
+	 * @return metrics shared by the whole server.
+	 */
+	public static TransferMetrics getShared() {
+		return sharedInstance;
+	}
+
+	public BackendMetrics forBackend(String backend) {
+		return new BackendMetrics(this, backend);
+	}
+
+	public BackendMetrics forIndexer() {
+		return forBackend(INDEXER_BACKEND);
+	}
+
+	public StageMetrics get(String backend, Stage stage) {
+		String name = metricName(backend, stage);
+		StageMetrics metrics = stages.get(name);
+		if (metrics == null) {
+			StageMetrics created = new StageMetrics();
+			metrics = stages.putIfAbsent(name, created);
+			if (metrics == null)
+				metrics = created;
+		}
+		return metrics;
+	}
+
+	private static String metricName(String backend, Stage stage) {
+		return backend + "." + stage.getName();
+	}
+
+	/**
+	 * @return metrics by "backend.stage" name, sorted by name.
+	 */
+	public SortedMap<String, StageMetrics> getAll() {
+		return new TreeMap<String, StageMetrics>(stages);
+	}
+
+	public void reset() {
+		stages.clear();
+	}
+
+	/**
+	 * @return list of metrics, with the name, count, failures, bytes and
+	 *         latencies in millis of each measured stage.
+	 */
+	public List<JSONObject> toJson() {
+		List<JSONObject> jsons = new ArrayList<JSONObject>();
+		for (Map.Entry<String, StageMetrics> entry : getAll().entrySet())
+			jsons.add(toJson(entry.getKey(), entry.getValue()));
+		return jsons;
+	}
+
+	private static JSONObject toJson(String name, StageMetrics metrics) {
+		LatencyHistogram latencies = metrics.getLatencies();
+		try {
+			JSONObject json = new JSONObject();
+			json.put("name", name);
+			json.put("count", metrics.getCount());
+			json.put("failures", metrics.getFailures());
+			json.put("bytes", metrics.getBytes());
+			json.put("mean_millis", latencies.getMeanMillis());
+			json.put("p50_millis", latencies.getPercentileMillis(50));
+			json.put("p95_millis", latencies.getPercentileMillis(95));
+			json.put("p99_millis", latencies.getPercentileMillis(99));
+			json.put("max_millis", latencies.getMaxMillis());
+			return json;
+		} catch (JSONException e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
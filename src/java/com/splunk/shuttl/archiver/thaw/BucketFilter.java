@@ -49,6 +49,32 @@ public class BucketFilter {
 		return BucketFilter.filterBuckets(buckets, earliest, latest);
 	}
 
+	/**
+	 * Filters the buckets in an index by time range, without looking at every
+	 * bucket.
+	 * 
+	 * @see #filterBucketsByTimeRange(List, Date, Date)
+	 */
+	public List<Bucket> filterBucketsByTimeRange(
+			BucketIntervalIndex intervalIndex, Date earliest, Date latest) {
+		if (earliest.after(latest))
+			return emptyListWithLogWarning(earliest, latest);
+		else
+			return intervalIndex.getBucketsWithinTimeRange(earliest, latest);
+	}
+
+	/**
+	 * @return true if there can be buckets within the time range. Logs a warning
+	 *         when the earliest time is later than the latest time.
+	 */
+	public boolean isValidTimeRange(Date earliest, Date latest) {
+		if (earliest.after(latest)) {
+			logInvalidTimeRange(earliest, latest);
+			return false;
+		}
+		return true;
+	}
+
 	public static List<Bucket> filterBuckets(List<? extends Bucket> buckets,
 			Date earliest,
 			Date latest) {
@@ -77,10 +103,14 @@ public class BucketFilter {
 	}
 
 	private static List<Bucket> emptyListWithLogWarning(Date earliest, Date latest) {
+		logInvalidTimeRange(earliest, latest);
+		return Collections.emptyList();
+	}
+
+	private static void logInvalidTimeRange(Date earliest, Date latest) {
 		logger.warn(warn("Filtered buckets by time range",
 				"Earliest time was later than latest time", "Filtered all buckets",
 				"earliest_time", earliest, "latest_time", latest));
-		return Collections.emptyList();
 	}
 
 }
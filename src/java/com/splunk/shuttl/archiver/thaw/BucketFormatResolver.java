@@ -19,11 +19,17 @@ import static com.splunk.shuttl.archiver.LogFormatter.*;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.log4j.Logger;
 
 import com.splunk.shuttl.archiver.archive.BucketFormat;
+import com.splunk.shuttl.archiver.catalog.ArchiveCatalog;
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileStatus;
 import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
 import com.splunk.shuttl.archiver.filesystem.PathResolver;
 import com.splunk.shuttl.archiver.model.Bucket;
@@ -59,20 +65,101 @@ public class BucketFormatResolver {
 		this.bucketFormatChooser = bucketFormatChooser;
 	}
 
+	/**
+	 * @param catalog
+	 *          to get the available formats from, instead of listing them.
+	 */
+	public static BucketFormatResolver withCatalog(PathResolver pathResolver,
+			ArchiveFileSystem archiveFileSystem,
+			BucketFormatChooser bucketFormatChooser, ArchiveCatalog catalog) {
+		return new CatalogFormatResolver(pathResolver, archiveFileSystem,
+				bucketFormatChooser, catalog);
+	}
+
+	/**
+	 * Gets the formats of each bucket from the catalog, which is a local lookup,
+	 * so nothing is globbed.
+	 */
+	private static class CatalogFormatResolver extends BucketFormatResolver {
+
+		private final ArchiveCatalog catalog;
+
+		public CatalogFormatResolver(PathResolver pathResolver,
+				ArchiveFileSystem archiveFileSystem,
+				BucketFormatChooser bucketFormatChooser, ArchiveCatalog catalog) {
+			super(pathResolver, archiveFileSystem, bucketFormatChooser);
+			this.catalog = catalog;
+		}
+
+		@Override
+		protected Map<String, Map<String, List<BucketFormat>>> globFormatsOfIndexes(
+				List<Bucket> buckets) {
+			return new HashMap<String, Map<String, List<BucketFormat>>>();
+		}
+
+		@Override
+		protected List<BucketFormat> getAvailableFormatsForBucket(Bucket bucket) {
+			return catalog.getFormats(bucket.getIndex(), bucket.getName());
+		}
+	}
+
 	/**
 	 * @param buckets
 	 *          without {@link BucketFormat} set.
 	 * @return buckets with {@link BucketFormat} set.
 	 */
 	public List<Bucket> resolveBucketsFormats(List<Bucket> buckets) {
+		Map<String, Map<String, List<BucketFormat>>> globbedFormats = globFormatsOfIndexes(buckets);
 		List<Bucket> bucketsWithFormat = new ArrayList<Bucket>();
 		for (Bucket bucket : buckets)
-			bucketsWithFormat.add(getBucketWithResolvedFormat(bucket));
+			bucketsWithFormat.add(getBucketWithResolvedFormat(bucket,
+					getAvailableFormats(bucket, globbedFormats)));
 		return bucketsWithFormat;
 	}
 
-	private Bucket getBucketWithResolvedFormat(Bucket bucket) {
-		List<BucketFormat> availableFormats = getAvailableFormatsForBucket(bucket);
+	/**
+	 * The formats of an index with more than one bucket to resolve are listed
+	 * with one glob, when the archive can glob paths.
+	 */
+	protected Map<String, Map<String, List<BucketFormat>>> globFormatsOfIndexes(
+			List<Bucket> buckets) {
+		Map<String, Map<String, List<BucketFormat>>> globbedFormats = new HashMap<String, Map<String, List<BucketFormat>>>();
+		IndexFormatsLister indexFormatsLister = IndexFormatsLister.create(
+				archiveFileSystem, pathResolver);
+		if (indexFormatsLister == null)
+			return globbedFormats;
+		for (String index : getIndexesWithManyBuckets(buckets))
+			try {
+				globbedFormats.put(index,
+						indexFormatsLister.listFormatsInIndex(index));
+			} catch (IOException e) {
+				logger.warn(warn("Globbed the formats of the buckets in an index", e,
+						"Will list the formats of one bucket at a time", "index", index));
+			}
+		return globbedFormats;
+	}
+
+	private Set<String> getIndexesWithManyBuckets(List<Bucket> buckets) {
+		Set<String> indexes = new HashSet<String>();
+		Set<String> indexesWithManyBuckets = new HashSet<String>();
+		for (Bucket bucket : buckets)
+			if (!indexes.add(bucket.getIndex()))
+				indexesWithManyBuckets.add(bucket.getIndex());
+		return indexesWithManyBuckets;
+	}
+
+	private List<BucketFormat> getAvailableFormats(Bucket bucket,
+			Map<String, Map<String, List<BucketFormat>>> globbedFormats) {
+		Map<String, List<BucketFormat>> formatsInIndex = globbedFormats.get(bucket
+				.getIndex());
+		if (formatsInIndex == null)
+			return getAvailableFormatsForBucket(bucket);
+		List<BucketFormat> formats = formatsInIndex.get(bucket.getName());
+		return formats == null ? Collections.<BucketFormat> emptyList() : formats;
+	}
+
+	private Bucket getBucketWithResolvedFormat(Bucket bucket,
+			List<BucketFormat> availableFormats) {
 		BucketFormat chosenFormat = bucketFormatChooser
 				.chooseBucketFormat(availableFormats);
 		String pathToBucketWithChosenBucket = pathResolver
@@ -82,18 +169,18 @@ public class BucketFormatResolver {
 				pathToBucketWithChosenBucket);
 	}
 
-	private List<BucketFormat> getAvailableFormatsForBucket(Bucket bucket) {
+	protected List<BucketFormat> getAvailableFormatsForBucket(Bucket bucket) {
 		String formatsHomeForBucket = pathResolver.getFormatsHome(
 				bucket.getIndex(), bucket.getName());
-		List<String> archivedFormats = listArchivedFormatsWithErrorHandling(
+		List<ArchiveFileStatus> archivedFormats = listArchivedFormatsWithErrorHandling(
 				formatsHomeForBucket, bucket);
-		return getBucketFormats(archivedFormats);
+		return getFormatsOfDirectories(archivedFormats);
 	}
 
-	private List<String> listArchivedFormatsWithErrorHandling(
+	private List<ArchiveFileStatus> listArchivedFormatsWithErrorHandling(
 			String formatsHomeForBucket, Bucket bucket) {
 		try {
-			return archiveFileSystem.listPath(formatsHomeForBucket);
+			return archiveFileSystem.listStatus(formatsHomeForBucket);
 		} catch (IOException e) {
 			logger.warn(warn("Listed formats home for a bucket", e,
 					"Will not list any formats for bucket", "formats_home",
@@ -102,6 +189,29 @@ public class BucketFormatResolver {
 		}
 	}
 
+	/**
+	 * Formats are directories. Files and directories that are not named after a
+	 * format are left out, instead of failing the whole resolve.
+	 */
+	private List<BucketFormat> getFormatsOfDirectories(
+			List<ArchiveFileStatus> statuses) {
+		List<BucketFormat> formats = new ArrayList<BucketFormat>();
+		for (ArchiveFileStatus status : statuses)
+			if (status.isDirectory() && isFormatName(status.getName()))
+				formats.add(BucketFormat.valueOf(status.getName()));
+			else
+				logger.debug(happened("Skipped path that is not a bucket format",
+						"path", status.getPath()));
+		return formats;
+	}
+
+	private boolean isFormatName(String name) {
+		for (BucketFormat format : BucketFormat.values())
+			if (format.name().equals(name))
+				return true;
+		return false;
+	}
+
 	public List<BucketFormat> getBucketFormats(List<String> formatPaths) {
 		List<BucketFormat> formats = new ArrayList<BucketFormat>();
 		for (String path : formatPaths) {
@@ -15,6 +15,7 @@
 package com.splunk.shuttl.archiver.thaw;
 
 import com.splunk.shuttl.archiver.archive.ArchiveConfiguration;
+import com.splunk.shuttl.archiver.catalog.ArchiveCatalog;
 import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
 import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystemFactory;
 import com.splunk.shuttl.archiver.filesystem.PathResolver;
@@ -32,8 +33,8 @@ public class BucketFormatResolverFactory {
 				.getWithConfiguration(config);
 		PathResolver pathResolver = new PathResolver(config);
 		BucketFormatChooser bucketFormatChooser = new BucketFormatChooser(config);
-		return new BucketFormatResolver(pathResolver, archiveFileSystem,
-				bucketFormatChooser);
+		return BucketFormatResolver.withCatalog(pathResolver, archiveFileSystem,
+				bucketFormatChooser, ArchiveCatalog.getShared(config));
 	}
 
 }
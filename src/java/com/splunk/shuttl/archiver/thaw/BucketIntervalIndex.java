@@ -0,0 +1,139 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.thaw;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import com.splunk.shuttl.archiver.model.Bucket;
+
+/**
+ * Index over the time ranges of buckets, that finds the buckets within a time
+ * range without looking at every bucket. It's built once from a listing and
+ * can then be queried by any number of requests.<br/>
+ * <br/>
+ * The buckets are sorted by earliest time and laid out as an implicit binary
+ * search tree, where the middle of every range is the root of that range. Each
+ * root also has the max latest time of its range, so that ranges where every
+ * bucket ends before the queried time range can be skipped.
+ */
+public class BucketIntervalIndex {
+
+	private final Bucket[] buckets;
+	private final long[] earliest;
+	private final long[] latest;
+	private final long[] maxLatest;
+
+	/**
+	 * @param buckets
+	 *          to index. Throws the same exceptions as
+	 *          {@link Bucket#getEarliest()} if a bucket has no time range.
+	 */
+	public BucketIntervalIndex(Collection<? extends Bucket> buckets) {
+		int size = buckets.size();
+		TimedBucket[] timedBuckets = new TimedBucket[size];
+		int i = 0;
+		for (Bucket bucket : buckets)
+			timedBuckets[i++] = new TimedBucket(bucket);
+		Arrays.sort(timedBuckets, new EarliestFirst());
+
+		this.buckets = new Bucket[size];
+		this.earliest = new long[size];
+		this.latest = new long[size];
+		for (i = 0; i < size; i++) {
+			this.buckets[i] = timedBuckets[i].bucket;
+			this.earliest[i] = timedBuckets[i].earliest;
+			this.latest[i] = timedBuckets[i].latest;
+		}
+		this.maxLatest = new long[size];
+		computeMaxLatest(0, size);
+	}
+
+	private long computeMaxLatest(int from, int to) {
+		if (from >= to)
+			return Long.MIN_VALUE;
+		int middle = (from + to) >>> 1;
+		long max = Math.max(latest[middle],
+				Math.max(computeMaxLatest(from, middle),
+						computeMaxLatest(middle + 1, to)));
+		maxLatest[middle] = max;
+		return max;
+	}
+
+	/**
+	 * @return buckets with data within the time range, sorted by earliest time.
+	 *         Has the same result as
+	 *         {@link BucketFilter#filterBuckets(List, Date, Date)}.
+	 */
+	public List<Bucket> getBucketsWithinTimeRange(Date earliestTime,
+			Date latestTime) {
+		List<Bucket> found = new ArrayList<Bucket>();
+		if (!earliestTime.after(latestTime))
+			collect(0, buckets.length, earliestTime.getTime(), latestTime.getTime(),
+					found);
+		return found;
+	}
+
+	private void collect(int from, int to, long earliestTime, long latestTime,
+			List<Bucket> found) {
+		if (from >= to)
+			return;
+		int middle = (from + to) >>> 1;
+		if (maxLatest[middle] < earliestTime)
+			return;
+		collect(from, middle, earliestTime, latestTime, found);
+		if (earliest[middle] > latestTime)
+			return;
+		if (latest[middle] >= earliestTime)
+			found.add(buckets[middle]);
+		collect(middle + 1, to, earliestTime, latestTime, found);
+	}
+
+	/**
+	 * @return number of indexed buckets.
+	 */
+	public int size() {
+		return buckets.length;
+	}
+
+	private static class TimedBucket {
+
+		private final Bucket bucket;
+		private final long earliest;
+		private final long latest;
+
+		public TimedBucket(Bucket bucket) {
+			this.bucket = bucket;
+			this.earliest = bucket.getEarliest().getTime();
+			this.latest = bucket.getLatest().getTime();
+		}
+	}
+
+	private static class EarliestFirst implements Comparator<TimedBucket> {
+
+		@Override
+		public int compare(TimedBucket b1, TimedBucket b2) {
+			if (b1.earliest != b2.earliest)
+				return b1.earliest < b2.earliest ? -1 : 1;
+			if (b1.latest != b2.latest)
+				return b1.latest < b2.latest ? -1 : 1;
+			return 0;
+		}
+	}
+}
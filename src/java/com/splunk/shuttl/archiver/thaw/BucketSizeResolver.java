@@ -14,6 +14,8 @@
 // limitations under the License.
 package com.splunk.shuttl.archiver.thaw;
 
+import com.splunk.shuttl.archiver.catalog.ArchiveCatalog;
+import com.splunk.shuttl.archiver.catalog.CatalogEntry;
 import com.splunk.shuttl.archiver.metastore.ArchiveBucketSize;
 import com.splunk.shuttl.archiver.model.Bucket;
 
@@ -23,13 +25,24 @@ import com.splunk.shuttl.archiver.model.Bucket;
 public class BucketSizeResolver {
 
 	private final ArchiveBucketSize archiveBucketSize;
+	private final ArchiveCatalog catalog;
 
 	/**
 	 * @param archiveBucketSize
 	 *          to get the size from the archive.
 	 */
 	public BucketSizeResolver(ArchiveBucketSize archiveBucketSize) {
+		this(archiveBucketSize, null);
+	}
+
+	/**
+	 * @param catalog
+	 *          to get the size from, for buckets that are in the catalog.
+	 */
+	public BucketSizeResolver(ArchiveBucketSize archiveBucketSize,
+			ArchiveCatalog catalog) {
 		this.archiveBucketSize = archiveBucketSize;
+		this.catalog = catalog;
 	}
 
 	/**
@@ -37,9 +50,17 @@ public class BucketSizeResolver {
 	 *          that needs size to be resolved from the archive.
 	 */
 	public Bucket resolveBucketSize(Bucket bucket) {
-		Long size = archiveBucketSize.readBucketSize(bucket);
+		Long size = readBucketSize(bucket);
 		return new Bucket(bucket.getPath(), bucket.getIndex(), bucket.getName(),
 				bucket.getFormat(), size);
 	}
 
+	private Long readBucketSize(Bucket bucket) {
+		CatalogEntry entry = catalog == null ? null : catalog.getEntry(
+				bucket.getIndex(), bucket.getName(), bucket.getFormat());
+		if (entry != null && entry.getSize() != null)
+			return entry.getSize();
+		return archiveBucketSize.readBucketSize(bucket);
+	}
+
 }
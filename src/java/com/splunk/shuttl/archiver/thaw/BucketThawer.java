@@ -17,20 +17,40 @@ package com.splunk.shuttl.archiver.thaw;
 import static com.splunk.shuttl.archiver.LogFormatter.*;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 
 import org.apache.log4j.Logger;
 
+import com.splunk.shuttl.archiver.bucketlock.BucketLock;
 import com.splunk.shuttl.archiver.bucketlock.BucketLocker;
-import com.splunk.shuttl.archiver.bucketlock.BucketLocker.SharedLockBucketHandler;
 import com.splunk.shuttl.archiver.listers.ListsBucketsFiltered;
 import com.splunk.shuttl.archiver.model.Bucket;
 import com.splunk.shuttl.archiver.model.LocalBucket;
+import com.splunk.shuttl.archiver.thaw.ThawProgress.BucketState;
+import com.splunk.shuttl.archiver.util.CallingThreadExecutor;
 
 /**
  * Interacts with the archive to thaw buckets within the users needs, which is
- * currently only a time range.
+ * currently only a time range. Buckets are thawed at the same time on an
+ * {@link Executor}, each under its own {@link BucketLocker} lock.<br/>
+ * <br/>
+ * Thawing is split in two stages: the transfer, which is bound by the network,
+ * and the import and size registration, which is bound by the CPU and the
+ * local disk. With an import {@link Executor} that has its own threads, the
+ * stages of different buckets overlap.<br/>
+ * <br/>
+ * The newest buckets are thawed first, so that the most recent data is
+ * searchable before the thawing is done. The state of each bucket is kept in a
+ * {@link ThawProgress}, which can be read during the thawing.<br/>
+ * <br/>
+ * Space on the thaw disk is reserved with a {@link ThawSpaceAdmission} for
+ * each bucket before it's transferred, and released when the bucket is thawed
+ * or has failed.
  */
 public class BucketThawer {
 
@@ -42,6 +62,10 @@ public class BucketThawer {
 	private final List<Bucket> skippedBuckets;
 	private final List<FailedBucket> failedBuckets;
 	private final BucketLocker thawBucketLocker;
+	private final Executor thawExecutor;
+	private final Executor importExecutor;
+	private final ThawSpaceAdmission thawSpaceAdmission;
+	private final ThawProgress progress;
 
 	private LocalBucketStorage localBuckets;
 
@@ -62,26 +86,57 @@ public class BucketThawer {
 	 *          for listing buckets in the archive.
 	 * @param getsBucketsFromArchive
 	 *          for getting buckets to thaw from the archive.
-	 * @param thawLocationProvider
-	 *          for getting the location on local disk for the thawed bucket.
+	 * @param localBuckets
+	 *          for the buckets that are already thawed.
 	 * @param thawBucketLocker
 	 *          to handle parallel thawing synchronization.
+	 * @param thawExecutor
+	 *          thaws the buckets, so that as many buckets are thawed at the same
+	 *          time as it has threads.
+	 * @param importExecutor
+	 *          imports the buckets once they are transferred, so that the next
+	 *          buckets are transferred while the transferred ones are imported.
+	 *          Transfers wait for a free import when it's full.
+	 * @param thawSpaceAdmission
+	 *          reserves space on the thaw disk for the buckets before they are
+	 *          transferred.
 	 */
 	public BucketThawer(ListsBucketsFiltered listsBucketsFiltered,
 			GetsBucketsFromArchive getsBucketsFromArchive,
-			LocalBucketStorage localBuckets, BucketLocker thawBucketLocker) {
+			LocalBucketStorage localBuckets, BucketLocker thawBucketLocker,
+			Executor thawExecutor, Executor importExecutor,
+			ThawSpaceAdmission thawSpaceAdmission) {
 		this.listsBucketsFiltered = listsBucketsFiltered;
 		this.getsBucketsFromArchive = getsBucketsFromArchive;
 		this.localBuckets = localBuckets;
 		this.thawBucketLocker = thawBucketLocker;
+		this.thawExecutor = thawExecutor;
+		this.importExecutor = importExecutor;
+		this.thawSpaceAdmission = thawSpaceAdmission;
+
+		this.successfulThawedBuckets = Collections
+				.synchronizedList(new ArrayList<LocalBucket>());
+		this.skippedBuckets = Collections.synchronizedList(new ArrayList<Bucket>());
+		this.failedBuckets = Collections
+				.synchronizedList(new ArrayList<FailedBucket>());
+		this.progress = new ThawProgress();
+	}
 
-		this.successfulThawedBuckets = new ArrayList<LocalBucket>();
-		this.skippedBuckets = new ArrayList<Bucket>();
-		this.failedBuckets = new ArrayList<FailedBucket>();
+	/**
+	 * @return thawer that thaws one bucket at a time, on the calling thread,
+	 *         without checking the space on the thaw disk.
+	 */
+	public static BucketThawer create(ListsBucketsFiltered listsBucketsFiltered,
+			GetsBucketsFromArchive getsBucketsFromArchive,
+			LocalBucketStorage localBuckets, BucketLocker thawBucketLocker) {
+		return new BucketThawer(listsBucketsFiltered, getsBucketsFromArchive,
+				localBuckets, thawBucketLocker, new CallingThreadExecutor(),
+				new CallingThreadExecutor(), ThawSpaceAdmission.unlimited());
 	}
 
 	/**
-	 * Thaws buckets within a time range from one or all indexes.
+	 * Thaws buckets within a time range from one or all indexes, and returns
+	 * when every bucket is either thawed, skipped or failed.
 	 * 
 	 * @param index
 	 *          to thaw buckets from. if {@code null}, thaw from all indexes.
@@ -91,20 +146,157 @@ public class BucketThawer {
 	 *          to filter buckets.
 	 */
 	public void thawBuckets(String index, Date earliestTime, Date latestTime) {
-		List<Bucket> bucketsToThaw = getFilteredBuckets(index, earliestTime,
-				latestTime);
+		List<Bucket> bucketsToThaw = newestFirst(getFilteredBuckets(index,
+				earliestTime, latestTime));
+		progress.bucketsListed(bucketsToThaw);
+		CountDownLatch bucketsDone = new CountDownLatch(bucketsToThaw.size());
 		for (Bucket bucket : bucketsToThaw)
+			thawExecutor.execute(new ThawBucket(bucket, bucketsDone));
+		waitForBuckets(bucketsDone);
+	}
+
+	private List<Bucket> newestFirst(List<Bucket> buckets) {
+		List<Bucket> sorted = new ArrayList<Bucket>(buckets);
+		Collections.sort(sorted, new NewestFirst());
+		return sorted;
+	}
+
+	/**
+	 * Orders buckets by their latest time, newest first. Buckets without a time
+	 * are last.
+	 */
+	private static class NewestFirst implements Comparator<Bucket> {
+
+		@Override
+		public int compare(Bucket b1, Bucket b2) {
+			Date latest1 = b1.getLatest();
+			Date latest2 = b2.getLatest();
+			if (latest1 == null)
+				return latest2 == null ? 0 : 1;
+			if (latest2 == null)
+				return -1;
+			return latest2.compareTo(latest1);
+		}
+	}
+
+	private void waitForBuckets(CountDownLatch bucketsDone) {
+		try {
+			bucketsDone.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			logger.warn(warn("Waited for buckets to thaw", e,
+					"will throw exception", "buckets_left", bucketsDone.getCount()));
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Transfers a bucket and hands it to the import {@link Executor}. Counts
+	 * down when the bucket is skipped or has failed, or when it has been handed
+	 * to the import.
+	 */
+	private class ThawBucket implements Runnable {
+
+		private final Bucket bucket;
+		private final CountDownLatch bucketsDone;
+
+		public ThawBucket(Bucket bucket, CountDownLatch bucketsDone) {
+			this.bucket = bucket;
+			this.bucketsDone = bucketsDone;
+		}
+
+		@Override
+		public void run() {
+			boolean handedToImport = false;
 			try {
-				if (!localBuckets.hasBucket(bucket)) {
-					thawBucketLocker.callBucketHandlerUnderSharedLock(bucket,
-							new ThawBucketFromArchive());
-				} else {
-					skippedBuckets.add(bucket);
+				if (localBuckets.hasBucket(bucket)) {
+					localBuckets.markAccessed(bucket);
+					skipped(bucket);
 				}
+				else
+					handedToImport = transferAndHandToImport(bucket, bucketsDone);
 			} catch (Exception e) {
 				logExceptionFromCheckingIfBucketWasThawed(bucket, e);
-				failedBuckets.add(new FailedBucket(bucket, e));
+				failed(bucket, e);
+			} finally {
+				if (!handedToImport)
+					bucketsDone.countDown();
 			}
+		}
+	}
+
+	/**
+	 * The bucket stays locked, and its space reserved, until it's imported.
+	 * 
+	 * @return true if the import of the bucket has been handed to the import
+	 *         {@link Executor}, which then counts down when it's done.
+	 */
+	private boolean transferAndHandToImport(Bucket bucket,
+			CountDownLatch bucketsDone) {
+		BucketLock bucketLock = thawBucketLocker.tryLockShared(bucket);
+		if (bucketLock == null) {
+			skipped(bucket);
+			return false;
+		}
+		boolean handedToImport = false;
+		long reservedBytes = 0;
+		try {
+			reservedBytes = reserveSpace(bucket);
+			progress.setState(bucket, BucketState.TRANSFERRING);
+			LocalBucket transferredBucket = getsBucketsFromArchive
+					.transferBucket(bucket);
+			progress.setState(bucket, BucketState.IMPORTING);
+			importExecutor.execute(new ImportBucket(bucket, transferredBucket,
+					bucketLock, reservedBytes, bucketsDone));
+			handedToImport = true;
+		} catch (InsufficientThawSpaceException e) {
+			failed(bucket, e);
+		} catch (ThawTransferFailException e) {
+			logTransferException(bucket, e);
+			failed(bucket, e);
+		} finally {
+			if (!handedToImport) {
+				releaseSpace(reservedBytes);
+				bucketLock.closeLock();
+			}
+		}
+		return handedToImport;
+	}
+
+	private class ImportBucket implements Runnable {
+
+		private final Bucket bucket;
+		private final LocalBucket transferredBucket;
+		private final BucketLock bucketLock;
+		private final long reservedBytes;
+		private final CountDownLatch bucketsDone;
+
+		public ImportBucket(Bucket bucket, LocalBucket transferredBucket,
+				BucketLock bucketLock, long reservedBytes, CountDownLatch bucketsDone) {
+			this.bucket = bucket;
+			this.transferredBucket = transferredBucket;
+			this.bucketLock = bucketLock;
+			this.reservedBytes = reservedBytes;
+			this.bucketsDone = bucketsDone;
+		}
+
+		@Override
+		public void run() {
+			try {
+				thawed(bucket,
+						getsBucketsFromArchive.importBucket(bucket, transferredBucket));
+			} catch (ImportThawedBucketFailException e) {
+				logImportException(bucket, e);
+				failed(bucket, e);
+			} catch (Exception e) {
+				logExceptionFromCheckingIfBucketWasThawed(bucket, e);
+				failed(bucket, e);
+			} finally {
+				releaseSpace(reservedBytes);
+				bucketLock.closeLock();
+				bucketsDone.countDown();
+			}
+		}
 	}
 
 	private List<Bucket> getFilteredBuckets(String index, Date earliestTime,
@@ -123,37 +315,29 @@ public class BucketThawer {
 				+ "was already thawed.", "bucket", bucket, "exception", e));
 	}
 
-	/**
-	 * Class to call from the {@link BucketLocker}. Thaws bucket from archive
-	 * during bucket lock. It simply calls a method in this class. It is all
-	 * synchronous and not asynchronous as it might seem.
-	 */
-	private class ThawBucketFromArchive implements SharedLockBucketHandler {
+	private long reserveSpace(Bucket bucket)
+			throws InsufficientThawSpaceException {
+		return thawSpaceAdmission.reserve(bucket);
+	}
 
-		@Override
-		public void handleSharedLockedBucket(Bucket bucket) {
-			BucketThawer.this.thawBucketFromArchive(bucket);
-		}
+	private void releaseSpace(long reservedBytes) {
+		thawSpaceAdmission.release(reservedBytes);
+	}
 
-		@Override
-		public void bucketWasLocked(Bucket bucket) {
-			BucketThawer.this.skippedBuckets.add(bucket);
-		}
+	private void thawed(Bucket bucket, LocalBucket thawedBucket) {
+		localBuckets.markAccessed(bucket);
+		successfulThawedBuckets.add(thawedBucket);
+		progress.setState(bucket, BucketState.THAWED);
+	}
 
+	private void skipped(Bucket bucket) {
+		skippedBuckets.add(bucket);
+		progress.setState(bucket, BucketState.SKIPPED);
 	}
 
-	private void thawBucketFromArchive(Bucket bucket) {
-		try {
-			LocalBucket thawedBucket = getsBucketsFromArchive
-					.getBucketFromArchive(bucket);
-			successfulThawedBuckets.add(thawedBucket);
-		} catch (ThawTransferFailException e) {
-			logTransferException(bucket, e);
-			failedBuckets.add(new FailedBucket(bucket, e));
-		} catch (ImportThawedBucketFailException e) {
-			logImportException(bucket, e);
-			failedBuckets.add(new FailedBucket(bucket, e));
-		}
+	private void failed(Bucket bucket, Exception e) {
+		failedBuckets.add(new FailedBucket(bucket, e));
+		progress.setState(bucket, BucketState.FAILED);
 	}
 
 	private void logTransferException(Bucket bucket, ThawTransferFailException e) {
@@ -168,6 +352,9 @@ public class BucketThawer {
 	}
 
 	/**
+	 * The results are safe to read once
+	 * {@link #thawBuckets(String, Date, Date)} has returned.
+	 * 
 	 * @return buckets that succeeded to be thawed.
 	 */
 	public List<LocalBucket> getThawedBuckets() {
@@ -188,4 +375,12 @@ public class BucketThawer {
 		return skippedBuckets;
 	}
 
+	/**
+	 * @return progress of the thawing, which can be read while
+	 *         {@link #thawBuckets(String, Date, Date)} is running.
+	 */
+	public ThawProgress getProgress() {
+		return progress;
+	}
+
 }
@@ -16,22 +16,42 @@ package com.splunk.shuttl.archiver.thaw;
 
 import com.splunk.shuttl.archiver.LocalFileSystemPaths;
 import com.splunk.shuttl.archiver.archive.ArchiveConfiguration;
+import com.splunk.shuttl.archiver.catalog.ArchiveCatalog;
 import com.splunk.shuttl.archiver.copy.IndexStoragePaths;
 import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
 import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystemFactory;
 import com.splunk.shuttl.archiver.filesystem.PathResolver;
 import com.splunk.shuttl.archiver.filesystem.transaction.TransactionExecuter;
 import com.splunk.shuttl.archiver.importexport.BucketImportController;
+import com.splunk.shuttl.archiver.importexport.tgz.TgzExtractor;
 import com.splunk.shuttl.archiver.listers.ListsBucketsFiltered;
 import com.splunk.shuttl.archiver.listers.ListsBucketsFilteredFactory;
 import com.splunk.shuttl.archiver.metastore.ArchiveBucketSize;
+import com.splunk.shuttl.archiver.metrics.BackendMetrics;
+import com.splunk.shuttl.archiver.metrics.Stage;
+import com.splunk.shuttl.archiver.metrics.TransferMetrics;
 import com.splunk.shuttl.archiver.model.BucketFactory;
+import com.splunk.shuttl.archiver.thaw.ThawSpaceAdmission.Reservations;
+import com.splunk.shuttl.archiver.util.DaemonThreadFactory;
+import com.splunk.shuttl.archiver.util.WaitForQueuePolicy;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Factory for getting {@link BucketThawer}
  */
 public class BucketThawerFactory {
 
+	private static final Map<String, Executor> thawExecutors = new HashMap<String, Executor>();
+	private static Executor importExecutor;
+	private static final Reservations thawSpaceReservations = new Reservations();
+
 	/**
 	 * Default {@link BucketThawer} as configured with .conf files.
 	 */
@@ -63,27 +83,86 @@ public class BucketThawerFactory {
 				splunkIndexesLayer, localFileSystemPaths);
 
 		ThawBucketTransferer thawBucketTransferer = getThawBucketTransferer(
-				archiveFileSystem, thawLocationProvider);
+				archiveFileSystem, thawLocationProvider, TransferMetrics.getShared()
+						.forBackend(configuration.getBackendName()));
 		ListsBucketsFiltered listsBucketsFiltered = ListsBucketsFilteredFactory
 				.create(configuration);
 		PathResolver pathResolver = new PathResolver(configuration);
 		BucketSizeResolver bucketSizeResolver = new BucketSizeResolver(
 				ArchiveBucketSize.create(pathResolver, archiveFileSystem,
-						localFileSystemPaths));
+						localFileSystemPaths), ArchiveCatalog.getShared(configuration,
+						archiveFileSystem, localFileSystemPaths));
 		GetsBucketsFromArchive getsBucketsFromArchive = new GetsBucketsFromArchive(
 				thawBucketTransferer, BucketImportController.create(),
 				bucketSizeResolver);
 		return new BucketThawer(listsBucketsFiltered, getsBucketsFromArchive,
 				new LocalBucketStorage(new IndexStoragePaths(splunkIndexesLayer)),
-				new ThawBucketLocker(localFileSystemPaths));
+				new ThawBucketLocker(localFileSystemPaths),
+				getThawExecutor(configuration), getImportExecutor(configuration),
+				createThawSpaceAdmission(configuration, thawLocationProvider,
+						bucketSizeResolver));
+	}
+
+	/**
+	 * Every thaw reserves space from the same reservations, since they all thaw
+	 * to the same local disk.
+	 * 
+	 * @return unlimited admission when the high watermark is 100%, so that
+	 *         thawing may fill the disk.
+	 */
+	private static ThawSpaceAdmission createThawSpaceAdmission(
+			ArchiveConfiguration configuration,
+			ThawLocationProvider thawLocationProvider,
+			BucketSizeResolver bucketSizeResolver) {
+		int highWatermarkPercent = configuration.getThawDiskHighWatermarkPercent();
+		if (highWatermarkPercent >= 100)
+			return ThawSpaceAdmission.unlimited();
+		return new ThawSpaceAdmission(thawLocationProvider, bucketSizeResolver,
+				highWatermarkPercent, thawSpaceReservations);
+	}
+
+	/**
+	 * Every thaw from a backend shares the same threads, so that thawing at the
+	 * same time from many requests doesn't thaw more buckets at once than
+	 * configured.
+	 */
+	private static synchronized Executor getThawExecutor(
+			ArchiveConfiguration configuration) {
+		String backendName = configuration.getBackendName();
+		Executor executor = thawExecutors.get(backendName);
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(
+					configuration.getThawBucketThreads(), new DaemonThreadFactory(
+							"thaw-bucket-" + backendName));
+			thawExecutors.put(backendName, executor);
+		}
+		return executor;
 	}
 
 	private static ThawBucketTransferer getThawBucketTransferer(
 			ArchiveFileSystem archiveFileSystem,
-			ThawLocationProvider thawLocationProvider) {
+			ThawLocationProvider thawLocationProvider, BackendMetrics metrics) {
+		TransactionExecuter transactionExecuter = new TransactionExecuter(
+				metrics.get(Stage.THAW_PREPARE), metrics.get(Stage.THAW_COMMIT));
 		ThawBucketTransferer thawBucketTransferer = new ThawBucketTransferer(
 				thawLocationProvider, archiveFileSystem, new BucketFactory(),
-				new TransactionExecuter());
+				transactionExecuter, TgzExtractor.create(), metrics);
 		return thawBucketTransferer;
 	}
+
+	/**
+	 * All backends share the threads that import thawed buckets, since they all
+	 * import to the same local disk. The queue to the imports is as long as
+	 * there are import threads, and transfers wait for room in it.
+	 */
+	private static synchronized Executor getImportExecutor(
+			ArchiveConfiguration configuration) {
+		if (importExecutor == null) {
+			int threads = configuration.getThawImportThreads();
+			importExecutor = new ThreadPoolExecutor(threads, threads, 0L,
+					TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(threads),
+					new DaemonThreadFactory("thaw-import"), new WaitForQueuePolicy());
+		}
+		return importExecutor;
+	}
 }
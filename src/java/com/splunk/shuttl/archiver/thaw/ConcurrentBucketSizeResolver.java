@@ -0,0 +1,238 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.thaw;
+
+import static com.splunk.shuttl.archiver.LogFormatter.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.apache.log4j.Logger;
+
+import com.splunk.shuttl.archiver.LocalFileSystemPaths;
+import com.splunk.shuttl.archiver.archive.ArchiveConfiguration;
+import com.splunk.shuttl.archiver.catalog.ArchiveCatalog;
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystemFactory;
+import com.splunk.shuttl.archiver.filesystem.PathResolver;
+import com.splunk.shuttl.archiver.metastore.ArchiveBucketSize;
+import com.splunk.shuttl.archiver.model.Bucket;
+import com.splunk.shuttl.archiver.util.DaemonThreadFactory;
+
+/**
+ * Resolves the sizes of many buckets with a {@link BucketSizeResolver}. Sizes
+ * that are not known are read in parallel on the {@link Executor}, and the
+ * resolved sizes are kept in a least recently used cache, since the size of an
+ * archived bucket never changes.
+ */
+public class ConcurrentBucketSizeResolver {
+
+	private static final Logger logger = Logger
+			.getLogger(ConcurrentBucketSizeResolver.class);
+	private static final ConcurrentMap<String, ConcurrentBucketSizeResolver> sharedResolvers = new ConcurrentHashMap<String, ConcurrentBucketSizeResolver>();
+	private static Executor sharedExecutor;
+
+	private final BucketSizeResolver bucketSizeResolver;
+	private final Executor executor;
+	private final SizeCache sizeCache;
+	private final ConcurrentMap<String, FutureTask<Long>> sizesBeingRead;
+
+	/**
+	 * @param executor
+	 *          reads the sizes that are not in the cache.
+	 * @param cacheSize
+	 *          max number of sizes to keep.
+	 */
+	public ConcurrentBucketSizeResolver(BucketSizeResolver bucketSizeResolver,
+			Executor executor, int cacheSize) {
+		this.bucketSizeResolver = bucketSizeResolver;
+		this.executor = executor;
+		this.sizeCache = new SizeCache(cacheSize);
+		this.sizesBeingRead = new ConcurrentHashMap<String, FutureTask<Long>>();
+	}
+
+	/**
+	 * @return the buckets with their sizes, in the same order. A bucket's size
+	 *         is null if it could not be resolved.
+	 */
+	public List<Bucket> resolveBucketSizes(List<Bucket> buckets) {
+		List<Future<Long>> sizes = new ArrayList<Future<Long>>();
+		for (Bucket bucket : buckets)
+			sizes.add(getSize(bucket));
+
+		List<Bucket> bucketsWithSize = new ArrayList<Bucket>();
+		for (int i = 0; i < buckets.size(); i++) {
+			Bucket bucket = buckets.get(i);
+			bucketsWithSize.add(new Bucket(bucket.getPath(), bucket.getIndex(),
+					bucket.getName(), bucket.getFormat(), waitForSize(bucket,
+							sizes.get(i))));
+		}
+		return bucketsWithSize;
+	}
+
+	/**
+	 * A size that is being read for another listing is not read again.
+	 */
+	private Future<Long> getSize(Bucket bucket) {
+		String key = getKey(bucket);
+		Long cachedSize = sizeCache.getSize(key);
+		if (cachedSize != null)
+			return sizeOf(cachedSize);
+
+		FutureTask<Long> readSize = new FutureTask<Long>(new ReadSize(bucket, key));
+		FutureTask<Long> beingRead = sizesBeingRead.putIfAbsent(key, readSize);
+		if (beingRead != null)
+			return beingRead;
+		executor.execute(readSize);
+		return readSize;
+	}
+
+	private String getKey(Bucket bucket) {
+		return bucket.getIndex() + "/" + bucket.getName() + "/"
+				+ bucket.getFormat();
+	}
+
+	private Future<Long> sizeOf(final Long size) {
+		FutureTask<Long> knownSize = new FutureTask<Long>(new Callable<Long>() {
+
+			@Override
+			public Long call() {
+				return size;
+			}
+		});
+		knownSize.run();
+		return knownSize;
+	}
+
+	private Long waitForSize(Bucket bucket, Future<Long> size) {
+		try {
+			return size.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			logger.warn(warn("Waited for bucket size to be read", e,
+					"will throw exception", "bucket", bucket));
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			logger.warn(warn("Read bucket size", e.getCause(),
+					"will list the bucket without size", "bucket", bucket));
+			return null;
+		}
+	}
+
+	private class ReadSize implements Callable<Long> {
+
+		private final Bucket bucket;
+		private final String key;
+
+		public ReadSize(Bucket bucket, String key) {
+			this.bucket = bucket;
+			this.key = key;
+		}
+
+		@Override
+		public Long call() {
+			try {
+				Long size = bucketSizeResolver.resolveBucketSize(bucket).getSize();
+				if (size != null)
+					sizeCache.putSize(key, size);
+				return size;
+			} finally {
+				sizesBeingRead.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Bucket sizes by index, bucket name and format. Evicts the least recently
+	 * used size when it's full.
+	 */
+	private static class SizeCache extends LinkedHashMap<String, Long> {
+
+		private static final long serialVersionUID = 0;
+
+		private final int maxSize;
+
+		public SizeCache(int maxSize) {
+			super(16, 0.75f, true);
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+			return size() > maxSize;
+		}
+
+		public synchronized Long getSize(String key) {
+			return get(key);
+		}
+
+		public synchronized void putSize(String key, Long size) {
+			put(key, size);
+		}
+	}
+
+	/**
+	 * @return resolver shared by all listings of the configured archive. It
+	 *         reuses one {@link ArchiveFileSystem} for all buckets.
+	 */
+	public static ConcurrentBucketSizeResolver getShared(
+			ArchiveConfiguration config) {
+		PathResolver pathResolver = new PathResolver(config);
+		String archiveKey = config.getBackendName() + " "
+				+ pathResolver.getIndexesHome();
+		ConcurrentBucketSizeResolver resolver = sharedResolvers.get(archiveKey);
+		if (resolver == null) {
+			sharedResolvers.putIfAbsent(archiveKey, create(config, pathResolver));
+			resolver = sharedResolvers.get(archiveKey);
+		}
+		return resolver;
+	}
+
+	private static ConcurrentBucketSizeResolver create(
+			ArchiveConfiguration config, PathResolver pathResolver) {
+		ArchiveFileSystem archiveFileSystem = ArchiveFileSystemFactory
+				.getWithConfiguration(config);
+		LocalFileSystemPaths localFileSystemPaths = LocalFileSystemPaths
+				.create(config);
+		BucketSizeResolver bucketSizeResolver = new BucketSizeResolver(
+				ArchiveBucketSize.create(pathResolver, archiveFileSystem,
+						localFileSystemPaths), ArchiveCatalog.getShared(config,
+						archiveFileSystem, localFileSystemPaths));
+		return new ConcurrentBucketSizeResolver(bucketSizeResolver,
+				getSharedExecutor(config.getBucketSizeThreads()),
+				config.getBucketSizeCacheSize());
+	}
+
+	/**
+	 * All archives share the same threads, so that listing many archives at the
+	 * same time doesn't read more sizes at once than configured.
+	 */
+	private static synchronized Executor getSharedExecutor(int threads) {
+		if (sharedExecutor == null)
+			sharedExecutor = Executors.newFixedThreadPool(threads,
+					new DaemonThreadFactory("bucket-size"));
+		return sharedExecutor;
+	}
+}
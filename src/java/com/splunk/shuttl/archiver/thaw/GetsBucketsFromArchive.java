@@ -57,10 +57,39 @@ public class GetsBucketsFromArchive {
 	 */
 	public LocalBucket getBucketFromArchive(Bucket bucket)
 			throws ThawTransferFailException, ImportThawedBucketFailException {
+		LocalBucket thawedBucket = transferBucket(bucket);
+		return importBucket(bucket, thawedBucket);
+	}
+
+	/**
+	 * First stage of thawing a bucket, which is bound by the network.
+	 * 
+	 * @return the bucket transferred to thaw, in its archived format.
+	 * @throws ThawTransferFailException
+	 *           if the transfer fails.
+	 */
+	public LocalBucket transferBucket(Bucket bucket)
+			throws ThawTransferFailException {
 		logger.info(will("Attempting to thaw bucket", "bucket", bucket));
-		LocalBucket thawedBucket = getTransferedBucket(bucket);
+		return getTransferedBucket(bucket);
+	}
+
+	/**
+	 * Second stage of thawing a bucket, which is bound by the CPU and the local
+	 * disk. Restores the transferred bucket and registers its size.
+	 * 
+	 * @param bucket
+	 *          as it was archived.
+	 * @param thawedBucket
+	 *          from {@link #transferBucket(Bucket)}.
+	 * @return thawed bucket.
+	 * @throws ImportThawedBucketFailException
+	 *           if the import of the thawed bucket fails.
+	 */
+	public LocalBucket importBucket(Bucket bucket, LocalBucket thawedBucket)
+			throws ImportThawedBucketFailException {
 		LocalBucket importedBucket = importThawedBucket(thawedBucket);
-		Bucket bucketWithSize = bucketSizeResolver.resolveBucketSize(thawedBucket);
+		Bucket bucketWithSize = bucketSizeResolver.resolveBucketSize(bucket);
 		logger.info(done("Thawed bucket", "bucket", importedBucket));
 		return BucketFactory.createBucketWithIndexDirectoryAndSize(
 				importedBucket.getIndex(), importedBucket.getDirectory(),
@@ -0,0 +1,96 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.thaw;
+
+import static com.splunk.shuttl.archiver.LogFormatter.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.log4j.Logger;
+
+import com.splunk.shuttl.archiver.archive.BucketFormat;
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
+import com.splunk.shuttl.archiver.filesystem.GlobsPaths;
+import com.splunk.shuttl.archiver.filesystem.PathResolver;
+import com.splunk.shuttl.archiver.util.UtilsPath;
+
+/**
+ * Lists the archived formats of every bucket in an index with one glob, instead
+ * of listing the formats home of one bucket at a time.
+ */
+public class IndexFormatsLister {
+
+	private static final Logger logger = Logger
+			.getLogger(IndexFormatsLister.class);
+
+	private final GlobsPaths globsPaths;
+	private final PathResolver pathResolver;
+
+	public IndexFormatsLister(GlobsPaths globsPaths, PathResolver pathResolver) {
+		this.globsPaths = globsPaths;
+		this.pathResolver = pathResolver;
+	}
+
+	/**
+	 * @return archived formats by bucket name, for every bucket in the index.
+	 * @throws IOException
+	 *           if the formats could not be listed.
+	 */
+	public Map<String, List<BucketFormat>> listFormatsInIndex(String index)
+			throws IOException {
+		Map<String, List<BucketFormat>> formatsByBucket = new HashMap<String, List<BucketFormat>>();
+		for (String formatPath : globsPaths.globPaths(pathResolver
+				.getFormatsGlob(index))) {
+			BucketFormat format = getFormat(formatPath);
+			if (format == null)
+				continue;
+			String bucketName = UtilsPath.getNameOfPath(FilenameUtils
+					.getPathNoEndSeparator(formatPath));
+			List<BucketFormat> formats = formatsByBucket.get(bucketName);
+			if (formats == null) {
+				formats = new ArrayList<BucketFormat>();
+				formatsByBucket.put(bucketName, formats);
+			}
+			formats.add(format);
+		}
+		return formatsByBucket;
+	}
+
+	private BucketFormat getFormat(String formatPath) {
+		try {
+			return BucketFormat.valueOf(UtilsPath.getNameOfPath(formatPath));
+		} catch (IllegalArgumentException e) {
+			logger.debug(happened("Skipped path that is not a bucket format",
+					"path", formatPath));
+			return null;
+		}
+	}
+
+	/**
+	 * @return lister for the archive, or null if the archive can't glob paths.
+	 */
+	public static IndexFormatsLister create(ArchiveFileSystem archiveFileSystem,
+			PathResolver pathResolver) {
+		if (archiveFileSystem instanceof GlobsPaths)
+			return new IndexFormatsLister((GlobsPaths) archiveFileSystem,
+					pathResolver);
+		return null;
+	}
+}
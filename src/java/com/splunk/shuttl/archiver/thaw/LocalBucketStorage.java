@@ -40,4 +40,19 @@ public class LocalBucketStorage {
 		return false;
 	}
 
+	/**
+	 * Marks the bucket as used now, wherever it exists locally, so that buckets
+	 * that were recently thawed or found already thawed are the last ones to be
+	 * evicted from thaw.
+	 */
+	public void markAccessed(Bucket bucket) {
+		long now = System.currentTimeMillis();
+		String index = bucket.getIndex();
+		for (File dbPath : indexStoragePaths.getDbPathsForIndex(index)) {
+			File bucketDirectory = new File(dbPath, bucket.getName());
+			if (bucketDirectory.exists())
+				bucketDirectory.setLastModified(now);
+		}
+	}
+
 }
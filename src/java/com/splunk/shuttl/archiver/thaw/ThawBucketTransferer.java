@@ -17,10 +17,15 @@ package com.splunk.shuttl.archiver.thaw;
 import java.io.File;
 import java.io.IOException;
 
+import com.splunk.shuttl.archiver.archive.BucketFormat;
 import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
+import com.splunk.shuttl.archiver.filesystem.ReadsFiles;
 import com.splunk.shuttl.archiver.filesystem.transaction.Transaction;
 import com.splunk.shuttl.archiver.filesystem.transaction.TransactionExecuter;
 import com.splunk.shuttl.archiver.filesystem.transaction.bucket.GetBucketTransaction;
+import com.splunk.shuttl.archiver.importexport.tgz.TgzExtractor;
+import com.splunk.shuttl.archiver.metrics.BackendMetrics;
+import com.splunk.shuttl.archiver.metrics.Stage;
 import com.splunk.shuttl.archiver.model.Bucket;
 import com.splunk.shuttl.archiver.model.BucketFactory;
 import com.splunk.shuttl.archiver.model.LocalBucket;
@@ -34,30 +39,77 @@ public class ThawBucketTransferer {
 	private final ArchiveFileSystem archiveFileSystem;
 	private final BucketFactory bucketFactory;
 	private TransactionExecuter transactionExecuter;
+	private final TgzExtractor tgzExtractor;
+	private final BackendMetrics metrics;
 
+	/**
+	 * @param tgzExtractor
+	 *          for extracting tgz buckets while they are transferred, when the
+	 *          archive file system can be read as streams.
+	 * @param metrics
+	 *          measures the bytes transferred.
+	 */
 	public ThawBucketTransferer(ThawLocationProvider thawLocationProvider,
 			ArchiveFileSystem archiveFileSystem, BucketFactory bucketFactory,
-			TransactionExecuter transactionExecuter) {
+			TransactionExecuter transactionExecuter, TgzExtractor tgzExtractor,
+			BackendMetrics metrics) {
 		this.thawLocationProvider = thawLocationProvider;
 		this.archiveFileSystem = archiveFileSystem;
 		this.bucketFactory = bucketFactory;
 		this.transactionExecuter = transactionExecuter;
+		this.tgzExtractor = tgzExtractor;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * @return transferer that extracts tgz buckets with a default
+	 *         {@link TgzExtractor}, and that doesn't measure the transferred
+	 *         buckets.
+	 */
+	public static ThawBucketTransferer create(
+			ThawLocationProvider thawLocationProvider,
+			ArchiveFileSystem archiveFileSystem, BucketFactory bucketFactory,
+			TransactionExecuter transactionExecuter) {
+		return new ThawBucketTransferer(thawLocationProvider, archiveFileSystem,
+				bucketFactory, transactionExecuter, TgzExtractor.create(),
+				BackendMetrics.unregistered());
 	}
 
 	/**
 	 * Transfers an archived bucket in the thaw directory of the bucket's index.
+	 * Tgz buckets are extracted during the transfer when possible, and are then
+	 * returned in {@link BucketFormat#SPLUNK_BUCKET} format.
 	 * 
 	 * @return the transferred bucket.
 	 */
 	public LocalBucket transferBucketToThaw(Bucket bucket) throws IOException {
 		File temp = thawLocationProvider.getThawTransferLocation(bucket);
 		File dst = thawLocationProvider.getLocationInThawForBucket(bucket);
+		if (canExtractDuringTransfer(bucket)) {
+			transactionExecuter.execute(GetBucketTransaction.createExtractingTgz(
+					archiveFileSystem, (ReadsFiles) archiveFileSystem, tgzExtractor,
+					bucket, temp.getAbsolutePath(), dst.getAbsolutePath()));
+			countTransferredBytes(bucket);
+			return bucketFactory.createWithIndexDirectoryAndSize(bucket.getIndex(),
+					dst, BucketFormat.SPLUNK_BUCKET, bucket.getSize());
+		}
 		Transaction getBucketTransaction = GetBucketTransaction.create(
 				archiveFileSystem, bucket, temp.getAbsolutePath(),
 				dst.getAbsolutePath());
 		transactionExecuter.execute(getBucketTransaction);
+		countTransferredBytes(bucket);
 
 		return bucketFactory.createWithIndexDirectoryAndSize(bucket.getIndex(),
 				dst, bucket.getFormat(), bucket.getSize());
 	}
+
+	private void countTransferredBytes(Bucket bucket) {
+		if (bucket.getSize() != null)
+			metrics.get(Stage.THAW_PREPARE).addBytes(bucket.getSize());
+	}
+
+	private boolean canExtractDuringTransfer(Bucket bucket) {
+		return bucket.getFormat().equals(BucketFormat.SPLUNK_BUCKET_TGZ)
+				&& archiveFileSystem instanceof ReadsFiles;
+	}
 }
@@ -0,0 +1,157 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.thaw;
+
+import static com.splunk.shuttl.archiver.LogFormatter.*;
+
+import java.util.Date;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Thaws buckets with a {@link BucketThawer} in the background, and keeps the
+ * state of the thawing so that it can be polled with the id of the job.
+ */
+public class ThawJob implements Runnable {
+
+	private static final Logger logger = Logger.getLogger(ThawJob.class);
+
+	public enum State {
+		QUEUED, RUNNING, DONE, FAILED
+	}
+
+	private final String id;
+	private final String index;
+	private final Date earliestTime;
+	private final Date latestTime;
+	private final BucketThawer bucketThawer;
+
+	private volatile State state;
+	private volatile long startMillis;
+	private volatile long endMillis;
+	private volatile Exception exception;
+
+	/**
+	 * @param index
+	 *          to thaw buckets from. if {@code null}, thaw from all indexes.
+	 */
+	public ThawJob(String id, String index, Date earliestTime, Date latestTime,
+			BucketThawer bucketThawer) {
+		this.id = id;
+		this.index = index;
+		this.earliestTime = earliestTime;
+		this.latestTime = latestTime;
+		this.bucketThawer = bucketThawer;
+		this.state = State.QUEUED;
+	}
+
+	@Override
+	public void run() {
+		startMillis = System.currentTimeMillis();
+		state = State.RUNNING;
+		logger.info(will("Run thaw job", "job_id", id, "index", index,
+				"earliest_time", earliestTime, "latest_time", latestTime));
+		try {
+			bucketThawer.thawBuckets(index, earliestTime, latestTime);
+			finish(State.DONE);
+			logger.info(done("Run thaw job", "job_id", id, "thawed_buckets",
+					bucketThawer.getThawedBuckets().size(), "failed_buckets",
+					bucketThawer.getFailedBuckets().size()));
+		} catch (RuntimeException e) {
+			logger.error(did("Ran thaw job", e, "job to thaw buckets", "job_id",
+					id));
+			exception = e;
+			finish(State.FAILED);
+		}
+	}
+
+	/**
+	 * Sets the end time before the state, so that a finished job always has its
+	 * end time when it's read.
+	 */
+	private void finish(State finishedState) {
+		endMillis = System.currentTimeMillis();
+		state = finishedState;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getIndex() {
+		return index;
+	}
+
+	public Date getEarliestTime() {
+		return earliestTime;
+	}
+
+	public Date getLatestTime() {
+		return latestTime;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	public boolean isFinished() {
+		State s = state;
+		return s == State.DONE || s == State.FAILED;
+	}
+
+	/**
+	 * @return exception that failed the job, or {@code null}.
+	 */
+	public Exception getException() {
+		return exception;
+	}
+
+	/**
+	 * @return thawer of the job, with the results and the progress of the
+	 *         thawing.
+	 */
+	public BucketThawer getBucketThawer() {
+		return bucketThawer;
+	}
+
+	public ThawProgress getProgress() {
+		return bucketThawer.getProgress();
+	}
+
+	/**
+	 * @return milliseconds the job has been running, or ran if it's finished.
+	 */
+	public long getElapsedMillis() {
+		if (state == State.QUEUED)
+			return 0;
+		long end = isFinished() ? endMillis : System.currentTimeMillis();
+		return end - startMillis;
+	}
+
+	/**
+	 * @return estimated milliseconds until the job is done, or {@code -1} if
+	 *         it can't be estimated yet.
+	 */
+	public long estimateMillisLeft() {
+		switch (state) {
+		case QUEUED:
+			return -1;
+		case RUNNING:
+			return getProgress().estimateMillisLeft(getElapsedMillis());
+		default:
+			return 0;
+		}
+	}
+}
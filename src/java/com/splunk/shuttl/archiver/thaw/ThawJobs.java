@@ -0,0 +1,112 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.thaw;
+
+import static com.splunk.shuttl.archiver.LogFormatter.*;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import org.apache.log4j.Logger;
+
+import com.splunk.shuttl.archiver.util.DaemonThreadFactory;
+
+/**
+ * Runs {@link ThawJob}s in the background and keeps them by id, so that their
+ * progress can be polled. Only the latest finished jobs are kept.
+ */
+public class ThawJobs {
+
+	private static final Logger logger = Logger.getLogger(ThawJobs.class);
+
+	public static final int FINISHED_JOBS_KEPT = 100;
+
+	private final Executor executor;
+	private final Map<String, ThawJob> jobs;
+
+	/**
+	 * @param executor
+	 *          runs the jobs. Each job waits for its buckets to be thawed, so it
+	 *          should have a thread for every job that can run at the same time.
+	 */
+	public ThawJobs(Executor executor) {
+		this.executor = executor;
+		this.jobs = new LinkedHashMap<String, ThawJob>();
+	}
+
+	/**
+	 * Submits a job that thaws buckets with the thawer.
+	 * 
+	 * @param jobId
+	 *          id of the job. A new id is generated if {@code null}, which is the
+	 *          case unless the same job is submitted to several Shuttl servers.
+	 * @return the submitted job, which is either queued or running.
+	 * @throws IllegalArgumentException
+	 *           if a job with the id already exists.
+	 */
+	public ThawJob submit(String jobId, String index, Date earliestTime,
+			Date latestTime, BucketThawer bucketThawer) {
+		ThawJob job = new ThawJob(jobId == null ? UUID.randomUUID().toString()
+				: jobId, index, earliestTime, latestTime, bucketThawer);
+		synchronized (this) {
+			if (jobs.containsKey(job.getId()))
+				throw new IllegalArgumentException("Thaw job already exists: "
+						+ job.getId());
+			removeOldFinishedJobs();
+			jobs.put(job.getId(), job);
+		}
+		executor.execute(job);
+		logger.info(done("Submitted thaw job", "job_id", job.getId(), "index",
+				index));
+		return job;
+	}
+
+	private void removeOldFinishedJobs() {
+		int finished = 0;
+		for (ThawJob job : jobs.values())
+			if (job.isFinished())
+				finished++;
+		Iterator<ThawJob> iterator = jobs.values().iterator();
+		while (finished >= FINISHED_JOBS_KEPT && iterator.hasNext())
+			if (iterator.next().isFinished()) {
+				iterator.remove();
+				finished--;
+			}
+	}
+
+	/**
+	 * @return the job with the id, or {@code null} if there is no such job.
+	 */
+	public synchronized ThawJob getJob(String jobId) {
+		return jobs.get(jobId);
+	}
+
+	private static ThawJobs sharedInstance;
+
+	/**
+	 * @return the thaw jobs shared by the whole server.
+	 */
+	public static synchronized ThawJobs getSharedInstance() {
+		if (sharedInstance == null)
+			sharedInstance = new ThawJobs(
+					Executors.newCachedThreadPool(new DaemonThreadFactory("thaw-job")));
+		return sharedInstance;
+	}
+}
@@ -58,16 +58,23 @@ public class ThawLocationProvider {
 	/**
 	 * @param bucket
 	 *          to get transfer location for.
-	 * @return non existing local where the bucket can be transfered.
+	 * @return local location where the bucket can be transfered. It doesn't
+	 *         exist, unless it has a partial transfer of the bucket from an
+	 *         earlier thaw, which is kept so that the transfer can be resumed.
 	 */
 	public File getThawTransferLocation(Bucket bucket) {
 		File transferDir = localFileSystemPaths.getThawTransfersDirectory(bucket);
 		File file = new File(transferDir, bucket.getName());
-		if (file.exists())
+		if (file.exists() && !isPartialTransfer(file))
 			deleteFile(file);
 		return file;
 	}
 
+	private boolean isPartialTransfer(File file) {
+		String[] transferred = file.list();
+		return transferred != null && transferred.length > 0;
+	}
+
 	private void deleteFile(File file) {
 		boolean wasDeleted = file.delete();
 		if (!wasDeleted)
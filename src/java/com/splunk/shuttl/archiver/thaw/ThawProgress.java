@@ -0,0 +1,158 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.thaw;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.splunk.shuttl.archiver.model.Bucket;
+
+/**
+ * Progress of the buckets thawed by a {@link BucketThawer}, for reporting while
+ * the thawing is still going on. Transferred bytes are counted from the sizes
+ * of the buckets in the archive, which is also what the time left is estimated
+ * from. The time left is estimated from the number of buckets when the sizes
+ * are unknown.
+ */
+public class ThawProgress {
+
+	public enum BucketState {
+		PENDING, TRANSFERRING, IMPORTING, THAWED, SKIPPED, FAILED
+	}
+
+	private final List<Bucket> buckets;
+	private final Map<Bucket, BucketState> states;
+
+	public ThawProgress() {
+		this.buckets = new ArrayList<Bucket>();
+		this.states = new IdentityHashMap<Bucket, BucketState>();
+	}
+
+	/**
+	 * Every bucket starts as {@link BucketState#PENDING}.
+	 */
+	public synchronized void bucketsListed(List<Bucket> listedBuckets) {
+		for (Bucket bucket : listedBuckets) {
+			buckets.add(bucket);
+			states.put(bucket, BucketState.PENDING);
+		}
+	}
+
+	public synchronized void setState(Bucket bucket, BucketState state) {
+		if (states.containsKey(bucket))
+			states.put(bucket, state);
+	}
+
+	/**
+	 * @return the listed buckets, in the order they are thawed.
+	 */
+	public synchronized List<Bucket> getBuckets() {
+		return new ArrayList<Bucket>(buckets);
+	}
+
+	/**
+	 * @return state of the bucket, or {@code null} if it was not listed.
+	 */
+	public synchronized BucketState getState(Bucket bucket) {
+		return states.get(bucket);
+	}
+
+	/**
+	 * @return number of listed buckets in the state.
+	 */
+	public synchronized int countBuckets(BucketState state) {
+		int count = 0;
+		for (BucketState s : states.values())
+			if (s == state)
+				count++;
+		return count;
+	}
+
+	/**
+	 * @return bytes of the buckets that are not skipped.
+	 */
+	public synchronized long getTotalBytes() {
+		return getTransferredBytes() + getBytesLeft();
+	}
+
+	/**
+	 * @return bytes of the buckets that are transferred, including the ones
+	 *         that are still being imported.
+	 */
+	public synchronized long getTransferredBytes() {
+		long bytes = 0;
+		for (Bucket bucket : buckets)
+			if (isTransferred(states.get(bucket)))
+				bytes += sizeOf(bucket);
+		return bytes;
+	}
+
+	private long getBytesLeft() {
+		long bytes = 0;
+		for (Bucket bucket : buckets)
+			if (isLeftToTransfer(states.get(bucket)))
+				bytes += sizeOf(bucket);
+		return bytes;
+	}
+
+	private boolean isTransferred(BucketState state) {
+		return state == BucketState.IMPORTING || state == BucketState.THAWED;
+	}
+
+	private boolean isLeftToTransfer(BucketState state) {
+		return state == BucketState.PENDING || state == BucketState.TRANSFERRING;
+	}
+
+	private long sizeOf(Bucket bucket) {
+		Long size = bucket.getSize();
+		return size == null ? 0 : size;
+	}
+
+	/**
+	 * @param elapsedMillis
+	 *          time since the thawing started.
+	 * @return estimated milliseconds until every bucket is transferred, or
+	 *         {@code -1} if nothing is transferred yet to estimate from.
+	 */
+	public synchronized long estimateMillisLeft(long elapsedMillis) {
+		long transferredBytes = getTransferredBytes();
+		long bytesLeft = getBytesLeft();
+		if (transferredBytes > 0)
+			return estimate(elapsedMillis, transferredBytes, bytesLeft);
+		if (bytesLeft > 0)
+			return -1;
+		return estimate(elapsedMillis, countTransferred(), countLeft());
+	}
+
+	private long estimate(long elapsedMillis, long done, long left) {
+		if (left == 0)
+			return 0;
+		if (done == 0)
+			return -1;
+		return (long) (elapsedMillis * ((double) left / done));
+	}
+
+	private int countTransferred() {
+		return countBuckets(BucketState.IMPORTING)
+				+ countBuckets(BucketState.THAWED);
+	}
+
+	private int countLeft() {
+		return countBuckets(BucketState.PENDING)
+				+ countBuckets(BucketState.TRANSFERRING);
+	}
+}
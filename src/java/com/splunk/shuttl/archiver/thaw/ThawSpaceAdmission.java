@@ -0,0 +1,201 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.thaw;
+
+import static com.splunk.shuttl.archiver.LogFormatter.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.log4j.Logger;
+
+import com.splunk.shuttl.archiver.model.Bucket;
+
+/**
+ * Reserves space on the thaw disk for a bucket before it's transferred, so
+ * that thawing doesn't fill the disk that Splunk indexes on. A bucket is
+ * admitted when the used space, the space reserved by the buckets that are
+ * being thawed and the size of the bucket stay within the high watermark.<br/>
+ * <br/>
+ * A bucket that doesn't fit waits for other buckets to release their space,
+ * and is rejected when there are no other reservations to wait for. The
+ * reservations are conservative, since the buckets being transferred are also
+ * counted in the used space.
+ */
+public class ThawSpaceAdmission {
+
+	private static final Logger logger = Logger
+			.getLogger(ThawSpaceAdmission.class);
+
+	static final long RECHECK_MILLIS = 1000;
+
+	private final ThawLocationProvider thawLocationProvider;
+	private final BucketSizeResolver bucketSizeResolver;
+	private final int highWatermarkPercent;
+	private final Reservations reservations;
+
+	/**
+	 * Space reserved by the buckets that are being thawed. Thaws of the same
+	 * disk should share it.
+	 */
+	public static class Reservations {
+
+		private long reservedBytes;
+
+		public synchronized long getReservedBytes() {
+			return reservedBytes;
+		}
+	}
+
+	/**
+	 * @param thawLocationProvider
+	 *          for finding the disk the bucket is thawed to.
+	 * @param bucketSizeResolver
+	 *          for the size of the bucket, when the listed bucket has none.
+	 * @param highWatermarkPercent
+	 *          percentage of the disk that may be used.
+	 * @param reservations
+	 *          shared with the other thaws of the disk.
+	 */
+	public ThawSpaceAdmission(ThawLocationProvider thawLocationProvider,
+			BucketSizeResolver bucketSizeResolver, int highWatermarkPercent,
+			Reservations reservations) {
+		this.thawLocationProvider = thawLocationProvider;
+		this.bucketSizeResolver = bucketSizeResolver;
+		this.highWatermarkPercent = highWatermarkPercent;
+		this.reservations = reservations;
+	}
+
+	/**
+	 * @return admission that admits every bucket without reserving space, so
+	 *         that thawing may fill the disk.
+	 */
+	public static ThawSpaceAdmission unlimited() {
+		return new UnlimitedThawSpaceAdmission();
+	}
+
+	private static class UnlimitedThawSpaceAdmission extends ThawSpaceAdmission {
+
+		public UnlimitedThawSpaceAdmission() {
+			super(null, null, 100, new Reservations());
+		}
+
+		@Override
+		public long reserve(Bucket bucket) {
+			return 0;
+		}
+
+		@Override
+		public void release(long reservedBytes) {
+		}
+	}
+
+	/**
+	 * Reserves space for the bucket, waiting for other buckets to release
+	 * theirs if it doesn't fit. The space must be released with
+	 * {@link #release(long)} when the bucket is thawed or has failed.
+	 * 
+	 * @return bytes reserved.
+	 * @throws InsufficientThawSpaceException
+	 *           if the bucket doesn't fit even without other reservations.
+	 */
+	public long reserve(Bucket bucket) throws InsufficientThawSpaceException {
+		long size = getSize(bucket);
+		File disk = getDisk(bucket);
+		if (disk == null)
+			return 0;
+		synchronized (reservations) {
+			while (!fits(disk, size)) {
+				if (reservations.reservedBytes == 0)
+					throw rejected(bucket, size, disk);
+				waitForRelease(bucket);
+			}
+			reservations.reservedBytes += size;
+		}
+		return size;
+	}
+
+	/**
+	 * @param reservedBytes
+	 *          as returned by {@link #reserve(Bucket)}.
+	 */
+	public void release(long reservedBytes) {
+		synchronized (reservations) {
+			reservations.reservedBytes -= reservedBytes;
+			reservations.notifyAll();
+		}
+	}
+
+	private long getSize(Bucket bucket) {
+		Long size = bucket.getSize();
+		if (size == null)
+			size = bucketSizeResolver.resolveBucketSize(bucket).getSize();
+		if (size == null) {
+			logger.warn(warn("Resolved size of bucket to thaw", "size is unknown",
+					"will thaw the bucket without reserving space", "bucket", bucket));
+			return 0;
+		}
+		return size;
+	}
+
+	/**
+	 * @return the closest existing directory of the bucket in thaw, or
+	 *         {@code null} if there is none.
+	 */
+	private File getDisk(Bucket bucket) {
+		try {
+			File file = thawLocationProvider.getLocationInThawForBucket(bucket);
+			while (file != null && !file.exists())
+				file = file.getParentFile();
+			return file;
+		} catch (IOException e) {
+			logger.warn(warn("Looked up thaw location of bucket", e,
+					"will let the transfer fail instead", "bucket", bucket));
+			return null;
+		}
+	}
+
+	private boolean fits(File disk, long size) {
+		long totalSpace = disk.getTotalSpace();
+		if (totalSpace == 0)
+			return true;
+		long usedSpace = totalSpace - disk.getUsableSpace();
+		long spaceAfter = usedSpace + reservations.reservedBytes + size;
+		return spaceAfter * 100.0 / totalSpace <= highWatermarkPercent;
+	}
+
+	private void waitForRelease(Bucket bucket)
+			throws InsufficientThawSpaceException {
+		try {
+			reservations.wait(RECHECK_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InsufficientThawSpaceException(bucket,
+					"Interrupted while waiting for space to thaw bucket");
+		}
+	}
+
+	private InsufficientThawSpaceException rejected(Bucket bucket, long size,
+			File disk) {
+		logger.warn(warn("Reserved space for bucket to thaw",
+				"bucket would fill the thaw disk past the high watermark",
+				"will not thaw the bucket", "bucket", bucket, "bucket_size", size,
+				"disk", disk, "usable_space", disk.getUsableSpace(),
+				"high_watermark_percent", highWatermarkPercent));
+		return new InsufficientThawSpaceException(bucket, "Thawing bucket "
+				+ bucket.getName() + " of size " + size
+				+ " would fill the thaw disk past " + highWatermarkPercent + "%");
+	}
+}
@@ -0,0 +1,29 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.util;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the commands on the thread that executes them. For classes that can run
+ * their work in parallel, but are configured to not do so.
+ */
+public class CallingThreadExecutor implements Executor {
+
+	@Override
+	public void execute(Runnable command) {
+		command.run();
+	}
+}
@@ -16,6 +16,8 @@ package com.splunk.shuttl.archiver.util;
 
 import static com.splunk.shuttl.archiver.LogFormatter.*;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -30,8 +32,11 @@ import com.splunk.shuttl.archiver.model.BucketName;
 public class GroupRegex {
 
 	private static final Logger logger = Logger.getLogger(GroupRegex.class);
+	private static final ConcurrentMap<String, Pattern> patterns = new ConcurrentHashMap<String, Pattern>();
+
 	private final String regex;
 	private final String value;
+	private String[] groups;
 
 	public GroupRegex(String regex, String value) {
 		this.regex = regex;
@@ -42,23 +47,26 @@ public class GroupRegex {
 	 * @return value from the regex group by index.
 	 */
 	public String getValue(int groupIndex) {
-		throwExceptionIfNotValidRegex(groupIndex);
-		try {
-			return getRegexGroup(groupIndex);
-		} catch (IndexOutOfBoundsException e) {
-			throw new IllegalRegexGroupException(e);
-		}
+		String[] matchedGroups = getGroups();
+		if (groupIndex < 0 || groupIndex >= matchedGroups.length)
+			throw new IllegalRegexGroupException(new IndexOutOfBoundsException(
+					"No group " + groupIndex));
+		return matchedGroups[groupIndex];
 	}
 
-	private String getRegexGroup(int groupIndex) {
-		Pattern legalPattern = Pattern.compile(regex);
-		Matcher matcher = legalPattern.matcher(value);
-		matcher.find();
-		return matcher.group(groupIndex);
+	/**
+	 * The value is only matched once, since the values of a bucket's name are
+	 * read for every bucket that is listed or filtered.
+	 */
+	private synchronized String[] getGroups() {
+		if (groups == null)
+			groups = matchGroups();
+		return groups;
 	}
 
-	private void throwExceptionIfNotValidRegex(int groupIndex) {
-		if (!Pattern.matches(regex, value)) {
+	private String[] matchGroups() {
+		Matcher matcher = getPattern().matcher(value);
+		if (!matcher.matches()) {
 			logger.debug(did("Verified legal bucket name",
 					"Bucket name was not legal. Throwing IllegalBucketNameException",
 					"Bucket name to be legal", "bucket_name", value,
@@ -66,5 +74,18 @@ public class GroupRegex {
 			throw new IllegalRegexGroupException("regex: " + regex + ", value: "
 					+ value);
 		}
+		String[] matched = new String[matcher.groupCount() + 1];
+		for (int i = 0; i < matched.length; i++)
+			matched[i] = matcher.group(i);
+		return matched;
+	}
+
+	private Pattern getPattern() {
+		Pattern pattern = patterns.get(regex);
+		if (pattern == null) {
+			pattern = Pattern.compile(regex);
+			patterns.putIfAbsent(regex, pattern);
+		}
+		return pattern;
 	}
 }
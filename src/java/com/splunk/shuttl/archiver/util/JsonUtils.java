@@ -14,6 +14,7 @@
 // limitations under the License.
 package com.splunk.shuttl.archiver.util;
 
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -23,6 +24,7 @@ import java.util.Map;
 import com.amazonaws.util.json.JSONArray;
 import com.amazonaws.util.json.JSONException;
 import com.amazonaws.util.json.JSONObject;
+import com.amazonaws.util.json.JSONWriter;
 import com.splunk.shuttl.archiver.model.Bucket;
 import com.splunk.shuttl.server.model.BucketBean;
 
@@ -158,6 +160,25 @@ public class JsonUtils {
 		}
 	}
 
+	/**
+	 * Streams the buckets as an array of {@link BucketBean}s at the key, followed
+	 * by the other keys and values, without building the whole JSON in memory.
+	 */
+	public static void writeBucketsAsJson(Writer writer, String key,
+			Iterable<? extends Bucket> buckets, Object... kvs) {
+		try {
+			JSONWriter json = new JSONWriter(writer).object().key(key).array();
+			for (Bucket bucket : buckets)
+				json.value(new JSONObject(BucketBean.createBeanFromBucket(bucket)));
+			json.endArray();
+			for (int i = 0; i < kvs.length; i += 2)
+				json.key(kvs[i].toString()).value(kvs[i + 1]);
+			json.endObject();
+		} catch (JSONException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
 	public static JSONObject writeKeyValueAsJson(Object... kvs) {
 		JSONObject jsonObject = new JSONObject();
 		for (int i = 0; i < kvs.length; i += 2) {
@@ -0,0 +1,40 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.util;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Makes the thread that executes a command wait for room in the queue of a
+ * full {@link ThreadPoolExecutor}, instead of rejecting the command. For
+ * bounded hand-offs between the stages of a pipeline, where the earlier stage
+ * should slow down to the pace of the later one.
+ */
+public class WaitForQueuePolicy implements RejectedExecutionHandler {
+
+	@Override
+	public void rejectedExecution(Runnable command, ThreadPoolExecutor executor) {
+		if (executor.isShutdown())
+			throw new RejectedExecutionException("Executor was shut down");
+		try {
+			executor.getQueue().put(command);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RejectedExecutionException(e);
+		}
+	}
+}
@@ -22,7 +22,10 @@ import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.webapp.WebAppContext;
 import org.eclipse.jetty.xml.XmlConfiguration;
 
+import com.splunk.shuttl.archiver.StaleTransfersCleaner;
 import com.splunk.shuttl.archiver.StartUpCleaner;
+import com.splunk.shuttl.archiver.flush.ThawCacheEvictor;
+import com.splunk.shuttl.archiver.metastore.MetadataManifestRoller;
 import com.splunk.shuttl.server.mbeans.ShuttlServer;
 
 /**
@@ -55,6 +58,9 @@ public class ShuttlJettyServer {
 				}
 			}
 			StartUpCleaner.create().clean();
+			StaleTransfersCleaner.cleanAtStartUp();
+			MetadataManifestRoller.startRolling();
+			ThawCacheEvictor.startEvicting();
 			server.start();
 		} catch (Exception e) {
 			logger.error("Error during startup", e);
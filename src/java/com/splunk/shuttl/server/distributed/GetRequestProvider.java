@@ -27,16 +27,21 @@ import com.splunk.shuttl.server.mbeans.util.EndpointUtils;
 public class GetRequestProvider implements ShuttlEndpointRequestProvider {
 
 	private final String endpoint;
-	private final String index;
-	private final String from;
-	private final String to;
+	private final Object[] params;
 
 	public GetRequestProvider(String endpoint, String index, String from,
 			String to) {
+		this(endpoint, "index", index, "from", from, "to", to);
+	}
+
+	/**
+	 * @param params
+	 *          names followed by values of the request parameters. Parameters
+	 *          with {@code null} values are left out.
+	 */
+	public GetRequestProvider(String endpoint, Object... params) {
 		this.endpoint = endpoint;
-		this.index = index;
-		this.from = from;
-		this.to = to;
+		this.params = params;
 	}
 
 	@Override
@@ -45,8 +50,7 @@ public class GetRequestProvider implements ShuttlEndpointRequestProvider {
 				shuttlPort, endpoint);
 		return new HttpGet(URI.create(endpointUri
 				+ "?"
-				+ EndpointUtils.createHttpGetParams("index", index, "from", from, "to",
-						to)));
+				+ EndpointUtils.createHttpGetParams(params)));
 	}
 
 }
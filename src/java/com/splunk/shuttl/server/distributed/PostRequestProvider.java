@@ -26,24 +26,28 @@ import com.splunk.shuttl.server.mbeans.util.EndpointUtils;
 public class PostRequestProvider implements ShuttlEndpointRequestProvider {
 
 	private final String endpoint;
-	private final String index;
-	private final String from;
-	private final String to;
+	private final Object[] params;
 
 	public PostRequestProvider(String endpoint, String index, String from,
 			String to) {
+		this(endpoint, "index", index, "from", from, "to", to);
+	}
+
+	/**
+	 * @param params
+	 *          names followed by values of the request parameters. Parameters
+	 *          with {@code null} values are left out.
+	 */
+	public PostRequestProvider(String endpoint, Object... params) {
 		this.endpoint = endpoint;
-		this.index = index;
-		this.from = from;
-		this.to = to;
+		this.params = params;
 	}
 
 	@Override
 	public HttpUriRequest createRequest(String shuttlHost, int shuttlPort) {
 		URI endpointUri = EndpointUtils.getShuttlEndpointUri(shuttlHost,
 				shuttlPort, endpoint);
-		return EndpointUtils.createHttpPost(endpointUri, "index", index, "from",
-				from, "to", to);
+		return EndpointUtils.createHttpPost(endpointUri, params);
 	}
 
 }
@@ -134,6 +134,24 @@ public class RequestOnSearchPeers {
 		return create(new GetRequestProvider(endpoint, index, from, to));
 	}
 
+	/**
+	 * @param params
+	 *          names followed by values of the request parameters.
+	 */
+	public static RequestOnSearchPeers createPostWithParams(String endpoint,
+			Object... params) {
+		return create(new PostRequestProvider(endpoint, params));
+	}
+
+	/**
+	 * @param params
+	 *          names followed by values of the request parameters.
+	 */
+	public static RequestOnSearchPeers createGetWithParams(String endpoint,
+			Object... params) {
+		return create(new GetRequestProvider(endpoint, params));
+	}
+
 	private static RequestOnSearchPeers create(
 			ShuttlEndpointRequestProvider requestProvider) {
 		Service splunkService = SplunkIndexedLayerFactory
@@ -19,6 +19,7 @@ import java.util.List;
 
 import javax.management.InstanceNotFoundException;
 
+import com.splunk.shuttl.archiver.filesystem.throttle.TransferThrottle;
 import com.splunk.shuttl.server.mbeans.util.MBeanUtils;
 import com.splunk.shuttl.server.model.ArchiverConf;
 
@@ -121,6 +122,261 @@ public class ShuttlArchiver extends MBeanBase<ArchiverConf> implements
 		conf.setArchivePath(archivePath);
 	}
 
+	@Override
+	public Integer getArchiveWorkers() {
+		return conf.getArchiveWorkers();
+	}
+
+	@Override
+	public void setArchiveWorkers(Integer archiveWorkers) {
+		conf.setArchiveWorkers(archiveWorkers);
+	}
+
+	@Override
+	public Integer getArchiveQueueSize() {
+		return conf.getArchiveQueueSize();
+	}
+
+	@Override
+	public void setArchiveQueueSize(Integer archiveQueueSize) {
+		conf.setArchiveQueueSize(archiveQueueSize);
+	}
+
+	@Override
+	public Integer getArchiveFormatThreads() {
+		return conf.getArchiveFormatThreads();
+	}
+
+	@Override
+	public void setArchiveFormatThreads(Integer archiveFormatThreads) {
+		conf.setArchiveFormatThreads(archiveFormatThreads);
+	}
+
+	@Override
+	public Integer getTgzCompressionLevel() {
+		return conf.getTgzCompressionLevel();
+	}
+
+	@Override
+	public void setTgzCompressionLevel(Integer tgzCompressionLevel) {
+		conf.setTgzCompressionLevel(tgzCompressionLevel);
+	}
+
+	@Override
+	public Integer getTgzCompressionThreads() {
+		return conf.getTgzCompressionThreads();
+	}
+
+	@Override
+	public void setTgzCompressionThreads(Integer tgzCompressionThreads) {
+		conf.setTgzCompressionThreads(tgzCompressionThreads);
+	}
+
+	@Override
+	public Integer getArchiveUploadThreads() {
+		return conf.getArchiveUploadThreads();
+	}
+
+	@Override
+	public void setArchiveUploadThreads(Integer archiveUploadThreads) {
+		conf.setArchiveUploadThreads(archiveUploadThreads);
+	}
+
+	@Override
+	public Integer getArchiveUploadThreadsPerBucket() {
+		return conf.getArchiveUploadThreadsPerBucket();
+	}
+
+	@Override
+	public void setArchiveUploadThreadsPerBucket(
+			Integer archiveUploadThreadsPerBucket) {
+		conf.setArchiveUploadThreadsPerBucket(archiveUploadThreadsPerBucket);
+	}
+
+	@Override
+	public Integer getThawDownloadThreads() {
+		return conf.getThawDownloadThreads();
+	}
+
+	@Override
+	public void setThawDownloadThreads(Integer thawDownloadThreads) {
+		conf.setThawDownloadThreads(thawDownloadThreads);
+	}
+
+	@Override
+	public Integer getThawDownloadThreadsPerBucket() {
+		return conf.getThawDownloadThreadsPerBucket();
+	}
+
+	@Override
+	public void setThawDownloadThreadsPerBucket(
+			Integer thawDownloadThreadsPerBucket) {
+		conf.setThawDownloadThreadsPerBucket(thawDownloadThreadsPerBucket);
+	}
+
+	@Override
+	public Integer getUploadBandwidthLimit() {
+		return conf.getUploadBandwidthLimit();
+	}
+
+	@Override
+	public void setUploadBandwidthLimit(Integer uploadBandwidthLimit) {
+		conf.setUploadBandwidthLimit(uploadBandwidthLimit);
+	}
+
+	@Override
+	public Integer getUploadOperationsLimit() {
+		return conf.getUploadOperationsLimit();
+	}
+
+	@Override
+	public void setUploadOperationsLimit(Integer uploadOperationsLimit) {
+		conf.setUploadOperationsLimit(uploadOperationsLimit);
+	}
+
+	@Override
+	public List<String> getUploadBandwidthSchedule() {
+		return conf.getUploadBandwidthSchedule();
+	}
+
+	@Override
+	public void setUploadBandwidthSchedule(List<String> uploadBandwidthSchedule) {
+		conf.setUploadBandwidthSchedule(uploadBandwidthSchedule);
+	}
+
+	@Override
+	public Integer getDownloadBandwidthLimit() {
+		return conf.getDownloadBandwidthLimit();
+	}
+
+	@Override
+	public void setDownloadBandwidthLimit(Integer downloadBandwidthLimit) {
+		conf.setDownloadBandwidthLimit(downloadBandwidthLimit);
+	}
+
+	@Override
+	public Integer getDownloadOperationsLimit() {
+		return conf.getDownloadOperationsLimit();
+	}
+
+	@Override
+	public void setDownloadOperationsLimit(Integer downloadOperationsLimit) {
+		conf.setDownloadOperationsLimit(downloadOperationsLimit);
+	}
+
+	@Override
+	public List<String> getDownloadBandwidthSchedule() {
+		return conf.getDownloadBandwidthSchedule();
+	}
+
+	@Override
+	public void setDownloadBandwidthSchedule(
+			List<String> downloadBandwidthSchedule) {
+		conf.setDownloadBandwidthSchedule(downloadBandwidthSchedule);
+	}
+
+	@Override
+	public long getUploadThroughput() {
+		return TransferThrottle.getShared().getUploadLimiter().getThroughput();
+	}
+
+	@Override
+	public long getDownloadThroughput() {
+		return TransferThrottle.getShared().getDownloadLimiter().getThroughput();
+	}
+
+	@Override
+	public Integer getBucketSizeThreads() {
+		return conf.getBucketSizeThreads();
+	}
+
+	@Override
+	public void setBucketSizeThreads(Integer bucketSizeThreads) {
+		conf.setBucketSizeThreads(bucketSizeThreads);
+	}
+
+	@Override
+	public Integer getBucketSizeCacheSize() {
+		return conf.getBucketSizeCacheSize();
+	}
+
+	@Override
+	public void setBucketSizeCacheSize(Integer bucketSizeCacheSize) {
+		conf.setBucketSizeCacheSize(bucketSizeCacheSize);
+	}
+
+	@Override
+	public Integer getMetadataManifestRollMinutes() {
+		return conf.getMetadataManifestRollMinutes();
+	}
+
+	@Override
+	public void setMetadataManifestRollMinutes(
+			Integer metadataManifestRollMinutes) {
+		conf.setMetadataManifestRollMinutes(metadataManifestRollMinutes);
+	}
+
+	@Override
+	public Integer getIndexListingThreads() {
+		return conf.getIndexListingThreads();
+	}
+
+	@Override
+	public void setIndexListingThreads(Integer indexListingThreads) {
+		conf.setIndexListingThreads(indexListingThreads);
+	}
+
+	@Override
+	public Integer getThawBucketThreads() {
+		return conf.getThawBucketThreads();
+	}
+
+	@Override
+	public void setThawBucketThreads(Integer thawBucketThreads) {
+		conf.setThawBucketThreads(thawBucketThreads);
+	}
+
+	@Override
+	public Integer getThawImportThreads() {
+		return conf.getThawImportThreads();
+	}
+
+	@Override
+	public void setThawImportThreads(Integer thawImportThreads) {
+		conf.setThawImportThreads(thawImportThreads);
+	}
+
+	@Override
+	public Integer getThawDiskHighWatermarkPercent() {
+		return conf.getThawDiskHighWatermarkPercent();
+	}
+
+	@Override
+	public void setThawDiskHighWatermarkPercent(
+			Integer thawDiskHighWatermarkPercent) {
+		conf.setThawDiskHighWatermarkPercent(thawDiskHighWatermarkPercent);
+	}
+
+	@Override
+	public Integer getThawEvictionMinutes() {
+		return conf.getThawEvictionMinutes();
+	}
+
+	@Override
+	public void setThawEvictionMinutes(Integer thawEvictionMinutes) {
+		conf.setThawEvictionMinutes(thawEvictionMinutes);
+	}
+
+	@Override
+	public List<String> getThawBudgets() {
+		return conf.getThawBudgets();
+	}
+
+	@Override
+	public void setThawBudgets(List<String> thawBudgets) {
+		conf.setThawBudgets(thawBudgets);
+	}
+
 	@Override
 	protected ArchiverConf getConfObject() {
 		return this.conf;
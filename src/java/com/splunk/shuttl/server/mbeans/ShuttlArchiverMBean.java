@@ -52,4 +52,205 @@ public interface ShuttlArchiverMBean {
 
 	public void setArchivePath(String archivePath);
 
+	/**
+	 * @return number of workers archiving buckets per backend. Zero or null
+	 *         archives buckets on the request thread.
+	 */
+	public Integer getArchiveWorkers();
+
+	public void setArchiveWorkers(Integer archiveWorkers);
+
+	/**
+	 * @return number of archive jobs that can wait for a worker, per backend.
+	 */
+	public Integer getArchiveQueueSize();
+
+	public void setArchiveQueueSize(Integer archiveQueueSize);
+
+	/**
+	 * @return number of threads exporting and transferring the formats of a
+	 *         bucket in parallel. Zero or null uses one thread per archive format.
+	 */
+	public Integer getArchiveFormatThreads();
+
+	public void setArchiveFormatThreads(Integer archiveFormatThreads);
+
+	/**
+	 * @return gzip compression level, 1-9, of tgz exported buckets.
+	 */
+	public Integer getTgzCompressionLevel();
+
+	public void setTgzCompressionLevel(Integer tgzCompressionLevel);
+
+	/**
+	 * @return number of threads compressing tgz exported buckets. Zero or null
+	 *         uses one thread per available processor.
+	 */
+	public Integer getTgzCompressionThreads();
+
+	public void setTgzCompressionThreads(Integer tgzCompressionThreads);
+
+	/**
+	 * Max number of files uploaded at the same time, for all buckets.
+	 */
+	public Integer getArchiveUploadThreads();
+
+	public void setArchiveUploadThreads(Integer archiveUploadThreads);
+
+	/**
+	 * Max number of files of a bucket uploaded at the same time.
+	 */
+	public Integer getArchiveUploadThreadsPerBucket();
+
+	public void setArchiveUploadThreadsPerBucket(
+			Integer archiveUploadThreadsPerBucket);
+
+	/**
+	 * Max number of files downloaded at the same time when thawing, for all
+	 * buckets.
+	 */
+	public Integer getThawDownloadThreads();
+
+	public void setThawDownloadThreads(Integer thawDownloadThreads);
+
+	/**
+	 * Max number of files of a bucket downloaded at the same time when thawing.
+	 */
+	public Integer getThawDownloadThreadsPerBucket();
+
+	public void setThawDownloadThreadsPerBucket(
+			Integer thawDownloadThreadsPerBucket);
+
+	/**
+	 * Max kilobytes per second uploaded to the backend, for all transfers.
+	 * Zero or null is unlimited.
+	 */
+	public Integer getUploadBandwidthLimit();
+
+	public void setUploadBandwidthLimit(Integer uploadBandwidthLimit);
+
+	/**
+	 * Max files per second uploaded to the backend, for all transfers. Zero or
+	 * null is unlimited.
+	 */
+	public Integer getUploadOperationsLimit();
+
+	public void setUploadOperationsLimit(Integer uploadOperationsLimit);
+
+	/**
+	 * Periods of the day with another upload bandwidth limit, formatted as
+	 * "HH:mm-HH:mm=kilobytes per second".
+	 */
+	public List<String> getUploadBandwidthSchedule();
+
+	public void setUploadBandwidthSchedule(List<String> uploadBandwidthSchedule);
+
+	/**
+	 * Max kilobytes per second downloaded from the backend, for all transfers.
+	 * Zero or null is unlimited.
+	 */
+	public Integer getDownloadBandwidthLimit();
+
+	public void setDownloadBandwidthLimit(Integer downloadBandwidthLimit);
+
+	/**
+	 * Max files per second downloaded from the backend, for all transfers.
+	 * Zero or null is unlimited.
+	 */
+	public Integer getDownloadOperationsLimit();
+
+	public void setDownloadOperationsLimit(Integer downloadOperationsLimit);
+
+	/**
+	 * Periods of the day with another download bandwidth limit, formatted as
+	 * "HH:mm-HH:mm=kilobytes per second".
+	 */
+	public List<String> getDownloadBandwidthSchedule();
+
+	public void setDownloadBandwidthSchedule(
+			List<String> downloadBandwidthSchedule);
+
+	/**
+	 * @return bytes per second uploaded to the backend, measured over the last
+	 *         few seconds.
+	 */
+	public long getUploadThroughput();
+
+	/**
+	 * @return bytes per second downloaded from the backend, measured over the
+	 *         last few seconds.
+	 */
+	public long getDownloadThroughput();
+
+	/**
+	 * Threads reading the size metadata of listed buckets from the archive.
+	 */
+	public Integer getBucketSizeThreads();
+
+	public void setBucketSizeThreads(Integer bucketSizeThreads);
+
+	/**
+	 * Number of bucket sizes remembered for listing buckets.
+	 */
+	public Integer getBucketSizeCacheSize();
+
+	public void setBucketSizeCacheSize(Integer bucketSizeCacheSize);
+
+	/**
+	 * Minutes between compacting the metadata of the buckets of each index into
+	 * a manifest. 0 to not compact.
+	 */
+	public Integer getMetadataManifestRollMinutes();
+
+	public void setMetadataManifestRollMinutes(
+			Integer metadataManifestRollMinutes);
+
+	/**
+	 * Number of threads listing the indexes of the archive at the same time.
+	 */
+	public Integer getIndexListingThreads();
+
+	public void setIndexListingThreads(Integer indexListingThreads);
+
+	/**
+	 * Number of buckets that are thawed at the same time, per backend.
+	 */
+	public Integer getThawBucketThreads();
+
+	public void setThawBucketThreads(Integer thawBucketThreads);
+
+	/**
+	 * Number of thawed buckets that are imported at the same time.
+	 */
+	public Integer getThawImportThreads();
+
+	public void setThawImportThreads(Integer thawImportThreads);
+
+	/**
+	 * Percentage of the thaw disk that may be used, counting the space reserved
+	 * by buckets that are being thawed. Buckets are not thawed past it. 100
+	 * turns it off.
+	 */
+	public Integer getThawDiskHighWatermarkPercent();
+
+	public void setThawDiskHighWatermarkPercent(
+			Integer thawDiskHighWatermarkPercent);
+
+	/**
+	 * Minutes between evictions of thawed buckets of indexes that are over their
+	 * thaw budget. 0 turns eviction off.
+	 */
+	public Integer getThawEvictionMinutes();
+
+	public void setThawEvictionMinutes(Integer thawEvictionMinutes);
+
+	/**
+	 * Thaw budgets on the form index=megabytes. The least recently thawed
+	 * buckets of an index are evicted when its thawed buckets are over budget.
+	 * The index * sets the budget of the indexes without their own.
+	 */
+	public List<String> getThawBudgets();
+
+	public void setThawBudgets(List<String> thawBudgets);
+
 }
@@ -0,0 +1,102 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.server.mbeans;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.amazonaws.util.json.JSONObject;
+import com.splunk.shuttl.archiver.filesystem.throttle.TransferThrottle;
+import com.splunk.shuttl.archiver.metrics.StageMetrics;
+import com.splunk.shuttl.archiver.metrics.TransferMetrics;
+import com.splunk.shuttl.archiver.util.JsonUtils;
+import com.splunk.shuttl.server.mbeans.util.JsonObjectNames;
+
+/**
+ * MBean of the server's {@link TransferMetrics}.
+ */
+public class ShuttlMetrics implements ShuttlMetricsMBean {
+
+	private final TransferMetrics transferMetrics;
+	private final TransferThrottle transferThrottle;
+
+	public ShuttlMetrics() {
+		this(TransferMetrics.getShared(), TransferThrottle.getShared());
+	}
+
+	public ShuttlMetrics(TransferMetrics transferMetrics,
+			TransferThrottle transferThrottle) {
+		this.transferMetrics = transferMetrics;
+		this.transferThrottle = transferThrottle;
+	}
+
+	@Override
+	public List<String> getMetricNames() {
+		return new ArrayList<String>(transferMetrics.getAll().keySet());
+	}
+
+	@Override
+	public long getCount(String metricName) {
+		return getMetrics(metricName).getCount();
+	}
+
+	@Override
+	public long getFailures(String metricName) {
+		return getMetrics(metricName).getFailures();
+	}
+
+	@Override
+	public long getBytes(String metricName) {
+		return getMetrics(metricName).getBytes();
+	}
+
+	@Override
+	public double getMeanMillis(String metricName) {
+		return getMetrics(metricName).getLatencies().getMeanMillis();
+	}
+
+	@Override
+	public double getPercentileMillis(String metricName, double percentile) {
+		return getMetrics(metricName).getLatencies().getPercentileMillis(
+				percentile);
+	}
+
+	private StageMetrics getMetrics(String metricName) {
+		StageMetrics metrics = transferMetrics.getAll().get(metricName);
+		return metrics != null ? metrics : new StageMetrics();
+	}
+
+	@Override
+	public String getMetricsAsJson() {
+		return toJson().toString();
+	}
+
+	/**
+	 * @return metrics of all stages, and the throughput in bytes per second of
+	 *         uploads and downloads.
+	 */
+	public JSONObject toJson() {
+		return JsonUtils.writeKeyValueAsJson(JsonObjectNames.METRICS,
+				transferMetrics.toJson(), JsonObjectNames.UPLOAD_THROUGHPUT,
+				transferThrottle.getUploadLimiter().getThroughput(),
+				JsonObjectNames.DOWNLOAD_THROUGHPUT, transferThrottle
+						.getDownloadLimiter().getThroughput());
+	}
+
+	@Override
+	public void reset() {
+		transferMetrics.reset();
+	}
+}
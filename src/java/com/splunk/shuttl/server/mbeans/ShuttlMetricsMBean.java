@@ -0,0 +1,62 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.server.mbeans;
+
+import java.util.List;
+
+/**
+ * Exposes the metrics of archiving and thawing buckets, by "backend.stage"
+ * metric names such as "hdfs.prepare" or "indexer.export".
+ */
+public interface ShuttlMetricsMBean {
+
+	public static final String OBJECT_NAME = "com.splunk.shuttl.mbeans:type=Metrics";
+
+	/**
+	 * @return names of the measured metrics, sorted.
+	 */
+	public List<String> getMetricNames();
+
+	/**
+	 * @return times the stage was done, including failures.
+	 */
+	public long getCount(String metricName);
+
+	public long getFailures(String metricName);
+
+	/**
+	 * @return bytes transferred by the stage.
+	 */
+	public long getBytes(String metricName);
+
+	public double getMeanMillis(String metricName);
+
+	/**
+	 * @param percentile
+	 *          between 0 and 100.
+	 * @return estimated latency in millis of the percentile.
+	 */
+	public double getPercentileMillis(String metricName, double percentile);
+
+	/**
+	 * @return all metrics and the current transfer throughput, as json.
+	 */
+	public String getMetricsAsJson();
+
+	/**
+	 * Clears all metrics.
+	 */
+	public void reset();
+}
@@ -27,29 +27,42 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.log4j.Logger;
 
 import com.splunk.shuttl.archiver.archive.ArchiveConfiguration;
+import com.splunk.shuttl.archiver.archive.ArchiveJobQueue;
+import com.splunk.shuttl.archiver.archive.ArchiveQueueFullException;
 import com.splunk.shuttl.archiver.archive.BucketFormat;
 import com.splunk.shuttl.archiver.archive.BucketShuttler;
 import com.splunk.shuttl.archiver.archive.BucketShuttlerFactory;
+import com.splunk.shuttl.archiver.archive.BucketShuttlerRunner;
 import com.splunk.shuttl.archiver.archive.recovery.ArchiveBucketLocker;
 import com.splunk.shuttl.archiver.model.BucketFactory;
 import com.splunk.shuttl.archiver.model.FileNotDirectoryException;
 import com.splunk.shuttl.archiver.model.LocalBucket;
 import com.splunk.shuttl.server.mbeans.rest.ShuttlBucketEndpoint.BucketModifier;
+import com.splunk.shuttl.server.mbeans.rest.ShuttlBucketEndpoint.ShuttlExecutor;
 import com.splunk.shuttl.server.mbeans.rest.ShuttlBucketEndpoint.ShuttlProvider;
+import com.splunk.shuttl.server.mbeans.rest.ShuttlBucketEndpoint.SynchronousShuttlExecutor;
 
 @Path(ENDPOINT_ARCHIVER + ENDPOINT_BUCKET_ARCHIVE)
 public class ArchiveBucketEndpoint {
 
 	private static Logger logger = Logger.getLogger(ArchiveBucketEndpoint.class);
 
+	/**
+	 * Archives the bucket. When archive workers are configured, the archiving is
+	 * queued and the response is 202 with the id of the archive job, or 503 if
+	 * the queue is full. Otherwise the bucket is archived before responding with
+	 * 204.
+	 */
 	@POST
 	@Produces(MediaType.TEXT_PLAIN)
-	public void archiveBucket(@FormParam("path") String path,
+	public Response archiveBucket(@FormParam("path") String path,
 			@FormParam("index") String index) {
 		try {
 			ArchiveConfiguration config = ArchiveConfiguration.getSharedInstance();
@@ -60,13 +73,21 @@ public class ArchiveBucketEndpoint {
 				} catch (IOException e) {
 					logDeleteException(path, index, e);
 				}
+				return Response.noContent().build();
 			} else {
-				ShuttlBucketEndpointHelper.shuttlBucket(path, index,
+				String jobId = ShuttlBucketEndpointHelper.shuttlBucket(path, index,
 						new BucketArchiverProvider(),
 						ConfigProviderForBothNormalAndReplicatedBuckets.create(config),
 						new RenamesReplicatedBucketAsNormalBucket(),
-						new ArchiveBucketLocker());
+						new ArchiveBucketLocker(), createShuttlExecutor(config));
+				return createResponse(jobId);
 			}
+		} catch (ArchiveQueueFullException e) {
+			logger.warn(warn("Tried queuing bucket for archiving", e,
+					"will respond with 503. The bucket will be retried later", "path",
+					path, "index", index));
+			return Response.status(Status.SERVICE_UNAVAILABLE)
+					.entity(e.getMessage()).build();
 		} catch (Throwable t) {
 			logger.error(did("Tried archiving bucket", t, "to archive the bucket",
 					"path", path, "index", index));
@@ -74,6 +95,21 @@ public class ArchiveBucketEndpoint {
 		}
 	}
 
+	private ShuttlExecutor createShuttlExecutor(ArchiveConfiguration config) {
+		if (config.getArchiveWorkers() > 0)
+			return new QueuedShuttlExecutor(
+					ArchiveJobQueue.getSharedInstance(config), config.getBackendName());
+		else
+			return new SynchronousShuttlExecutor();
+	}
+
+	private Response createResponse(String jobId) {
+		if (jobId == null)
+			return Response.noContent().build();
+		else
+			return Response.status(Status.ACCEPTED).entity(jobId).build();
+	}
+
 	private boolean isPathReplicatedBucketWithRawdataOnly(String path)
 			throws FileNotFoundException, FileNotDirectoryException {
 		LocalBucket localBucket = new LocalBucket(new File(path), "doesNotMatter",
@@ -135,6 +171,23 @@ public class ArchiveBucketEndpoint {
 		}
 	}
 
+	private static class QueuedShuttlExecutor implements ShuttlExecutor {
+
+		private final ArchiveJobQueue archiveJobQueue;
+		private final String backendName;
+
+		public QueuedShuttlExecutor(ArchiveJobQueue archiveJobQueue,
+				String backendName) {
+			this.archiveJobQueue = archiveJobQueue;
+			this.backendName = backendName;
+		}
+
+		@Override
+		public String execute(BucketShuttlerRunner runner) {
+			return archiveJobQueue.enqueue(backendName, runner);
+		}
+	}
+
 	private static class RenamesReplicatedBucketAsNormalBucket implements
 			BucketModifier {
 
@@ -0,0 +1,55 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.server.mbeans.rest;
+
+import static com.splunk.shuttl.ShuttlConstants.*;
+import static com.splunk.shuttl.archiver.LogFormatter.*;
+
+import java.util.List;
+
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import org.apache.log4j.Logger;
+
+import com.splunk.shuttl.archiver.archive.ArchiveConfiguration;
+import com.splunk.shuttl.archiver.catalog.ArchiveCatalog;
+import com.splunk.shuttl.archiver.util.JsonUtils;
+import com.splunk.shuttl.server.mbeans.util.JsonObjectNames;
+
+/**
+ * Rebuilds this server's catalog of the archive, for when the archive has been
+ * changed by something other than this server.
+ */
+@Path(ENDPOINT_ARCHIVER + ENDPOINT_CATALOG_REBUILD)
+public class CatalogEndpoint {
+
+	private static final Logger logger = Logger.getLogger(CatalogEndpoint.class);
+
+	@POST
+	@Produces(MediaType.APPLICATION_JSON)
+	public String rebuildCatalog() {
+		logger.info(happened("Received REST request to rebuild the catalog",
+				"endpoint", ENDPOINT_CATALOG_REBUILD));
+		ArchiveCatalog catalog = ArchiveCatalog.getShared(ArchiveConfiguration
+				.getSharedInstance());
+		catalog.invalidate();
+		List<String> indexes = catalog.listIndexes();
+		return JsonUtils.writeKeyValueAsJson(JsonObjectNames.INDEX_COLLECTION,
+				indexes).toString();
+	}
+}
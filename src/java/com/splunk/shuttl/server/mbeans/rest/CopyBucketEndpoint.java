@@ -34,6 +34,7 @@ import com.splunk.shuttl.archiver.model.LocalBucket;
 import com.splunk.shuttl.server.mbeans.rest.ShuttlBucketEndpoint.BucketModifier;
 import com.splunk.shuttl.server.mbeans.rest.ShuttlBucketEndpoint.ConfigProvider;
 import com.splunk.shuttl.server.mbeans.rest.ShuttlBucketEndpoint.ShuttlProvider;
+import com.splunk.shuttl.server.mbeans.rest.ShuttlBucketEndpoint.SynchronousShuttlExecutor;
 
 @Path(ENDPOINT_ARCHIVER + ENDPOINT_BUCKET_COPY)
 public class CopyBucketEndpoint {
@@ -51,7 +52,8 @@ public class CopyBucketEndpoint {
 		ShuttlBucketEndpointHelper.shuttlBucket(path, index,
 				new BucketCopierProvider(), new NormalSharedConfigProvider(),
 				new NoOpBucketModifier(),
-				new CopyBucketLocker(LocalFileSystemPaths.create()));
+				new CopyBucketLocker(LocalFileSystemPaths.create()),
+				new SynchronousShuttlExecutor());
 	}
 
 	private static class BucketCopierProvider implements ShuttlProvider {
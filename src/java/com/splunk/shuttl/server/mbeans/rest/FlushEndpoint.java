@@ -31,8 +31,13 @@ import javax.ws.rs.core.MediaType;
 import org.apache.log4j.Logger;
 
 import com.amazonaws.util.json.JSONObject;
+import com.splunk.shuttl.archiver.archive.ArchiveConfiguration;
 import com.splunk.shuttl.archiver.flush.Flusher;
 import com.splunk.shuttl.archiver.listers.ArchivedIndexesListerFactory;
+import com.splunk.shuttl.archiver.listers.ConcurrentIndexTasks.IndexResults;
+import com.splunk.shuttl.archiver.listers.ConcurrentIndexTasks.IndexTask;
+import com.splunk.shuttl.archiver.listers.ConcurrentIndexTasks;
+import com.splunk.shuttl.archiver.model.IllegalIndexException;
 import com.splunk.shuttl.archiver.thaw.SplunkIndexedLayerFactory;
 import com.splunk.shuttl.archiver.util.JsonUtils;
 import com.splunk.shuttl.server.distributed.RequestOnSearchPeers;
@@ -50,11 +55,10 @@ public class FlushEndpoint {
 		logger.info(happened("Received REST request to flush buckets", "endpoint",
 				ENDPOINT_BUCKET_FLUSH, "index", index, "from", from, "to", to));
 
-		Date fromDate = RestUtil.getValidFromDate(from);
-		Date toDate = RestUtil.getValidToDate(to);
+		final Date fromDate = RestUtil.getValidFromDate(from);
+		final Date toDate = RestUtil.getValidToDate(to);
 
-		List<Exception> errors = new ArrayList<Exception>();
-		Flusher flusher = new Flusher(SplunkIndexedLayerFactory.create());
+		final Flusher flusher = new Flusher(SplunkIndexedLayerFactory.create());
 
 		List<String> indexes;
 		if (index == null)
@@ -62,13 +66,18 @@ public class FlushEndpoint {
 		else
 			indexes = asList(index);
 
-		for (String i : indexes) {
-			try {
-				flusher.flush(i, fromDate, toDate);
-			} catch (Exception e) {
-				errors.add(e);
-			}
-		}
+		IndexResults<Void> flushes = ConcurrentIndexTasks.getShared(
+				ArchiveConfiguration.getSharedInstance()).runForIndexes(indexes,
+				new IndexTask<Void>() {
+
+					@Override
+					public Void runForIndex(String i) throws IllegalIndexException {
+						flusher.flush(i, fromDate, toDate);
+						return null;
+					}
+				});
+		List<Exception> errors = new ArrayList<Exception>(flushes.getErrors()
+				.values());
 
 		JSONObject json = JsonUtils.writeKeyValueAsJson(
 				JsonObjectNames.BUCKET_COLLECTION, flusher.getFlushedBuckets(),
@@ -18,6 +18,11 @@ package com.splunk.shuttl.server.mbeans.rest;
 import static com.splunk.shuttl.ShuttlConstants.*;
 import static com.splunk.shuttl.archiver.LogFormatter.*;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
@@ -28,6 +33,8 @@ import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.apache.log4j.Logger;
 
@@ -37,15 +44,16 @@ import com.amazonaws.util.json.JSONObject;
 import com.splunk.shuttl.ShuttlConstants;
 import com.splunk.shuttl.archiver.LocalFileSystemPaths;
 import com.splunk.shuttl.archiver.archive.ArchiveConfiguration;
+import com.splunk.shuttl.archiver.catalog.ArchiveCatalog;
 import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
 import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystemFactory;
 import com.splunk.shuttl.archiver.filesystem.PathResolver;
 import com.splunk.shuttl.archiver.listers.ArchivedIndexesLister;
+import com.splunk.shuttl.archiver.listers.BucketsPage;
 import com.splunk.shuttl.archiver.listers.ListsBucketsFiltered;
 import com.splunk.shuttl.archiver.listers.ListsBucketsFilteredFactory;
-import com.splunk.shuttl.archiver.metastore.ArchiveBucketSize;
 import com.splunk.shuttl.archiver.model.Bucket;
-import com.splunk.shuttl.archiver.thaw.BucketSizeResolver;
+import com.splunk.shuttl.archiver.thaw.ConcurrentBucketSizeResolver;
 import com.splunk.shuttl.archiver.util.JsonUtils;
 import com.splunk.shuttl.server.distributed.RequestOnSearchPeers;
 import com.splunk.shuttl.server.distributed.SearchPeerResponse;
@@ -72,8 +80,10 @@ public class ListBucketsEndpoint {
 		ArchiveConfiguration archiveConfiguration = ArchiveConfiguration
 				.getSharedInstance();
 		PathResolver pathResolver = new PathResolver(archiveConfiguration);
-		ArchivedIndexesLister indexesLister = new ArchivedIndexesLister(
-				pathResolver, archiveFileSystem);
+		ArchivedIndexesLister indexesLister = ArchivedIndexesLister.withCatalog(
+				pathResolver, archiveFileSystem, ArchiveCatalog.getShared(
+						archiveConfiguration, archiveFileSystem,
+						LocalFileSystemPaths.create()));
 
 		JSONObject json = JsonUtils.writeKeyValueAsJson(
 				JsonObjectNames.INDEX_COLLECTION, indexesLister.listIndexes());
@@ -95,16 +105,27 @@ public class ListBucketsEndpoint {
 				uniqueIndexes);
 	}
 
+	/**
+	 * Lists the buckets on this server and its search peers. With a limit, only
+	 * a page of the buckets on this server is listed, after the cursor. The page
+	 * has a next cursor when there are more buckets to list.
+	 */
 	@GET
 	@Produces(MediaType.APPLICATION_JSON)
 	@Path(ENDPOINT_LIST_BUCKETS)
-	public String listBucketsForIndex(@QueryParam("index") String index,
-			@QueryParam("from") String from, @QueryParam("to") String to) {
+	public Response listBucketsForIndex(@QueryParam("index") String index,
+			@QueryParam("from") String from, @QueryParam("to") String to,
+			@QueryParam("cursor") String cursor, @QueryParam("limit") Integer limit) {
 		logger.info(happened("Received REST request to list buckets", "endpoint",
-				ENDPOINT_LIST_BUCKETS, "index", index, "from", from, "to", to));
+				ENDPOINT_LIST_BUCKETS, "index", index, "from", from, "to", to,
+				"cursor", cursor, "limit", limit));
 
 		try {
-			return doListBucketsForIndex(index, from, to);
+			if (limit == null)
+				return Response.ok(doListBucketsForIndex(index, from, to)).build();
+			else
+				return Response.ok(listBucketsPage(index, from, to, cursor, limit))
+						.build();
 		} catch (Throwable t) {
 			logger.error(did("tried to list buckets", t, "to list bucket", "index",
 					index, "from", from, "to", to));
@@ -112,6 +133,40 @@ public class ListBucketsEndpoint {
 		}
 	}
 
+	private StreamingOutput listBucketsPage(String index, String from,
+			String to, String cursor, int limit) {
+		BucketsPage page = getListsBucketsFiltered().listFilteredBucketsPage(
+				index, RestUtil.getValidFromDate(from), RestUtil.getValidToDate(to),
+				cursor, Math.max(1, limit));
+		final List<Bucket> bucketsWithSize = ConcurrentBucketSizeResolver
+				.getShared(ArchiveConfiguration.getSharedInstance())
+				.resolveBucketSizes(page.getBuckets());
+		final String nextCursor = page.getNextCursor();
+
+		return new StreamingOutput() {
+
+			@Override
+			public void write(OutputStream output) throws IOException {
+				Writer writer = new BufferedWriter(new OutputStreamWriter(output,
+						"UTF-8"));
+				JsonUtils.writeBucketsAsJson(writer,
+						JsonObjectNames.BUCKET_COLLECTION, bucketsWithSize,
+						JsonObjectNames.BUCKET_COLLECTION_SIZE,
+						getTotalSize(bucketsWithSize), JsonObjectNames.NEXT_CURSOR,
+						nextCursor == null ? JSONObject.NULL : nextCursor);
+				writer.flush();
+			}
+		};
+	}
+
+	private long getTotalSize(List<Bucket> buckets) {
+		long size = 0;
+		for (Bucket bucket : buckets)
+			if (bucket.getSize() != null)
+				size += bucket.getSize();
+		return size;
+	}
+
 	private String doListBucketsForIndex(String index, String from, String to)
 			throws JSONException {
 		Date fromDate = RestUtil.getValidFromDate(from);
@@ -120,9 +175,9 @@ public class ListBucketsEndpoint {
 		List<Bucket> filteredBucketsAtIndex = getFilteredBucketsAtIndex(index,
 				fromDate, toDate);
 
-		List<Bucket> bucketsWithSize = new java.util.ArrayList<Bucket>();
-		for (Bucket b : filteredBucketsAtIndex)
-			bucketsWithSize.add(getBucketWithSize(b));
+		List<Bucket> bucketsWithSize = ConcurrentBucketSizeResolver.getShared(
+				ArchiveConfiguration.getSharedInstance()).resolveBucketSizes(
+				filteredBucketsAtIndex);
 
 		JSONObject jsonObject = JsonUtils.writeKeyValueAsJson(
 				JsonObjectNames.BUCKET_COLLECTION, bucketsWithSize);
@@ -152,18 +207,4 @@ public class ListBucketsEndpoint {
 				.getSharedInstance());
 	}
 
-	private static Bucket getBucketWithSize(Bucket bucket) {
-		BucketSizeResolver bucketSizeResolver = getBucketSizeResolver();
-		return bucketSizeResolver.resolveBucketSize(bucket);
-	}
-
-	private static BucketSizeResolver getBucketSizeResolver() {
-		ArchiveConfiguration config = ArchiveConfiguration.getSharedInstance();
-		ArchiveFileSystem archiveFileSystem = ArchiveFileSystemFactory
-				.getWithConfiguration(config);
-		LocalFileSystemPaths localFileSystemPaths = LocalFileSystemPaths.create();
-		return new BucketSizeResolver(ArchiveBucketSize.create(new PathResolver(
-				config), archiveFileSystem, localFileSystemPaths));
-	}
-
 }
@@ -31,8 +31,12 @@ import org.apache.log4j.Logger;
 
 import com.amazonaws.util.json.JSONException;
 import com.amazonaws.util.json.JSONObject;
+import com.splunk.shuttl.archiver.archive.ArchiveConfiguration;
 import com.splunk.shuttl.archiver.flush.ThawedBuckets;
 import com.splunk.shuttl.archiver.listers.ArchivedIndexesListerFactory;
+import com.splunk.shuttl.archiver.listers.ConcurrentIndexTasks.IndexResults;
+import com.splunk.shuttl.archiver.listers.ConcurrentIndexTasks.IndexTask;
+import com.splunk.shuttl.archiver.listers.ConcurrentIndexTasks;
 import com.splunk.shuttl.archiver.model.Bucket;
 import com.splunk.shuttl.archiver.model.IllegalIndexException;
 import com.splunk.shuttl.archiver.model.LocalBucket;
@@ -84,15 +88,25 @@ public class ListThawEndpoint {
 	}
 
 	private List<Bucket> filteredBucketsInThaw(List<String> indexes,
-			Date earliest, Date latest) throws IllegalIndexException {
-		SplunkIndexesLayer splunkIndexesLayer = SplunkIndexedLayerFactory.create();
-		List<Bucket> filteredBuckets = new java.util.ArrayList<Bucket>();
-		for (String index : indexes) {
-			List<LocalBucket> buckets = ThawedBuckets.getBucketsFromThawLocation(
-					index, splunkIndexesLayer.getThawLocation(index));
-			filteredBuckets.addAll(BucketFilter.filterBuckets(buckets, earliest,
-					latest));
-		}
-		return filteredBuckets;
+			final Date earliest, final Date latest) throws Exception {
+		final SplunkIndexesLayer splunkIndexesLayer = SplunkIndexedLayerFactory
+				.create();
+		IndexResults<List<Bucket>> bucketsByIndex = ConcurrentIndexTasks
+				.getShared(ArchiveConfiguration.getSharedInstance()).runForIndexes(
+						indexes, new IndexTask<List<Bucket>>() {
+
+							@Override
+							public List<Bucket> runForIndex(String index)
+									throws IllegalIndexException {
+								List<LocalBucket> buckets = ThawedBuckets
+										.getBucketsFromThawLocation(index,
+												splunkIndexesLayer.getThawLocation(index));
+								return BucketFilter.filterBuckets(buckets, earliest, latest);
+							}
+						});
+		Exception error = bucketsByIndex.getFirstError();
+		if (error != null)
+			throw error;
+		return ConcurrentIndexTasks.concat(bucketsByIndex.getResults());
 	}
 }
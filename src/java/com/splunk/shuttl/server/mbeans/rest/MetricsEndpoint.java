@@ -0,0 +1,45 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.server.mbeans.rest;
+
+import static com.splunk.shuttl.ShuttlConstants.*;
+import static com.splunk.shuttl.archiver.LogFormatter.*;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import org.apache.log4j.Logger;
+
+import com.splunk.shuttl.server.mbeans.ShuttlMetrics;
+
+/**
+ * Metrics of archiving and thawing buckets on this server, per backend and
+ * stage, and the current transfer throughput.
+ */
+@Path(ENDPOINT_ARCHIVER + ENDPOINT_METRICS)
+public class MetricsEndpoint {
+
+	private static final Logger logger = Logger.getLogger(MetricsEndpoint.class);
+
+	@GET
+	@Produces(MediaType.APPLICATION_JSON)
+	public String getMetrics() {
+		logger.debug(happened("Received REST request to get metrics", "endpoint",
+				ENDPOINT_METRICS));
+		return new ShuttlMetrics().getMetricsAsJson();
+	}
+}
@@ -24,12 +24,16 @@ import org.apache.log4j.Logger;
 
 import com.splunk.shuttl.archiver.LocalFileSystemPaths;
 import com.splunk.shuttl.archiver.archive.ArchiveConfiguration;
+import com.splunk.shuttl.archiver.archive.ArchiveQueueFullException;
 import com.splunk.shuttl.archiver.archive.BucketFormat;
 import com.splunk.shuttl.archiver.archive.BucketShuttler;
 import com.splunk.shuttl.archiver.archive.BucketShuttlerRunner;
 import com.splunk.shuttl.archiver.bucketlock.BucketLock;
 import com.splunk.shuttl.archiver.bucketlock.BucketLockCleaner;
 import com.splunk.shuttl.archiver.bucketlock.BucketLocker;
+import com.splunk.shuttl.archiver.metrics.Stage;
+import com.splunk.shuttl.archiver.metrics.StageMetrics.Timer;
+import com.splunk.shuttl.archiver.metrics.TransferMetrics;
 import com.splunk.shuttl.archiver.model.BucketFactory;
 import com.splunk.shuttl.archiver.model.LocalBucket;
 
@@ -47,6 +51,28 @@ public class ShuttlBucketEndpoint {
 		LocalBucket modifyLocalBucket(LocalBucket bucket);
 	}
 
+	public static interface ShuttlExecutor {
+		/**
+		 * Runs or schedules the runner, which owns the bucket locks from now on.
+		 * 
+		 * @return id of the scheduled job, or null if the runner was run to
+		 *         completion.
+		 */
+		String execute(BucketShuttlerRunner runner);
+	}
+
+	/**
+	 * Runs the shuttling on the calling thread.
+	 */
+	public static class SynchronousShuttlExecutor implements ShuttlExecutor {
+
+		@Override
+		public String execute(BucketShuttlerRunner runner) {
+			runner.run();
+			return null;
+		}
+	}
+
 	private static final Logger logger = Logger
 			.getLogger(ShuttlBucketEndpoint.class);
 
@@ -55,21 +81,32 @@ public class ShuttlBucketEndpoint {
 	private BucketModifier bucketModifier;
 	private BucketFactory bucketFactory;
 	private BucketLocker bucketLocker;
+	private ShuttlExecutor shuttlExecutor;
 
 	public ShuttlBucketEndpoint(ShuttlProvider shuttlProvider,
 			ConfigProvider configProvider, BucketModifier bucketModifier,
-			BucketFactory bucketFactory, BucketLocker bucketLocker) {
+			BucketFactory bucketFactory, BucketLocker bucketLocker,
+			ShuttlExecutor shuttlExecutor) {
 		this.shuttlProvider = shuttlProvider;
 		this.configProvider = configProvider;
 		this.bucketModifier = bucketModifier;
 		this.bucketFactory = bucketFactory;
 		this.bucketLocker = bucketLocker;
+		this.shuttlExecutor = shuttlExecutor;
 	}
 
-	public void shuttlBucket(String path, String index) {
+	/**
+	 * @return id of the shuttling job, or null if the bucket was shuttled before
+	 *         returning.
+	 * @throws ArchiveQueueFullException
+	 *           if the shuttling could not be scheduled.
+	 */
+	public String shuttlBucket(String path, String index) {
 		verifyPathAndIndex(path, index);
 		try {
-			createAndRunBucketShuttling(path, index);
+			return createAndRunBucketShuttling(path, index);
+		} catch (ArchiveQueueFullException e) {
+			throw e;
 		} catch (Throwable e) {
 			logger.error(did("Tried archiving a bucket", e, "To archive the bucket",
 					"index", index, "bucket_path", path));
@@ -88,27 +125,38 @@ public class ShuttlBucketEndpoint {
 		}
 	}
 
-	private void createAndRunBucketShuttling(String path, String index) {
+	private String createAndRunBucketShuttling(String path, String index) {
 		LocalBucket bucket = createBucket(path, index);
-		List<BucketLock> bucketLocks = createBucketLocks(bucket);
-		shuttlWithLocks(bucket, bucketLocks);
+		List<BucketLock> bucketLocks = lockBucket(bucket);
+		return shuttlWithLocks(bucket, bucketLocks);
 	}
 
-	private void shuttlWithLocks(LocalBucket bucket, List<BucketLock> bucketLocks) {
+	private String shuttlWithLocks(LocalBucket bucket,
+			List<BucketLock> bucketLocks) {
+		String jobId = null;
 		try {
 			BucketShuttler bucketShuttler = createShuttler(bucket);
-			bucket = bucketModifier.modifyLocalBucket(bucket);
+			bucket = modifyBucket(bucket);
 
-			runShuttlerOnASeparateThread(bucket, bucketLocks, bucketShuttler);
+			jobId = shuttlExecutor.execute(new BucketShuttlerRunner(bucketShuttler,
+					bucket, bucketLocks));
+			return jobId;
 		} finally {
-			BucketLockCleaner.closeLocks(bucketLocks);
+			if (jobId == null)
+				BucketLockCleaner.closeLocks(bucketLocks);
 		}
 	}
 
-	private void runShuttlerOnASeparateThread(LocalBucket bucket,
-			List<BucketLock> bucketLock, BucketShuttler bucketShuttler) {
-		Runnable r = new BucketShuttlerRunner(bucketShuttler, bucket, bucketLock);
-		new Thread(r).run();
+	private LocalBucket modifyBucket(LocalBucket bucket) {
+		Timer timer = TransferMetrics.getShared().forIndexer()
+				.startTimer(Stage.MOVE);
+		try {
+			LocalBucket modifiedBucket = bucketModifier.modifyLocalBucket(bucket);
+			timer.succeeded();
+			return modifiedBucket;
+		} finally {
+			timer.stop();
+		}
 	}
 
 	private BucketShuttler createShuttler(LocalBucket bucket) {
@@ -122,6 +170,18 @@ public class ShuttlBucketEndpoint {
 				new File(path), BucketFormat.SPLUNK_BUCKET);
 	}
 
+	private List<BucketLock> lockBucket(LocalBucket bucket) {
+		Timer timer = TransferMetrics.getShared().forIndexer()
+				.startTimer(Stage.LOCK);
+		try {
+			List<BucketLock> bucketLocks = createBucketLocks(bucket);
+			timer.succeeded();
+			return bucketLocks;
+		} finally {
+			timer.stop();
+		}
+	}
+
 	private List<BucketLock> createBucketLocks(LocalBucket bucket) {
 		BucketLock bucketLock = bucketLocker.getLockForBucket(bucket);
 		if (!bucketLock.tryLockShared())
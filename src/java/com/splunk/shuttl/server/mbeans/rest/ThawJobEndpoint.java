@@ -0,0 +1,182 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.server.mbeans.rest;
+
+import static com.splunk.shuttl.ShuttlConstants.*;
+import static com.splunk.shuttl.archiver.LogFormatter.*;
+import static java.util.Arrays.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import javax.ws.rs.FormParam;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.log4j.Logger;
+
+import com.amazonaws.util.json.JSONException;
+import com.amazonaws.util.json.JSONObject;
+import com.splunk.shuttl.archiver.archive.ArchiveConfiguration;
+import com.splunk.shuttl.archiver.model.Bucket;
+import com.splunk.shuttl.archiver.thaw.BucketThawerFactory;
+import com.splunk.shuttl.archiver.thaw.ThawJob;
+import com.splunk.shuttl.archiver.thaw.ThawJobs;
+import com.splunk.shuttl.archiver.thaw.ThawProgress;
+import com.splunk.shuttl.archiver.thaw.ThawProgress.BucketState;
+import com.splunk.shuttl.archiver.util.JsonUtils;
+import com.splunk.shuttl.server.distributed.RequestOnSearchPeers;
+import com.splunk.shuttl.server.distributed.SearchPeerResponse;
+import com.splunk.shuttl.server.mbeans.util.JsonObjectNames;
+import com.splunk.shuttl.server.model.BucketBean;
+
+/**
+ * Endpoint for thawing buckets in the background. Submitting a thaw job
+ * responds with the id of the job right away, and the progress of the job is
+ * polled with the id. The job gets the same id on the search peers, so that one
+ * request polls the progress on all of them.
+ */
+@Path(ENDPOINT_ARCHIVER + ENDPOINT_THAW_JOB)
+public class ThawJobEndpoint {
+
+	private static final Logger logger = Logger.getLogger(ThawJobEndpoint.class);
+
+	/**
+	 * Submits a job that thaws a range of buckets in either a specific index or
+	 * all indexes on the archiving fs, and the same job to the search peers.
+	 * 
+	 * @param index
+	 *          Any index that exists in both the archiving filesystem and splunk.
+	 *          Defaults to all indexes in the archiving fs.
+	 * @param from
+	 *          Start date of thawing interval (on the form yyyy-MM-dd).
+	 * @param to
+	 *          End date of thawing interval (on the form yyyy-MM-dd).
+	 * @param jobId
+	 *          Set when the job is submitted by another Shuttl server. The job is
+	 *          then not submitted to the search peers.
+	 * @return JSON with the id of the job, or 409 with JSON errors if a job with
+	 *         the id already exists.
+	 */
+	@POST
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response submitThawJob(@FormParam("index") String index,
+			@FormParam("from") String from, @FormParam("to") String to,
+			@FormParam("job_id") String jobId) throws JSONException {
+		logger.info(happened("Received REST request to submit thaw job",
+				"endpoint", ENDPOINT_THAW_JOB, "index", index, "from", from, "to", to,
+				"job_id", jobId));
+
+		Date earliest = RestUtil.getValidFromDate(from);
+		Date latest = RestUtil.getValidToDate(to);
+		ThawJob job;
+		try {
+			job = ThawJobs.getSharedInstance().submit(jobId, index, earliest,
+					latest, BucketThawerFactory.createDefaultThawer());
+		} catch (IllegalArgumentException e) {
+			logger.warn(warn("Submitted thaw job", e, "will respond with 409",
+					"job_id", jobId));
+			return Response
+					.status(Status.CONFLICT)
+					.entity(
+							JsonUtils.writeKeyValueAsJson(JsonObjectNames.ERRORS,
+									asList(e.getMessage())).toString()).build();
+		}
+
+		JSONObject json = new JSONObject().put(JsonObjectNames.JOB_ID,
+				job.getId());
+		if (jobId == null) {
+			SearchPeerResponse peerResponse = RequestOnSearchPeers
+					.createPostWithParams(ENDPOINT_THAW_JOB, "index", index, "from",
+							from, "to", to, "job_id", job.getId()).execute();
+			json.put(JsonObjectNames.EXCEPTIONS, peerResponse.exceptions);
+		}
+		return Response.ok(json.toString()).build();
+	}
+
+	/**
+	 * @param jobId
+	 *          id of the job that was submitted.
+	 * @return JSON with the progress of the job on this Shuttl server and on the
+	 *         search peers, with the state of each bucket and an estimate of the
+	 *         seconds left.
+	 */
+	@GET
+	@Produces(MediaType.APPLICATION_JSON)
+	public String getThawJobStatus(@QueryParam("job_id") String jobId)
+			throws JSONException {
+		logger.info(happened("Received REST request for thaw job status",
+				"endpoint", ENDPOINT_THAW_JOB, "job_id", jobId));
+		if (jobId == null)
+			return JsonUtils.writeKeyValueAsJson(JsonObjectNames.ERRORS,
+					asList("job_id must be provided")).toString();
+
+		SearchPeerResponse peerResponse = RequestOnSearchPeers
+				.createGetWithParams(ENDPOINT_THAW_JOB, "job_id", jobId).execute();
+		List<JSONObject> jobs = new ArrayList<JSONObject>();
+		ThawJob job = ThawJobs.getSharedInstance().getJob(jobId);
+		if (job != null)
+			jobs.add(convertJobToJson(job));
+		for (JSONObject peerJson : peerResponse.jsons)
+			jobs.addAll(getJobs(peerJson));
+
+		return new JSONObject().put(JsonObjectNames.JOB_ID, jobId)
+				.put(JsonObjectNames.JOBS, jobs)
+				.put(JsonObjectNames.EXCEPTIONS, peerResponse.exceptions).toString();
+	}
+
+	private List<JSONObject> getJobs(JSONObject json) throws JSONException {
+		List<JSONObject> jobs = new ArrayList<JSONObject>();
+		if (json.has(JsonObjectNames.JOBS))
+			for (int i = 0; i < json.getJSONArray(JsonObjectNames.JOBS).length(); i++)
+				jobs.add(json.getJSONArray(JsonObjectNames.JOBS).getJSONObject(i));
+		return jobs;
+	}
+
+	private JSONObject convertJobToJson(ThawJob job) throws JSONException {
+		ThawProgress progress = job.getProgress();
+		List<JSONObject> buckets = new ArrayList<JSONObject>();
+		for (Bucket bucket : progress.getBuckets())
+			buckets.add(new JSONObject(BucketBean.createBeanFromBucket(bucket)).put(
+					JsonObjectNames.THAW_STATE, progress.getState(bucket).name()));
+		long millisLeft = job.estimateMillisLeft();
+
+		return new JSONObject()
+				.put(JsonObjectNames.SERVER_NAME,
+						ArchiveConfiguration.getSharedInstance().getServerName())
+				.put(JsonObjectNames.JOB_STATE, job.getState().name())
+				.put(JsonObjectNames.BUCKET_COLLECTION, buckets)
+				.put(JsonObjectNames.BUCKETS_TOTAL, buckets.size())
+				.put(JsonObjectNames.BUCKETS_THAWED,
+						progress.countBuckets(BucketState.THAWED))
+				.put(JsonObjectNames.BUCKETS_FAILED,
+						progress.countBuckets(BucketState.FAILED))
+				.put(JsonObjectNames.BUCKETS_SKIPPED,
+						progress.countBuckets(BucketState.SKIPPED))
+				.put(JsonObjectNames.BYTES_TOTAL, progress.getTotalBytes())
+				.put(JsonObjectNames.BYTES_TRANSFERRED,
+						progress.getTransferredBytes())
+				.put(JsonObjectNames.ELAPSED_SECONDS, job.getElapsedMillis() / 1000)
+				.put(JsonObjectNames.ETA_SECONDS,
+						millisLeft < 0 ? -1 : millisLeft / 1000);
+	}
+}
@@ -21,11 +21,27 @@ public class JsonObjectNames {
 
 	public static final String BUCKET_COLLECTION_SIZE = "buckets_TOTAL_SIZE";
 	public static final String BUCKET_COLLECTION = "buckets";
+	public static final String NEXT_CURSOR = "next_cursor";
 	public static final String SIZE = "size";
 	public static final String ERRORS = "errors";
 	public static final String FAILED_BUCKET_COLLECTION = "failed";
 	public static final String INDEX_COLLECTION = "indexes";
 	public static final String SERVER_NAME = "server_name";
 	public static final String EXCEPTIONS = "exceptions";
+	public static final String METRICS = "metrics";
+	public static final String UPLOAD_THROUGHPUT = "upload_throughput";
+	public static final String DOWNLOAD_THROUGHPUT = "download_throughput";
+	public static final String JOB_ID = "job_id";
+	public static final String JOBS = "jobs";
+	public static final String JOB_STATE = "state";
+	public static final String THAW_STATE = "thaw_state";
+	public static final String BUCKETS_TOTAL = "buckets_total";
+	public static final String BUCKETS_THAWED = "buckets_thawed";
+	public static final String BUCKETS_FAILED = "buckets_failed";
+	public static final String BUCKETS_SKIPPED = "buckets_skipped";
+	public static final String BYTES_TOTAL = "bytes_total";
+	public static final String BYTES_TRANSFERRED = "bytes_transferred";
+	public static final String ELAPSED_SECONDS = "elapsed_seconds";
+	public static final String ETA_SECONDS = "eta_seconds";
 
 }
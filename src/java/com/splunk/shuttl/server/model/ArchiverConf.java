@@ -30,7 +30,16 @@ import javax.xml.bind.annotation.XmlType;
 @XmlRootElement(namespace = "com.splunk.shuttl.server.model")
 @XmlType(propOrder = { "localArchiverDir", "archiveFormats", "clusterName",
 		"serverName", "bucketFormatPriority", "backendName", "archivePath",
-		"archiverRootURI" })
+		"archiverRootURI", "archiveWorkers", "archiveQueueSize",
+		"archiveFormatThreads", "tgzCompressionLevel", "tgzCompressionThreads",
+		"archiveUploadThreads", "archiveUploadThreadsPerBucket",
+		"thawDownloadThreads", "thawDownloadThreadsPerBucket",
+		"uploadBandwidthLimit", "uploadOperationsLimit", "uploadBandwidthSchedule",
+		"downloadBandwidthLimit", "downloadOperationsLimit",
+		"downloadBandwidthSchedule", "bucketSizeThreads", "bucketSizeCacheSize",
+		"metadataManifestRollMinutes", "indexListingThreads",
+		"thawBucketThreads", "thawImportThreads",
+		"thawDiskHighWatermarkPercent", "thawEvictionMinutes", "thawBudgets" })
 public class ArchiverConf {
 	private String localArchiverDir;
 	private List<String> archiveFormats;
@@ -40,6 +49,30 @@ public class ArchiverConf {
 	private String backendName;
 	private String archivePath;
 	private String archiverRootURI;
+	private Integer archiveWorkers;
+	private Integer archiveQueueSize;
+	private Integer archiveFormatThreads;
+	private Integer tgzCompressionLevel;
+	private Integer tgzCompressionThreads;
+	private Integer archiveUploadThreads;
+	private Integer archiveUploadThreadsPerBucket;
+	private Integer thawDownloadThreads;
+	private Integer thawDownloadThreadsPerBucket;
+	private Integer uploadBandwidthLimit;
+	private Integer uploadOperationsLimit;
+	private List<String> uploadBandwidthSchedule;
+	private Integer downloadBandwidthLimit;
+	private Integer downloadOperationsLimit;
+	private List<String> downloadBandwidthSchedule;
+	private Integer bucketSizeThreads;
+	private Integer bucketSizeCacheSize;
+	private Integer metadataManifestRollMinutes;
+	private Integer indexListingThreads;
+	private Integer thawBucketThreads;
+	private Integer thawImportThreads;
+	private Integer thawDiskHighWatermarkPercent;
+	private Integer thawEvictionMinutes;
+	private List<String> thawBudgets;
 
 	public String getLocalArchiverDir() {
 		return localArchiverDir;
@@ -106,4 +139,208 @@ public class ArchiverConf {
 	public void setArchiverRootURI(String archiverRootURI) {
 		this.archiverRootURI = archiverRootURI;
 	}
+
+	public Integer getArchiveWorkers() {
+		return archiveWorkers;
+	}
+
+	public void setArchiveWorkers(Integer archiveWorkers) {
+		this.archiveWorkers = archiveWorkers;
+	}
+
+	public Integer getArchiveQueueSize() {
+		return archiveQueueSize;
+	}
+
+	public void setArchiveQueueSize(Integer archiveQueueSize) {
+		this.archiveQueueSize = archiveQueueSize;
+	}
+
+	public Integer getArchiveFormatThreads() {
+		return archiveFormatThreads;
+	}
+
+	public void setArchiveFormatThreads(Integer archiveFormatThreads) {
+		this.archiveFormatThreads = archiveFormatThreads;
+	}
+
+	public Integer getTgzCompressionLevel() {
+		return tgzCompressionLevel;
+	}
+
+	public void setTgzCompressionLevel(Integer tgzCompressionLevel) {
+		this.tgzCompressionLevel = tgzCompressionLevel;
+	}
+
+	public Integer getTgzCompressionThreads() {
+		return tgzCompressionThreads;
+	}
+
+	public void setTgzCompressionThreads(Integer tgzCompressionThreads) {
+		this.tgzCompressionThreads = tgzCompressionThreads;
+	}
+
+	public Integer getArchiveUploadThreads() {
+		return archiveUploadThreads;
+	}
+
+	public void setArchiveUploadThreads(Integer archiveUploadThreads) {
+		this.archiveUploadThreads = archiveUploadThreads;
+	}
+
+	public Integer getArchiveUploadThreadsPerBucket() {
+		return archiveUploadThreadsPerBucket;
+	}
+
+	public void setArchiveUploadThreadsPerBucket(
+			Integer archiveUploadThreadsPerBucket) {
+		this.archiveUploadThreadsPerBucket = archiveUploadThreadsPerBucket;
+	}
+
+	public Integer getThawDownloadThreads() {
+		return thawDownloadThreads;
+	}
+
+	public void setThawDownloadThreads(Integer thawDownloadThreads) {
+		this.thawDownloadThreads = thawDownloadThreads;
+	}
+
+	public Integer getThawDownloadThreadsPerBucket() {
+		return thawDownloadThreadsPerBucket;
+	}
+
+	public void setThawDownloadThreadsPerBucket(
+			Integer thawDownloadThreadsPerBucket) {
+		this.thawDownloadThreadsPerBucket = thawDownloadThreadsPerBucket;
+	}
+
+	public Integer getUploadBandwidthLimit() {
+		return uploadBandwidthLimit;
+	}
+
+	public void setUploadBandwidthLimit(Integer uploadBandwidthLimit) {
+		this.uploadBandwidthLimit = uploadBandwidthLimit;
+	}
+
+	public Integer getUploadOperationsLimit() {
+		return uploadOperationsLimit;
+	}
+
+	public void setUploadOperationsLimit(Integer uploadOperationsLimit) {
+		this.uploadOperationsLimit = uploadOperationsLimit;
+	}
+
+	@XmlElementWrapper(name = "uploadBandwidthSchedule")
+	@XmlElement(name = "period")
+	public List<String> getUploadBandwidthSchedule() {
+		return uploadBandwidthSchedule;
+	}
+
+	public void setUploadBandwidthSchedule(
+			List<String> uploadBandwidthSchedule) {
+		this.uploadBandwidthSchedule = uploadBandwidthSchedule;
+	}
+
+	public Integer getDownloadBandwidthLimit() {
+		return downloadBandwidthLimit;
+	}
+
+	public void setDownloadBandwidthLimit(Integer downloadBandwidthLimit) {
+		this.downloadBandwidthLimit = downloadBandwidthLimit;
+	}
+
+	public Integer getDownloadOperationsLimit() {
+		return downloadOperationsLimit;
+	}
+
+	public void setDownloadOperationsLimit(Integer downloadOperationsLimit) {
+		this.downloadOperationsLimit = downloadOperationsLimit;
+	}
+
+	@XmlElementWrapper(name = "downloadBandwidthSchedule")
+	@XmlElement(name = "period")
+	public List<String> getDownloadBandwidthSchedule() {
+		return downloadBandwidthSchedule;
+	}
+
+	public void setDownloadBandwidthSchedule(
+			List<String> downloadBandwidthSchedule) {
+		this.downloadBandwidthSchedule = downloadBandwidthSchedule;
+	}
+
+	public Integer getBucketSizeThreads() {
+		return bucketSizeThreads;
+	}
+
+	public void setBucketSizeThreads(Integer bucketSizeThreads) {
+		this.bucketSizeThreads = bucketSizeThreads;
+	}
+
+	public Integer getBucketSizeCacheSize() {
+		return bucketSizeCacheSize;
+	}
+
+	public void setBucketSizeCacheSize(Integer bucketSizeCacheSize) {
+		this.bucketSizeCacheSize = bucketSizeCacheSize;
+	}
+
+	public Integer getMetadataManifestRollMinutes() {
+		return metadataManifestRollMinutes;
+	}
+
+	public void setMetadataManifestRollMinutes(
+			Integer metadataManifestRollMinutes) {
+		this.metadataManifestRollMinutes = metadataManifestRollMinutes;
+	}
+
+	public Integer getIndexListingThreads() {
+		return indexListingThreads;
+	}
+
+	public void setIndexListingThreads(Integer indexListingThreads) {
+		this.indexListingThreads = indexListingThreads;
+	}
+
+	public Integer getThawBucketThreads() {
+		return thawBucketThreads;
+	}
+
+	public void setThawBucketThreads(Integer thawBucketThreads) {
+		this.thawBucketThreads = thawBucketThreads;
+	}
+
+	public Integer getThawImportThreads() {
+		return thawImportThreads;
+	}
+
+	public void setThawImportThreads(Integer thawImportThreads) {
+		this.thawImportThreads = thawImportThreads;
+	}
+
+	public Integer getThawDiskHighWatermarkPercent() {
+		return thawDiskHighWatermarkPercent;
+	}
+
+	public void setThawDiskHighWatermarkPercent(
+			Integer thawDiskHighWatermarkPercent) {
+		this.thawDiskHighWatermarkPercent = thawDiskHighWatermarkPercent;
+	}
+
+	public Integer getThawEvictionMinutes() {
+		return thawEvictionMinutes;
+	}
+
+	public void setThawEvictionMinutes(Integer thawEvictionMinutes) {
+		this.thawEvictionMinutes = thawEvictionMinutes;
+	}
+
+	@XmlElementWrapper(name = "thawBudgets")
+	@XmlElement(name = "budget")
+	public List<String> getThawBudgets() {
+		return thawBudgets;
+	}
+
+	public void setThawBudgets(List<String> thawBudgets) {
+		this.thawBudgets = thawBudgets;
+	}
 }
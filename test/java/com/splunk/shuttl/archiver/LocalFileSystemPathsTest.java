@@ -79,6 +79,21 @@ public class LocalFileSystemPathsTest {
 		assertExistsInParentArchiverDirectory(failLocation);
 	}
 
+	public void getArchiveCatalogDirectory_setUp_dirExistsInsideArchiverDirectory() {
+		File catalogDir = localFileSystemPaths.getArchiveCatalogDirectory();
+		assertExistsInParentArchiverDirectory(catalogDir);
+	}
+
+	public void getMetadataManifestsDirectory_setUp_dirExistsInsideArchiverDirectory() {
+		File manifestsDir = localFileSystemPaths.getMetadataManifestsDirectory();
+		assertExistsInParentArchiverDirectory(manifestsDir);
+	}
+
+	public void getUploadCheckpointsDirectory_setUp_dirExistsInsideArchiverDirectory() {
+		File checkpointsDir = localFileSystemPaths.getUploadCheckpointsDirectory();
+		assertExistsInParentArchiverDirectory(checkpointsDir);
+	}
+
 	public void getArchiveLocksDirectory_bucket_uniquePerBucket() {
 		File locksDir = localFileSystemPaths.getArchiveLocksDirectory(bucket);
 		assertBucketUniquePathInsideArchiverDirectory(locksDir);
@@ -0,0 +1,125 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver;
+
+import static com.splunk.shuttl.testutil.TUtilsFile.*;
+import static java.util.Arrays.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileStatus;
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
+import com.splunk.shuttl.archiver.filesystem.DeletesPaths;
+
+@Test(groups = { "fast-unit" })
+public class StaleTransfersCleanerTest {
+
+	private static final long STALE_MILLIS = 1000 * 60 * 60;
+
+	private File transfers;
+	private ArchiveFileSystem archiveFileSystem;
+	private StaleTransfersCleaner cleaner;
+	private long stale;
+	private long fresh;
+
+	@BeforeMethod
+	public void setUp() throws IOException {
+		transfers = createDirectory();
+		archiveFileSystem = mock(ArchiveFileSystem.class,
+				withSettings().extraInterfaces(DeletesPaths.class));
+		when(archiveFileSystem.listStatus(anyString())).thenReturn(
+				Collections.<ArchiveFileStatus> emptyList());
+		cleaner = new StaleTransfersCleaner(asList(transfers), archiveFileSystem,
+				"/temp", STALE_MILLIS);
+		stale = System.currentTimeMillis() - 2 * STALE_MILLIS;
+		fresh = System.currentTimeMillis();
+	}
+
+	public void clean_staleLocalTransfer_deletesIt() {
+		File bucket = createDirectoryInParent(transfers, "bucket");
+		File file = createFileInParent(bucket, "file");
+		file.setLastModified(stale);
+		bucket.setLastModified(stale);
+
+		cleaner.clean();
+
+		assertFalse(bucket.exists());
+	}
+
+	public void clean_localTransferWithFreshFile_keepsFreshFile() {
+		File bucket = createDirectoryInParent(transfers, "bucket");
+		File staleFile = createFileInParent(bucket, "stale");
+		File freshFile = createFileInParent(bucket, "fresh");
+		staleFile.setLastModified(stale);
+		freshFile.setLastModified(fresh);
+		bucket.setLastModified(stale);
+
+		cleaner.clean();
+
+		assertTrue(freshFile.exists());
+		assertFalse(staleFile.exists());
+	}
+
+	public void clean_freshLocalTransfer_keepsIt() {
+		File bucket = createDirectoryInParent(transfers, "bucket");
+		File file = createFileInParent(bucket, "file");
+
+		cleaner.clean();
+
+		assertTrue(file.exists());
+	}
+
+	public void clean_staleTransferInArchiveTemp_deletesIt() throws IOException {
+		when(archiveFileSystem.listStatus("/temp")).thenReturn(
+				asList(new ArchiveFileStatus("/temp/bucket", 0, stale, true)));
+		when(archiveFileSystem.listStatus("/temp/bucket")).thenReturn(
+				asList(new ArchiveFileStatus("/temp/bucket/file", 1, stale, false)));
+
+		cleaner.clean();
+
+		verify((DeletesPaths) archiveFileSystem).deletePath("/temp/bucket/file");
+		verify((DeletesPaths) archiveFileSystem).deletePath("/temp/bucket");
+	}
+
+	public void clean_freshFileInArchiveTemp_keepsItsDirectory()
+			throws IOException {
+		when(archiveFileSystem.listStatus("/temp")).thenReturn(
+				asList(new ArchiveFileStatus("/temp/bucket", 0, stale, true)));
+		when(archiveFileSystem.listStatus("/temp/bucket")).thenReturn(
+				asList(new ArchiveFileStatus("/temp/bucket/file", 1, fresh, false)));
+
+		cleaner.clean();
+
+		verify((DeletesPaths) archiveFileSystem, never()).deletePath(anyString());
+	}
+
+	public void clean_archiveFailsListing_stillCleansLocalTransfers()
+			throws IOException {
+		when(archiveFileSystem.listStatus("/temp")).thenThrow(new IOException());
+		File bucket = createDirectoryInParent(transfers, "bucket");
+		bucket.setLastModified(stale);
+
+		cleaner.clean();
+
+		assertFalse(bucket.exists());
+	}
+}
@@ -20,22 +20,37 @@ import static org.mockito.Matchers.*;
 import static org.mockito.Mockito.*;
 import static org.testng.Assert.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.EnumSet;
 
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.splunk.shuttl.archiver.catalog.AddsArchivedBuckets;
+import com.splunk.shuttl.archiver.catalog.ArchiveCatalog;
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileStatus;
 import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
 import com.splunk.shuttl.archiver.filesystem.FileOverwriteException;
 import com.splunk.shuttl.archiver.filesystem.PathResolver;
+import com.splunk.shuttl.archiver.filesystem.WritesFiles;
 import com.splunk.shuttl.archiver.filesystem.transaction.AbstractTransaction;
+import com.splunk.shuttl.archiver.filesystem.transaction.Transaction;
 import com.splunk.shuttl.archiver.filesystem.transaction.TransactionException;
 import com.splunk.shuttl.archiver.filesystem.transaction.TransactionExecuter;
 import com.splunk.shuttl.archiver.filesystem.transaction.bucket.PutBucketTransaction;
+import com.splunk.shuttl.archiver.importexport.tgz.CreatesBucketTgz;
 import com.splunk.shuttl.archiver.metastore.ArchiveBucketSize;
+import com.splunk.shuttl.archiver.metrics.BackendMetrics;
+import com.splunk.shuttl.archiver.metrics.Stage;
 import com.splunk.shuttl.archiver.model.Bucket;
+import com.splunk.shuttl.archiver.model.LocalBucket;
 import com.splunk.shuttl.testutil.TUtilsBucket;
 
 @Test(groups = { "fast-unit" })
@@ -53,7 +68,7 @@ public class ArchiveBucketTransfererTest {
 		pathResolver = mock(PathResolver.class);
 		archiveBucketSize = mock(ArchiveBucketSize.class);
 		transactionExecuter = mock(TransactionExecuter.class);
-		archiveBucketTransferer = new ArchiveBucketTransferer(archive,
+		archiveBucketTransferer = ArchiveBucketTransferer.create(archive,
 				pathResolver, archiveBucketSize, transactionExecuter);
 	}
 
@@ -69,10 +84,23 @@ public class ArchiveBucketTransfererTest {
 				eq(PutBucketTransaction.create(archive, bucket, temp, destination)));
 	}
 
-	public void transferBucketToArchive_givenSuccessfulBucketTransfer_startBucketSizeTransaction() {
+	public void transferBucketToArchive_withMetrics_recordsBytesAndMetadata() {
+		BackendMetrics metrics = BackendMetrics.unregistered();
+		Bucket bucket = mock(Bucket.class);
+		when(bucket.getSize()).thenReturn(123L);
+		new ArchiveBucketTransferer(archive, pathResolver, archiveBucketSize,
+				transactionExecuter, null, metrics, ArchiveCatalog.none())
+				.transferBucketToArchive(bucket);
+
+		assertEquals(123, metrics.get(Stage.PREPARE).getBytes());
+		assertEquals(1, metrics.get(Stage.METADATA).getCount());
+	}
+
+	public void transferBucketToArchive_givenBucket_createsBucketSizeTransaction() {
 		Bucket bucket = mock(Bucket.class);
 		archiveBucketTransferer.transferBucketToArchive(bucket);
-		verify(archiveBucketSize).persistBucketSize(bucket);
+		verify(archiveBucketSize).putBucketSizeTransaction(bucket);
+		verify(archiveBucketSize, never()).persistBucketSize(bucket);
 	}
 
 	public void transferBucketToArchive_whenBucketTransferIsUnsuccessful_dontPutBucketSizeInArchive()
@@ -84,7 +112,7 @@ public class ArchiveBucketTransfererTest {
 			fail();
 		} catch (Exception e) {
 		}
-		verifyZeroInteractions(archiveBucketSize);
+		verify(archiveBucketSize, never()).persistBucketSize(any(Bucket.class));
 	}
 
 	@Test(expectedExceptions = { FailedToArchiveBucketException.class })
@@ -98,11 +126,11 @@ public class ArchiveBucketTransfererTest {
 	public void isArchived_bucketInFormatIsNotInArchiveFileSystem_false()
 			throws IOException {
 		Bucket bucket = TUtilsBucket.createBucket();
-		String bucketPath = "/bucket/path";
-		when(
-				pathResolver.resolveArchivedBucketPath(bucket.getIndex(),
-						bucket.getName(), bucket.getFormat())).thenReturn(bucketPath);
-		when(archive.listPath(bucketPath)).thenReturn(new ArrayList<String>());
+		String formatsHome = "/formats/home";
+		when(pathResolver.getFormatsHome(bucket.getIndex(), bucket.getName()))
+				.thenReturn(formatsHome);
+		when(archive.listStatus(formatsHome)).thenReturn(
+				new ArrayList<ArchiveFileStatus>());
 
 		assertFalse(archiveBucketTransferer.isArchived(bucket, bucket.getFormat()));
 	}
@@ -110,11 +138,238 @@ public class ArchiveBucketTransfererTest {
 	public void isArchived_bucketInFormatExistsInTheArchiveFileSystem_true()
 			throws IOException {
 		Bucket bucket = TUtilsBucket.createBucket();
-		String bucketPath = "/bucket/path";
+		String formatsHome = "/formats/home";
+		when(pathResolver.getFormatsHome(bucket.getIndex(), bucket.getName()))
+				.thenReturn(formatsHome);
+		when(archive.listStatus(formatsHome)).thenReturn(
+				asList(formatDirectory(formatsHome, bucket.getFormat())));
+		assertTrue(archiveBucketTransferer.isArchived(bucket, bucket.getFormat()));
+	}
+
+	private ArchiveFileStatus formatDirectory(String formatsHome,
+			BucketFormat format) {
+		return new ArchiveFileStatus(formatsHome + "/" + format, 0, 0, true);
+	}
+
+	public void getArchivedFormats_formatDirectoriesAndOtherPaths_onlyTheFormats()
+			throws IOException {
+		Bucket bucket = TUtilsBucket.createBucket();
+		String formatsHome = "/formats/home";
+		when(pathResolver.getFormatsHome(bucket.getIndex(), bucket.getName()))
+				.thenReturn(formatsHome);
+		when(archive.listStatus(formatsHome)).thenReturn(
+				asList(formatDirectory(formatsHome, BucketFormat.CSV),
+						new ArchiveFileStatus(formatsHome + "/foo", 0, 0, true),
+						new ArchiveFileStatus(formatsHome + "/SPLUNK_BUCKET", 1, 0,
+								false)));
+
+		assertEquals(EnumSet.of(BucketFormat.CSV),
+				archiveBucketTransferer.getArchivedFormats(bucket));
+		verify(archive, times(1)).listStatus(anyString());
+	}
+
+	@Test(expectedExceptions = { RuntimeException.class })
+	public void getArchivedFormats_listingFails_throws() throws IOException {
+		when(archive.listStatus(anyString())).thenThrow(new IOException());
+		archiveBucketTransferer.getArchivedFormats(TUtilsBucket.createBucket());
+	}
+
+	public void canExportWhileTransferring_archiveDoesNotWriteFiles_false() {
+		archiveBucketTransferer = new ArchiveBucketTransferer(archive,
+				pathResolver, archiveBucketSize, transactionExecuter,
+				mock(CreatesBucketTgz.class), BackendMetrics.unregistered(),
+				ArchiveCatalog.none());
+		assertFalse(archiveBucketTransferer.canExportWhileTransferring(
+				TUtilsBucket.createBucket(), BucketFormat.SPLUNK_BUCKET_TGZ));
+	}
+
+	public void canExportWhileTransferring_noCreatesBucketTgz_false() {
+		archive = mock(ArchiveFileSystem.class,
+				withSettings().extraInterfaces(WritesFiles.class));
+		archiveBucketTransferer = ArchiveBucketTransferer.create(archive,
+				pathResolver, archiveBucketSize, transactionExecuter);
+		assertFalse(archiveBucketTransferer.canExportWhileTransferring(
+				TUtilsBucket.createBucket(), BucketFormat.SPLUNK_BUCKET_TGZ));
+	}
+
+	public void canExportWhileTransferring_splunkBucketToTgzWithArchiveThatWritesFiles_true() {
+		createTransfererThatExportsWhileTransferring();
+		LocalBucket bucket = TUtilsBucket.createBucket();
+		assertTrue(archiveBucketTransferer.canExportWhileTransferring(bucket,
+				BucketFormat.SPLUNK_BUCKET_TGZ));
+		assertFalse(archiveBucketTransferer.canExportWhileTransferring(bucket,
+				BucketFormat.CSV));
+	}
+
+	private CreatesBucketTgz createTransfererThatExportsWhileTransferring() {
+		archive = mock(ArchiveFileSystem.class,
+				withSettings().extraInterfaces(WritesFiles.class));
+		CreatesBucketTgz createsBucketTgz = mock(CreatesBucketTgz.class);
+		archiveBucketTransferer = new ArchiveBucketTransferer(archive,
+				pathResolver, archiveBucketSize, transactionExecuter,
+				createsBucketTgz, BackendMetrics.unregistered(), ArchiveCatalog.none());
+		return createsBucketTgz;
+	}
+
+	public void exportBucketToArchive_splunkBucketToTgz_executesStreamingTgzTransaction()
+			throws IOException {
+		CreatesBucketTgz createsBucketTgz;
+		createsBucketTgz = createTransfererThatExportsWhileTransferring();
+		LocalBucket bucket = TUtilsBucket.createBucket();
+		String destination = "/some/path";
+		String temp = "/temp/path";
+		when(pathResolver.resolveArchivePath(any(Bucket.class))).thenReturn(
+				destination);
+		when(pathResolver.resolveTempPathForBucket(any(Bucket.class)))
+				.thenReturn(temp);
+
+		archiveBucketTransferer.exportBucketToArchive(bucket,
+				BucketFormat.SPLUNK_BUCKET_TGZ);
+
+		LocalBucket tgzBucket = new LocalBucket(bucket.getDirectory(),
+				bucket.getIndex(), bucket.getName(), BucketFormat.SPLUNK_BUCKET_TGZ,
+				bucket.getSize());
+		verify(transactionExecuter).execute(
+				eq(PutBucketTransaction.createStreamingTgz(archive,
+						(WritesFiles) archive, createsBucketTgz, tgzBucket, temp,
+						destination)));
+	}
+
+	public void exportBucketToArchive_tgzIsWritten_putsSizeOfTheTgz()
+			throws IOException {
+		ArchiveBucketTransferer transferer = createTransfererThatWritesTgzOf5Bytes(
+				BackendMetrics.unregistered(), ArchiveCatalog.none());
+
+		transferer.exportBucketToArchive(TUtilsBucket.createBucket(),
+				BucketFormat.SPLUNK_BUCKET_TGZ);
+
+		ArgumentCaptor<Bucket> sized = ArgumentCaptor.forClass(Bucket.class);
+		verify(archiveBucketSize).putBucketSizeTransaction(sized.capture());
+		assertEquals(BucketFormat.SPLUNK_BUCKET_TGZ, sized.getValue().getFormat());
+		assertEquals(sized.getValue().getSize(), (Long) 5L);
+	}
+
+	public void exportBucketToArchive_withCatalog_addsBucketWithSizeOfTheTgz()
+			throws IOException {
+		ArchiveCatalog catalog = mock(ArchiveCatalog.class);
+		ArchiveBucketTransferer transferer = createTransfererThatWritesTgzOf5Bytes(
+				BackendMetrics.unregistered(), catalog);
+
+		transferer.exportBucketToArchive(TUtilsBucket.createBucket(),
+				BucketFormat.SPLUNK_BUCKET_TGZ);
+
+		ArgumentCaptor<Bucket> added = ArgumentCaptor.forClass(Bucket.class);
+		verify(catalog).add(added.capture());
+		assertEquals(BucketFormat.SPLUNK_BUCKET_TGZ, added.getValue().getFormat());
+		assertEquals(added.getValue().getSize(), (Long) 5L);
+	}
+
+	public void exportBucketToArchive_withMetrics_recordsBytesOfTheWrittenTgz()
+			throws IOException {
+		BackendMetrics metrics = BackendMetrics.unregistered();
+
+		createTransfererThatWritesTgzOf5Bytes(metrics, ArchiveCatalog.none())
+				.exportBucketToArchive(TUtilsBucket.createBucket(),
+						BucketFormat.SPLUNK_BUCKET_TGZ);
+
+		assertEquals(metrics.get(Stage.PREPARE).getBytes(), 5);
+	}
+
+	private ArchiveBucketTransferer createTransfererThatWritesTgzOf5Bytes(
+			BackendMetrics metrics, AddsArchivedBuckets catalog) throws IOException {
+		archive = mock(ArchiveFileSystem.class,
+				withSettings().extraInterfaces(WritesFiles.class));
+		when(((WritesFiles) archive).createFile(anyString())).thenReturn(
+				new ByteArrayOutputStream());
+		CreatesBucketTgz createsBucketTgz = mock(CreatesBucketTgz.class);
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws IOException {
+				((OutputStream) invocation.getArguments()[1]).write(new byte[5]);
+				return null;
+			}
+		}).when(createsBucketTgz).writeTgz(any(LocalBucket.class),
+				any(OutputStream.class));
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) {
+				((Transaction) invocation.getArguments()[0]).prepare();
+				return null;
+			}
+		}).when(transactionExecuter).execute(any(Transaction.class));
+		Transaction sizeTransaction = mock(Transaction.class);
+		when(archiveBucketSize.putBucketSizeTransaction(any(Bucket.class)))
+				.thenReturn(sizeTransaction);
+		return new ArchiveBucketTransferer(archive, pathResolver,
+				archiveBucketSize, transactionExecuter, createsBucketTgz, metrics,
+				catalog);
+	}
+
+	@Test(expectedExceptions = { IllegalArgumentException.class })
+	public void exportBucketToArchive_cannotExportWhileTransferring_throws() {
+		archiveBucketTransferer.exportBucketToArchive(TUtilsBucket.createBucket(),
+				BucketFormat.SPLUNK_BUCKET_TGZ);
+	}
+
+	public void transferBucketToArchive_withCatalog_addsBucketToCatalog() {
+		ArchiveCatalog catalog = mock(ArchiveCatalog.class);
+		Bucket bucket = mock(Bucket.class);
+		new ArchiveBucketTransferer(archive, pathResolver, archiveBucketSize,
+				transactionExecuter, null, BackendMetrics.unregistered(), catalog)
+				.transferBucketToArchive(bucket);
+		verify(catalog).add(bucket);
+	}
+
+	public void transferBucketToArchive_failingTransfer_doesNotAddBucketToCatalog() {
+		ArchiveCatalog catalog = mock(ArchiveCatalog.class);
+		doThrow(TransactionException.class).when(transactionExecuter).execute(
+				any(Transaction.class));
+		try {
+			new ArchiveBucketTransferer(archive, pathResolver, archiveBucketSize,
+					transactionExecuter, null, BackendMetrics.unregistered(), catalog)
+					.transferBucketToArchive(mock(Bucket.class));
+			fail();
+		} catch (FailedToArchiveBucketException e) {
+		}
+		verifyZeroInteractions(catalog);
+	}
+
+	public void transferBucketToArchive_transactionFailsAfterCommit_addsBucketToCatalog()
+			throws IOException {
+		ArchiveCatalog catalog = mock(ArchiveCatalog.class);
+		Bucket bucket = TUtilsBucket.createBucket();
+		String formatsHome = "/formats/home";
+		when(pathResolver.getFormatsHome(bucket.getIndex(), bucket.getName()))
+				.thenReturn(formatsHome);
+		when(archive.listStatus(formatsHome)).thenReturn(
+				asList(formatDirectory(formatsHome, bucket.getFormat())));
+		doThrow(TransactionException.class).when(transactionExecuter).execute(
+				any(Transaction.class));
+		try {
+			new ArchiveBucketTransferer(archive, pathResolver, archiveBucketSize,
+					transactionExecuter, null, BackendMetrics.unregistered(), catalog)
+					.transferBucketToArchive(bucket);
+			fail();
+		} catch (FailedToArchiveBucketException e) {
+		}
+		verify(catalog).addIfMissing(bucket);
+	}
+
+	public void addArchivedFormatsToCatalog_archivedFormat_addsFormatWithArchivedSize() {
+		ArchiveCatalog catalog = mock(ArchiveCatalog.class);
+		Bucket bucket = TUtilsBucket.createBucket();
 		when(
 				pathResolver.resolveArchivedBucketPath(bucket.getIndex(),
-						bucket.getName(), bucket.getFormat())).thenReturn(bucketPath);
-		when(archive.listPath(bucketPath)).thenReturn(asList("/valid/path"));
-		assertTrue(archiveBucketTransferer.isArchived(bucket, bucket.getFormat()));
+						bucket.getName(), BucketFormat.CSV)).thenReturn("/csv");
+		when(archiveBucketSize.readBucketSize(any(Bucket.class))).thenReturn(7L);
+		new ArchiveBucketTransferer(archive, pathResolver, archiveBucketSize,
+				transactionExecuter, null, BackendMetrics.unregistered(), catalog)
+				.addArchivedFormatsToCatalog(bucket, EnumSet.of(BucketFormat.CSV));
+
+		ArgumentCaptor<Bucket> added = ArgumentCaptor.forClass(Bucket.class);
+		verify(catalog).addIfMissing(added.capture());
+		assertEquals(added.getValue().getPath(), "/csv");
+		assertEquals(added.getValue().getFormat(), BucketFormat.CSV);
+		assertEquals(added.getValue().getSize(), (Long) 7L);
 	}
 }
@@ -154,6 +154,153 @@ public class ArchiveConfigurationTest {
 						+ archiveTempPath);
 	}
 
+	public void getArchiveWorkers_notConfigured_defaultWorkers() {
+		when(mBean.getArchiveWorkers()).thenReturn(null);
+		assertEquals(ArchiveConfiguration.DEFAULT_ARCHIVE_WORKERS,
+				createConfiguration().getArchiveWorkers());
+	}
+
+	public void getArchiveWorkers_stubbedMBeanArchiveWorkers_sameAsInMBean() {
+		when(mBean.getArchiveWorkers()).thenReturn(4);
+		assertEquals(4, createConfiguration().getArchiveWorkers());
+	}
+
+	public void getArchiveQueueSize_notConfigured_defaultQueueSize() {
+		when(mBean.getArchiveQueueSize()).thenReturn(null);
+		assertEquals(ArchiveConfiguration.DEFAULT_ARCHIVE_QUEUE_SIZE,
+				createConfiguration().getArchiveQueueSize());
+	}
+
+	public void getArchiveFormatThreads_notConfigured_oneThreadPerArchiveFormat() {
+		when(mBean.getArchiveFormatThreads()).thenReturn(null);
+		when(mBean.getArchiveFormats()).thenReturn(
+				asList("SPLUNK_BUCKET", "CSV", "SPLUNK_BUCKET_TGZ"));
+		assertEquals(3, createConfiguration().getArchiveFormatThreads());
+	}
+
+	public void getArchiveFormatThreads_stubbedMBeanFormatThreads_sameAsInMBean() {
+		when(mBean.getArchiveFormatThreads()).thenReturn(2);
+		assertEquals(2, createConfiguration().getArchiveFormatThreads());
+	}
+
+	public void getArchiveUploadThreadsPerBucket_notConfigured_default() {
+		when(mBean.getArchiveUploadThreadsPerBucket()).thenReturn(null);
+		assertEquals(ArchiveConfiguration.DEFAULT_ARCHIVE_UPLOAD_THREADS_PER_BUCKET,
+				createConfiguration().getArchiveUploadThreadsPerBucket());
+	}
+
+	public void getArchiveUploadThreads_stubbedMBeanUploadThreads_sameAsInMBean() {
+		when(mBean.getArchiveUploadThreads()).thenReturn(7);
+		assertEquals(7, createConfiguration().getArchiveUploadThreads());
+	}
+
+	public void getThawDownloadThreadsPerBucket_notConfigured_default() {
+		when(mBean.getThawDownloadThreadsPerBucket()).thenReturn(null);
+		assertEquals(ArchiveConfiguration.DEFAULT_THAW_DOWNLOAD_THREADS_PER_BUCKET,
+				createConfiguration().getThawDownloadThreadsPerBucket());
+	}
+
+	public void getUploadBandwidthLimit_notConfigured_unlimited() {
+		when(mBean.getUploadBandwidthLimit()).thenReturn(null);
+		assertEquals(0, createConfiguration().getUploadBandwidthLimit());
+	}
+
+	public void getUploadBandwidthLimit_kilobytesInMBean_bytes() {
+		when(mBean.getUploadBandwidthLimit()).thenReturn(10);
+		assertEquals(10 * 1024, createConfiguration().getUploadBandwidthLimit());
+	}
+
+	public void getDownloadOperationsLimit_stubbedMBeanLimit_sameAsInMBean() {
+		when(mBean.getDownloadOperationsLimit()).thenReturn(50);
+		assertEquals(50, createConfiguration().getDownloadOperationsLimit());
+	}
+
+	public void getBucketSizeThreads_notConfigured_default() {
+		when(mBean.getBucketSizeThreads()).thenReturn(null);
+		assertEquals(ArchiveConfiguration.DEFAULT_BUCKET_SIZE_THREADS,
+				createConfiguration().getBucketSizeThreads());
+	}
+
+	public void getBucketSizeThreads_configuredZero_one() {
+		when(mBean.getBucketSizeThreads()).thenReturn(0);
+		assertEquals(1, createConfiguration().getBucketSizeThreads());
+	}
+
+	public void getBucketSizeCacheSize_stubbedMBeanSize_sameAsInMBean() {
+		when(mBean.getBucketSizeCacheSize()).thenReturn(50);
+		assertEquals(50, createConfiguration().getBucketSizeCacheSize());
+	}
+
+	public void getMetadataManifestRollMinutes_notConfigured_neverRolls() {
+		when(mBean.getMetadataManifestRollMinutes()).thenReturn(null);
+		assertEquals(0, createConfiguration().getMetadataManifestRollMinutes());
+	}
+
+	public void getMetadataManifestRollMinutes_stubbedMBeanMinutes_sameAsInMBean() {
+		when(mBean.getMetadataManifestRollMinutes()).thenReturn(30);
+		assertEquals(30, createConfiguration().getMetadataManifestRollMinutes());
+	}
+
+	public void getIndexListingThreads_notConfigured_defaultThreads() {
+		when(mBean.getIndexListingThreads()).thenReturn(null);
+		assertEquals(ArchiveConfiguration.DEFAULT_INDEX_LISTING_THREADS,
+				createConfiguration().getIndexListingThreads());
+	}
+
+	public void getIndexListingThreads_zeroThreads_oneThread() {
+		when(mBean.getIndexListingThreads()).thenReturn(0);
+		assertEquals(1, createConfiguration().getIndexListingThreads());
+	}
+
+	public void getThawBucketThreads_notConfigured_defaultThreads() {
+		when(mBean.getThawBucketThreads()).thenReturn(null);
+		assertEquals(ArchiveConfiguration.DEFAULT_THAW_BUCKET_THREADS,
+				createConfiguration().getThawBucketThreads());
+	}
+
+	public void getThawBucketThreads_zeroThreads_oneThread() {
+		when(mBean.getThawBucketThreads()).thenReturn(0);
+		assertEquals(1, createConfiguration().getThawBucketThreads());
+	}
+
+	public void getThawImportThreads_notConfigured_defaultThreads() {
+		when(mBean.getThawImportThreads()).thenReturn(null);
+		assertEquals(ArchiveConfiguration.DEFAULT_THAW_IMPORT_THREADS,
+				createConfiguration().getThawImportThreads());
+	}
+
+	public void getThawImportThreads_zeroThreads_oneThread() {
+		when(mBean.getThawImportThreads()).thenReturn(0);
+		assertEquals(1, createConfiguration().getThawImportThreads());
+	}
+
+	public void getThawDiskHighWatermarkPercent_notConfigured_defaultPercent() {
+		when(mBean.getThawDiskHighWatermarkPercent()).thenReturn(null);
+		assertEquals(ArchiveConfiguration.DEFAULT_THAW_DISK_HIGH_WATERMARK_PERCENT,
+				createConfiguration().getThawDiskHighWatermarkPercent());
+	}
+
+	public void getThawDiskHighWatermarkPercent_overHundred_hundred() {
+		when(mBean.getThawDiskHighWatermarkPercent()).thenReturn(120);
+		assertEquals(100, createConfiguration().getThawDiskHighWatermarkPercent());
+	}
+
+	public void getThawEvictionMinutes_notConfigured_defaultMinutes() {
+		when(mBean.getThawEvictionMinutes()).thenReturn(null);
+		assertEquals(ArchiveConfiguration.DEFAULT_THAW_EVICTION_MINUTES,
+				createConfiguration().getThawEvictionMinutes());
+	}
+
+	public void getThawBudgets_notConfigured_noBudgets() {
+		when(mBean.getThawBudgets()).thenReturn(null);
+		assertTrue(createConfiguration().getThawBudgets().isEmpty());
+	}
+
+	public void getDownloadBandwidthSchedule_notConfigured_emptySchedule() {
+		when(mBean.getDownloadBandwidthSchedule()).thenReturn(null);
+		assertTrue(createConfiguration().getDownloadBandwidthSchedule().isEmpty());
+	}
+
 	public void newWithServerName_serverName_newInstanceWithNewServerName() {
 		ArchiveConfiguration original = createConfiguration();
 		ArchiveConfiguration newConfig = original
@@ -0,0 +1,138 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.archive;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups = { "fast-unit" })
+public class ArchiveJobQueueTest {
+
+	private ArchiveJobQueue archiveJobQueue;
+	private CountDownLatch blockingLatch;
+
+	@BeforeMethod
+	public void setUp() {
+		archiveJobQueue = new ArchiveJobQueue(1, 1);
+		blockingLatch = new CountDownLatch(1);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		blockingLatch.countDown();
+	}
+
+	public void enqueue_job_runsJobAndReturnsJobId() throws InterruptedException {
+		CountDownLatch ranLatch = new CountDownLatch(1);
+		String jobId = archiveJobQueue.enqueue("backend",
+				countingDownJob(ranLatch));
+
+		assertNotNull(jobId);
+		assertTrue(ranLatch.await(5, TimeUnit.SECONDS));
+	}
+
+	private Runnable countingDownJob(final CountDownLatch latch) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				latch.countDown();
+			}
+		};
+	}
+
+	private Runnable blockingJob() {
+		return new Runnable() {
+			@Override
+			public void run() {
+				try {
+					blockingLatch.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+	}
+
+	public void enqueue_twoJobs_differentJobIds() {
+		String jobId1 = archiveJobQueue.enqueue("backend", mock(Runnable.class));
+		String jobId2 = archiveJobQueue.enqueue("backend", mock(Runnable.class));
+		assertNotEquals(jobId1, jobId2);
+	}
+
+	@Test(expectedExceptions = { ArchiveQueueFullException.class })
+	public void enqueue_workerIsBusyAndQueueIsFull_throws() {
+		archiveJobQueue.enqueue("backend", blockingJob());
+		archiveJobQueue.enqueue("backend", blockingJob());
+		archiveJobQueue.enqueue("backend", blockingJob());
+	}
+
+	public void enqueue_queueOfOtherBackendIsFull_queuesJob() {
+		archiveJobQueue.enqueue("backend", blockingJob());
+		archiveJobQueue.enqueue("backend", blockingJob());
+		assertNotNull(archiveJobQueue.enqueue("otherBackend", blockingJob()));
+	}
+
+	public void getQueuedJobs_workerIsBusyWithOneJobQueued_one() {
+		archiveJobQueue.enqueue("backend", blockingJob());
+		archiveJobQueue.enqueue("backend", blockingJob());
+		assertEquals(1, archiveJobQueue.getQueuedJobs("backend"));
+	}
+
+	public void enqueue_jobThrowsException_nextJobStillRuns()
+			throws InterruptedException {
+		Runnable failingJob = mock(Runnable.class);
+		doThrow(new RuntimeException()).when(failingJob).run();
+		archiveJobQueue.enqueue("backend", failingJob);
+
+		CountDownLatch ranLatch = new CountDownLatch(1);
+		archiveJobQueue.enqueue("backend", countingDownJob(ranLatch));
+		assertTrue(ranLatch.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test(expectedExceptions = { IllegalArgumentException.class })
+	public void constructor_zeroWorkers_throws() {
+		new ArchiveJobQueue(0, 1);
+	}
+
+	private ArchiveConfiguration config(String backend, int workers,
+			int queueSize) {
+		ArchiveConfiguration config = mock(ArchiveConfiguration.class);
+		when(config.getBackendName()).thenReturn(backend);
+		when(config.getArchiveWorkers()).thenReturn(workers);
+		when(config.getArchiveQueueSize()).thenReturn(queueSize);
+		return config;
+	}
+
+	public void getSharedInstance_sameBackendAndSizes_sameQueue() {
+		assertSame(ArchiveJobQueue.getSharedInstance(config("shared", 1, 2)),
+				ArchiveJobQueue.getSharedInstance(config("shared", 1, 2)));
+	}
+
+	public void getSharedInstance_otherSizes_otherQueue() {
+		ArchiveJobQueue queue = ArchiveJobQueue.getSharedInstance(config(
+				"shared", 1, 2));
+		assertNotSame(queue,
+				ArchiveJobQueue.getSharedInstance(config("shared", 2, 2)));
+		assertNotSame(queue,
+				ArchiveJobQueue.getSharedInstance(config("shared", 1, 3)));
+	}
+}
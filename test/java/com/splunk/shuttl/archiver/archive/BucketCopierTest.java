@@ -19,6 +19,7 @@ import static java.util.Arrays.*;
 import static org.mockito.Matchers.*;
 import static org.mockito.Mockito.*;
 
+import java.util.EnumSet;
 import java.util.List;
 
 import org.testng.annotations.BeforeMethod;
@@ -92,9 +93,39 @@ public class BucketCopierTest {
 
 	public void copyBucket_bucketIsAlreadyArchivedInFormat_doesNotExportBucket() {
 		BucketFormat format = bucketFormats.get(0);
-		when(archiveBucketTransferer.isArchived(bucket, format)).thenReturn(true);
+		when(archiveBucketTransferer.getArchivedFormats(bucket)).thenReturn(
+				EnumSet.of(format));
 		bucketCopier.copyBucket(bucket);
 		verify(exporter, never()).exportBucket(bucket, format);
 	}
 
+	public void copyBucket_bucketIsAlreadyArchivedInFormat_addsFormatToCatalog() {
+		EnumSet<BucketFormat> archived = EnumSet.of(bucketFormats.get(0));
+		when(archiveBucketTransferer.getArchivedFormats(bucket)).thenReturn(
+				archived);
+		bucketCopier.copyBucket(bucket);
+		verify(archiveBucketTransferer).addArchivedFormatsToCatalog(bucket,
+				archived);
+	}
+
+	public void copyBucket_bucketIsArchivedInOneOfTwoFormats_copiesTheOtherFormat() {
+		bucketCopier = new BucketCopier(exporter, archiveBucketTransferer, asList(
+				BucketFormat.SPLUNK_BUCKET, BucketFormat.CSV), deletesBuckets);
+		when(archiveBucketTransferer.getArchivedFormats(bucket)).thenReturn(
+				EnumSet.of(BucketFormat.SPLUNK_BUCKET));
+		getMockedBucketReturnFromExporter();
+		bucketCopier.copyBucket(bucket);
+		verify(exporter, never()).exportBucket(bucket, BucketFormat.SPLUNK_BUCKET);
+		verify(exporter).exportBucket(bucket, BucketFormat.CSV);
+	}
+
+	public void copyBucket_canExportWhileTransferring_exportsToArchiveWithoutLocalExport() {
+		BucketFormat format = bucketFormats.get(0);
+		when(archiveBucketTransferer.canExportWhileTransferring(bucket, format))
+				.thenReturn(true);
+		bucketCopier.copyBucket(bucket);
+		verify(archiveBucketTransferer).exportBucketToArchive(bucket, format);
+		verifyZeroInteractions(exporter);
+		verifyZeroInteractions(deletesBuckets);
+	}
 }
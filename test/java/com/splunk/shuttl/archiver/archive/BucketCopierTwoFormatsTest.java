@@ -19,7 +19,13 @@ import static org.mockito.Mockito.*;
 import static org.testng.Assert.*;
 
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -125,4 +131,46 @@ public class BucketCopierTwoFormatsTest {
 		verify(bucketDeleter).deleteBucket(exportedBucket1);
 		verify(bucketDeleter).deleteBucket(exportedBucket2);
 	}
+
+	public void copyBucket_exportOfFirstFormatFails_stillArchivesTheSecondOneAndThrows() {
+		setUpTwoFormatsAndTwoExportedBuckets();
+		when(exporter.exportBucket(bucket, formats.get(0))).thenThrow(
+				new RuntimeException());
+
+		try {
+			bucketCopier.copyBucket(bucket);
+			fail("should have gotten exception");
+		} catch (RuntimeException e) {
+		}
+
+		verify(archiveBucketTransferer).transferBucketToArchive(exportedBucket2);
+	}
+
+	public void copyBucket_executorWithTwoThreads_copiesBothFormatsAtTheSameTime()
+			throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			bucketCopier = new BucketCopier(exporter, archiveBucketTransferer,
+					formats, bucketDeleter, executor);
+			setUpTwoFormatsAndTwoExportedBuckets();
+			final CountDownLatch bothTransfering = new CountDownLatch(2);
+			doAnswer(new Answer<Void>() {
+				@Override
+				public Void answer(InvocationOnMock invocation) throws Throwable {
+					bothTransfering.countDown();
+					if (!bothTransfering.await(5, TimeUnit.SECONDS))
+						throw new RuntimeException("formats were copied one at a time");
+					return null;
+				}
+			}).when(archiveBucketTransferer).transferBucketToArchive(
+					any(LocalBucket.class));
+
+			bucketCopier.copyBucket(bucket);
+
+			verify(archiveBucketTransferer).transferBucketToArchive(exportedBucket1);
+			verify(archiveBucketTransferer).transferBucketToArchive(exportedBucket2);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
 }
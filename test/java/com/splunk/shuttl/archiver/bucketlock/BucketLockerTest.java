@@ -63,6 +63,20 @@ public class BucketLockerTest {
 		assertFalse(bucketHandler.wasLocked);
 	}
 
+	public void tryLockShared_bucketThatCanBeLocked_returnsSharedLock() {
+		BucketLock sharedLock = bucketLocker.tryLockShared(bucket);
+		assertNotNull(sharedLock);
+		assertFalse(bucketLocker.getLockForBucket(bucket).tryLockExclusive());
+		sharedLock.closeLock();
+		assertTrue(bucketLocker.getLockForBucket(bucket).tryLockExclusive());
+	}
+
+	public void tryLockShared_lockedBucket_null() {
+		BucketLock bucketLock = bucketLocker.getLockForBucket(bucket);
+		assertTrue(bucketLock.tryLockExclusive());
+		assertNull(bucketLocker.tryLockShared(bucket));
+	}
+
 	public void callBucketHandlerUnderSharedLock_givenLockedBucket_doesNotExecuteRunnable() {
 		BucketLock bucketLock = bucketLocker.getLockForBucket(bucket);
 		assertTrue(bucketLock.tryLockExclusive());
@@ -0,0 +1,137 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.catalog;
+
+import static java.util.Arrays.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.mockito.Matchers;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.archive.BucketFormat;
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
+import com.splunk.shuttl.archiver.filesystem.GlobsPaths;
+import com.splunk.shuttl.archiver.filesystem.PathResolver;
+import com.splunk.shuttl.archiver.listers.ConcurrentIndexTasks.IndexTask;
+import com.splunk.shuttl.archiver.listers.ConcurrentIndexTasks;
+import com.splunk.shuttl.archiver.metastore.ArchiveBucketSize;
+import com.splunk.shuttl.archiver.model.Bucket;
+
+@Test(groups = { "fast-unit" })
+public class ArchiveCatalogCrawlerTest {
+
+	private ArchiveFileSystem archiveFileSystem;
+	private PathResolver pathResolver;
+	private ArchiveBucketSize archiveBucketSize;
+	private ArchiveCatalogCrawler crawler;
+
+	@BeforeMethod
+	public void setUp() throws IOException {
+		archiveFileSystem = mock(ArchiveFileSystem.class);
+		pathResolver = mock(PathResolver.class);
+		archiveBucketSize = mock(ArchiveBucketSize.class);
+		crawler = new ArchiveCatalogCrawler(archiveFileSystem, pathResolver,
+				archiveBucketSize, ConcurrentIndexTasks.serial());
+
+		when(pathResolver.getIndexesHome()).thenReturn("/home");
+		when(pathResolver.getBucketsHome("index")).thenReturn("/home/index");
+		when(pathResolver.getFormatsHome("index", "db_1_0_0")).thenReturn(
+				"/home/index/db_1_0_0");
+		when(archiveFileSystem.listPath("/home")).thenReturn(asList("/home/index"));
+		when(archiveFileSystem.listPath("/home/index")).thenReturn(
+				asList("/home/index/db_1_0_0"));
+	}
+
+	public void crawl_bucketFormatsInArchive_entryForEachFormatWithoutSize()
+			throws IOException {
+		when(archiveFileSystem.listPath("/home/index/db_1_0_0")).thenReturn(
+				asList("/home/index/db_1_0_0/SPLUNK_BUCKET",
+						"/home/index/db_1_0_0/CSV"));
+
+		List<CatalogEntry> entries = crawler.crawl();
+		assertEquals(entries.size(), 2);
+		assertEquals(entries.get(0).getIndex(), "index");
+		assertEquals(entries.get(0).getBucketName(), "db_1_0_0");
+		assertEquals(entries.get(0).getFormat(), BucketFormat.SPLUNK_BUCKET);
+		assertNull(entries.get(0).getSize());
+		assertEquals(entries.get(1).getFormat(), BucketFormat.CSV);
+		verify(archiveBucketSize, never()).readBucketSize(any(Bucket.class));
+	}
+
+	public void readSizes_entries_entriesWithSizesFromArchive() {
+		when(archiveBucketSize.readBucketSize(any(Bucket.class))).thenReturn(5L);
+		List<CatalogEntry> sized = crawler.readSizes(asList(new CatalogEntry(
+				"index", "db_1_0_0", BucketFormat.CSV, null)));
+		assertEquals(sized.size(), 1);
+		assertEquals(sized.get(0).getBucketName(), "db_1_0_0");
+		assertEquals(sized.get(0).getFormat(), BucketFormat.CSV);
+		assertEquals(sized.get(0).getSize(), (Long) 5L);
+	}
+
+	public void readSizes_sizeCouldNotBeRead_leavesEntryOut() {
+		when(archiveBucketSize.readBucketSize(any(Bucket.class))).thenReturn(null);
+		assertTrue(crawler.readSizes(
+				asList(new CatalogEntry("index", "db_1_0_0", BucketFormat.CSV, null)))
+				.isEmpty());
+	}
+
+	public void crawl_manyIndexes_crawlsIndexesOnTheIndexTasks()
+			throws IOException {
+		ConcurrentIndexTasks indexTasks = spy(ConcurrentIndexTasks.serial());
+		when(archiveFileSystem.listPath("/home")).thenReturn(
+				asList("/home/index", "/home/other"));
+		new ArchiveCatalogCrawler(archiveFileSystem, pathResolver,
+				archiveBucketSize, indexTasks).crawl();
+		verify(indexTasks).runForIndexes(eq(asList("index", "other")),
+				Matchers.<IndexTask<List<CatalogEntry>>> any());
+	}
+
+	public void crawl_pathThatIsNotAFormat_skipsPath() throws IOException {
+		when(archiveFileSystem.listPath("/home/index/db_1_0_0")).thenReturn(
+				asList("/home/index/db_1_0_0/not-a-format"));
+		assertTrue(crawler.crawl().isEmpty());
+	}
+
+	@Test(expectedExceptions = { IOException.class })
+	public void crawl_listingFails_throws() throws IOException {
+		when(archiveFileSystem.listPath("/home/index")).thenThrow(
+				new IOException());
+		crawler.crawl();
+	}
+
+	public void crawl_archiveGlobs_globsFormatsOfEachIndexOnce()
+			throws IOException {
+		ArchiveFileSystem globbingArchive = mock(ArchiveFileSystem.class,
+				withSettings().extraInterfaces(GlobsPaths.class));
+		when(globbingArchive.listPath("/home")).thenReturn(asList("/home/index"));
+		when(pathResolver.getFormatsGlob("index")).thenReturn("/home/index/*/*");
+		when(((GlobsPaths) globbingArchive).globPaths("/home/index/*/*"))
+				.thenReturn(asList("/home/index/db_1_0_0/CSV"));
+
+		List<CatalogEntry> entries = new ArchiveCatalogCrawler(globbingArchive,
+				pathResolver, archiveBucketSize, ConcurrentIndexTasks.serial())
+				.crawl();
+		assertEquals(entries.size(), 1);
+		assertEquals(entries.get(0).getBucketName(), "db_1_0_0");
+		assertEquals(entries.get(0).getFormat(), BucketFormat.CSV);
+		verify(globbingArchive, never()).listPath("/home/index");
+	}
+}
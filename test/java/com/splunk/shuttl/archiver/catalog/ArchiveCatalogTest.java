@@ -0,0 +1,320 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.catalog;
+
+import static com.splunk.shuttl.testutil.TUtilsFile.*;
+import static java.util.Arrays.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.archive.BucketFormat;
+import com.splunk.shuttl.archiver.filesystem.PathResolver;
+import com.splunk.shuttl.archiver.model.Bucket;
+import com.splunk.shuttl.archiver.model.RemoteBucket;
+import com.splunk.shuttl.archiver.thaw.BucketIntervalIndex;
+
+@Test(groups = { "fast-unit" })
+public class ArchiveCatalogTest {
+
+	private File directory;
+	private File log;
+	private ArchiveCatalogCrawler crawler;
+	private PathResolver pathResolver;
+	private ArchiveCatalog catalog;
+
+	@BeforeMethod
+	public void setUp() throws IOException {
+		directory = createDirectory();
+		log = new File(directory, "catalog.log");
+		crawler = mock(ArchiveCatalogCrawler.class);
+		when(crawler.crawl()).thenReturn(new ArrayList<CatalogEntry>());
+		pathResolver = mock(PathResolver.class);
+		catalog = newCatalog();
+	}
+
+	private ArchiveCatalog newCatalog() {
+		return new ArchiveCatalog(log, "archive", crawler, pathResolver);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		FileUtils.deleteQuietly(directory);
+	}
+
+	private Bucket bucket(String index, String name, BucketFormat format,
+			Long size) {
+		return new RemoteBucket("/path", index, name, format, size);
+	}
+
+	public void listIndexes_noLog_crawlsArchiveAndWritesLog() throws IOException {
+		when(crawler.crawl()).thenReturn(
+				asList(new CatalogEntry("b", "db_1_0_0", BucketFormat.CSV, 1L),
+						new CatalogEntry("a", "db_1_0_0", BucketFormat.CSV, 1L)));
+
+		assertEquals(catalog.listIndexes(), asList("a", "b"));
+		assertEquals(newCatalog().listIndexes(), asList("a", "b"));
+		verify(crawler, times(1)).crawl();
+		assertTrue(log.exists());
+	}
+
+	@SuppressWarnings("unchecked")
+	public void listIndexes_crawledWithoutSizes_readsSizesAfterCrawl()
+			throws IOException {
+		when(crawler.crawl()).thenReturn(
+				asList(new CatalogEntry("index", "db_1_0_0", BucketFormat.CSV, null)));
+		when(crawler.readSizes(anyList())).thenReturn(
+				asList(new CatalogEntry("index", "db_1_0_0", BucketFormat.CSV, 5L)));
+
+		catalog.listIndexes();
+
+		for (ArchiveCatalog c : asList(catalog, newCatalog()))
+			assertEquals(c.getEntry("index", "db_1_0_0", BucketFormat.CSV)
+					.getSize(), (Long) 5L);
+	}
+
+	@SuppressWarnings("unchecked")
+	public void listIndexes_sizesBeingRead_catalogCanBeListedByOtherThreads()
+			throws IOException {
+		when(crawler.crawl()).thenReturn(
+				asList(new CatalogEntry("index", "db_1_0_0", BucketFormat.CSV, null)));
+		final List<String> listedWhileReadingSizes = new ArrayList<String>();
+		when(crawler.readSizes(anyList())).thenAnswer(
+				new Answer<List<CatalogEntry>>() {
+					@Override
+					public List<CatalogEntry> answer(InvocationOnMock invocation)
+							throws InterruptedException {
+						Thread lister = new Thread() {
+							@Override
+							public void run() {
+								listedWhileReadingSizes.addAll(catalog.listIndexes());
+							}
+						};
+						lister.start();
+						lister.join(5000);
+						return new ArrayList<CatalogEntry>();
+					}
+				});
+
+		catalog.listIndexes();
+		assertEquals(listedWhileReadingSizes, asList("index"));
+	}
+
+	public void listIndexes_listedTwice_crawlsOnce() throws IOException {
+		catalog.listIndexes();
+		catalog.listIndexes();
+		verify(crawler, times(1)).crawl();
+	}
+
+	public void add_catalogUsed_bucketInCatalogAndLog() throws IOException {
+		catalog.listIndexes();
+		catalog.add(bucket("index", "db_1_0_0", BucketFormat.SPLUNK_BUCKET, 10L));
+
+		for (ArchiveCatalog c : asList(catalog, newCatalog())) {
+			assertEquals(c.listIndexes(), asList("index"));
+			assertEquals(
+					c.getEntry("index", "db_1_0_0", BucketFormat.SPLUNK_BUCKET)
+							.getSize(), (Long) 10L);
+		}
+		verify(crawler, times(1)).crawl();
+	}
+
+	public void add_catalogNotUsedButLogExists_appendsToLog() {
+		catalog.listIndexes();
+		newCatalog().add(bucket("index", "db_1_0_0", BucketFormat.CSV, 1L));
+		assertEquals(newCatalog().getFormats("index", "db_1_0_0"),
+				asList(BucketFormat.CSV));
+	}
+
+	public void add_noLog_doesNotCreateLogSinceItWouldMissBuckets() {
+		catalog.add(bucket("index", "db_1_0_0", BucketFormat.CSV, 1L));
+		assertFalse(log.exists());
+	}
+
+	public void add_bucketArchivedWhileCrawling_bucketInCatalogAfterCrawl()
+			throws IOException {
+		when(crawler.crawl()).thenAnswer(new Answer<List<CatalogEntry>>() {
+			@Override
+			public List<CatalogEntry> answer(InvocationOnMock invocation) {
+				catalog.add(bucket("index", "db_1_0_0", BucketFormat.CSV, 1L));
+				return new ArrayList<CatalogEntry>();
+			}
+		});
+		assertEquals(catalog.listIndexes(), asList("index"));
+		assertEquals(newCatalog().listIndexes(), asList("index"));
+	}
+
+	public void addIfMissing_bucketInCatalog_doesNotAppendToLog() {
+		catalog.listIndexes();
+		catalog.add(bucket("index", "db_1_0_0", BucketFormat.CSV, 1L));
+		long logLength = log.length();
+
+		catalog.addIfMissing(bucket("index", "db_1_0_0", BucketFormat.CSV, 1L));
+		assertEquals(log.length(), logLength);
+	}
+
+	public void addIfMissing_bucketNotInCatalog_addsBucket() {
+		catalog.listIndexes();
+		catalog.addIfMissing(bucket("index", "db_1_0_0", BucketFormat.CSV, 1L));
+		assertEquals(newCatalog().getFormats("index", "db_1_0_0"),
+				asList(BucketFormat.CSV));
+	}
+
+	public void getFormats_bucketArchivedInFormats_allFormats() {
+		catalog.listIndexes();
+		catalog.add(bucket("index", "db_1_0_0", BucketFormat.CSV, 1L));
+		catalog.add(bucket("index", "db_1_0_0", BucketFormat.SPLUNK_BUCKET, 1L));
+		assertEquals(catalog.getFormats("index", "db_1_0_0"),
+				asList(BucketFormat.SPLUNK_BUCKET, BucketFormat.CSV));
+	}
+
+	public void getFormats_unknownBucket_empty() {
+		assertTrue(catalog.getFormats("index", "db_1_0_0").isEmpty());
+		assertNull(catalog.getEntry("index", "db_1_0_0", BucketFormat.CSV));
+	}
+
+	public void listBucketsInIndex_bucketsInIndex_bucketsWithoutFormatAtFormatsHome() {
+		when(pathResolver.getFormatsHome("index", "db_1_0_0")).thenReturn(
+				"/formats/home");
+		catalog.listIndexes();
+		catalog.add(bucket("index", "db_1_0_0", BucketFormat.CSV, 1L));
+		catalog.add(bucket("index", "db_1_0_0", BucketFormat.SPLUNK_BUCKET, 1L));
+
+		List<Bucket> buckets = catalog.listBucketsInIndex("index");
+		assertEquals(buckets.size(), 1);
+		assertEquals(buckets.get(0).getName(), "db_1_0_0");
+		assertEquals(buckets.get(0).getPath(), "/formats/home");
+		assertNull(buckets.get(0).getFormat());
+		assertTrue(catalog.listBucketsInIndex("other").isEmpty());
+	}
+
+	public void listIndexes_partlyWrittenLastLine_skipsLineWithoutCrawling()
+			throws IOException {
+		catalog.listIndexes();
+		catalog.add(bucket("index", "db_1_0_0", BucketFormat.CSV, 1L));
+		String partlyWritten = new CatalogEntry("other", "db_2_0_0",
+				BucketFormat.CSV, 1L).toLine().substring(0, 10);
+		FileUtils.writeStringToFile(log, partlyWritten, true);
+
+		assertEquals(newCatalog().listIndexes(), asList("index"));
+		verify(crawler, times(1)).crawl();
+	}
+
+	public void listIndexes_corruptLineBeforeLastLine_rebuildsFromArchive()
+			throws IOException {
+		catalog.listIndexes();
+		FileUtils.writeStringToFile(log, "corrupt\n", true);
+		catalog.add(bucket("index", "db_1_0_0", BucketFormat.CSV, 1L));
+
+		assertTrue(newCatalog().listIndexes().isEmpty());
+		verify(crawler, times(2)).crawl();
+	}
+
+	public void listIndexes_logOfOtherArchive_rebuildsFromArchive()
+			throws IOException {
+		catalog.listIndexes();
+		new ArchiveCatalog(log, "other archive", crawler, pathResolver)
+				.listIndexes();
+		verify(crawler, times(2)).crawl();
+	}
+
+	public void invalidate_usedCatalog_rebuildsFromArchive() throws IOException {
+		catalog.listIndexes();
+		catalog.invalidate();
+		catalog.listIndexes();
+		verify(crawler, times(2)).crawl();
+	}
+
+	public void listIndexes_crawlFails_throwsAndRetriesNextTime()
+			throws IOException {
+		when(crawler.crawl()).thenThrow(new IOException()).thenReturn(
+				Collections.<CatalogEntry> emptyList());
+		try {
+			catalog.listIndexes();
+			fail();
+		} catch (RuntimeException e) {
+		}
+		assertTrue(catalog.listIndexes().isEmpty());
+	}
+
+	public void getBucketIntervalIndex_noBucketsAdded_sameIndexForEveryRequest() {
+		assertSame(catalog.getBucketIntervalIndex("index"),
+				catalog.getBucketIntervalIndex("index"));
+	}
+
+	public void getBucketIntervalIndex_bucketAddedToIndex_newIndexWithBucket() {
+		catalog.listIndexes();
+		BucketIntervalIndex before = catalog.getBucketIntervalIndex("index");
+		catalog.add(bucket("index", "db_2_1_0", BucketFormat.CSV, 1L));
+		BucketIntervalIndex after = catalog.getBucketIntervalIndex("index");
+		assertEquals(before.size(), 0);
+		assertEquals(after.size(), 1);
+	}
+
+	private List<String> namesOf(List<Bucket> buckets) {
+		List<String> names = new ArrayList<String>();
+		for (Bucket bucket : buckets)
+			names.add(bucket.getName());
+		return names;
+	}
+
+	public void listBucketsInIndexAfter_moreBucketsThanLimit_bucketsAfterNameUpToLimit() {
+		catalog.listIndexes();
+		for (String name : asList("db_2_1_1", "db_4_3_3", "db_6_5_5", "db_8_7_7"))
+			catalog.add(bucket("index", name, BucketFormat.CSV, 1L));
+
+		List<Bucket> buckets = catalog.listBucketsInIndexAfter("index",
+				"db_2_1_1", new Date(0), new Date(10000), 2);
+		assertEquals(namesOf(buckets), asList("db_4_3_3", "db_6_5_5"));
+		assertNull(buckets.get(0).getFormat());
+	}
+
+	public void listBucketsInIndexAfter_noName_bucketsFromFirst() {
+		catalog.listIndexes();
+		catalog.add(bucket("index", "db_4_3_3", BucketFormat.CSV, 1L));
+		catalog.add(bucket("index", "db_2_1_1", BucketFormat.CSV, 1L));
+
+		assertEquals(namesOf(catalog.listBucketsInIndexAfter("index", null,
+				new Date(0), new Date(10000), 5)), asList("db_2_1_1", "db_4_3_3"));
+	}
+
+	public void listBucketsInIndexAfter_bucketOutsideTimeRange_leftOutWithoutCountingIt() {
+		catalog.listIndexes();
+		for (String name : asList("db_2_1_1", "db_6_5_5", "db_8_7_7"))
+			catalog.add(bucket("index", name, BucketFormat.CSV, 1L));
+
+		assertEquals(namesOf(catalog.listBucketsInIndexAfter("index", null,
+				new Date(4000), new Date(10000), 1)), asList("db_6_5_5"));
+	}
+
+	public void listBucketsInIndexAfter_unknownIndex_empty() {
+		assertTrue(catalog.listBucketsInIndexAfter("other", null, new Date(0),
+				new Date(10000), 5).isEmpty());
+	}
+}
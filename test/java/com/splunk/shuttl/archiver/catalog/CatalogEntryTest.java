@@ -0,0 +1,58 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.catalog;
+
+import static org.testng.Assert.*;
+
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.archive.BucketFormat;
+
+@Test(groups = { "fast-unit" })
+public class CatalogEntryTest {
+
+	public void parse_lineOfEntry_sameEntry() {
+		CatalogEntry entry = new CatalogEntry("index", "db_1_0_0",
+				BucketFormat.SPLUNK_BUCKET_TGZ, 123L);
+		CatalogEntry parsed = CatalogEntry.parse(entry.toLine());
+		assertEquals(parsed.getIndex(), "index");
+		assertEquals(parsed.getBucketName(), "db_1_0_0");
+		assertEquals(parsed.getFormat(), BucketFormat.SPLUNK_BUCKET_TGZ);
+		assertEquals(parsed.getSize(), (Long) 123L);
+	}
+
+	public void parse_lineOfEntryWithoutSize_nullSize() {
+		CatalogEntry entry = new CatalogEntry("index", "db_1_0_0",
+				BucketFormat.CSV, null);
+		assertNull(CatalogEntry.parse(entry.toLine()).getSize());
+	}
+
+	public void parse_partlyWrittenLine_null() {
+		String line = new CatalogEntry("index", "db_1_0_0", BucketFormat.CSV, 10L)
+				.toLine();
+		assertNull(CatalogEntry.parse(line.substring(0, line.length() - 1)));
+	}
+
+	public void parse_changedLine_null() {
+		String line = new CatalogEntry("index", "db_1_0_0", BucketFormat.CSV, 10L)
+				.toLine();
+		assertNull(CatalogEntry.parse(line.replace("index", "other")));
+	}
+
+	public void parse_garbage_null() {
+		assertNull(CatalogEntry.parse("garbage"));
+		assertNull(CatalogEntry.parse("1\ta\tb\tc\td"));
+	}
+}
@@ -132,6 +132,16 @@ public class PathResolverTest {
 		assertEquals(expectedFormatsHome, actualFormatsHome);
 	}
 
+	public void getFormatsGlob_givenIndex_bucketsHomePlusAnyBucketAndAnyFormat() {
+		assertEquals(pathResolver.getBucketsHome("index") + "/*/*",
+				pathResolver.getFormatsGlob("index"));
+	}
+
+	public void getBucketMetadataGlob_givenIndex_formatsGlobPlusAnyMetadataFile() {
+		assertEquals(pathResolver.getFormatsGlob("index") + "/archive_meta/*",
+				pathResolver.getBucketMetadataGlob("index"));
+	}
+
 	public void resolveArchivedBucketPath_givenIndexBucketNameAndFormat_pathEqualsFormatsHomePlusFormat() {
 		String index = "index";
 		String bucketName = "bucketName";
@@ -195,6 +205,22 @@ public class PathResolverTest {
 		assertEquals(expected, actual);
 	}
 
+	public void getBucketMetadataHome_bucket_metadataFolderInTheBucket() {
+		assertEquals(getArchivePathUpToBucketMetadata(),
+				pathResolver.getBucketMetadataHome(bucket));
+	}
+
+	public void getMetadataManifestsHome_index_manifestsFolderInArchiveDataPathPerServerAndIndex() {
+		assertEquals(ROOT_PATH + "/archive_manifests/" + clusterName + "/"
+				+ serverName + "/index", pathResolver.getMetadataManifestsHome("index"));
+	}
+
+	public void resolveTempPathForMetadataManifest_indexAndName_manifestPathUnderTempPath() {
+		assertEquals(ROOT_PATH + "/" + tmpDirectory
+				+ pathResolver.getMetadataManifestsHome("index") + "/manifest-1",
+				pathResolver.resolveTempPathForMetadataManifest("index", "manifest-1"));
+	}
+
 	public void resolvePathForBucketMetadata_bucketAndFile_hasFileNameOfMetadataFile() {
 		File metadataFile = createFile("metadata.file");
 		String metadataPath = pathResolver.resolvePathForBucketMetadata(bucket,
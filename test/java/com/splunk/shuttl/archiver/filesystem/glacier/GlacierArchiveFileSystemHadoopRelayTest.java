@@ -20,10 +20,12 @@ import static org.testng.Assert.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileStatus;
 import com.splunk.shuttl.archiver.filesystem.hadoop.HadoopArchiveFileSystem;
 import com.splunk.shuttl.archiver.filesystem.transaction.file.FileTransactionCleaner;
 import com.splunk.shuttl.archiver.filesystem.transaction.file.TransfersFiles;
@@ -85,6 +87,13 @@ public class GlacierArchiveFileSystemHadoopRelayTest {
 		assertEquals(asList(path2), glacier.listPath(path1));
 	}
 
+	public void listStatus__relaysToHadoop() throws IOException {
+		List<ArchiveFileStatus> statuses = asList(new ArchiveFileStatus(path2, 1,
+				2, false));
+		when(hadoop.listStatus(path1)).thenReturn(statuses);
+		assertEquals(statuses, glacier.listStatus(path1));
+	}
+
 	public void exists__relaysToHadoop() throws IOException {
 		glacier.exists(path1);
 		verify(hadoop).exists(path1);
@@ -28,6 +28,7 @@ import org.apache.hadoop.fs.FileSystem;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileStatus;
 import com.splunk.shuttl.testutil.TUtilsFile;
 import com.splunk.shuttl.testutil.TUtilsFileSystem;
 
@@ -89,6 +90,35 @@ public class HadoopArchiveFileSystemTest {
 		assertEquals(0, listing.size());
 	}
 
+	public void listStatus_directoryWithFileAndDirectory_statusOfBoth()
+			throws IOException {
+		File dir = createDirectory();
+		File file = createFileInParent(dir, "file");
+		FileUtils.writeStringToFile(file, "12345");
+		File subDirectory = createDirectoryInParent(dir, "sub");
+
+		List<ArchiveFileStatus> statuses = hadoopArchiveFileSystem.listStatus(dir
+				.getAbsolutePath());
+
+		assertEquals(2, statuses.size());
+		for (ArchiveFileStatus status : statuses)
+			if (status.getName().equals("file")) {
+				assertEquals(file.getAbsolutePath(), status.getPath());
+				assertEquals(5, status.getLength());
+				assertEquals(file.lastModified(), status.getModificationTime());
+				assertFalse(status.isDirectory());
+			} else {
+				assertEquals(subDirectory.getAbsolutePath(), status.getPath());
+				assertTrue(status.isDirectory());
+			}
+	}
+
+	public void listStatus_pathThatDoesNotExist_emptyList() throws IOException {
+		File file = createFilePath();
+		assertTrue(hadoopArchiveFileSystem.listStatus(file.getAbsolutePath())
+				.isEmpty());
+	}
+
 	public void exists_givenExistingPath_exists() throws IOException {
 		File f = createFile();
 		assertTrue(hadoopArchiveFileSystem.exists(f.getAbsolutePath()));
@@ -171,4 +201,41 @@ public class HadoopArchiveFileSystemTest {
 	public void putFile_givenRelativeBucket_putsFile() {
 
 	}
+
+	public void globPaths_directoriesTwoLevelsDown_pathsOfAllMatches()
+			throws IOException {
+		File dir = createDirectory();
+		File a = createDirectoryInParent(createDirectoryInParent(dir, "b1"), "A");
+		File b = createDirectoryInParent(createDirectoryInParent(dir, "b2"), "B");
+
+		List<String> matches = hadoopArchiveFileSystem.globPaths(dir
+				.getAbsolutePath() + "/*/*");
+		assertEquals(matches.size(), 2);
+		assertTrue(matches.contains(a.getAbsolutePath()));
+		assertTrue(matches.contains(b.getAbsolutePath()));
+	}
+
+	public void globPaths_noMatches_emptyList() throws IOException {
+		assertTrue(hadoopArchiveFileSystem.globPaths(
+				createFilePath().getAbsolutePath() + "/*/*").isEmpty());
+	}
+
+	public void globStatus_filesTwoLevelsDown_statusOfAllMatches()
+			throws IOException {
+		File dir = createDirectory();
+		File a = createFileInParent(createDirectoryInParent(dir, "b1"), "a");
+		FileUtils.writeStringToFile(a, "abc");
+
+		List<ArchiveFileStatus> matches = hadoopArchiveFileSystem.globStatus(dir
+				.getAbsolutePath() + "/*/*");
+		assertEquals(matches.size(), 1);
+		assertEquals(matches.get(0).getPath(), a.getAbsolutePath());
+		assertEquals(matches.get(0).getLength(), 3);
+		assertFalse(matches.get(0).isDirectory());
+	}
+
+	public void globStatus_noMatches_emptyList() throws IOException {
+		assertTrue(hadoopArchiveFileSystem.globStatus(
+				createFilePath().getAbsolutePath() + "/*/*").isEmpty());
+	}
 }
@@ -0,0 +1,178 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.hadoop;
+
+import static com.splunk.shuttl.testutil.TUtilsFile.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.filesystem.throttle.TransferLimiter;
+import com.splunk.shuttl.archiver.filesystem.throttle.TransferThrottle;
+import com.splunk.shuttl.archiver.util.CallingThreadExecutor;
+import com.splunk.shuttl.testutil.TUtilsFileSystem;
+
+@Test(groups = { "fast-unit" })
+public class HadoopDirectoryDownloaderTest {
+
+	private ExecutorService executor;
+	private FileSystem fileSystem;
+	private TransferThrottle throttle;
+	private HadoopDirectoryDownloader downloader;
+	private File dst;
+
+	@BeforeMethod
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(4);
+		fileSystem = TUtilsFileSystem.getLocalFileSystem();
+		throttle = new TransferThrottle(TransferLimiter.create(),
+				TransferLimiter.create());
+		downloader = new HadoopDirectoryDownloader(fileSystem, executor, 3,
+				throttle);
+		dst = createFilePath();
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		executor.shutdownNow();
+		FileUtils.deleteQuietly(dst);
+	}
+
+	public void download_directoryWithSubdirectories_copiesAllFilesUnderDst()
+			throws IOException {
+		File dir = createDirectory();
+		for (int i = 0; i < 10; i++)
+			FileUtils.writeStringToFile(createFileInParent(dir, "file" + i), "" + i);
+		File sub = createDirectoryInParent(dir, "sub");
+		FileUtils.writeStringToFile(createFileInParent(sub, "b"), "b");
+		createDirectoryInParent(dir, "empty");
+
+		downloader.download(new Path(dir.toURI()), dst);
+
+		for (int i = 0; i < 10; i++)
+			assertEquals("" + i,
+					FileUtils.readFileToString(new File(dst, "file" + i)));
+		assertEquals("b", FileUtils.readFileToString(new File(dst, "sub/b")));
+		assertTrue(new File(dst, "empty").isDirectory());
+	}
+
+	public void download_file_copiesFileToDst() throws IOException {
+		File file = createFileInParent(createDirectory(), "file");
+		FileUtils.writeStringToFile(file, "content");
+		downloader.download(new Path(file.toURI()), dst);
+		assertEquals("content", FileUtils.readFileToString(dst));
+	}
+
+	public void download_file_getsStatusOfSrcOnce() throws IOException {
+		File file = createFileInParent(createDirectory(), "file");
+		FileSystem fs = spy(fileSystem);
+		Path src = new Path(file.toURI());
+		new HadoopDirectoryDownloader(fs, executor, 2, throttle).download(src,
+				dst);
+		verify(fs, never()).exists(src);
+	}
+
+	@Test(expectedExceptions = { IOException.class })
+	public void download_srcDoesNotExist_throws() throws IOException {
+		downloader.download(new Path(createFilePath().toURI()), dst);
+	}
+
+	@Test(expectedExceptions = { IOException.class })
+	public void download_fileDownloadFails_throws() throws IOException {
+		File dir = createDirectory();
+		createFileInParent(dir, "a");
+		FileSystem fs = spy(fileSystem);
+		doThrow(new IOException()).when(fs).open(any(Path.class));
+
+		new HadoopDirectoryDownloader(fs, executor, 2, throttle).download(
+				new Path(dir.toURI()), dst);
+	}
+
+	public void download_done_removesCheckpoints() throws IOException {
+		File dir = createDirectory();
+		createFileInParent(dir, "a");
+		downloader.download(new Path(dir.toURI()), dst);
+		assertFalse(new File(dst, TransferCheckpoint.CHECKPOINTS_DIRECTORY_NAME)
+				.exists());
+	}
+
+	public void download_retriedAfterFailure_onlyDownloadsFilesThatFailed()
+			throws IOException {
+		File dir = createDirectory();
+		FileUtils.writeStringToFile(createFileInParent(dir, "a"), "a");
+		FileUtils.writeStringToFile(createFileInParent(dir, "b"), "b");
+		Path src = new Path(dir.toURI());
+		FileSystem failingFs = sortedListingSpy();
+		doThrow(new IOException()).when(failingFs).open(new Path(src, "b"));
+		try {
+			new HadoopDirectoryDownloader(failingFs, new CallingThreadExecutor(), 1,
+					throttle).download(src, dst);
+			fail();
+		} catch (IOException e) {
+		}
+
+		FileSystem retryFs = sortedListingSpy();
+		new HadoopDirectoryDownloader(retryFs, executor, 3, throttle).download(
+				src, dst);
+
+		verify(retryFs, never()).open(new Path(src, "a"));
+		verify(retryFs).open(new Path(src, "b"));
+		assertEquals("a", FileUtils.readFileToString(new File(dst, "a")));
+		assertEquals("b", FileUtils.readFileToString(new File(dst, "b")));
+	}
+
+	private FileSystem sortedListingSpy() throws IOException {
+		FileSystem fs = spy(fileSystem);
+		doAnswer(new Answer<FileStatus[]>() {
+			@Override
+			public FileStatus[] answer(InvocationOnMock invocation)
+					throws Throwable {
+				FileStatus[] listing = (FileStatus[]) invocation.callRealMethod();
+				Arrays.sort(listing);
+				return listing;
+			}
+		}).when(fs).listStatus(any(Path.class));
+		return fs;
+	}
+
+	public void download_leftOverFileInDstFromEarlierDownload_deletesIt()
+			throws IOException {
+		File dir = createDirectory();
+		createFileInParent(dir, "a");
+		dst.mkdirs();
+		File leftOver = createFileInParent(dst, "left-over");
+
+		downloader.download(new Path(dir.toURI()), dst);
+
+		assertFalse(leftOver.exists());
+		assertTrue(new File(dst, "a").exists());
+	}
+}
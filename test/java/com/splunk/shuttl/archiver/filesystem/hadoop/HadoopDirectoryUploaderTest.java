@@ -0,0 +1,209 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.hadoop;
+
+import static com.splunk.shuttl.testutil.TUtilsFile.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.filesystem.throttle.TransferLimiter;
+import com.splunk.shuttl.archiver.filesystem.throttle.TransferThrottle;
+import com.splunk.shuttl.archiver.util.CallingThreadExecutor;
+import com.splunk.shuttl.testutil.TUtilsFileSystem;
+
+@Test(groups = { "fast-unit" })
+public class HadoopDirectoryUploaderTest {
+
+	private ExecutorService executor;
+	private FileSystem fileSystem;
+	private TransferThrottle throttle;
+	private HadoopDirectoryUploader uploader;
+	private File dst;
+	private File checkpoints;
+
+	@BeforeMethod
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(4);
+		fileSystem = TUtilsFileSystem.getLocalFileSystem();
+		throttle = new TransferThrottle(TransferLimiter.create(),
+				TransferLimiter.create());
+		checkpoints = createDirectory();
+		uploader = newUploader(fileSystem, 3);
+		dst = createFilePath();
+	}
+
+	private HadoopDirectoryUploader newUploader(FileSystem fs,
+			int filesPerDirectory) {
+		return new HadoopDirectoryUploader(fs, executor, filesPerDirectory,
+				throttle, checkpoints);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		executor.shutdownNow();
+		FileUtils.deleteQuietly(dst);
+		FileUtils.deleteQuietly(checkpoints);
+	}
+
+	public void upload_directoryWithSubdirectories_copiesAllFilesUnderDst()
+			throws IOException {
+		File dir = createDirectory();
+		FileUtils.writeStringToFile(createFileInParent(dir, "a"), "a");
+		File sub = createDirectoryInParent(dir, "sub");
+		FileUtils.writeStringToFile(createFileInParent(sub, "b"), "b");
+		createDirectoryInParent(dir, "empty");
+
+		uploader.upload(dir, new Path(dst.toURI()));
+
+		assertEquals("a", FileUtils.readFileToString(new File(dst, "a")));
+		assertEquals("b", FileUtils.readFileToString(new File(dst, "sub/b")));
+		assertTrue(new File(dst, "empty").isDirectory());
+	}
+
+	public void upload_file_copiesFileToDst() throws IOException {
+		File file = createFileInParent(createDirectory(), "file");
+		FileUtils.writeStringToFile(file, "content");
+		uploader.upload(file, new Path(dst.toURI()));
+		assertEquals("content", FileUtils.readFileToString(dst));
+	}
+
+	@Test(expectedExceptions = { IOException.class })
+	public void upload_fileUploadFails_throws() throws IOException {
+		File dir = createDirectory();
+		createFileInParent(dir, "a");
+		FileSystem fs = spy(fileSystem);
+		Path dstPath = new Path(dst.toURI());
+		doThrow(new IOException()).when(fs).create(new Path(dstPath, "a"), true);
+
+		newUploader(fs, 2).upload(dir, dstPath);
+	}
+
+	public void upload_done_removesCheckpoints() throws IOException {
+		File dir = createDirectory();
+		createFileInParent(dir, "a");
+		uploader.upload(dir, new Path(dst.toURI()));
+		assertEquals(0, FileUtils.listFiles(checkpoints, null, true).size());
+	}
+
+	public void upload_directory_doesNotWriteCheckpointsToDst()
+			throws IOException {
+		File dir = createDirectory();
+		FileUtils.writeStringToFile(createFileInParent(dir, "a"), "a");
+		FileUtils.writeStringToFile(createFileInParent(dir, "b"), "b");
+		Path dstPath = new Path(dst.toURI());
+		uploadWithFailureOfSecondFile(dir, dstPath);
+
+		assertFalse(new File(dst, TransferCheckpoint.CHECKPOINTS_DIRECTORY_NAME)
+				.exists());
+		assertEquals(1, FileUtils.listFiles(checkpoints, null, true).size());
+	}
+
+	public void upload_retriedAfterFailure_doesNotUploadDoneFilesAgain()
+			throws IOException {
+		File dir = createDirectory();
+		FileUtils.writeStringToFile(createFileInParent(dir, "a"), "a");
+		FileUtils.writeStringToFile(createFileInParent(dir, "b"), "b");
+		Path dstPath = new Path(dst.toURI());
+		Path uploadedFirst = uploadWithFailureOfSecondFile(dir, dstPath);
+
+		FileSystem retryFs = spy(fileSystem);
+		newUploader(retryFs, 3).upload(dir, dstPath);
+
+		verify(retryFs, never()).create(uploadedFirst, true);
+		assertEquals("a", FileUtils.readFileToString(new File(dst, "a")));
+		assertEquals("b", FileUtils.readFileToString(new File(dst, "b")));
+	}
+
+	/**
+	 * Uploads one file at a time and fails the upload of the second file.
+	 * 
+	 * @return path of the file that was uploaded.
+	 */
+	private Path uploadWithFailureOfSecondFile(File dir, Path dstPath)
+			throws IOException {
+		FileSystem failingFs = spy(fileSystem);
+		final AtomicInteger creates = new AtomicInteger();
+		final Path[] uploadedFirst = new Path[1];
+		doAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				if (creates.incrementAndGet() > 1)
+					throw new IOException();
+				uploadedFirst[0] = (Path) invocation.getArguments()[0];
+				return invocation.callRealMethod();
+			}
+		}).when(failingFs).create(any(Path.class), eq(true));
+		try {
+			new HadoopDirectoryUploader(failingFs, new CallingThreadExecutor(), 1,
+					throttle, checkpoints).upload(dir, dstPath);
+			fail();
+		} catch (IOException e) {
+		}
+		return uploadedFirst[0];
+	}
+
+	public void upload_fileChangedAfterFailedUpload_uploadsChangedFileAgain()
+			throws IOException {
+		File dir = createDirectory();
+		File a = createFileInParent(dir, "a");
+		File b = createFileInParent(dir, "b");
+		FileUtils.writeStringToFile(a, "a");
+		FileUtils.writeStringToFile(b, "b");
+		Path dstPath = new Path(dst.toURI());
+		uploadWithFailureOfSecondFile(dir, dstPath);
+		FileUtils.writeStringToFile(a, "A");
+		FileUtils.writeStringToFile(b, "B");
+
+		uploader.upload(dir, dstPath);
+
+		assertEquals("A", FileUtils.readFileToString(new File(dst, "a")));
+		assertEquals("B", FileUtils.readFileToString(new File(dst, "b")));
+	}
+
+	public void upload_leftOverFileInDstFromEarlierUpload_deletesIt()
+			throws IOException {
+		File dir = createDirectory();
+		createFileInParent(dir, "a");
+		dst.mkdirs();
+		File leftOver = createFileInParent(createDirectoryInParent(dst, "sub"),
+				"left-over");
+
+		uploader.upload(dir, new Path(dst.toURI()));
+
+		assertFalse(leftOver.exists());
+		assertTrue(new File(dst, "a").exists());
+	}
+
+	@Test(expectedExceptions = { IllegalArgumentException.class })
+	public void construct_zeroFilesPerDirectory_throws() {
+		newUploader(fileSystem, 0);
+	}
+}
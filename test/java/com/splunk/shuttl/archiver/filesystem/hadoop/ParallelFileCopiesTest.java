@@ -0,0 +1,130 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.hadoop;
+
+import static org.testng.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.filesystem.hadoop.ParallelFileCopies.FileCopy;
+import com.splunk.shuttl.archiver.util.CallingThreadExecutor;
+
+@Test(groups = { "fast-unit" })
+public class ParallelFileCopiesTest {
+
+	private ExecutorService executor;
+	private AtomicInteger copying;
+	private AtomicInteger maxCopying;
+	private AtomicInteger copied;
+
+	@BeforeMethod
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(4);
+		copying = new AtomicInteger();
+		maxCopying = new AtomicInteger();
+		copied = new AtomicInteger();
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	private List<FileCopy> slowCopies(int n) {
+		List<FileCopy> copies = new ArrayList<FileCopy>();
+		for (int i = 0; i < n; i++)
+			copies.add(new FileCopy() {
+
+				@Override
+				public void copy() throws IOException {
+					int now = copying.incrementAndGet();
+					synchronized (maxCopying) {
+						maxCopying.set(Math.max(now, maxCopying.get()));
+					}
+					try {
+						Thread.sleep(10);
+					} catch (InterruptedException e) {
+						throw new IOException(e);
+					}
+					copying.decrementAndGet();
+					copied.incrementAndGet();
+				}
+			});
+		return copies;
+	}
+
+	public void copyAll_manyCopies_runsAtMostMaxParallelCopiesAtTheSameTime()
+			throws IOException {
+		new ParallelFileCopies(executor, 3).copyAll(slowCopies(12));
+		assertEquals(12, copied.get());
+		assertTrue(maxCopying.get() <= 3);
+		assertTrue(maxCopying.get() > 1);
+	}
+
+	public void copyAll_callingThreadExecutor_copiesOneAtATime()
+			throws IOException {
+		new ParallelFileCopies(new CallingThreadExecutor(), 1)
+				.copyAll(slowCopies(3));
+		assertEquals(3, copied.get());
+		assertEquals(1, maxCopying.get());
+	}
+
+	public void copyAll_copyFails_throwsAndStopsStartingCopies() {
+		List<FileCopy> copies = new ArrayList<FileCopy>();
+		copies.add(new FileCopy() {
+
+			@Override
+			public void copy() throws IOException {
+				throw new IOException("fail");
+			}
+		});
+		copies.addAll(slowCopies(5));
+		try {
+			new ParallelFileCopies(new CallingThreadExecutor(), 1).copyAll(copies);
+			fail();
+		} catch (IOException e) {
+			assertEquals("fail", e.getMessage());
+		}
+		assertEquals(0, copied.get());
+	}
+
+	@Test(expectedExceptions = { IOException.class })
+	public void copyAll_copyThrowsRuntimeException_throwsIOException()
+			throws IOException {
+		List<FileCopy> copies = new ArrayList<FileCopy>();
+		copies.add(new FileCopy() {
+
+			@Override
+			public void copy() throws IOException {
+				throw new IllegalStateException();
+			}
+		});
+		new ParallelFileCopies(executor, 2).copyAll(copies);
+	}
+
+	@Test(expectedExceptions = { IllegalArgumentException.class })
+	public void construct_zeroMaxParallelCopies_throws() {
+		new ParallelFileCopies(executor, 0);
+	}
+}
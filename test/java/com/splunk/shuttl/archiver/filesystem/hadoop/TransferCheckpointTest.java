@@ -0,0 +1,65 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.hadoop;
+
+import static com.splunk.shuttl.testutil.TUtilsFile.*;
+import static org.testng.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+@Test(groups = { "fast-unit" })
+public class TransferCheckpointTest {
+
+	public void of_file_lengthAndCrc32OfContent() throws IOException {
+		File file = createFile();
+		FileUtils.writeStringToFile(file, "content");
+		CRC32 crc = new CRC32();
+		crc.update("content".getBytes());
+
+		assertEquals(new TransferCheckpoint(7, crc.getValue()),
+				TransferCheckpoint.of(file));
+	}
+
+	public void copy_stream_copiesAndReturnsCheckpointOfCopiedBytes()
+			throws IOException {
+		File file = createFile();
+		FileUtils.writeStringToFile(file, "content");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		TransferCheckpoint checkpoint = TransferCheckpoint.copy(
+				new ByteArrayInputStream("content".getBytes()), out);
+
+		assertEquals("content", out.toString());
+		assertEquals(TransferCheckpoint.of(file), checkpoint);
+	}
+
+	public void parse_toStringOfCheckpoint_equalCheckpoint() {
+		TransferCheckpoint checkpoint = new TransferCheckpoint(123, 456);
+		assertEquals(checkpoint, TransferCheckpoint.parse(checkpoint.toString()));
+	}
+
+	public void parse_notACheckpoint_null() {
+		assertNull(TransferCheckpoint.parse(""));
+		assertNull(TransferCheckpoint.parse("12 abc"));
+		assertNull(TransferCheckpoint.parse("1 2 3"));
+	}
+}
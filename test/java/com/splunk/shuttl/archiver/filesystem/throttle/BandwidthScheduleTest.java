@@ -0,0 +1,76 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.throttle;
+
+import static java.util.Arrays.*;
+import static org.testng.Assert.*;
+
+import org.testng.annotations.Test;
+
+@Test(groups = { "fast-unit" })
+public class BandwidthScheduleTest {
+
+	private static int at(int hours, int minutes) {
+		return hours * 60 + minutes;
+	}
+
+	public void getBandwidthLimit_minuteInPeriod_kilobytesOfPeriodAsBytes() {
+		BandwidthSchedule schedule = BandwidthSchedule
+				.parse(asList("08:00-18:00=10"));
+		assertEquals(10 * 1024, schedule.getBandwidthLimit(at(12, 0), 0));
+	}
+
+	public void getBandwidthLimit_minuteOutsidePeriods_defaultLimit() {
+		BandwidthSchedule schedule = BandwidthSchedule
+				.parse(asList("08:00-18:00=10"));
+		assertEquals(7, schedule.getBandwidthLimit(at(18, 0), 7));
+		assertEquals(7, schedule.getBandwidthLimit(at(7, 59), 7));
+	}
+
+	public void getBandwidthLimit_periodOverMidnight_containsMinutesOnBothDays() {
+		BandwidthSchedule schedule = BandwidthSchedule
+				.parse(asList("22:00-06:00=1"));
+		assertEquals(1024, schedule.getBandwidthLimit(at(23, 30), 0));
+		assertEquals(1024, schedule.getBandwidthLimit(at(5, 59), 0));
+		assertEquals(0, schedule.getBandwidthLimit(at(6, 0), 0));
+	}
+
+	public void getBandwidthLimit_overlappingPeriods_firstPeriodWins() {
+		BandwidthSchedule schedule = BandwidthSchedule.parse(asList(
+				"09:00-10:00=1", "00:00-24:00=2"));
+		assertEquals(1024, schedule.getBandwidthLimit(at(9, 30), 0));
+		assertEquals(2048, schedule.getBandwidthLimit(at(11, 0), 0));
+	}
+
+	public void getBandwidthLimit_zeroKilobytes_unlimitedDuringPeriod() {
+		BandwidthSchedule schedule = BandwidthSchedule
+				.parse(asList("00:00-06:00=0"));
+		assertEquals(0, schedule.getBandwidthLimit(at(1, 0), 100));
+	}
+
+	public void parse_null_emptySchedule() {
+		assertTrue(BandwidthSchedule.parse(null).isEmpty());
+	}
+
+	@Test(expectedExceptions = { IllegalArgumentException.class })
+	public void parse_notFormattedAsPeriod_throws() {
+		BandwidthSchedule.parse(asList("from 8 to 18"));
+	}
+
+	@Test(expectedExceptions = { IllegalArgumentException.class })
+	public void parse_invalidTimeOfDay_throws() {
+		BandwidthSchedule.parse(asList("08:00-25:00=10"));
+	}
+}
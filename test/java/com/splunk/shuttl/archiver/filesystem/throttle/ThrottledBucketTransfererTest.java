@@ -0,0 +1,95 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.throttle;
+
+import static com.splunk.shuttl.testutil.TUtilsFile.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.mockito.InOrder;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.filesystem.transaction.ResumesTransfers;
+import com.splunk.shuttl.archiver.filesystem.transaction.bucket.TransfersBuckets;
+import com.splunk.shuttl.archiver.model.LocalBucket;
+import com.splunk.shuttl.archiver.model.RemoteBucket;
+import com.splunk.shuttl.testutil.TUtilsBucket;
+
+@Test(groups = { "fast-unit" })
+public class ThrottledBucketTransfererTest {
+
+	private TransfersBuckets transfersBuckets;
+	private TransferLimiter uploadLimiter;
+	private TransferLimiter downloadLimiter;
+	private ThrottledBucketTransferer transferer;
+
+	@BeforeMethod
+	public void setUp() {
+		transfersBuckets = mock(TransfersBuckets.class);
+		uploadLimiter = mock(TransferLimiter.class);
+		downloadLimiter = mock(TransferLimiter.class);
+		transferer = ThrottledBucketTransferer.create(transfersBuckets,
+				uploadLimiter, downloadLimiter);
+	}
+
+	public void put_localBucket_acquiresBucketDirectoryBeforePutting()
+			throws IOException {
+		LocalBucket bucket = TUtilsBucket.createBucket();
+		transferer.put(bucket, "temp", "dst");
+
+		InOrder inOrder = inOrder(uploadLimiter, transfersBuckets);
+		inOrder.verify(uploadLimiter).acquire(bucket.getDirectory());
+		inOrder.verify(transfersBuckets).put(bucket, "temp", "dst");
+		inOrder.verify(uploadLimiter).transferred(bucket.getDirectory());
+		verifyZeroInteractions(downloadLimiter);
+	}
+
+	public void get_remoteBucket_chargesDownloadedTempAfterGetting()
+			throws IOException {
+		RemoteBucket bucket = TUtilsBucket.createRemoteBucket();
+		File temp = createDirectory();
+		File dst = createFilePath();
+		transferer.get(bucket, temp, dst);
+
+		InOrder inOrder = inOrder(downloadLimiter, transfersBuckets);
+		inOrder.verify(downloadLimiter).acquire(0, 0);
+		inOrder.verify(transfersBuckets).get(bucket, temp, dst);
+		inOrder.verify(downloadLimiter).charge(temp);
+		verifyZeroInteractions(uploadLimiter);
+	}
+
+	@Test(expectedExceptions = { IOException.class })
+	public void put_transferFails_throws() throws IOException {
+		doThrow(new IOException()).when(transfersBuckets).put(
+				any(LocalBucket.class), anyString(), anyString());
+		transferer.put(TUtilsBucket.createBucket(), "temp", "dst");
+	}
+
+	public void create_transfererResumesTransfers_throttledTransfererDoesToo() {
+		TransfersBuckets resuming = mock(TransfersBuckets.class,
+				withSettings().extraInterfaces(ResumesTransfers.class));
+		assertTrue(ThrottledBucketTransferer.create(resuming, uploadLimiter,
+				downloadLimiter) instanceof ResumesTransfers);
+	}
+
+	public void create_transfererDoesNotResumeTransfers_throttledDoesNotEither() {
+		assertFalse(transferer instanceof ResumesTransfers);
+	}
+}
@@ -0,0 +1,80 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.throttle;
+
+import static com.splunk.shuttl.archiver.filesystem.throttle.ThrottledOutputStream.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.apache.commons.io.IOUtils;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups = { "fast-unit" })
+public class ThrottledInputStreamTest {
+
+	private TransferLimiter limiter;
+
+	@BeforeMethod
+	public void setUp() {
+		limiter = mock(TransferLimiter.class);
+	}
+
+	private ThrottledInputStream throttle(byte[] bytes) {
+		return new ThrottledInputStream(new ByteArrayInputStream(bytes), limiter);
+	}
+
+	public void read_byte_acquiresAndRecordsIt() throws IOException {
+		assertEquals(7, throttle(new byte[] { 7 }).read());
+		verify(limiter).acquire(1, 0);
+		verify(limiter).transferred(1);
+	}
+
+	public void read_endOfStream_acquiresNothing() throws IOException {
+		ThrottledInputStream in = throttle(new byte[0]);
+		assertEquals(-1, in.read());
+		assertEquals(-1, in.read(new byte[10], 0, 10));
+		verify(limiter, never()).acquire(anyLong(), anyLong());
+	}
+
+	public void read_largerBufferThanAChunk_readsAtMostAChunk()
+			throws IOException {
+		byte[] buffer = new byte[CHUNK_SIZE * 2];
+		int read = throttle(new byte[CHUNK_SIZE + 10]).read(buffer, 0,
+				buffer.length);
+
+		assertEquals(CHUNK_SIZE, read);
+		verify(limiter).acquire(CHUNK_SIZE, 0);
+		verify(limiter).transferred(CHUNK_SIZE);
+	}
+
+	public void read_wholeStream_acquiresAllBytes() throws IOException {
+		byte[] bytes = new byte[CHUNK_SIZE * 3 + 1];
+		bytes[CHUNK_SIZE * 2] = 1;
+		assertEquals(bytes, IOUtils.toByteArray(throttle(bytes)));
+
+		ArgumentCaptor<Long> acquired = ArgumentCaptor.forClass(Long.class);
+		verify(limiter, atLeastOnce()).acquire(acquired.capture(), eq(0L));
+		long total = 0;
+		for (long byteCount : acquired.getAllValues())
+			total += byteCount;
+		assertEquals(bytes.length, total);
+	}
+}
@@ -0,0 +1,71 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.throttle;
+
+import static com.splunk.shuttl.archiver.filesystem.throttle.ThrottledOutputStream.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.mockito.InOrder;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups = { "fast-unit" })
+public class ThrottledOutputStreamTest {
+
+	private ByteArrayOutputStream out;
+	private TransferLimiter limiter;
+	private ThrottledOutputStream throttled;
+
+	@BeforeMethod
+	public void setUp() {
+		out = new ByteArrayOutputStream();
+		limiter = mock(TransferLimiter.class);
+		throttled = new ThrottledOutputStream(out, limiter);
+	}
+
+	public void write_byte_acquiresBeforeWritingAndRecordsAfter()
+			throws IOException {
+		throttled.write(7);
+
+		InOrder inOrder = inOrder(limiter);
+		inOrder.verify(limiter).acquire(1, 0);
+		inOrder.verify(limiter).transferred(1);
+		assertEquals(new byte[] { 7 }, out.toByteArray());
+	}
+
+	public void write_moreThanAChunk_acquiresEveryChunkSeparately()
+			throws IOException {
+		byte[] bytes = new byte[CHUNK_SIZE * 2 + 10];
+		bytes[CHUNK_SIZE] = 1;
+		throttled.write(bytes, 0, bytes.length);
+
+		verify(limiter, times(2)).acquire(CHUNK_SIZE, 0);
+		verify(limiter).acquire(10, 0);
+		verify(limiter, times(2)).transferred(CHUNK_SIZE);
+		verify(limiter).transferred(10);
+		assertEquals(bytes, out.toByteArray());
+	}
+
+	public void write_offsetIntoArray_writesOnlyTheRange() throws IOException {
+		throttled.write(new byte[] { 1, 2, 3, 4 }, 1, 2);
+
+		verify(limiter).acquire(2, 0);
+		assertEquals(new byte[] { 2, 3 }, out.toByteArray());
+	}
+}
@@ -0,0 +1,47 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.throttle;
+
+import static org.testng.Assert.*;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups = { "fast-unit" })
+public class ThroughputMeterTest {
+
+	private ThroughputMeter meter;
+
+	@BeforeMethod
+	public void setUp() {
+		meter = new ThroughputMeter();
+	}
+
+	public void getBytesPerSecond_nothingRecorded_zero() {
+		assertEquals(0, meter.getBytesPerSecond(System.currentTimeMillis()));
+	}
+
+	public void getBytesPerSecond_recordedInWindow_averagedOverWindow() {
+		meter.record(10000, 1000);
+		meter.record(10000, 5000);
+		assertEquals(2000, meter.getBytesPerSecond(9000));
+	}
+
+	public void getBytesPerSecond_recordedBeforeWindow_notCounted() {
+		meter.record(10000, 1000);
+		meter.record(10000, 12000);
+		assertEquals(1000, meter.getBytesPerSecond(12000));
+	}
+}
@@ -0,0 +1,81 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.throttle;
+
+import static org.testng.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+@Test(groups = { "fast-unit" })
+public class TokenBucketTest {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	public void take_unlimited_neverWaits() {
+		TokenBucket bucket = new TokenBucket(0, 0);
+		assertEquals(0, bucket.take(Long.MAX_VALUE / 2, 0));
+		assertEquals(0, bucket.take(Long.MAX_VALUE / 2, 0));
+	}
+
+	public void take_permitsInBucket_doesNotWait() {
+		TokenBucket bucket = new TokenBucket(100, 0);
+		assertEquals(0, bucket.take(100, 0));
+	}
+
+	public void take_moreThanBucketHolds_waitsForDebt() {
+		TokenBucket bucket = new TokenBucket(100, 0);
+		assertEquals(SECOND, bucket.take(200, 0));
+	}
+
+	public void take_bucketInDebt_nextTakerWaitsForDebtToo() {
+		TokenBucket bucket = new TokenBucket(100, 0);
+		bucket.take(200, 0);
+		assertEquals(2 * SECOND, bucket.take(100, 0));
+	}
+
+	public void take_timePassed_bucketRefilled() {
+		TokenBucket bucket = new TokenBucket(100, 0);
+		bucket.take(100, 0);
+		assertEquals(0, bucket.take(50, SECOND / 2));
+	}
+
+	public void take_idleForLong_holdsOneSecondOfPermits() {
+		TokenBucket bucket = new TokenBucket(100, 0);
+		assertEquals(SECOND, bucket.take(200, 60 * SECOND));
+	}
+
+	public void setPermitsPerSecond_fromUnlimited_startsWithFullBucket() {
+		TokenBucket bucket = new TokenBucket(0, 0);
+		bucket.take(1000, 0);
+		bucket.setPermitsPerSecond(100, 0);
+		assertEquals(0, bucket.take(100, 0));
+		assertEquals(SECOND, bucket.take(100, 0));
+	}
+
+	public void setPermitsPerSecond_lowerRate_bucketHoldsOneSecondOfNewRate() {
+		TokenBucket bucket = new TokenBucket(1000, 0);
+		bucket.setPermitsPerSecond(100, 0);
+		assertEquals(SECOND, bucket.take(200, 0));
+	}
+
+	public void setPermitsPerSecond_zero_unlimited() {
+		TokenBucket bucket = new TokenBucket(100, 0);
+		bucket.take(1000, 0);
+		bucket.setPermitsPerSecond(0, 0);
+		assertEquals(0, bucket.take(1000, 0));
+	}
+}
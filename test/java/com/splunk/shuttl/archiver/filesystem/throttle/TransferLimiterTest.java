@@ -0,0 +1,111 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.throttle;
+
+import static com.splunk.shuttl.testutil.TUtilsFile.*;
+import static java.util.Arrays.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups = { "fast-unit" })
+public class TransferLimiterTest {
+
+	private TokenBucket bytes;
+	private TokenBucket files;
+	private ThroughputMeter throughputMeter;
+	private TransferLimiter limiter;
+
+	@BeforeMethod
+	public void setUp() {
+		bytes = mock(TokenBucket.class);
+		files = mock(TokenBucket.class);
+		throughputMeter = mock(ThroughputMeter.class);
+		limiter = new TransferLimiter(bytes, files, throughputMeter);
+	}
+
+	public void reserve_bytesAndFiles_waitsForTheLongestOfTheTwo() {
+		when(bytes.take(100, 0)).thenReturn(10L);
+		when(files.take(2, 0)).thenReturn(20L);
+		assertEquals(20, limiter.reserve(100, 2, 0, 0));
+	}
+
+	public void reserve_minuteInScheduledPeriod_usesScheduledBandwidth() {
+		limiter.setLimits(100, 0, BandwidthSchedule.parse(asList("01:00-02:00=1")));
+		limiter.reserve(1, 1, 0, 90);
+		verify(bytes).setPermitsPerSecond(1024, 0);
+	}
+
+	public void reserve_minuteOutsideScheduledPeriods_usesBandwidthLimit() {
+		limiter.setLimits(100, 0, BandwidthSchedule.parse(asList("01:00-02:00=1")));
+		limiter.reserve(1, 1, 0, 180);
+		verify(bytes).setPermitsPerSecond(100, 0);
+	}
+
+	public void acquire_directory_takesSizeAndNumberOfFiles() throws IOException {
+		File dir = createDirectory();
+		FileUtils.writeStringToFile(createFileInParent(dir, "a"), "abc");
+		FileUtils.writeStringToFile(
+				createFileInParent(createDirectoryInParent(dir, "sub"), "b"), "de");
+		limiter.acquire(dir);
+		verify(bytes).take(eq(5L), anyLong());
+		verify(files).take(eq(2L), anyLong());
+	}
+
+	public void charge_file_takesSizeAndOneFile() throws IOException {
+		File file = createFileInParent(createDirectory(), "file");
+		FileUtils.writeStringToFile(file, "abc");
+		limiter.charge(file);
+		verify(bytes).take(eq(3L), anyLong());
+		verify(files).take(eq(1L), anyLong());
+	}
+
+	public void throttle_outputStream_takesOneFileAndNoBytes() throws IOException {
+		OutputStream throttled = limiter.throttle(new ByteArrayOutputStream());
+		verify(files).take(eq(1L), anyLong());
+		verify(bytes).take(eq(0L), anyLong());
+		assertTrue(throttled instanceof ThrottledOutputStream);
+	}
+
+	public void throttle_inputStream_takesOneFileAndNoBytes() throws IOException {
+		InputStream throttled = limiter.throttle(new ByteArrayInputStream(
+				new byte[0]));
+		verify(files).take(eq(1L), anyLong());
+		verify(bytes).take(eq(0L), anyLong());
+		assertTrue(throttled instanceof ThrottledInputStream);
+	}
+
+	public void transferred_bytes_recordedByThroughputMeter() {
+		limiter.transferred(123);
+		verify(throughputMeter).record(eq(123L), anyLong());
+	}
+
+	public void create_unlimited_acquireDoesNotWait() throws IOException {
+		TransferLimiter unlimited = TransferLimiter.create();
+		long start = System.nanoTime();
+		unlimited.acquire(Long.MAX_VALUE / 2, Long.MAX_VALUE / 2);
+		assertTrue(System.nanoTime() - start < 1000000000L);
+	}
+}
@@ -0,0 +1,72 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.throttle;
+
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+
+import org.mockito.ArgumentMatcher;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.archive.ArchiveConfiguration;
+
+@Test(groups = { "fast-unit" })
+public class TransferThrottleTest {
+
+	private TransferLimiter uploadLimiter;
+	private TransferLimiter downloadLimiter;
+	private TransferThrottle throttle;
+	private ArchiveConfiguration config;
+
+	@BeforeMethod
+	public void setUp() {
+		uploadLimiter = mock(TransferLimiter.class);
+		downloadLimiter = mock(TransferLimiter.class);
+		throttle = new TransferThrottle(uploadLimiter, downloadLimiter);
+		config = mock(ArchiveConfiguration.class);
+	}
+
+	public void configure_limits_setsLimitsOfUploadsAndDownloads() {
+		when(config.getUploadBandwidthLimit()).thenReturn(1024L);
+		when(config.getUploadOperationsLimit()).thenReturn(10);
+		when(config.getDownloadBandwidthLimit()).thenReturn(2048L);
+		when(config.getDownloadOperationsLimit()).thenReturn(20);
+		throttle.configure(config);
+
+		verify(uploadLimiter).setLimits(eq(1024L), eq(10L),
+				any(BandwidthSchedule.class));
+		verify(downloadLimiter).setLimits(eq(2048L), eq(20L),
+				any(BandwidthSchedule.class));
+	}
+
+	public void configure_invalidSchedule_ignoresSchedule() {
+		when(config.getUploadBandwidthSchedule()).thenReturn(
+				Arrays.asList("invalid"));
+		throttle.configure(config);
+		verify(uploadLimiter).setLimits(anyLong(), anyLong(),
+				argThat(new EmptySchedule()));
+	}
+
+	private static class EmptySchedule extends
+			ArgumentMatcher<BandwidthSchedule> {
+		@Override
+		public boolean matches(Object argument) {
+			return ((BandwidthSchedule) argument).isEmpty();
+		}
+	}
+}
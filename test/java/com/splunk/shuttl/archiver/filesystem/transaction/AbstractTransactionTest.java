@@ -45,13 +45,22 @@ public class AbstractTransactionTest {
 		temp = "/remote/temp";
 		dst = "/remote/dst";
 
-		transaction = new AbstractTransaction<String>(hasFileStructure,
+		transaction = createTransaction(false);
+	}
+
+	private Transaction createTransaction(final boolean resumesTransfers) {
+		return new AbstractTransaction<String>(hasFileStructure,
 				transactionCleaner, data, temp, dst) {
 			@Override
 			protected void doTransferData(String data, String temp, String dst)
 					throws IOException {
 				transfersData.put(data, temp, dst);
 			}
+
+			@Override
+			protected boolean resumesTransfers() {
+				return resumesTransfers;
+			}
 		};
 	}
 
@@ -108,4 +117,36 @@ public class AbstractTransactionTest {
 				anyString());
 		transaction.commit();
 	}
+
+	public void clean_transferFailedAndResumesTransfers_keepsTemp()
+			throws IOException {
+		transaction = createTransaction(true);
+		doThrow(IOException.class).when(transfersData).put(anyString(),
+				anyString(), anyString());
+		try {
+			transaction.prepare();
+		} catch (TransactionException e) {
+		}
+		transaction.clean();
+		verifyZeroInteractions(transactionCleaner);
+	}
+
+	public void clean_transferFailedAndDoesNotResumeTransfers_cleansTemp()
+			throws IOException {
+		doThrow(IOException.class).when(transfersData).put(anyString(),
+				anyString(), anyString());
+		try {
+			transaction.prepare();
+		} catch (TransactionException e) {
+		}
+		transaction.clean();
+		verify(transactionCleaner).cleanTransaction(data, temp);
+	}
+
+	public void clean_transferSucceededAndResumesTransfers_cleansTemp() {
+		transaction = createTransaction(true);
+		transaction.prepare();
+		transaction.clean();
+		verify(transactionCleaner).cleanTransaction(data, temp);
+	}
 }
@@ -21,6 +21,8 @@ import org.mockito.InOrder;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.splunk.shuttl.archiver.metrics.StageMetrics;
+
 @Test(groups = { "fast-unit" })
 public class TransactionExecuterTest {
 
@@ -63,4 +65,28 @@ public class TransactionExecuterTest {
 		}
 		verify(transaction).clean();
 	}
+
+	public void execute_withMetrics_recordsPrepareAndCommit() {
+		StageMetrics prepareMetrics = new StageMetrics();
+		StageMetrics commitMetrics = new StageMetrics();
+		new TransactionExecuter(prepareMetrics, commitMetrics).execute(transaction);
+
+		assertEquals(1, prepareMetrics.getCount());
+		assertEquals(1, commitMetrics.getCount());
+		assertEquals(0, prepareMetrics.getFailures());
+	}
+
+	public void execute_prepareThrowsWithMetrics_recordsFailedPrepareOnly() {
+		StageMetrics prepareMetrics = new StageMetrics();
+		StageMetrics commitMetrics = new StageMetrics();
+		doThrow(new RuntimeException()).when(transaction).prepare();
+		try {
+			new TransactionExecuter(prepareMetrics, commitMetrics)
+					.execute(transaction);
+			fail();
+		} catch (RuntimeException e) {
+		}
+		assertEquals(1, prepareMetrics.getFailures());
+		assertEquals(0, commitMetrics.getCount());
+	}
 }
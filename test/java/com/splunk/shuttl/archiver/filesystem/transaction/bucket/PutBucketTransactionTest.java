@@ -0,0 +1,82 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.transaction.bucket;
+
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.mockito.InOrder;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.filesystem.transaction.Transaction;
+import com.splunk.shuttl.archiver.filesystem.transaction.TransactionalFileSystem;
+import com.splunk.shuttl.archiver.model.Bucket;
+import com.splunk.shuttl.testutil.TUtilsBucket;
+
+@Test(groups = { "fast-unit" })
+public class PutBucketTransactionTest {
+
+	private TransactionalFileSystem fs;
+	private TransfersBuckets transfersBuckets;
+	private Transaction metadataTransaction;
+	private Bucket bucket;
+	private PutBucketTransaction transaction;
+
+	@BeforeMethod
+	public void setUp() {
+		fs = mock(TransactionalFileSystem.class);
+		transfersBuckets = mock(TransfersBuckets.class);
+		when(fs.getBucketTransferer()).thenReturn(transfersBuckets);
+		when(fs.getBucketTransactionCleaner()).thenReturn(
+				mock(BucketTransactionCleaner.class));
+		metadataTransaction = mock(Transaction.class);
+		bucket = TUtilsBucket.createBucket();
+		transaction = PutBucketTransaction.create(fs, bucket, "/temp", "/dst",
+				Arrays.asList(metadataTransaction));
+	}
+
+	public void prepare_withMetadata_preparesMetadataAfterPuttingBucket()
+			throws IOException {
+		transaction.prepare();
+
+		InOrder inOrder = inOrder(transfersBuckets, metadataTransaction);
+		inOrder.verify(transfersBuckets).put(bucket, "/temp", "/dst");
+		inOrder.verify(metadataTransaction).prepare();
+	}
+
+	public void commit_withMetadata_renamesOnlyTheTempOfTheBucket()
+			throws IOException {
+		transaction.prepare();
+		transaction.commit();
+
+		verify(fs).rename("/temp", "/dst");
+		verify(metadataTransaction, never()).commit();
+	}
+
+	public void prepare_bucketAlreadyInArchive_doesNotPrepareMetadata()
+			throws IOException {
+		when(fs.exists("/dst")).thenReturn(true);
+		transaction.prepare();
+		verifyZeroInteractions(metadataTransaction);
+	}
+
+	public void clean_withMetadata_cleansMetadata() {
+		transaction.clean();
+		verify(metadataTransaction).clean();
+	}
+}
@@ -0,0 +1,97 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.transaction.bucket;
+
+import static com.splunk.shuttl.testutil.TUtilsFile.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.filesystem.FileOverwriteException;
+import com.splunk.shuttl.archiver.filesystem.ReadsFiles;
+import com.splunk.shuttl.archiver.filesystem.throttle.TransferLimiter;
+import com.splunk.shuttl.archiver.filesystem.throttle.TransferThrottle;
+import com.splunk.shuttl.archiver.importexport.tgz.ParallelGzipOutputStream;
+import com.splunk.shuttl.archiver.importexport.tgz.TarWriter;
+import com.splunk.shuttl.archiver.importexport.tgz.TgzExtractor;
+import com.splunk.shuttl.archiver.model.Bucket;
+import com.splunk.shuttl.archiver.model.LocalBucket;
+import com.splunk.shuttl.testutil.TUtilsBucket;
+
+@Test(groups = { "fast-unit" })
+public class TgzExtractingBucketTransfererTest {
+
+	private ExecutorService executor;
+	private ReadsFiles readsFiles;
+	private TgzExtractingBucketTransferer transferer;
+	private Bucket remoteBucket;
+	private File temp;
+	private File dst;
+
+	@BeforeMethod
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(2);
+		readsFiles = mock(ReadsFiles.class);
+		transferer = new TgzExtractingBucketTransferer(readsFiles,
+				new TgzExtractor(executor, 2), new TransferThrottle(
+				TransferLimiter.create(), TransferLimiter.create()));
+		remoteBucket = TUtilsBucket.createRemoteBucket();
+		temp = createFilePath();
+		dst = createFilePath();
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		executor.shutdownNow();
+		FileUtils.deleteQuietly(temp);
+	}
+
+	public void get_tgzInArchive_extractsTgzStreamToTemp() throws IOException {
+		LocalBucket bucket = TUtilsBucket.createBucket();
+		String tgzPath = remoteBucket.getPath() + "/" + remoteBucket.getName()
+				+ ".tgz";
+		when(readsFiles.openFile(tgzPath)).thenReturn(
+				new ByteArrayInputStream(createTgz(bucket.getDirectory())));
+
+		transferer.get(remoteBucket, temp, dst);
+
+		assertTrue(new File(temp, "rawdata/slices.dat").exists());
+	}
+
+	@Test(expectedExceptions = { FileOverwriteException.class })
+	public void get_dstExists_throws() throws IOException {
+		transferer.get(remoteBucket, temp, createDirectory());
+	}
+
+	private byte[] createTgz(File directory) throws IOException {
+		ByteArrayOutputStream tgz = new ByteArrayOutputStream();
+		TarWriter tarWriter = new TarWriter(new ParallelGzipOutputStream(tgz,
+				executor, 6, 2));
+		tarWriter.putDirectoryRecursively(directory);
+		tarWriter.close();
+		return tgz.toByteArray();
+	}
+}
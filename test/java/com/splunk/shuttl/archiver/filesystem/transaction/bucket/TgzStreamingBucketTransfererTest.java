@@ -0,0 +1,90 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.filesystem.transaction.bucket;
+
+import static com.splunk.shuttl.testutil.TUtilsFile.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.filesystem.WritesFiles;
+import com.splunk.shuttl.archiver.filesystem.throttle.TransferLimiter;
+import com.splunk.shuttl.archiver.filesystem.throttle.TransferThrottle;
+import com.splunk.shuttl.archiver.importexport.GetsBucketsExportFile;
+import com.splunk.shuttl.archiver.importexport.tgz.CreatesBucketTgz;
+import com.splunk.shuttl.archiver.importexport.tgz.TgzExtractor;
+import com.splunk.shuttl.archiver.model.LocalBucket;
+import com.splunk.shuttl.testutil.TUtilsBucket;
+
+@Test(groups = { "fast-unit" })
+public class TgzStreamingBucketTransfererTest {
+
+	private ExecutorService executor;
+	private WritesFiles writesFiles;
+	private GetsBucketsExportFile getsBucketsExportFile;
+	private TgzStreamingBucketTransferer transferer;
+	private File extracted;
+
+	@BeforeMethod
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(2);
+		writesFiles = mock(WritesFiles.class);
+		getsBucketsExportFile = mock(GetsBucketsExportFile.class);
+		transferer = new TgzStreamingBucketTransferer(writesFiles,
+				new CreatesBucketTgz(getsBucketsExportFile, executor, 6, 2),
+				new TransferThrottle(TransferLimiter.create(),
+						TransferLimiter.create()));
+		extracted = createFilePath();
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		executor.shutdownNow();
+		FileUtils.deleteQuietly(extracted);
+	}
+
+	public void put_bucket_writesTgzOfBucketToFileInTemp() throws IOException {
+		LocalBucket bucket = TUtilsBucket.createBucket();
+		String temp = "/archive/temp";
+		ByteArrayOutputStream remoteFile = new ByteArrayOutputStream();
+		when(writesFiles.createFile(temp + "/" + bucket.getName() + ".tgz"))
+				.thenReturn(remoteFile);
+
+		transferer.put(bucket, temp, "/archive/dst");
+
+		new TgzExtractor(executor, 2).extract(
+				new ByteArrayInputStream(remoteFile.toByteArray()), extracted);
+		assertTrue(new File(extracted, "rawdata/slices.dat").exists());
+	}
+
+	public void put_bucket_doesNotCreateLocalExportFile() throws IOException {
+		LocalBucket bucket = TUtilsBucket.createBucket();
+		when(writesFiles.createFile(anyString())).thenReturn(
+				new ByteArrayOutputStream());
+		transferer.put(bucket, "/archive/temp", "/archive/dst");
+		verifyZeroInteractions(getsBucketsExportFile);
+	}
+}
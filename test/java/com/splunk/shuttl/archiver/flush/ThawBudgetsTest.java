@@ -0,0 +1,57 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.flush;
+
+import static java.util.Arrays.*;
+import static org.testng.Assert.*;
+
+import java.util.Collections;
+
+import org.testng.annotations.Test;
+
+@Test(groups = { "fast-unit" })
+public class ThawBudgetsTest {
+
+	private static final long MEGABYTE = 1024 * 1024;
+
+	public void getBudgetBytes_indexWithBudget_megabytesInBytes() {
+		ThawBudgets budgets = new ThawBudgets(asList("main=10"));
+		assertEquals(10 * MEGABYTE, budgets.getBudgetBytes("main"));
+	}
+
+	public void getBudgetBytes_indexWithoutBudget_minusOne() {
+		ThawBudgets budgets = new ThawBudgets(asList("main=10"));
+		assertEquals(-1, budgets.getBudgetBytes("other"));
+	}
+
+	public void getBudgetBytes_indexWithoutBudgetAndBudgetForAllIndexes_budgetForAllIndexes() {
+		ThawBudgets budgets = new ThawBudgets(asList("main=10", "*=2"));
+		assertEquals(2 * MEGABYTE, budgets.getBudgetBytes("other"));
+		assertEquals(10 * MEGABYTE, budgets.getBudgetBytes("main"));
+	}
+
+	public void new_invalidEntries_areIgnored() {
+		ThawBudgets budgets = new ThawBudgets(asList("main", "=1", "a=b", "c=-1",
+				" d = 3 "));
+		assertEquals(-1, budgets.getBudgetBytes("a"));
+		assertEquals(-1, budgets.getBudgetBytes("c"));
+		assertEquals(3 * MEGABYTE, budgets.getBudgetBytes("d"));
+	}
+
+	public void isEmpty_noEntries_true() {
+		assertTrue(new ThawBudgets(Collections.<String> emptyList()).isEmpty());
+		assertFalse(new ThawBudgets(asList("*=0")).isEmpty());
+	}
+}
@@ -0,0 +1,118 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.flush;
+
+import static com.splunk.shuttl.testutil.TUtilsFile.*;
+import static java.util.Arrays.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import java.io.File;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.bucketlock.BucketLock;
+import com.splunk.shuttl.archiver.bucketlock.BucketLocker;
+import com.splunk.shuttl.archiver.bucketlock.BucketLockerInTestDir;
+import com.splunk.shuttl.archiver.model.IllegalIndexException;
+import com.splunk.shuttl.archiver.model.LocalBucket;
+import com.splunk.shuttl.archiver.thaw.SplunkIndexesLayer;
+import com.splunk.shuttl.testutil.TUtilsBucket;
+
+@Test(groups = { "fast-unit" })
+public class ThawCacheEvictorTest {
+
+	private ThawCacheEvictor evictor;
+	private SplunkIndexesLayer splunkIndexesLayer;
+	private BucketLocker thawBucketLocker;
+	private ThawBudgets thawBudgets;
+	private String index;
+	private File thawDir;
+
+	@BeforeMethod
+	public void setUp() throws IllegalIndexException {
+		splunkIndexesLayer = mock(SplunkIndexesLayer.class);
+		thawBucketLocker = new BucketLockerInTestDir(createDirectory());
+		thawBudgets = mock(ThawBudgets.class);
+		evictor = new ThawCacheEvictor(splunkIndexesLayer, thawBucketLocker,
+				thawBudgets);
+		index = "index";
+		thawDir = createDirectory();
+		when(splunkIndexesLayer.getThawLocation(index)).thenReturn(thawDir);
+	}
+
+	private LocalBucket thawedBucketAt(long lastThawed) {
+		LocalBucket bucket = TUtilsBucket.createBucketInDirectoryWithIndex(
+				thawDir, index);
+		assertTrue(bucket.getDirectory().setLastModified(lastThawed));
+		return bucket;
+	}
+
+	public void evict_indexWithoutBudget_evictsNothing()
+			throws IllegalIndexException {
+		when(thawBudgets.getBudgetBytes(index)).thenReturn(-1L);
+		LocalBucket bucket = thawedBucketAt(1000);
+		assertTrue(evictor.evict(index).isEmpty());
+		assertTrue(bucket.getDirectory().exists());
+	}
+
+	public void evict_withinBudget_evictsNothing() throws IllegalIndexException {
+		LocalBucket bucket = thawedBucketAt(1000);
+		when(thawBudgets.getBudgetBytes(index)).thenReturn(bucket.getSize());
+		assertTrue(evictor.evict(index).isEmpty());
+		assertTrue(bucket.getDirectory().exists());
+	}
+
+	public void evict_overBudget_evictsLeastRecentlyThawedUntilWithinBudget()
+			throws IllegalIndexException {
+		LocalBucket newest = thawedBucketAt(3000);
+		LocalBucket oldest = thawedBucketAt(1000);
+		LocalBucket middle = thawedBucketAt(2000);
+		when(thawBudgets.getBudgetBytes(index)).thenReturn(
+				newest.getSize() + middle.getSize());
+
+		assertEquals(asList(oldest), evictor.evict(index));
+		assertFalse(oldest.getDirectory().exists());
+		assertTrue(middle.getDirectory().exists());
+		assertTrue(newest.getDirectory().exists());
+	}
+
+	public void evict_leastRecentlyThawedIsBeingThawed_evictsTheNextOne()
+			throws IllegalIndexException {
+		LocalBucket beingThawed = thawedBucketAt(1000);
+		LocalBucket next = thawedBucketAt(2000);
+		when(thawBudgets.getBudgetBytes(index)).thenReturn(beingThawed.getSize());
+		BucketLock thawLock = thawBucketLocker.tryLockShared(beingThawed);
+		try {
+			assertEquals(asList(next), evictor.evict(index));
+			assertTrue(beingThawed.getDirectory().exists());
+		} finally {
+			thawLock.closeLock();
+		}
+	}
+
+	public void evictIndexes_evictingAnIndexFails_evictsTheOtherIndexes()
+			throws IllegalIndexException {
+		when(splunkIndexesLayer.getThawLocation("failing")).thenThrow(
+				new IllegalIndexException("failing"));
+		when(thawBudgets.getBudgetBytes(anyString())).thenReturn(0L);
+		LocalBucket bucket = thawedBucketAt(1000);
+
+		evictor.evictIndexes(asList("failing", index));
+		assertFalse(bucket.getDirectory().exists());
+	}
+}
@@ -43,10 +43,17 @@ public class GetsBucketsExportFileTest {
 		getsBucketsExportFile = new GetsBucketsExportFile(localFileSystemPaths);
 	}
 
-	public void __fileInExportDir() {
+	public void __fileInExtensionDirInExportDir() {
 		File file = getsBucketsExportFile.getExportFile(bucket, extension);
-		assertEquals(localFileSystemPaths.getExportDirectory(bucket),
-				file.getParentFile());
+		assertEquals(extension, file.getParentFile().getName());
+		assertEquals(localFileSystemPaths.getExportDirectory(bucket), file
+				.getParentFile().getParentFile());
+	}
+
+	public void getExportFile_differentExtensions_differentDirectories() {
+		File file = getsBucketsExportFile.getExportFile(bucket, extension);
+		File otherFile = getsBucketsExportFile.getExportFile(bucket, "other");
+		assertNotEquals(file.getParentFile(), otherFile.getParentFile());
 	}
 
 	public void __parentDirectoryExists() {
@@ -15,14 +15,18 @@
 package com.splunk.shuttl.archiver.importexport.tgz;
 
 import static com.splunk.shuttl.testutil.TUtilsFile.*;
+import static java.util.Arrays.*;
 import static org.testng.Assert.*;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
 
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import com.splunk.shuttl.archiver.LocalFileSystemPaths;
-import com.splunk.shuttl.archiver.importexport.GetsBucketsExportFile;
 import com.splunk.shuttl.archiver.importexport.ShellExecutor;
 import com.splunk.shuttl.archiver.model.LocalBucket;
 import com.splunk.shuttl.testutil.TUtilsBucket;
@@ -30,14 +34,40 @@ import com.splunk.shuttl.testutil.TUtilsBucket;
 @Test(groups = { "slow-unit" })
 public class CreatesBucketTgzIntegrationTest {
 
-	public void _usingRealClasses_tgzBucketFileExists() {
-		CreatesBucketTgz createsBucketTgz = new CreatesBucketTgz(
-				ShellExecutor.getInstance(), new GetsBucketsExportFile(
-						new LocalFileSystemPaths(createDirectory())));
+	private CreatesBucketTgz createsBucketTgz;
+
+	@BeforeMethod
+	public void setUp() {
+		createsBucketTgz = CreatesBucketTgz.create(new LocalFileSystemPaths(
+				createDirectory()));
+	}
 
+	public void _usingRealClasses_tgzBucketFileExists() {
 		LocalBucket bucket = TUtilsBucket.createBucket();
 		File tgz = createsBucketTgz.createTgz(bucket);
 		assertTrue(tgz.exists());
 		assertNotEquals(0, tgz.length());
 	}
+
+	public void _realBucket_extractsWithTarToSameFiles() throws IOException {
+		LocalBucket bucket = TUtilsBucket.createRealBucket();
+		File tgz = createsBucketTgz.createTgz(bucket);
+
+		File extractDir = createDirectory();
+		String[] command = { "tar", "-xzf", tgz.getAbsolutePath(), "-C",
+				extractDir.getAbsolutePath() };
+		int exit = ShellExecutor.getInstance().executeCommand(
+				new HashMap<String, String>(), asList(command));
+		assertEquals(exit, 0);
+
+		File extractedBucket = new File(extractDir, bucket.getDirectory()
+				.getName());
+		for (File file : FileUtils.listFiles(bucket.getDirectory(), null, true)) {
+			String relativePath = file.getAbsolutePath().substring(
+					bucket.getDirectory().getAbsolutePath().length());
+			File extracted = new File(extractedBucket, relativePath);
+			assertTrue(FileUtils.contentEquals(file, extracted), "Differs: "
+					+ relativePath);
+		}
+	}
 }
@@ -15,19 +15,27 @@
 package com.splunk.shuttl.archiver.importexport.tgz;
 
 import static com.splunk.shuttl.testutil.TUtilsFile.*;
-import static java.util.Arrays.*;
-import static org.mockito.Matchers.*;
 import static org.mockito.Mockito.*;
 import static org.testng.Assert.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.util.HashMap;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import com.splunk.shuttl.archiver.importexport.GetsBucketsExportFile;
-import com.splunk.shuttl.archiver.importexport.ShellExecutor;
+import com.splunk.shuttl.archiver.importexport.tgz.CreatesBucketTgz.TgzBucketCreationFailedException;
 import com.splunk.shuttl.archiver.model.LocalBucket;
 import com.splunk.shuttl.testutil.TUtilsBucket;
 
@@ -35,48 +43,76 @@ import com.splunk.shuttl.testutil.TUtilsBucket;
 public class CreatesBucketTgzTest {
 
 	private CreatesBucketTgz createsBucketTgz;
-	private ShellExecutor shellExecutor;
 	private GetsBucketsExportFile getsBucketsExportFile;
+	private ExecutorService executor;
 
-	private HashMap<String, String> emptyMap;
 	private LocalBucket bucket;
 	private File tgz;
 
 	@BeforeMethod
 	public void setUp() {
-		shellExecutor = mock(ShellExecutor.class);
 		getsBucketsExportFile = mock(GetsBucketsExportFile.class);
-		createsBucketTgz = new CreatesBucketTgz(shellExecutor,
-				getsBucketsExportFile);
+		executor = Executors.newFixedThreadPool(2);
+		createsBucketTgz = new CreatesBucketTgz(getsBucketsExportFile, executor,
+				6, 2);
 
-		emptyMap = new HashMap<String, String>();
 		bucket = TUtilsBucket.createBucket();
-		tgz = createFile();
+		tgz = createFilePath();
 		when(getsBucketsExportFile.getExportFile(bucket, "tgz")).thenReturn(tgz);
 	}
 
-	public void _givenBucket_createsTarWithBucketNameAndTarExtension() {
-		String tgzBucketCmd = "tar -C "
-				+ bucket.getDirectory().getParentFile().getAbsolutePath() + " -c "
-				+ bucket.getDirectory().getName() + " | gzip -c > "
-				+ tgz.getAbsolutePath();
-		String[] cmd = { "/bin/sh", "-c", tgzBucketCmd };
+	@AfterMethod
+	public void tearDown() {
+		executor.shutdownNow();
+		FileUtils.deleteQuietly(tgz);
+	}
 
-		when(shellExecutor.executeCommand(emptyMap, asList(cmd))).thenReturn(0);
+	public void _givenBucket_createsGzippedTarStartingWithBucketDirectory()
+			throws IOException {
+		File createdTgz = createsBucketTgz.createTgz(bucket);
 
-		createsBucketTgz.createTgz(bucket);
+		assertEquals(createdTgz, tgz);
+		byte[] firstHeader = readFirstTarHeader(createdTgz);
+		String expectedName = bucket.getDirectory().getName() + "/";
+		assertEquals(new String(firstHeader, 0, expectedName.length()),
+				expectedName);
+		assertEquals(firstHeader[156], '5');
+	}
 
-		verify(shellExecutor).executeCommand(emptyMap, asList(cmd));
+	private byte[] readFirstTarHeader(File file) throws IOException {
+		InputStream in = new GZIPInputStream(new FileInputStream(file));
+		try {
+			byte[] header = new byte[TarWriter.BLOCK_SIZE];
+			IOUtils.readFully(in, header);
+			return header;
+		} finally {
+			in.close();
+		}
 	}
 
-	@SuppressWarnings("unchecked")
-	public void _tarFails_throwsAndNoTrashFilesExist() {
-		when(shellExecutor.executeCommand(anyMap(), anyList())).thenReturn(1);
+	public void _tarFails_throwsAndNoTrashFilesExist() throws IOException {
+		FileUtils.deleteDirectory(bucket.getDirectory());
 
 		try {
 			createsBucketTgz.createTgz(bucket);
-		} catch (RuntimeException e) {
+			fail("should have thrown");
+		} catch (TgzBucketCreationFailedException e) {
 			assertFalse(tgz.exists());
 		}
 	}
+
+	public void writeTgz_tarFails_closesStreamWithoutEndOfArchive()
+			throws IOException {
+		FileUtils.deleteDirectory(bucket.getDirectory());
+		ByteArrayOutputStream written = new ByteArrayOutputStream();
+		OutputStream out = spy(written);
+
+		try {
+			createsBucketTgz.writeTgz(bucket, out);
+			fail("should have thrown");
+		} catch (IOException e) {
+			assertEquals(written.size(), 0);
+			verify(out).close();
+		}
+	}
 }
@@ -0,0 +1,124 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.importexport.tgz;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups = { "fast-unit" })
+public class ParallelGzipOutputStreamTest {
+
+	private ExecutorService executor;
+	private ByteArrayOutputStream compressed;
+
+	@BeforeMethod
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(3);
+		compressed = new ByteArrayOutputStream();
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	public void write_dataLargerThanManyBlocks_decompressesToSameData()
+			throws IOException {
+		byte[] data = randomBytes(10 * 1000 + 7);
+		ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(compressed,
+				executor, 6, 3, 1000);
+		gzip.write(data);
+		gzip.close();
+
+		assertEquals(decompress(compressed.toByteArray()), data);
+	}
+
+	public void write_singleBytes_decompressesToSameData() throws IOException {
+		byte[] data = randomBytes(25);
+		ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(compressed,
+				executor, 1, 2, 10);
+		for (byte b : data)
+			gzip.write(b);
+		gzip.close();
+
+		assertEquals(decompress(compressed.toByteArray()), data);
+	}
+
+	public void close_nothingWritten_writesValidEmptyGzip() throws IOException {
+		new ParallelGzipOutputStream(compressed, executor, 6, 2).close();
+
+		assertEquals(decompress(compressed.toByteArray()).length, 0);
+	}
+
+	public void write_repetitiveData_compressesIt() throws IOException {
+		byte[] data = new byte[100 * 1000];
+		ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(compressed,
+				executor, 9, 2, 10 * 1000);
+		gzip.write(data);
+		gzip.close();
+
+		assertTrue(compressed.size() < data.length / 10);
+	}
+
+	@Test(expectedExceptions = { IOException.class })
+	public void write_afterClose_throws() throws IOException {
+		ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(compressed,
+				executor, 6, 2);
+		gzip.close();
+		gzip.write(1);
+	}
+
+	public void abort_partialBlockWritten_writesNothingAndClosesStream()
+			throws IOException {
+		OutputStream out = spy(compressed);
+		ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(out,
+				executor, 6, 2, 1000);
+		gzip.write(randomBytes(10));
+		gzip.abort();
+
+		assertEquals(compressed.size(), 0);
+		verify(out).close();
+	}
+
+	@Test(expectedExceptions = { IllegalArgumentException.class })
+	public void _levelOutOfRange_throws() {
+		new ParallelGzipOutputStream(compressed, executor, 10, 2);
+	}
+
+	private byte[] randomBytes(int length) {
+		byte[] data = new byte[length];
+		new Random(length).nextBytes(data);
+		return data;
+	}
+
+	private byte[] decompress(byte[] gzip) throws IOException {
+		return IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(
+				gzip)));
+	}
+}
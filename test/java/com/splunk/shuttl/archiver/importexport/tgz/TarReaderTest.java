@@ -0,0 +1,126 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.importexport.tgz;
+
+import static com.splunk.shuttl.testutil.TUtilsFile.*;
+import static org.testng.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.importexport.tgz.TarReader.TarEntry;
+
+@Test(groups = { "fast-unit" })
+public class TarReaderTest {
+
+	private File dir;
+	private ByteArrayOutputStream tar;
+	private TarWriter tarWriter;
+
+	@BeforeMethod
+	public void setUp() {
+		dir = createDirectory();
+		tar = new ByteArrayOutputStream();
+		tarWriter = new TarWriter(tar);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		FileUtils.deleteQuietly(dir);
+	}
+
+	public void nextEntry_tarWrittenByTarWriter_readsEntriesAndContent()
+			throws IOException {
+		File bucket = createDirectoryInParent(dir, "bucket");
+		File file = createFileInParent(bucket, "file");
+		FileUtils.writeStringToFile(file, "content");
+		tarWriter.putDirectoryRecursively(bucket);
+		tarWriter.close();
+
+		TarReader tarReader = newTarReader(tar.toByteArray());
+		TarEntry directoryEntry = tarReader.nextEntry();
+		assertEquals(directoryEntry.name, "bucket/");
+		assertTrue(directoryEntry.isDirectory());
+		TarEntry fileEntry = tarReader.nextEntry();
+		assertEquals(fileEntry.name, "bucket/file");
+		assertTrue(fileEntry.isFile());
+		assertEquals(fileEntry.size, 7);
+		assertEquals(readContent(tarReader), "content");
+		assertNull(tarReader.nextEntry());
+	}
+
+	public void nextEntry_contentNotRead_skipsToNextEntry() throws IOException {
+		tarWriter.putFile(createFileWithRandomContent(), "first");
+		tarWriter.putFile(createFileWithRandomContent(), "second");
+		tarWriter.close();
+
+		TarReader tarReader = newTarReader(tar.toByteArray());
+		tarReader.nextEntry();
+		assertEquals(tarReader.nextEntry().name, "second");
+	}
+
+	public void nextEntry_nameWithPrefix_readsWholeName() throws IOException {
+		String name = repeat('d', 80) + "/" + repeat('f', 80);
+		tarWriter.putFile(createFileInParent(dir, "file"), name);
+		tarWriter.close();
+
+		assertEquals(newTarReader(tar.toByteArray()).nextEntry().name, name);
+	}
+
+	@Test(expectedExceptions = { EOFException.class })
+	public void nextEntry_tarWithoutEndOfArchive_throws() throws IOException {
+		tarWriter.putFile(createFileWithRandomContent(), "file");
+
+		TarReader tarReader = newTarReader(tar.toByteArray());
+		tarReader.nextEntry();
+		tarReader.nextEntry();
+	}
+
+	@Test(expectedExceptions = { IOException.class })
+	public void nextEntry_corruptHeader_throws() throws IOException {
+		tarWriter.putFile(createFileWithRandomContent(), "file");
+		tarWriter.close();
+		byte[] bytes = tar.toByteArray();
+		bytes[0]++;
+
+		newTarReader(bytes).nextEntry();
+	}
+
+	private TarReader newTarReader(byte[] bytes) {
+		return new TarReader(new ByteArrayInputStream(bytes));
+	}
+
+	private String readContent(TarReader tarReader) throws IOException {
+		byte[] buffer = new byte[100];
+		int read = tarReader.read(buffer, 0, buffer.length);
+		assertEquals(tarReader.read(buffer, read, buffer.length - read), -1);
+		return new String(Arrays.copyOf(buffer, read));
+	}
+
+	private String repeat(char c, int times) {
+		char[] chars = new char[times];
+		Arrays.fill(chars, c);
+		return new String(chars);
+	}
+}
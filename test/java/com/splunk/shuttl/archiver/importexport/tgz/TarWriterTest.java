@@ -0,0 +1,134 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.importexport.tgz;
+
+import static com.splunk.shuttl.testutil.TUtilsFile.*;
+import static java.util.Arrays.*;
+import static org.testng.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups = { "fast-unit" })
+public class TarWriterTest {
+
+	private static final int BLOCK = TarWriter.BLOCK_SIZE;
+
+	private File dir;
+	private ByteArrayOutputStream tar;
+	private TarWriter tarWriter;
+
+	@BeforeMethod
+	public void setUp() {
+		dir = createDirectory();
+		tar = new ByteArrayOutputStream();
+		tarWriter = new TarWriter(tar);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		FileUtils.deleteQuietly(dir);
+	}
+
+	public void putFile_file_headerContentAndPaddingInBlocks() throws IOException {
+		File file = createFileInParent(dir, "file");
+		FileUtils.writeStringToFile(file, "content");
+		tarWriter.putFile(file, "name");
+		tarWriter.close();
+
+		byte[] bytes = tar.toByteArray();
+		assertEquals(bytes.length, BLOCK * 4);
+		assertEquals(readString(bytes, 0, 100), "name");
+		assertEquals(Long.parseLong(readString(bytes, 124, 12), 8), 7);
+		assertEquals(readString(bytes, 257, 6), "ustar");
+		assertEquals(readString(bytes, BLOCK, 7), "content");
+	}
+
+	public void putFile_file_checksumIsSumOfHeaderWithBlankChecksum()
+			throws IOException {
+		tarWriter.putFile(createFileInParent(dir, "file"), "name");
+
+		byte[] header = tar.toByteArray();
+		long checksum = Long.parseLong(readString(header, 148, 6), 8);
+		long expected = 0;
+		for (int i = 0; i < BLOCK; i++)
+			expected += i >= 148 && i < 156 ? ' ' : header[i] & 0xff;
+		assertEquals(checksum, expected);
+	}
+
+	public void putDirectoryRecursively_directoryWithFiles_entriesRelativeToParent()
+			throws IOException {
+		File bucket = createDirectoryInParent(dir, "bucket");
+		File rawdata = createDirectoryInParent(bucket, "rawdata");
+		createFileInParent(rawdata, "journal.gz");
+		createFileInParent(bucket, "a.tsidx");
+
+		tarWriter.putDirectoryRecursively(bucket);
+		tarWriter.close();
+
+		assertEquals(readNames(tar.toByteArray()), asList("bucket/",
+				"bucket/a.tsidx", "bucket/rawdata/", "bucket/rawdata/journal.gz"));
+	}
+
+	public void putFile_nameLongerThanHundredBytes_splitsNameIntoPrefix()
+			throws IOException {
+		String directory = repeat('d', 80);
+		String fileName = repeat('f', 80);
+		tarWriter.putFile(createFileInParent(dir, "file"), directory + "/"
+				+ fileName);
+
+		byte[] header = tar.toByteArray();
+		assertEquals(readString(header, 0, 100), fileName);
+		assertEquals(readString(header, 345, 155), directory);
+	}
+
+	@Test(expectedExceptions = { IOException.class })
+	public void putFile_nameCannotBeSplit_throws() throws IOException {
+		tarWriter.putFile(createFileInParent(dir, "file"), repeat('f', 101));
+	}
+
+	private List<String> readNames(byte[] tarBytes) {
+		List<String> names = new ArrayList<String>();
+		int offset = 0;
+		while (tarBytes[offset] != 0) {
+			names.add(readString(tarBytes, offset, 100));
+			long size = Long.parseLong(readString(tarBytes, offset + 124, 12), 8);
+			offset += BLOCK + (size + BLOCK - 1) / BLOCK * BLOCK;
+		}
+		return names;
+	}
+
+	private String readString(byte[] bytes, int offset, int length) {
+		int end = offset;
+		while (end < offset + length && bytes[end] != 0)
+			end++;
+		return new String(bytes, offset, end - offset);
+	}
+
+	private String repeat(char c, int times) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < times; i++)
+			sb.append(c);
+		return sb.toString();
+	}
+}
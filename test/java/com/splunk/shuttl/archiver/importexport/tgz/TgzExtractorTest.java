@@ -0,0 +1,127 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.importexport.tgz;
+
+import static com.splunk.shuttl.testutil.TUtilsFile.*;
+import static org.testng.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups = { "fast-unit" })
+public class TgzExtractorTest {
+
+	private ExecutorService executor;
+	private TgzExtractor tgzExtractor;
+	private File bucketDir;
+	private File extractDir;
+
+	@BeforeMethod
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(2);
+		tgzExtractor = new TgzExtractor(executor, 2);
+		bucketDir = createDirectoryInParent(createDirectory(), "bucket");
+		extractDir = createFilePath();
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		executor.shutdownNow();
+		FileUtils.deleteQuietly(bucketDir.getParentFile());
+		FileUtils.deleteQuietly(extractDir);
+	}
+
+	public void extract_tgzOfDirectory_directoryContentInExtractDirectory()
+			throws IOException {
+		File rawdata = createDirectoryInParent(bucketDir, "rawdata");
+		File journal = createFileInParent(rawdata, "journal.gz");
+		FileUtils.writeByteArrayToFile(journal, new byte[3 * 1024 * 1024 + 11]);
+		File tsidx = createFileInParent(bucketDir, "a.tsidx");
+		populateFileWithRandomContent(tsidx);
+		createFileInParent(bucketDir, "empty");
+
+		tgzExtractor.extract(new ByteArrayInputStream(createTgz()), extractDir);
+
+		assertTrue(FileUtils.contentEquals(journal, new File(extractDir,
+				"rawdata/journal.gz")));
+		assertTrue(FileUtils.contentEquals(tsidx, new File(extractDir, "a.tsidx")));
+		assertTrue(new File(extractDir, "empty").isFile());
+		assertEquals(new File(extractDir, "a.tsidx").lastModified() / 1000,
+				tsidx.lastModified() / 1000);
+	}
+
+	public void extract_nothingAvailableBetweenGzipMembers_readsAllMembers()
+			throws IOException {
+		File file = createFileInParent(bucketDir, "file");
+		FileUtils.writeByteArrayToFile(file, new byte[5000]);
+		final byte[] tgz = createTgz(100);
+		InputStream slowStream = new ByteArrayInputStream(tgz) {
+			@Override
+			public synchronized int read(byte[] b, int off, int len) {
+				return super.read(b, off, Math.min(len, 7));
+			}
+
+			@Override
+			public synchronized int available() {
+				return 0;
+			}
+		};
+
+		tgzExtractor.extract(slowStream, extractDir);
+
+		assertTrue(FileUtils.contentEquals(file, new File(extractDir, "file")));
+	}
+
+	@Test(expectedExceptions = { IOException.class })
+	public void extract_entryOutsideOfDirectory_throws() throws IOException {
+		ByteArrayOutputStream tgz = new ByteArrayOutputStream();
+		TarWriter tarWriter = new TarWriter(new ParallelGzipOutputStream(tgz,
+				executor, 6, 1));
+		tarWriter.putFile(createFileWithRandomContent(), "bucket/../../evil");
+		tarWriter.close();
+
+		tgzExtractor.extract(new ByteArrayInputStream(tgz.toByteArray()),
+				extractDir);
+	}
+
+	@Test(expectedExceptions = { IOException.class })
+	public void extract_notATgz_throws() throws IOException {
+		tgzExtractor.extract(new ByteArrayInputStream("not a tgz".getBytes()),
+				extractDir);
+	}
+
+	private byte[] createTgz() throws IOException {
+		return createTgz(ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE);
+	}
+
+	private byte[] createTgz(int blockSize) throws IOException {
+		ByteArrayOutputStream tgz = new ByteArrayOutputStream();
+		TarWriter tarWriter = new TarWriter(new ParallelGzipOutputStream(tgz,
+				executor, 6, 2, blockSize));
+		tarWriter.putDirectoryRecursively(bucketDir);
+		tarWriter.close();
+		return tgz.toByteArray();
+	}
+}
@@ -14,15 +14,17 @@
 // limitations under the License.
 package com.splunk.shuttl.archiver.importexport.tgz;
 
-import static org.mockito.Matchers.*;
-import static org.mockito.Mockito.*;
 import static org.testng.Assert.*;
 
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
-import com.splunk.shuttl.archiver.importexport.ShellExecutor;
 import com.splunk.shuttl.archiver.importexport.tgz.TgzImporter.TgzImportFailedException;
+import com.splunk.shuttl.archiver.util.UtilsBucket;
 import com.splunk.shuttl.archiver.model.LocalBucket;
 import com.splunk.shuttl.testutil.TUtilsBucket;
 
@@ -35,7 +37,7 @@ public class TgzImporterTest {
 	@BeforeMethod
 	public void setUp() {
 		tgzBucket = TUtilsBucket.createRealSplunkBucketTgz();
-		tgzImporter = new TgzImporter(ShellExecutor.getInstance());
+		tgzImporter = TgzImporter.create();
 	}
 
 	public void _givenTgzAndOriginalBucket_importsTgzBucketToBeEqualToOriginal() {
@@ -46,15 +48,20 @@ public class TgzImporterTest {
 		assertEquals(numberOfFiles(original), numberOfFiles(imported));
 	}
 
+	public void _successfulImport_deletesTgz() {
+		File tgz = UtilsBucket.getTgzFile(tgzBucket);
+		LocalBucket imported = tgzImporter.importBucket(tgzBucket);
+		assertFalse(tgz.exists());
+		assertTrue(imported.getDirectory().exists());
+	}
+
 	private int numberOfFiles(LocalBucket original) {
 		return original.getDirectory().listFiles().length;
 	}
 
-	@SuppressWarnings("unchecked")
 	@Test(expectedExceptions = { TgzImportFailedException.class })
-	public void _unsuccessfulImport_throws() {
-		ShellExecutor shellExecutor = mock(ShellExecutor.class);
-		when(shellExecutor.executeCommand(anyMap(), anyList())).thenReturn(3);
-		new TgzImporter(shellExecutor).importBucket(tgzBucket);
+	public void _unsuccessfulImport_throws() throws IOException {
+		FileUtils.writeStringToFile(UtilsBucket.getTgzFile(tgzBucket), "corrupt");
+		tgzImporter.importBucket(tgzBucket);
 	}
 }
@@ -21,11 +21,15 @@ import static org.testng.AssertJUnit.*;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.splunk.shuttl.archiver.catalog.ArchiveCatalog;
 import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
 import com.splunk.shuttl.archiver.filesystem.PathResolver;
 import com.splunk.shuttl.archiver.model.Bucket;
@@ -45,7 +49,7 @@ public class ArchiveBucketsListerTest {
 		archiveFileSystem = mock(ArchiveFileSystem.class);
 		indexLister = mock(ArchivedIndexesLister.class);
 		pathResolver = mock(PathResolver.class);
-		archiveBucketsLister = new ArchiveBucketsLister(archiveFileSystem,
+		archiveBucketsLister = ArchiveBucketsLister.create(archiveFileSystem,
 				indexLister, pathResolver);
 	}
 
@@ -127,4 +131,83 @@ public class ArchiveBucketsListerTest {
 		assertTrue(TUtilsTestNG.isBucketEqualOnIndexFormatAndName(buckets.get(0),
 				bucket1));
 	}
+
+	public void listBucketsInIndex_withCatalog_listsBucketsInCatalogInsteadOfArchive()
+			throws IOException {
+		ArchiveCatalog catalog = mock(ArchiveCatalog.class);
+		List<Bucket> buckets = asList(mock(Bucket.class));
+		when(catalog.listBucketsInIndex("index")).thenReturn(buckets);
+		assertEquals(buckets, ArchiveBucketsLister.withCatalog(archiveFileSystem,
+				indexLister, pathResolver, catalog, ConcurrentIndexTasks.serial())
+				.listBucketsInIndex("index"));
+		verify(archiveFileSystem, never()).listPath(anyString());
+	}
+
+	public void listBucketsInIndexAfter_bucketsInArchive_sortedBucketsAfterNameUpToLimit()
+			throws IOException {
+		when(archiveFileSystem.listPath(anyString())).thenReturn(
+				asList("/home/db_4_3_3", "/home/db_2_1_1", "/home/db_6_5_5",
+						"/home/db_8_7_7"));
+		when(pathResolver.resolveIndexFromPathToBucket(anyString())).thenReturn(
+				"index");
+
+		List<Bucket> buckets = archiveBucketsLister.listBucketsInIndexAfter(
+				"index", "db_2_1_1", new Date(0), new Date(10000), 2);
+		assertEquals(2, buckets.size());
+		assertEquals("db_4_3_3", buckets.get(0).getName());
+		assertEquals("db_6_5_5", buckets.get(1).getName());
+	}
+
+	public void listBucketsInIndexAfter_bucketOutsideTimeRange_leftOut()
+			throws IOException {
+		when(archiveFileSystem.listPath(anyString())).thenReturn(
+				asList("/home/db_2_1_1", "/home/db_6_5_5"));
+		when(pathResolver.resolveIndexFromPathToBucket(anyString())).thenReturn(
+				"index");
+
+		List<Bucket> buckets = archiveBucketsLister.listBucketsInIndexAfter(
+				"index", null, new Date(4000), new Date(10000), 5);
+		assertEquals(1, buckets.size());
+		assertEquals("db_6_5_5", buckets.get(0).getName());
+	}
+
+	public void listBucketsInIndexAfter_withCatalog_pageFromCatalog()
+			throws IOException {
+		ArchiveCatalog catalog = mock(ArchiveCatalog.class);
+		Date earliest = new Date(0);
+		Date latest = new Date(10000);
+		List<Bucket> buckets = asList(mock(Bucket.class));
+		when(catalog.listBucketsInIndexAfter("index", "a", earliest, latest, 3))
+				.thenReturn(buckets);
+
+		assertEquals(buckets, ArchiveBucketsLister.withCatalog(archiveFileSystem,
+				indexLister, pathResolver, catalog, ConcurrentIndexTasks.serial())
+				.listBucketsInIndexAfter("index", "a", earliest, latest, 3));
+		verify(archiveFileSystem, never()).listPath(anyString());
+	}
+
+	public void listBuckets_indexesListedConcurrently_bucketsInOrderOfIndexes() {
+		ArchiveCatalog catalog = mock(ArchiveCatalog.class);
+		Bucket a = mock(Bucket.class);
+		Bucket b = mock(Bucket.class);
+		when(indexLister.listIndexes()).thenReturn(asList("a", "b"));
+		when(catalog.listBucketsInIndex("a")).thenReturn(asList(a));
+		when(catalog.listBucketsInIndex("b")).thenReturn(asList(b));
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			assertEquals(asList(a, b), ArchiveBucketsLister.withCatalog(
+					archiveFileSystem, indexLister, pathResolver, catalog,
+					new ConcurrentIndexTasks(executor)).listBuckets());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test(expectedExceptions = { RuntimeException.class })
+	public void listBuckets_listingAnIndexFails_throws() throws IOException {
+		when(indexLister.listIndexes()).thenReturn(asList("a", "b"));
+		when(pathResolver.getBucketsHome("b")).thenReturn("/b");
+		when(archiveFileSystem.listPath("/b")).thenThrow(new IOException());
+		archiveBucketsLister.listBuckets();
+	}
 }
@@ -25,6 +25,7 @@ import java.util.List;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.splunk.shuttl.archiver.catalog.ArchiveCatalog;
 import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
 import com.splunk.shuttl.archiver.filesystem.PathResolver;
 
@@ -76,4 +77,13 @@ public class ArchiveIndexesListerTest {
 		assertEquals(Arrays.asList("dir"), listIndexes);
 	}
 
+	public void listIndexes_withCatalog_listsIndexesInCatalogInsteadOfArchive()
+			throws IOException {
+		ArchiveCatalog catalog = mock(ArchiveCatalog.class);
+		when(catalog.listIndexes()).thenReturn(Arrays.asList("index"));
+		List<String> indexes = ArchivedIndexesLister.withCatalog(pathResolver,
+				fileSystem, catalog).listIndexes();
+		assertEquals(Arrays.asList("index"), indexes);
+		verify(fileSystem, never()).listPath(anyString());
+	}
 }
@@ -0,0 +1,134 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.listers;
+
+import static java.util.Arrays.*;
+import static org.testng.Assert.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.listers.ConcurrentIndexTasks.IndexResults;
+import com.splunk.shuttl.archiver.listers.ConcurrentIndexTasks.IndexTask;
+
+@Test(groups = { "fast-unit" })
+public class ConcurrentIndexTasksTest {
+
+	private ExecutorService executor;
+	private ConcurrentIndexTasks indexTasks;
+
+	@BeforeMethod
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(4);
+		indexTasks = new ConcurrentIndexTasks(executor);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	public void runForIndexes_manyIndexes_resultsInOrderOfIndexes() {
+		List<String> indexes = asList("a", "b", "c", "d", "e", "f", "g");
+		IndexResults<String> results = indexTasks.runForIndexes(indexes,
+				new IndexTask<String>() {
+
+					@Override
+					public String runForIndex(String index) throws Exception {
+						Thread.sleep(index.equals("a") ? 20 : 0);
+						return index + "!";
+					}
+				});
+		assertEquals(asList("a!", "b!", "c!", "d!", "e!", "f!", "g!"),
+				results.getResults());
+		assertTrue(results.getErrors().isEmpty());
+		assertNull(results.getFirstError());
+	}
+
+	public void runForIndexes_taskFailsForIndex_reportsErrorForThatIndexOnly() {
+		final IOException error = new IOException();
+		IndexResults<String> results = indexTasks.runForIndexes(
+				asList("a", "b", "c"), new IndexTask<String>() {
+
+					@Override
+					public String runForIndex(String index) throws IOException {
+						if (index.equals("b"))
+							throw error;
+						return index;
+					}
+				});
+		assertEquals(asList("a", "c"), results.getResults());
+		assertEquals(1, results.getErrors().size());
+		assertSame(error, results.getErrors().get("b"));
+		assertSame(error, results.getFirstError());
+	}
+
+	@Test(expectedExceptions = { IllegalStateException.class })
+	public void throwFirstError_runtimeExceptionForIndex_throwsIt() {
+		indexTasks.runForIndexes(asList("a"), new IndexTask<String>() {
+
+			@Override
+			public String runForIndex(String index) {
+				throw new IllegalStateException();
+			}
+		}).throwFirstError();
+	}
+
+	public void runForIndexes_tasksRunTasksOnTheSameSingleThread_doesNotDeadlock() {
+		ExecutorService singleThread = Executors.newSingleThreadExecutor();
+		try {
+			final ConcurrentIndexTasks nested = new ConcurrentIndexTasks(
+					singleThread);
+			IndexResults<List<String>> results = nested.runForIndexes(
+					asList("a", "b"), new IndexTask<List<String>>() {
+
+						@Override
+						public List<String> runForIndex(String index) {
+							return nested.runForIndexes(asList(index + "1", index + "2"),
+									new IndexTask<String>() {
+
+										@Override
+										public String runForIndex(String inner) {
+											return inner;
+										}
+									}).getResults();
+						}
+					});
+			assertEquals(asList("a1", "a2", "b1", "b2"),
+					ConcurrentIndexTasks.concat(results.getResults()));
+		} finally {
+			singleThread.shutdownNow();
+		}
+	}
+
+	public void serial_runsOnCallingThread() {
+		final Thread caller = Thread.currentThread();
+		IndexResults<Boolean> results = ConcurrentIndexTasks.serial()
+				.runForIndexes(asList("a", "b"), new IndexTask<Boolean>() {
+
+					@Override
+					public Boolean runForIndex(String index) {
+						return Thread.currentThread() == caller;
+					}
+				});
+		assertEquals(asList(true, true), results.getResults());
+	}
+}
@@ -27,6 +27,7 @@ import org.testng.annotations.Test;
 
 import com.splunk.shuttl.archiver.model.Bucket;
 import com.splunk.shuttl.archiver.thaw.BucketFilter;
+import com.splunk.shuttl.archiver.thaw.BucketIntervalIndex;
 import com.splunk.shuttl.archiver.thaw.BucketFormatResolver;
 
 @Test(groups = { "fast-unit" })
@@ -49,13 +50,15 @@ public class ListsBucketsFilteredTest {
 		bucketFormatResolver = mock(BucketFormatResolver.class);
 		listsBucketsFiltered = new ListsBucketsFiltered(archiveBucketsLister,
 				bucketFilter, bucketFormatResolver);
+		when(bucketFilter.isValidTimeRange(earliestTime, latestTime)).thenReturn(
+				true);
 	}
 
 	@Test(groups = { "fast-unit" })
 	public void _givenBucketsInAnIndex_filterBucketsOnTimeRange() {
-		List<Bucket> bucketsInIndex = asList(mock(Bucket.class));
+		BucketIntervalIndex bucketsInIndex = mock(BucketIntervalIndex.class);
 		String index = "index";
-		when(archiveBucketsLister.listBucketsInIndex(index)).thenReturn(
+		when(archiveBucketsLister.getBucketIntervalIndex(index)).thenReturn(
 				bucketsInIndex);
 		listsBucketsFiltered.listFilteredBucketsAtIndex(index, earliestTime,
 				latestTime);
@@ -63,12 +66,11 @@ public class ListsBucketsFilteredTest {
 				latestTime);
 	}
 
-	@SuppressWarnings("unchecked")
 	public void _givenFilteredBuckets_resolvesFilteredBucketsFormats() {
 		List<Bucket> filteredBuckets = asList(mock(Bucket.class));
 		when(
-				bucketFilter.filterBucketsByTimeRange(anyList(), any(Date.class),
-						any(Date.class))).thenReturn(filteredBuckets);
+				bucketFilter.filterBucketsByTimeRange(any(BucketIntervalIndex.class),
+						any(Date.class), any(Date.class))).thenReturn(filteredBuckets);
 		listsBucketsFiltered.listFilteredBucketsAtIndex("foo", earliestTime,
 				latestTime);
 		verify(bucketFormatResolver).resolveBucketsFormats(filteredBuckets);
@@ -84,4 +86,125 @@ public class ListsBucketsFilteredTest {
 				.listFilteredBucketsAtIndex("foo", earliestTime, latestTime);
 		assertEquals(bucketsWithFormats, filteredBucketsAtIndex);
 	}
+
+	public void listFilteredBuckets_indexes_filtersEachIndexAndResolvesFormatsOfAll() {
+		BucketIntervalIndex a = mock(BucketIntervalIndex.class);
+		BucketIntervalIndex b = mock(BucketIntervalIndex.class);
+		Bucket bucketA = mock(Bucket.class);
+		Bucket bucketB = mock(Bucket.class);
+		when(archiveBucketsLister.listIndexes()).thenReturn(asList("a", "b"));
+		when(archiveBucketsLister.getBucketIntervalIndex("a")).thenReturn(a);
+		when(archiveBucketsLister.getBucketIntervalIndex("b")).thenReturn(b);
+		when(bucketFilter.filterBucketsByTimeRange(a, earliestTime, latestTime))
+				.thenReturn(asList(bucketA));
+		when(bucketFilter.filterBucketsByTimeRange(b, earliestTime, latestTime))
+				.thenReturn(asList(bucketB));
+
+		listsBucketsFiltered.listFilteredBuckets(earliestTime, latestTime);
+		verify(bucketFormatResolver).resolveBucketsFormats(
+				asList(bucketA, bucketB));
+	}
+
+	private Bucket bucket(String index, String name) {
+		Bucket bucket = mock(Bucket.class);
+		when(bucket.getIndex()).thenReturn(index);
+		when(bucket.getName()).thenReturn(name);
+		return bucket;
+	}
+
+	private void stubPage(String index, String afterName, int limit,
+			Bucket... buckets) {
+		when(
+				archiveBucketsLister.listBucketsInIndexAfter(index, afterName,
+						earliestTime, latestTime, limit)).thenReturn(asList(buckets));
+	}
+
+	public void listFilteredBucketsPage_noCursor_indexesInOrder() {
+		Bucket a1 = bucket("a", "1");
+		Bucket b1 = bucket("b", "1");
+		when(archiveBucketsLister.listIndexes()).thenReturn(asList("b", "a"));
+		stubPage("a", null, 3, a1);
+		stubPage("b", null, 2, b1);
+
+		BucketsPage page = listsBucketsFiltered.listFilteredBucketsPage(null,
+				earliestTime, latestTime, null, 2);
+
+		verify(bucketFormatResolver).resolveBucketsFormats(asList(a1, b1));
+		assertNull(page.getNextCursor());
+	}
+
+	public void listFilteredBucketsPage_cursor_bucketsAfterCursor() {
+		Bucket a2 = bucket("a", "2");
+		Bucket b1 = bucket("b", "1");
+		when(archiveBucketsLister.listIndexes()).thenReturn(asList("a", "b"));
+		stubPage("a", "1", 6, a2);
+		stubPage("b", null, 5, b1);
+
+		listsBucketsFiltered.listFilteredBucketsPage(null, earliestTime,
+				latestTime, "a/1", 5);
+
+		verify(bucketFormatResolver).resolveBucketsFormats(asList(a2, b1));
+	}
+
+	public void listFilteredBucketsPage_cursorInLaterIndex_doesNotListEarlierIndexes() {
+		when(archiveBucketsLister.listIndexes()).thenReturn(asList("a", "b"));
+		stubPage("b", "0", 6, bucket("b", "1"));
+
+		listsBucketsFiltered.listFilteredBucketsPage(null, earliestTime,
+				latestTime, "b/0", 5);
+		verify(archiveBucketsLister, never()).listBucketsInIndexAfter(eq("a"),
+				anyString(), any(Date.class), any(Date.class), anyInt());
+	}
+
+	@SuppressWarnings("unchecked")
+	public void listFilteredBucketsPage_moreBucketsThanLimit_pageWithNextCursor() {
+		Bucket a1 = bucket("a", "1");
+		Bucket a2 = bucket("a", "2");
+		stubPage("a", null, 2, a1, a2);
+		when(bucketFormatResolver.resolveBucketsFormats(anyList())).thenReturn(
+				asList(a1));
+
+		BucketsPage page = listsBucketsFiltered.listFilteredBucketsPage("a",
+				earliestTime, latestTime, null, 1);
+
+		verify(bucketFormatResolver).resolveBucketsFormats(asList(a1));
+		assertEquals(asList(a1), page.getBuckets());
+		assertEquals("a/1", page.getNextCursor());
+	}
+
+	public void listFilteredBucketsPage_lastPage_noNextCursor() {
+		Bucket a2 = bucket("a", "2");
+		stubPage("a", "1", 6, a2);
+
+		BucketsPage page = listsBucketsFiltered.listFilteredBucketsPage("a",
+				earliestTime, latestTime, "a/1", 5);
+
+		verify(bucketFormatResolver).resolveBucketsFormats(asList(a2));
+		assertNull(page.getNextCursor());
+	}
+
+	public void listFilteredBucketsPage_pageFilledByFirstIndex_doesNotListLaterIndexesThanNeeded() {
+		when(archiveBucketsLister.listIndexes()).thenReturn(asList("a", "b", "c"));
+		stubPage("a", null, 2, bucket("a", "1"));
+		stubPage("b", null, 1, bucket("b", "1"));
+
+		BucketsPage page = listsBucketsFiltered.listFilteredBucketsPage(null,
+				earliestTime, latestTime, null, 1);
+
+		assertEquals("a/1", page.getNextCursor());
+		verify(archiveBucketsLister, never()).listBucketsInIndexAfter(eq("c"),
+				anyString(), any(Date.class), any(Date.class), anyInt());
+	}
+
+	public void listFilteredBucketsPage_invalidTimeRange_emptyPageWithoutListing() {
+		when(bucketFilter.isValidTimeRange(earliestTime, latestTime)).thenReturn(
+				false);
+
+		BucketsPage page = listsBucketsFiltered.listFilteredBucketsPage("a",
+				earliestTime, latestTime, null, 1);
+
+		assertNull(page.getNextCursor());
+		verify(archiveBucketsLister, never()).listBucketsInIndexAfter(anyString(),
+				anyString(), any(Date.class), any(Date.class), anyInt());
+	}
 }
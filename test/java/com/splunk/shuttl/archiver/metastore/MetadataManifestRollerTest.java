@@ -0,0 +1,227 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.metastore;
+
+import static java.util.Arrays.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.archive.BucketFormat;
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileStatus;
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
+import com.splunk.shuttl.archiver.filesystem.DeletesPaths;
+import com.splunk.shuttl.archiver.filesystem.GlobsPaths;
+import com.splunk.shuttl.archiver.filesystem.PathResolver;
+import com.splunk.shuttl.archiver.metastore.MetadataStore.CouldNotReadMetadataException;
+import com.splunk.shuttl.archiver.model.Bucket;
+
+@Test(groups = { "fast-unit" })
+public class MetadataManifestRollerTest {
+
+	private static final String METADATA_HOME = "/index/bucket/SPLUNK_BUCKET/archive_meta";
+	private static final String KEY = MetadataManifest.getKey("bucket",
+			BucketFormat.SPLUNK_BUCKET, "bucket.size");
+
+	private ArchiveFileSystem archiveFileSystem;
+	private PathResolver pathResolver;
+	private MetadataManifests metadataManifests;
+	private MetadataStore metadataStore;
+	private MetadataManifestRoller roller;
+	private long fileModificationTime;
+
+	@BeforeMethod
+	public void setUp() throws IOException {
+		archiveFileSystem = mock(ArchiveFileSystem.class,
+				withSettings().extraInterfaces(DeletesPaths.class));
+		pathResolver = mock(PathResolver.class);
+		metadataManifests = mock(MetadataManifests.class);
+		metadataStore = mock(MetadataStore.class);
+		roller = new MetadataManifestRoller(archiveFileSystem, pathResolver,
+				metadataManifests, metadataStore, 0);
+
+		fileModificationTime = 1000;
+		when(pathResolver.getBucketsHome("index")).thenReturn("/index");
+		when(pathResolver.getFormatsHome("index", "bucket")).thenReturn(
+				"/index/bucket");
+		when(pathResolver.getBucketMetadataHome(any(Bucket.class))).thenReturn(
+				METADATA_HOME);
+		when(archiveFileSystem.listStatus("/index")).thenReturn(
+				asList(directory("/index/bucket")));
+		when(archiveFileSystem.listStatus("/index/bucket")).thenReturn(
+				asList(directory("/index/bucket/SPLUNK_BUCKET")));
+		when(archiveFileSystem.listStatus(METADATA_HOME)).thenReturn(
+				asList(sizeFile()));
+		when(metadataManifests.listManifestNames("index")).thenReturn(
+				Collections.<String> emptyList());
+		when(metadataManifests.getManifestPath(eq("index"), anyString()))
+				.thenReturn("/manifests/old");
+	}
+
+	private ArchiveFileStatus directory(String path) {
+		return new ArchiveFileStatus(path, 0, 0, true);
+	}
+
+	private ArchiveFileStatus sizeFile() {
+		return new ArchiveFileStatus(METADATA_HOME + "/bucket.size", 2,
+				fileModificationTime, false);
+	}
+
+	private void stubLatestManifest(long generation, String... olderNames)
+			throws IOException {
+		List<String> names = new ArrayList<String>(asList(olderNames));
+		names.add(MetadataManifests.getManifestName(generation));
+		when(metadataManifests.listManifestNames("index")).thenReturn(names);
+		MetadataManifest latest = mock(MetadataManifest.class);
+		SortedMap<String, String> entries = new TreeMap<String, String>();
+		entries.put(KEY, "17");
+		when(latest.readAll()).thenReturn(entries);
+		when(metadataManifests.getLatest("index")).thenReturn(latest);
+	}
+
+	public void rollIndex_metadataFileNotInManifest_commitsManifestWithIt()
+			throws IOException {
+		when(metadataStore.read(any(Bucket.class), eq("bucket.size")))
+				.thenReturn("17");
+
+		roller.rollIndex("index");
+
+		ArgumentCaptor<SortedMap<String, String>> entries = sortedMapCaptor();
+		verify(metadataManifests).commit(eq("index"), entries.capture());
+		assertEquals("17", entries.getValue().get(KEY));
+		verify((DeletesPaths) archiveFileSystem, never()).deletePath(anyString());
+	}
+
+	public void rollIndex_metadataFileCouldNotBeRead_doesNotCommit()
+			throws IOException {
+		when(metadataStore.read(any(Bucket.class), anyString())).thenThrow(
+				new CouldNotReadMetadataException());
+		roller.rollIndex("index");
+		verify(metadataManifests, never()).commit(anyString(),
+				anySortedMapOf());
+	}
+
+	public void rollIndex_metadataFileInLatestManifest_deletesFileAndOlderManifests()
+			throws IOException {
+		stubLatestManifest(fileModificationTime + 1, "manifest-older");
+
+		roller.rollIndex("index");
+
+		verify(metadataManifests, never()).commit(anyString(),
+				anySortedMapOf());
+		verify(metadataStore, never()).read(any(Bucket.class), anyString());
+		verify((DeletesPaths) archiveFileSystem).deletePath(sizeFile().getPath());
+		verify(metadataManifests).getManifestPath("index", "manifest-older");
+		verify((DeletesPaths) archiveFileSystem).deletePath("/manifests/old");
+	}
+
+	public void rollIndex_metadataFileNewerThanLatestManifest_rollsItAgain()
+			throws IOException {
+		stubLatestManifest(fileModificationTime);
+		when(metadataStore.read(any(Bucket.class), eq("bucket.size")))
+				.thenReturn("18");
+
+		roller.rollIndex("index");
+
+		verify(metadataManifests).commit(eq("index"), anySortedMapOf());
+		verify((DeletesPaths) archiveFileSystem, never()).deletePath(
+				sizeFile().getPath());
+	}
+
+	public void rollIndex_latestManifestNewerThanReadersRecheck_keepsFiles()
+			throws IOException {
+		stubLatestManifest(System.currentTimeMillis());
+		fileModificationTime = 0;
+		when(archiveFileSystem.listStatus(METADATA_HOME)).thenReturn(
+				asList(sizeFile()));
+		new MetadataManifestRoller(archiveFileSystem, pathResolver,
+				metadataManifests, metadataStore, 60 * 60 * 1000).rollIndex("index");
+
+		verify((DeletesPaths) archiveFileSystem, never()).deletePath(anyString());
+	}
+
+	public void rollIndex_archiveCannotDeletePaths_onlyCommits()
+			throws IOException {
+		ArchiveFileSystem notDeleting = mock(ArchiveFileSystem.class);
+		for (String path : asList("/index", "/index/bucket", METADATA_HOME)) {
+			List<ArchiveFileStatus> listing = archiveFileSystem.listStatus(path);
+			when(notDeleting.listStatus(path)).thenReturn(listing);
+		}
+		stubLatestManifest(fileModificationTime + 1, "manifest-older");
+
+		new MetadataManifestRoller(notDeleting, pathResolver, metadataManifests,
+				metadataStore, 0).rollIndex("index");
+
+		verify(metadataManifests, never()).getManifestPath(anyString(),
+				anyString());
+	}
+
+	public void rollIndex_archiveGlobsPaths_listsMetadataFilesWithOneGlob()
+			throws IOException {
+		ArchiveFileSystem globbing = mock(ArchiveFileSystem.class,
+				withSettings().extraInterfaces(GlobsPaths.class));
+		when(pathResolver.getBucketMetadataGlob("index")).thenReturn(
+				"/index/*/*/archive_meta/*");
+		when(((GlobsPaths) globbing).globStatus("/index/*/*/archive_meta/*"))
+				.thenReturn(asList(sizeFile()));
+		when(metadataStore.read(any(Bucket.class), eq("bucket.size")))
+				.thenReturn("17");
+
+		new MetadataManifestRoller(globbing, pathResolver, metadataManifests,
+				metadataStore, 0).rollIndex("index");
+
+		ArgumentCaptor<SortedMap<String, String>> entries = sortedMapCaptor();
+		verify(metadataManifests).commit(eq("index"), entries.capture());
+		assertEquals("17", entries.getValue().get(KEY));
+		verify(globbing, never()).listStatus(anyString());
+	}
+
+	public void rollIndex_globbedFileNotInBucketFormat_isSkipped()
+			throws IOException {
+		ArchiveFileSystem globbing = mock(ArchiveFileSystem.class,
+				withSettings().extraInterfaces(GlobsPaths.class));
+		when(pathResolver.getBucketMetadataGlob("index")).thenReturn("/glob");
+		when(((GlobsPaths) globbing).globStatus("/glob")).thenReturn(
+				asList(new ArchiveFileStatus(
+						"/index/bucket/not-a-format/archive_meta/bucket.size", 2, 0,
+						false)));
+
+		new MetadataManifestRoller(globbing, pathResolver, metadataManifests,
+				metadataStore, 0).rollIndex("index");
+
+		verify(metadataStore, never()).read(any(Bucket.class), anyString());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private ArgumentCaptor<SortedMap<String, String>> sortedMapCaptor() {
+		return (ArgumentCaptor) ArgumentCaptor.forClass(SortedMap.class);
+	}
+
+	@SuppressWarnings("unchecked")
+	private SortedMap<String, String> anySortedMapOf() {
+		return any(SortedMap.class);
+	}
+}
@@ -0,0 +1,100 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.metastore;
+
+import static com.splunk.shuttl.testutil.TUtilsFile.*;
+import static org.testng.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.archive.BucketFormat;
+
+@Test(groups = { "fast-unit" })
+public class MetadataManifestTest {
+
+	private File file;
+	private SortedMap<String, String> entries;
+
+	@BeforeMethod
+	public void setUp() {
+		file = createFilePath();
+		entries = new TreeMap<String, String>();
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		FileUtils.deleteQuietly(file);
+	}
+
+	public void getKey_bucketFormatAndFileName_joinedWithSlashes() {
+		assertEquals("db_1_0_0/SPLUNK_BUCKET/bucket.size", MetadataManifest.getKey(
+				"db_1_0_0", BucketFormat.SPLUNK_BUCKET, "bucket.size"));
+	}
+
+	public void get_writtenEntries_readsEveryEntry() throws IOException {
+		entries.put("a", "1");
+		entries.put("b", "2");
+		MetadataManifest manifest = MetadataManifest.write(file, entries);
+
+		assertEquals("1", manifest.get("a"));
+		assertEquals("2", manifest.get("b"));
+		assertEquals(2, manifest.size());
+	}
+
+	public void get_moreEntriesThanFitInABlock_readsEntriesOfEveryBlock()
+			throws IOException {
+		int size = MetadataManifest.ENTRIES_PER_BLOCK * 3 + 7;
+		for (int i = 0; i < size; i++)
+			entries.put(String.format("key%05d", i), "" + i);
+		MetadataManifest manifest = MetadataManifest.write(file, entries);
+
+		for (int i = 0; i < size; i++)
+			assertEquals("" + i, manifest.get(String.format("key%05d", i)));
+		assertEquals(size, manifest.size());
+	}
+
+	public void get_keyNotInManifest_null() throws IOException {
+		entries.put("b", "2");
+		MetadataManifest manifest = MetadataManifest.write(file, entries);
+		assertNull(manifest.get("a"));
+		assertNull(manifest.get("c"));
+	}
+
+	public void get_emptyManifest_null() throws IOException {
+		assertNull(MetadataManifest.write(file, entries).get("a"));
+	}
+
+	public void open_writtenManifest_readsAllEntries() throws IOException {
+		for (int i = 0; i < MetadataManifest.ENTRIES_PER_BLOCK + 1; i++)
+			entries.put("key" + i, "value" + i);
+		MetadataManifest.write(file, entries);
+
+		assertEquals(entries, MetadataManifest.open(file).readAll());
+	}
+
+	@Test(expectedExceptions = { IOException.class })
+	public void open_fileIsNotAManifest_throws() throws IOException {
+		FileUtils.writeStringToFile(file, "not a manifest at all");
+		MetadataManifest.open(file);
+	}
+}
@@ -0,0 +1,166 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.metastore;
+
+import static com.splunk.shuttl.testutil.TUtilsFile.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.archive.BucketFormat;
+import com.splunk.shuttl.archiver.filesystem.PathResolver;
+import com.splunk.shuttl.archiver.filesystem.hadoop.HadoopArchiveFileSystem;
+import com.splunk.shuttl.archiver.filesystem.transaction.TransactionExecuter;
+import com.splunk.shuttl.archiver.model.Bucket;
+import com.splunk.shuttl.testutil.TUtilsFileSystem;
+
+@Test(groups = { "fast-unit" })
+public class MetadataManifestsTest {
+
+	private File archive;
+	private File tempArchive;
+	private File local;
+	private HadoopArchiveFileSystem archiveFileSystem;
+	private PathResolver pathResolver;
+	private MetadataManifests metadataManifests;
+	private Bucket bucket;
+
+	@BeforeMethod
+	public void setUp() {
+		archive = createDirectory();
+		tempArchive = createDirectory();
+		local = createDirectory();
+		archiveFileSystem = new HadoopArchiveFileSystem(
+				TUtilsFileSystem.getLocalFileSystem());
+		pathResolver = mock(PathResolver.class);
+		when(pathResolver.getMetadataManifestsHome(anyString())).thenAnswer(
+				new Answer<String>() {
+					@Override
+					public String answer(InvocationOnMock invocation) {
+						return archive.getAbsolutePath() + "/"
+								+ invocation.getArguments()[0];
+					}
+				});
+		when(pathResolver.resolveTempPathForMetadataManifest(anyString(),
+						anyString())).thenAnswer(new Answer<String>() {
+			@Override
+			public String answer(InvocationOnMock invocation) {
+				Object[] args = invocation.getArguments();
+				return tempArchive.getAbsolutePath() + "/" + args[0] + "/" + args[1];
+			}
+		});
+		metadataManifests = createManifests(createDirectory(), 0);
+		bucket = mock(Bucket.class);
+		when(bucket.getIndex()).thenReturn("index");
+		when(bucket.getName()).thenReturn("bucket");
+		when(bucket.getFormat()).thenReturn(BucketFormat.SPLUNK_BUCKET);
+	}
+
+	private MetadataManifests createManifests(File localDirectory,
+			long recheckMillis) {
+		return new MetadataManifests(archiveFileSystem, pathResolver,
+				localDirectory, new TransactionExecuter(), recheckMillis);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		FileUtils.deleteQuietly(archive);
+		FileUtils.deleteQuietly(tempArchive);
+		FileUtils.deleteQuietly(local);
+	}
+
+	private SortedMap<String, String> entry(String fileName, String data) {
+		SortedMap<String, String> entries = new TreeMap<String, String>();
+		entries.put(MetadataManifest.getKey("bucket", BucketFormat.SPLUNK_BUCKET,
+				fileName), data);
+		return entries;
+	}
+
+	public void read_noManifest_null() {
+		assertNull(metadataManifests.read(bucket, "bucket.size"));
+	}
+
+	public void read_manifestCommittedByOtherInstance_downloadsAndReadsIt()
+			throws IOException {
+		metadataManifests.commit("index", entry("bucket.size", "17"));
+
+		MetadataManifests other = createManifests(local, 0);
+		assertEquals("17", other.read(bucket, "bucket.size"));
+		assertEquals(1, new File(local, "index").list().length);
+	}
+
+	public void read_missAndNewerManifestInArchive_readsNewerManifest()
+			throws Exception {
+		MetadataManifests reader = createManifests(local, 0);
+		assertNull(reader.read(bucket, "bucket.size"));
+
+		metadataManifests.commit("index", entry("bucket.size", "17"));
+		assertEquals("17", reader.read(bucket, "bucket.size"));
+	}
+
+	public void read_missWithinRecheckInterval_doesNotLookForNewerManifest()
+			throws Exception {
+		MetadataManifests reader = createManifests(local, 60 * 60 * 1000);
+		assertNull(reader.read(bucket, "bucket.size"));
+
+		metadataManifests.commit("index", entry("bucket.size", "17"));
+		assertNull(reader.read(bucket, "bucket.size"));
+	}
+
+	public void listManifestNames_twoCommits_oldestFirst() throws Exception {
+		String first = metadataManifests.commit("index", entry("a", "1"));
+		Thread.sleep(5);
+		String second = metadataManifests.commit("index", entry("b", "2"));
+
+		List<String> names = metadataManifests.listManifestNames("index");
+		assertEquals(2, names.size());
+		assertEquals(first, names.get(0));
+		assertEquals(second, names.get(1));
+		assertTrue(MetadataManifests.getGeneration(first) <= MetadataManifests
+				.getGeneration(second));
+	}
+
+	public void listManifestNames_indexWithoutManifests_empty()
+			throws IOException {
+		assertTrue(metadataManifests.listManifestNames("index").isEmpty());
+	}
+
+	public void getLatest_newerManifestCommitted_loadsNewerManifest()
+			throws Exception {
+		MetadataManifests reader = createManifests(local, 60 * 60 * 1000);
+		metadataManifests.commit("index", entry("a", "1"));
+		assertEquals(1, reader.getLatest("index").size());
+		Thread.sleep(5);
+		SortedMap<String, String> entries = entry("a", "1");
+		entries.putAll(entry("b", "2"));
+		metadataManifests.commit("index", entries);
+
+		assertEquals(2, reader.getLatest("index").size());
+		assertEquals(1, new File(local, "index").list().length);
+	}
+}
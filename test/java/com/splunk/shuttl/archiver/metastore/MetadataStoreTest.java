@@ -16,6 +16,7 @@ package com.splunk.shuttl.archiver.metastore;
 
 import static org.mockito.Matchers.*;
 import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
 
 import java.io.File;
 
@@ -71,4 +72,20 @@ public class MetadataStoreTest {
 				eq(PutFileTransaction.create(archiveFileSystem,
 						flatFile.getAbsolutePath(), temp, flatFileRealPath)));
 	}
+
+	public void read_metadataInManifest_writesItLocallyWithoutGettingRemoteFile() {
+		MetadataManifests metadataManifests = mock(MetadataManifests.class);
+		metadataStore = new MetadataStore(pathResolver, flatFileStorage,
+				archiveFileSystem, transactionExecuter, localFileSystemPaths,
+				metadataManifests);
+		File flatFile = new File("bucket.size");
+		when(flatFileStorage.getFlatFile(bucket, "bucket.size")).thenReturn(
+				flatFile);
+		when(flatFileStorage.readFlatFile(flatFile)).thenReturn("17");
+		when(metadataManifests.read(bucket, "bucket.size")).thenReturn("17");
+
+		assertEquals("17", metadataStore.read(bucket, "bucket.size"));
+		verify(flatFileStorage).writeFlatFile(flatFile, "17");
+		verifyZeroInteractions(transactionExecuter);
+	}
 }
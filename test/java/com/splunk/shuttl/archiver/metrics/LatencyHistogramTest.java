@@ -0,0 +1,72 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.metrics;
+
+import static org.testng.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups = { "fast-unit" })
+public class LatencyHistogramTest {
+
+	private LatencyHistogram histogram;
+
+	@BeforeMethod
+	public void setUp() {
+		histogram = new LatencyHistogram();
+	}
+
+	private void recordMillis(long millis) {
+		histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+	}
+
+	public void getPercentileMillis_nothingRecorded_zero() {
+		assertEquals(histogram.getPercentileMillis(99), 0.0);
+	}
+
+	public void getPercentileMillis_latencies_upperBoundOfBucketWithPercentile() {
+		for (int i = 0; i < 90; i++)
+			recordMillis(3);
+		for (int i = 0; i < 10; i++)
+			recordMillis(700);
+
+		assertEquals(histogram.getPercentileMillis(50), 5.0);
+		assertEquals(histogram.getPercentileMillis(90), 5.0);
+		assertEquals(histogram.getPercentileMillis(95), 700.0);
+	}
+
+	public void getPercentileMillis_percentileInLastBucket_maxLatency() {
+		recordMillis(TimeUnit.HOURS.toMillis(2));
+		assertEquals(histogram.getPercentileMillis(50),
+				(double) TimeUnit.HOURS.toMillis(2));
+	}
+
+	public void getMeanMillis_latencies_averageLatency() {
+		recordMillis(10);
+		recordMillis(30);
+		assertEquals(histogram.getMeanMillis(), 20.0);
+		assertEquals(histogram.getCount(), 2);
+	}
+
+	public void getMaxMillis_latencies_largestLatency() {
+		recordMillis(10);
+		recordMillis(30);
+		recordMillis(20);
+		assertEquals(histogram.getMaxMillis(), 30.0);
+	}
+}
@@ -0,0 +1,54 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.metrics;
+
+import static org.testng.Assert.*;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.metrics.StageMetrics.Timer;
+
+@Test(groups = { "fast-unit" })
+public class StageMetricsTest {
+
+	private StageMetrics stageMetrics;
+
+	@BeforeMethod
+	public void setUp() {
+		stageMetrics = new StageMetrics();
+	}
+
+	public void timer_succeededThenStopped_recordsSuccess() {
+		Timer timer = stageMetrics.startTimer();
+		timer.succeeded();
+		timer.stop();
+		assertEquals(stageMetrics.getCount(), 1);
+		assertEquals(stageMetrics.getFailures(), 0);
+	}
+
+	public void timer_stoppedWithoutSucceeding_recordsFailure() {
+		stageMetrics.startTimer().stop();
+		assertEquals(stageMetrics.getCount(), 1);
+		assertEquals(stageMetrics.getFailures(), 1);
+	}
+
+	public void timer_stoppedTwice_recordsOnce() {
+		Timer timer = stageMetrics.startTimer();
+		timer.stop();
+		timer.stop();
+		assertEquals(stageMetrics.getCount(), 1);
+	}
+}
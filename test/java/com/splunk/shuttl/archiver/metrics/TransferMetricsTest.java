@@ -0,0 +1,79 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.metrics;
+
+import static java.util.Arrays.*;
+import static org.testng.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.amazonaws.util.json.JSONException;
+import com.amazonaws.util.json.JSONObject;
+
+@Test(groups = { "fast-unit" })
+public class TransferMetricsTest {
+
+	private TransferMetrics transferMetrics;
+
+	@BeforeMethod
+	public void setUp() {
+		transferMetrics = new TransferMetrics();
+	}
+
+	public void get_sameBackendAndStage_sameMetrics() {
+		assertSame(transferMetrics.get("hdfs", Stage.PREPARE),
+				transferMetrics.get("hdfs", Stage.PREPARE));
+	}
+
+	public void get_otherBackend_otherMetrics() {
+		assertNotSame(transferMetrics.get("hdfs", Stage.PREPARE),
+				transferMetrics.get("s3", Stage.PREPARE));
+	}
+
+	public void getAll_measuredStages_sortedByBackendDotStage() {
+		transferMetrics.forBackend("s3").record(Stage.COMMIT, System.nanoTime(),
+				true);
+		transferMetrics.forIndexer().record(Stage.EXPORT, System.nanoTime(), true);
+		assertEquals(new ArrayList<String>(transferMetrics.getAll().keySet()),
+				asList("indexer.export", "s3.commit"));
+	}
+
+	public void reset_measuredStages_noMetrics() {
+		transferMetrics.get("hdfs", Stage.PREPARE);
+		transferMetrics.reset();
+		assertTrue(transferMetrics.getAll().isEmpty());
+	}
+
+	public void toJson_measuredStage_jsonWithNameCountsAndBytes()
+			throws JSONException {
+		BackendMetrics hdfs = transferMetrics.forBackend("hdfs");
+		hdfs.record(Stage.PREPARE, System.nanoTime(), true);
+		hdfs.record(Stage.PREPARE, System.nanoTime(), false);
+		hdfs.get(Stage.PREPARE).addBytes(100);
+
+		List<JSONObject> jsons = transferMetrics.toJson();
+		assertEquals(jsons.size(), 1);
+		JSONObject json = jsons.get(0);
+		assertEquals(json.getString("name"), "hdfs.prepare");
+		assertEquals(json.getLong("count"), 2);
+		assertEquals(json.getLong("failures"), 1);
+		assertEquals(json.getLong("bytes"), 100);
+		assertTrue(json.has("p99_millis"));
+	}
+}
@@ -61,6 +61,11 @@ public class BucketFilterTest {
 		assertTrue(filteredBuckets.isEmpty());
 	}
 
+	public void isValidTimeRange_earliestTimeIsLaterThanLatestTime_false() {
+		assertFalse(bucketFilter.isValidTimeRange(latest, earliest));
+		assertTrue(bucketFilter.isValidTimeRange(earliest, latest));
+	}
+
 	private void filterBuckets(Bucket... buckets) {
 		filteredBuckets = bucketFilter.filterBucketsByTimeRange(
 				Arrays.asList(buckets), earliest, latest);
@@ -126,4 +131,18 @@ public class BucketFilterTest {
 		assertTrue(filteredBuckets.contains(bucket));
 	}
 
+	public void filterBucketsByTimeRange_intervalIndex_bucketsWithinTimeRangeFromIndex() {
+		Bucket bucket = createBucketWithEarliestAndLatestSetToDate(earliest);
+		BucketIntervalIndex intervalIndex = new BucketIntervalIndex(
+				Arrays.asList(bucket));
+		assertEquals(bucketFilter.filterBucketsByTimeRange(intervalIndex,
+				earliest, latest), Arrays.asList(bucket));
+	}
+
+	public void filterBucketsByTimeRange_intervalIndexAndEarliestAfterLatest_emptyList() {
+		BucketIntervalIndex intervalIndex = mock(BucketIntervalIndex.class);
+		assertTrue(bucketFilter.filterBucketsByTimeRange(intervalIndex, latest,
+				earliest).isEmpty());
+		verifyZeroInteractions(intervalIndex);
+	}
 }
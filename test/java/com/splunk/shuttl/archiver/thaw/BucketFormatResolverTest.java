@@ -23,13 +23,19 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import com.splunk.shuttl.archiver.archive.BucketFormat;
+import com.splunk.shuttl.archiver.catalog.ArchiveCatalog;
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileStatus;
 import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
+import com.splunk.shuttl.archiver.filesystem.GlobsPaths;
 import com.splunk.shuttl.archiver.filesystem.PathResolver;
 import com.splunk.shuttl.archiver.model.Bucket;
+import com.splunk.shuttl.archiver.model.RemoteBucket;
 import com.splunk.shuttl.testutil.TUtilsBucket;
 
 @Test(groups = { "fast-unit" })
@@ -60,19 +66,33 @@ public class BucketFormatResolverTest {
 		when(pathResolver.getFormatsHome(anyString(), anyString())).thenReturn(
 				formatsHome);
 		bucketFormatResolver.resolveBucketsFormats(mockedBucketsList);
-		verify(archiveFileSystem).listPath(formatsHome);
+		verify(archiveFileSystem).listStatus(formatsHome);
 	}
 
 	public void resolveBucketsFormats_givenFormatPaths_directoryNameIsFormat()
 			throws IOException {
 		BucketFormat format = BucketFormat.SPLUNK_BUCKET;
 		String formatPath = "/path/" + format;
-		when(archiveFileSystem.listPath(anyString())).thenReturn(
-				Arrays.asList(formatPath));
+		when(archiveFileSystem.listStatus(anyString())).thenReturn(
+				Arrays.asList(directory(formatPath)));
 		bucketFormatResolver.resolveBucketsFormats(mockedBucketsList);
 		verify(bucketFormatChooser).chooseBucketFormat(Arrays.asList(format));
 	}
 
+	private ArchiveFileStatus directory(String path) {
+		return new ArchiveFileStatus(path, 0, 0, true);
+	}
+
+	public void resolveBucketsFormats_filesAndDirectoriesThatAreNotFormats_onlyChoosesFromFormats()
+			throws IOException {
+		when(archiveFileSystem.listStatus(anyString())).thenReturn(
+				Arrays.asList(directory("/path/CSV"), directory("/path/foo"),
+						new ArchiveFileStatus("/path/SPLUNK_BUCKET", 3, 0, false)));
+		bucketFormatResolver.resolveBucketsFormats(mockedBucketsList);
+		verify(bucketFormatChooser).chooseBucketFormat(
+				Arrays.asList(BucketFormat.CSV));
+	}
+
 	@SuppressWarnings("unchecked")
 	public void resolveBucketsFormats_givenChosenFormat_resolvingPathForBucketWithFormat() {
 		Bucket bucket = TUtilsBucket.createBucket();
@@ -123,4 +143,60 @@ public class BucketFormatResolverTest {
 				.getBucketFormats(asList("/path/" + BucketFormat.SPLUNK_BUCKET + "/"));
 		assertEquals(bucketFormats.get(0), BucketFormat.SPLUNK_BUCKET);
 	}
+
+	public void resolveBucketsFormats_withCatalog_choosesFromFormatsInCatalog()
+			throws IOException {
+		ArchiveCatalog catalog = mock(ArchiveCatalog.class);
+		Bucket bucket = TUtilsBucket.createRemoteBucket();
+		List<BucketFormat> formats = asList(BucketFormat.CSV);
+		when(catalog.getFormats(bucket.getIndex(), bucket.getName())).thenReturn(
+				formats);
+		when(bucketFormatChooser.chooseBucketFormat(formats)).thenReturn(
+				BucketFormat.CSV);
+
+		List<Bucket> resolved = BucketFormatResolver.withCatalog(pathResolver,
+				archiveFileSystem, bucketFormatChooser, catalog).resolveBucketsFormats(
+				asList(bucket));
+		assertEquals(BucketFormat.CSV, resolved.get(0).getFormat());
+		verify(archiveFileSystem, never()).listStatus(anyString());
+	}
+
+	public void resolveBucketsFormats_archiveGlobsAndManyBucketsInIndex_globsFormatsOnce()
+			throws IOException {
+		ArchiveFileSystem globbingArchive = mock(ArchiveFileSystem.class,
+				withSettings().extraInterfaces(GlobsPaths.class));
+		when(pathResolver.getFormatsGlob("index")).thenReturn("/index/*/*");
+		when(((GlobsPaths) globbingArchive).globPaths("/index/*/*")).thenReturn(
+				asList("/index/b1/CSV", "/index/b2/SPLUNK_BUCKET"));
+		when(bucketFormatChooser.chooseBucketFormat(anyListOf(BucketFormat.class)))
+				.thenAnswer(new Answer<BucketFormat>() {
+					@Override
+					public BucketFormat answer(InvocationOnMock invocation) {
+						List<?> formats = (List<?>) invocation.getArguments()[0];
+						return (BucketFormat) formats.get(0);
+					}
+				});
+		List<Bucket> buckets = asList(
+				(Bucket) new RemoteBucket("/b1", "index", "b1", null),
+				new RemoteBucket("/b2", "index", "b2", null));
+
+		List<Bucket> resolved = new BucketFormatResolver(pathResolver,
+				globbingArchive, bucketFormatChooser)
+				.resolveBucketsFormats(buckets);
+		assertEquals(BucketFormat.CSV, resolved.get(0).getFormat());
+		assertEquals(BucketFormat.SPLUNK_BUCKET, resolved.get(1).getFormat());
+		verify(globbingArchive, never()).listStatus(anyString());
+	}
+
+	public void resolveBucketsFormats_archiveGlobsButOneBucketInIndex_listsFormatsOfBucket()
+			throws IOException {
+		ArchiveFileSystem globbingArchive = mock(ArchiveFileSystem.class,
+				withSettings().extraInterfaces(GlobsPaths.class));
+		when(pathResolver.getFormatsHome("index", "b1")).thenReturn("/index/b1");
+		Bucket bucket = new RemoteBucket("/b1", "index", "b1", null);
+		new BucketFormatResolver(pathResolver, globbingArchive,
+				bucketFormatChooser).resolveBucketsFormats(asList(bucket));
+		verify(globbingArchive).listStatus("/index/b1");
+		verify((GlobsPaths) globbingArchive, never()).globPaths(anyString());
+	}
 }
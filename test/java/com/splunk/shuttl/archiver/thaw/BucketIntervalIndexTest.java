@@ -0,0 +1,104 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.thaw;
+
+import static java.util.Arrays.*;
+import static org.testng.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.archive.BucketFormat;
+import com.splunk.shuttl.archiver.model.Bucket;
+import com.splunk.shuttl.archiver.model.RemoteBucket;
+
+@Test(groups = { "fast-unit" })
+public class BucketIntervalIndexTest {
+
+	private int bucketId = 0;
+
+	private Bucket bucket(long earliestSeconds, long latestSeconds) {
+		return new RemoteBucket("/path", "index", "db_" + latestSeconds + "_"
+				+ earliestSeconds + "_" + bucketId++, BucketFormat.SPLUNK_BUCKET);
+	}
+
+	private Date seconds(long seconds) {
+		return new Date(seconds * 1000);
+	}
+
+	public void getBucketsWithinTimeRange_noBuckets_empty() {
+		BucketIntervalIndex index = new BucketIntervalIndex(
+				new ArrayList<Bucket>());
+		assertTrue(index.getBucketsWithinTimeRange(seconds(0), seconds(10))
+				.isEmpty());
+	}
+
+	public void getBucketsWithinTimeRange_overlappingAndTouchingBuckets_foundSortedByEarliest() {
+		Bucket touchesStart = bucket(0, 10);
+		Bucket inside = bucket(12, 13);
+		Bucket touchesEnd = bucket(20, 30);
+		Bucket spans = bucket(5, 25);
+		Bucket before = bucket(0, 9);
+		Bucket after = bucket(21, 22);
+		BucketIntervalIndex index = new BucketIntervalIndex(asList(after, inside,
+				touchesEnd, before, spans, touchesStart));
+
+		assertEquals(index.getBucketsWithinTimeRange(seconds(10), seconds(20)),
+				asList(touchesStart, spans, inside, touchesEnd));
+	}
+
+	public void getBucketsWithinTimeRange_earliestAfterLatest_empty() {
+		BucketIntervalIndex index = new BucketIntervalIndex(asList(bucket(0, 10)));
+		assertTrue(index.getBucketsWithinTimeRange(seconds(5), seconds(4))
+				.isEmpty());
+	}
+
+	public void getBucketsWithinTimeRange_randomBuckets_sameBucketsAsBucketFilter() {
+		Random random = new Random(4711);
+		List<Bucket> buckets = new ArrayList<Bucket>();
+		for (int i = 0; i < 500; i++) {
+			long earliest = random.nextInt(10000);
+			buckets.add(bucket(earliest, earliest + random.nextInt(500)));
+		}
+		BucketIntervalIndex index = new BucketIntervalIndex(buckets);
+
+		for (int i = 0; i < 200; i++) {
+			long from = random.nextInt(11000);
+			Date earliest = seconds(from);
+			Date latest = seconds(from + random.nextInt(1000));
+			List<Bucket> expected = new ArrayList<Bucket>(BucketFilter.filterBuckets(
+					buckets, earliest, latest));
+			List<Bucket> actual = new ArrayList<Bucket>(
+					index.getBucketsWithinTimeRange(earliest, latest));
+			Collections.sort(expected, new ByName());
+			Collections.sort(actual, new ByName());
+			assertEquals(actual, expected);
+		}
+	}
+
+	private static class ByName implements Comparator<Bucket> {
+
+		@Override
+		public int compare(Bucket b1, Bucket b2) {
+			return b1.getName().compareTo(b2.getName());
+		}
+	}
+}
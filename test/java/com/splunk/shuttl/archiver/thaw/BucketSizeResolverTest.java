@@ -20,6 +20,8 @@ import static org.testng.AssertJUnit.*;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.splunk.shuttl.archiver.catalog.ArchiveCatalog;
+import com.splunk.shuttl.archiver.catalog.CatalogEntry;
 import com.splunk.shuttl.archiver.metastore.ArchiveBucketSize;
 import com.splunk.shuttl.archiver.model.Bucket;
 import com.splunk.shuttl.testutil.TUtilsBucket;
@@ -60,4 +62,40 @@ public class BucketSizeResolverTest {
 		assertEquals(bucketWithoutSize.getPath(), sizedBucket.getPath());
 		assertFalse(bucketWithoutSize.getSize() == sizedBucket.getSize());
 	}
+
+	public void resolveBucketSize_bucketInCatalog_sizeFromCatalog() {
+		ArchiveCatalog catalog = mock(ArchiveCatalog.class);
+		when(
+				catalog.getEntry(bucketWithoutSize.getIndex(),
+						bucketWithoutSize.getName(), bucketWithoutSize.getFormat()))
+				.thenReturn(
+						new CatalogEntry(bucketWithoutSize.getIndex(), bucketWithoutSize
+								.getName(), bucketWithoutSize.getFormat(), 7L));
+		Bucket sizedBucket = new BucketSizeResolver(archiveBucketSize, catalog)
+				.resolveBucketSize(bucketWithoutSize);
+		assertEquals(7, (long) sizedBucket.getSize());
+		verifyZeroInteractions(archiveBucketSize);
+	}
+
+	public void resolveBucketSize_bucketNotInCatalog_sizeFromArchive() {
+		ArchiveCatalog catalog = mock(ArchiveCatalog.class);
+		when(archiveBucketSize.readBucketSize(bucketWithoutSize)).thenReturn(4L);
+		Bucket sizedBucket = new BucketSizeResolver(archiveBucketSize, catalog)
+				.resolveBucketSize(bucketWithoutSize);
+		assertEquals(4, (long) sizedBucket.getSize());
+	}
+
+	public void resolveBucketSize_catalogEntryWithoutSize_sizeFromArchive() {
+		ArchiveCatalog catalog = mock(ArchiveCatalog.class);
+		when(
+				catalog.getEntry(bucketWithoutSize.getIndex(),
+						bucketWithoutSize.getName(), bucketWithoutSize.getFormat()))
+				.thenReturn(
+						new CatalogEntry(bucketWithoutSize.getIndex(), bucketWithoutSize
+								.getName(), bucketWithoutSize.getFormat(), null));
+		when(archiveBucketSize.readBucketSize(bucketWithoutSize)).thenReturn(4L);
+		Bucket sizedBucket = new BucketSizeResolver(archiveBucketSize, catalog)
+				.resolveBucketSize(bucketWithoutSize);
+		assertEquals(4, (long) sizedBucket.getSize());
+	}
 }
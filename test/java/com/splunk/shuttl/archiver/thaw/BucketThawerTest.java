@@ -24,7 +24,14 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -35,6 +42,8 @@ import com.splunk.shuttl.archiver.listers.ListsBucketsFiltered;
 import com.splunk.shuttl.archiver.model.Bucket;
 import com.splunk.shuttl.archiver.model.LocalBucket;
 import com.splunk.shuttl.archiver.thaw.BucketThawer.FailedBucket;
+import com.splunk.shuttl.archiver.thaw.ThawProgress.BucketState;
+import com.splunk.shuttl.archiver.util.CallingThreadExecutor;
 import com.splunk.shuttl.testutil.TUtilsBucket;
 
 @Test(groups = { "fast-unit" })
@@ -56,7 +65,7 @@ public class BucketThawerTest {
 		getsBucketsFromArchive = mock(GetsBucketsFromArchive.class);
 		localBuckets = mock(LocalBucketStorage.class);
 		thawBucketLocker = new BucketLockerInTestDir(createDirectory());
-		bucketThawer = new BucketThawer(listsBucketsFiltered,
+		bucketThawer = BucketThawer.create(listsBucketsFiltered,
 				getsBucketsFromArchive, localBuckets, thawBucketLocker);
 
 		index = "foo";
@@ -83,12 +92,98 @@ public class BucketThawerTest {
 				asList(archivedBucketWithinTimeRange1, archivedBucketWithinTimeRange2));
 
 		bucketThawer.thawBuckets(index, earliestTime, latestTime);
-		verify(getsBucketsFromArchive).getBucketFromArchive(
+		verify(getsBucketsFromArchive).transferBucket(
 				archivedBucketWithinTimeRange1);
-		verify(getsBucketsFromArchive).getBucketFromArchive(
+		verify(getsBucketsFromArchive).transferBucket(
 				archivedBucketWithinTimeRange2);
 	}
 
+	public void thawBuckets_bucketsWithDifferentTimes_thawsNewestBucketFirst()
+			throws ThawTransferFailException, ImportThawedBucketFailException {
+		Bucket oldBucket = mock(Bucket.class);
+		Bucket newBucket = mock(Bucket.class);
+		when(oldBucket.getLatest()).thenReturn(new Date(1000));
+		when(newBucket.getLatest()).thenReturn(new Date(2000));
+		when(
+				listsBucketsFiltered.listFilteredBucketsAtIndex(index, earliestTime,
+						latestTime)).thenReturn(asList(oldBucket, newBucket));
+
+		bucketThawer.thawBuckets(index, earliestTime, latestTime);
+		InOrder inOrder = inOrder(getsBucketsFromArchive);
+		inOrder.verify(getsBucketsFromArchive).transferBucket(newBucket);
+		inOrder.verify(getsBucketsFromArchive).transferBucket(oldBucket);
+		assertEquals(asList(newBucket, oldBucket), bucketThawer.getProgress()
+				.getBuckets());
+	}
+
+	public void getProgress_bucketsThawedFailedAndSkipped_hasStateOfEachBucket()
+			throws ThawTransferFailException, ImportThawedBucketFailException {
+		Bucket thawedBucket = mock(Bucket.class);
+		Bucket failedBucket = mock(Bucket.class);
+		Bucket skippedBucket = mock(Bucket.class);
+		when(localBuckets.hasBucket(skippedBucket)).thenReturn(true);
+		when(getsBucketsFromArchive.transferBucket(failedBucket)).thenThrow(
+				new ThawTransferFailException(failedBucket));
+		when(
+				listsBucketsFiltered.listFilteredBucketsAtIndex(index, earliestTime,
+						latestTime)).thenReturn(
+				asList(thawedBucket, failedBucket, skippedBucket));
+
+		bucketThawer.thawBuckets(index, earliestTime, latestTime);
+		ThawProgress progress = bucketThawer.getProgress();
+		assertEquals(BucketState.THAWED, progress.getState(thawedBucket));
+		assertEquals(BucketState.FAILED, progress.getState(failedBucket));
+		assertEquals(BucketState.SKIPPED, progress.getState(skippedBucket));
+	}
+
+	public void thawBuckets_noSpaceForBucket_failsBucketWithoutTransferringIt()
+			throws Exception {
+		ThawSpaceAdmission admission = mock(ThawSpaceAdmission.class);
+		InsufficientThawSpaceException exception = new InsufficientThawSpaceException(
+				bucket, "full");
+		when(admission.reserve(bucket)).thenThrow(exception);
+		when(
+				listsBucketsFiltered.listFilteredBucketsAtIndex(index, earliestTime,
+						latestTime)).thenReturn(asList(bucket));
+		bucketThawer = new BucketThawer(listsBucketsFiltered,
+				getsBucketsFromArchive, localBuckets, thawBucketLocker,
+				new CallingThreadExecutor(), new CallingThreadExecutor(), admission);
+
+		bucketThawer.thawBuckets(index, earliestTime, latestTime);
+		verifyZeroInteractions(getsBucketsFromArchive);
+		assertEquals(exception, bucketThawer.getFailedBuckets().get(0).exception);
+	}
+
+	public void thawBuckets_spaceReserved_releasedWhenBucketIsDone()
+			throws Exception {
+		ThawSpaceAdmission admission = mock(ThawSpaceAdmission.class);
+		when(admission.reserve(bucket)).thenReturn(42L);
+		when(
+				listsBucketsFiltered.listFilteredBucketsAtIndex(index, earliestTime,
+						latestTime)).thenReturn(asList(bucket));
+		new BucketThawer(listsBucketsFiltered, getsBucketsFromArchive,
+				localBuckets, thawBucketLocker, new CallingThreadExecutor(),
+				new CallingThreadExecutor(), admission).thawBuckets(index,
+				earliestTime, latestTime);
+		verify(admission).release(42L);
+	}
+
+	public void thawBuckets_transferFailsAfterReservingSpace_releasesSpace()
+			throws Exception {
+		ThawSpaceAdmission admission = mock(ThawSpaceAdmission.class);
+		when(admission.reserve(bucket)).thenReturn(42L);
+		when(getsBucketsFromArchive.transferBucket(bucket)).thenThrow(
+				new ThawTransferFailException(bucket));
+		when(
+				listsBucketsFiltered.listFilteredBucketsAtIndex(index, earliestTime,
+						latestTime)).thenReturn(asList(bucket));
+		new BucketThawer(listsBucketsFiltered, getsBucketsFromArchive,
+				localBuckets, thawBucketLocker, new CallingThreadExecutor(),
+				new CallingThreadExecutor(), admission).thawBuckets(index,
+				earliestTime, latestTime);
+		verify(admission).release(42L);
+	}
+
 	public void thawBuckets_bucketAlreadyExistsInLocalStorage_doesNotThawBucketAgain()
 			throws IOException {
 		LocalBucket thawedBucket = TUtilsBucket.createBucket();
@@ -102,6 +197,25 @@ public class BucketThawerTest {
 		assertEquals(thawedBucket, bucketThawer.getSkippedBuckets().get(0));
 	}
 
+	public void thawBuckets_bucketAlreadyExistsInLocalStorage_marksItAccessed() {
+		when(localBuckets.hasBucket(bucket)).thenReturn(true);
+		when(
+				listsBucketsFiltered.listFilteredBucketsAtIndex(index, earliestTime,
+						latestTime)).thenReturn(asList(bucket));
+
+		bucketThawer.thawBuckets(index, earliestTime, latestTime);
+		verify(localBuckets).markAccessed(bucket);
+	}
+
+	public void thawBuckets_bucketThawed_marksItAccessed() {
+		when(
+				listsBucketsFiltered.listFilteredBucketsAtIndex(index, earliestTime,
+						latestTime)).thenReturn(asList(bucket));
+
+		bucketThawer.thawBuckets(index, earliestTime, latestTime);
+		verify(localBuckets).markAccessed(bucket);
+	}
+
 	public void thawBuckets_thawLocationProviderThrowsException_failBucketAndDoNotTransfer()
 			throws IOException {
 		when(localBuckets.hasBucket(bucket)).thenThrow(new RuntimeException());
@@ -135,10 +249,12 @@ public class BucketThawerTest {
 						latestTime)).thenReturn(asList(bucket1, bucket2));
 		LocalBucket thawedBucket1 = mock(LocalBucket.class);
 		LocalBucket thawedBucket2 = mock(LocalBucket.class);
-		when(getsBucketsFromArchive.getBucketFromArchive(bucket1)).thenReturn(
-				thawedBucket1);
-		when(getsBucketsFromArchive.getBucketFromArchive(bucket2)).thenReturn(
-				thawedBucket2);
+		when(
+				getsBucketsFromArchive.importBucket(eq(bucket1),
+						any(LocalBucket.class))).thenReturn(thawedBucket1);
+		when(
+				getsBucketsFromArchive.importBucket(eq(bucket2),
+						any(LocalBucket.class))).thenReturn(thawedBucket2);
 		bucketThawer.thawBuckets(index, earliestTime, latestTime);
 		List<LocalBucket> thawedBuckets = bucketThawer.getThawedBuckets();
 		assertEquals(2, thawedBuckets.size());
@@ -149,7 +265,7 @@ public class BucketThawerTest {
 	public void getFailedBuckets_whenThawTransferFailExceptionIsThrownForABucket_returnBucket()
 			throws ThawTransferFailException, ImportThawedBucketFailException {
 		doThrow(ThawTransferFailException.class).when(getsBucketsFromArchive)
-				.getBucketFromArchive(bucket);
+				.transferBucket(bucket);
 
 		run_thawBuckets_bucketFieldPassedToGetsBucketFromArchive();
 		List<FailedBucket> failedBuckets = bucketThawer.getFailedBuckets();
@@ -169,7 +285,7 @@ public class BucketThawerTest {
 	public void getFailedBuckets_whenImportThawedBucketFailExceptionIsThrownForBucket_returnBucket()
 			throws ThawTransferFailException, ImportThawedBucketFailException {
 		doThrow(ImportThawedBucketFailException.class).when(getsBucketsFromArchive)
-				.getBucketFromArchive(bucket);
+				.importBucket(eq(bucket), any(LocalBucket.class));
 
 		run_thawBuckets_bucketFieldPassedToGetsBucketFromArchive();
 		List<FailedBucket> failedBuckets = bucketThawer.getFailedBuckets();
@@ -184,16 +300,180 @@ public class BucketThawerTest {
 	public void getThawedBuckets_whenThawFails_doesntContainThatBucket()
 			throws ThawTransferFailException, ImportThawedBucketFailException {
 		doThrow(ThawTransferFailException.class).when(getsBucketsFromArchive)
-				.getBucketFromArchive(any(Bucket.class));
+				.transferBucket(any(Bucket.class));
 		run_thawBuckets_bucketFieldPassedToGetsBucketFromArchive();
 		assertTrue(bucketThawer.getThawedBuckets().isEmpty());
 	}
 
 	public void getFailedBuckets_whenBucketSucceed_doesntContainThatBucket()
 			throws ThawTransferFailException, ImportThawedBucketFailException {
-		when(getsBucketsFromArchive.getBucketFromArchive(bucket)).thenReturn(
-				mock(LocalBucket.class));
+		when(
+				getsBucketsFromArchive.importBucket(eq(bucket),
+						any(LocalBucket.class))).thenReturn(mock(LocalBucket.class));
 		run_thawBuckets_bucketFieldPassedToGetsBucketFromArchive();
 		assertTrue(bucketThawer.getFailedBuckets().isEmpty());
 	}
+
+	public void thawBuckets_withThawExecutor_thawsBucketsAtTheSameTime()
+			throws Exception {
+		final Bucket bucket1 = TUtilsBucket.createBucket();
+		final Bucket bucket2 = TUtilsBucket.createBucket();
+		when(
+				listsBucketsFiltered.listFilteredBucketsAtIndex(index, earliestTime,
+						latestTime)).thenReturn(asList(bucket1, bucket2));
+		final CountDownLatch bothThawing = new CountDownLatch(2);
+		when(getsBucketsFromArchive.transferBucket(any(Bucket.class))).thenAnswer(
+				new Answer<LocalBucket>() {
+
+					@Override
+					public LocalBucket answer(InvocationOnMock invocation)
+							throws InterruptedException {
+						bothThawing.countDown();
+						assertTrue(bothThawing.await(5, TimeUnit.SECONDS));
+						return mock(LocalBucket.class);
+					}
+				});
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			BucketThawer concurrentThawer = new BucketThawer(listsBucketsFiltered,
+					getsBucketsFromArchive, localBuckets, thawBucketLocker, executor,
+					new CallingThreadExecutor(), ThawSpaceAdmission.unlimited());
+			concurrentThawer.thawBuckets(index, earliestTime, latestTime);
+
+			assertEquals(2, concurrentThawer.getThawedBuckets().size());
+			assertTrue(concurrentThawer.getFailedBuckets().isEmpty());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	public void thawBuckets_withThawExecutorAndFailingBucket_collectsEveryResult()
+			throws Exception {
+		Bucket thawed = TUtilsBucket.createBucket();
+		Bucket failing = TUtilsBucket.createBucket();
+		Bucket skipped = TUtilsBucket.createBucket();
+		when(
+				listsBucketsFiltered.listFilteredBucketsAtIndex(index, earliestTime,
+						latestTime)).thenReturn(asList(thawed, failing, skipped));
+		when(
+				getsBucketsFromArchive.importBucket(eq(thawed),
+						any(LocalBucket.class))).thenReturn(mock(LocalBucket.class));
+		when(getsBucketsFromArchive.transferBucket(failing)).thenThrow(
+				new ThawTransferFailException(failing));
+		when(localBuckets.hasBucket(skipped)).thenReturn(true);
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			BucketThawer concurrentThawer = new BucketThawer(listsBucketsFiltered,
+					getsBucketsFromArchive, localBuckets, thawBucketLocker, executor,
+					new CallingThreadExecutor(), ThawSpaceAdmission.unlimited());
+			concurrentThawer.thawBuckets(index, earliestTime, latestTime);
+
+			assertEquals(1, concurrentThawer.getThawedBuckets().size());
+			assertEquals(failing, concurrentThawer.getFailedBuckets().get(0).bucket);
+			assertEquals(asList(skipped), concurrentThawer.getSkippedBuckets());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	public void thawBuckets_withImportExecutor_transfersNextBucketWhileImporting()
+			throws Exception {
+		final Bucket bucket1 = TUtilsBucket.createBucket();
+		final Bucket bucket2 = TUtilsBucket.createBucket();
+		when(
+				listsBucketsFiltered.listFilteredBucketsAtIndex(index, earliestTime,
+						latestTime)).thenReturn(asList(bucket1, bucket2));
+		final CountDownLatch secondTransferred = new CountDownLatch(1);
+		when(getsBucketsFromArchive.transferBucket(bucket1)).thenReturn(
+				mock(LocalBucket.class));
+		when(getsBucketsFromArchive.transferBucket(bucket2)).thenAnswer(
+				new Answer<LocalBucket>() {
+
+					@Override
+					public LocalBucket answer(InvocationOnMock invocation) {
+						secondTransferred.countDown();
+						return mock(LocalBucket.class);
+					}
+				});
+		when(
+				getsBucketsFromArchive.importBucket(eq(bucket1),
+						any(LocalBucket.class))).thenAnswer(new Answer<LocalBucket>() {
+
+			@Override
+			public LocalBucket answer(InvocationOnMock invocation)
+					throws InterruptedException {
+				assertTrue(secondTransferred.await(5, TimeUnit.SECONDS));
+				return mock(LocalBucket.class);
+			}
+		});
+		when(
+				getsBucketsFromArchive.importBucket(eq(bucket2),
+						any(LocalBucket.class))).thenReturn(mock(LocalBucket.class));
+		ExecutorService importExecutor = Executors.newSingleThreadExecutor();
+		try {
+			BucketThawer pipelinedThawer = new BucketThawer(listsBucketsFiltered,
+					getsBucketsFromArchive, localBuckets, thawBucketLocker,
+					new CallingThreadExecutor(), importExecutor,
+					ThawSpaceAdmission.unlimited());
+			pipelinedThawer.thawBuckets(index, earliestTime, latestTime);
+
+			assertEquals(2, pipelinedThawer.getThawedBuckets().size());
+			assertTrue(pipelinedThawer.getFailedBuckets().isEmpty());
+		} finally {
+			importExecutor.shutdownNow();
+		}
+	}
+
+	public void thawBuckets_withImportExecutor_bucketStaysLockedUntilImported()
+			throws Exception {
+		final Bucket bucket = TUtilsBucket.createBucket();
+		when(
+				listsBucketsFiltered.listFilteredBucketsAtIndex(index, earliestTime,
+						latestTime)).thenReturn(asList(bucket));
+		final List<Boolean> lockedWhileImporting = new ArrayList<Boolean>();
+		when(
+				getsBucketsFromArchive.importBucket(eq(bucket),
+						any(LocalBucket.class))).thenAnswer(new Answer<LocalBucket>() {
+
+			@Override
+			public LocalBucket answer(InvocationOnMock invocation) {
+				BucketLock lock = thawBucketLocker.tryLockShared(bucket);
+				lockedWhileImporting.add(lock == null);
+				return mock(LocalBucket.class);
+			}
+		});
+		new BucketThawer(listsBucketsFiltered, getsBucketsFromArchive,
+				localBuckets, thawBucketLocker, new CallingThreadExecutor(),
+				new CallingThreadExecutor(), ThawSpaceAdmission.unlimited())
+				.thawBuckets(index, earliestTime, latestTime);
+
+		assertEquals(asList(true), lockedWhileImporting);
+		BucketLock lockAfterThaw = thawBucketLocker.tryLockShared(bucket);
+		assertNotNull(lockAfterThaw);
+		lockAfterThaw.closeLock();
+	}
+
+	public void thawBuckets_withImportExecutorAndFailingStages_failsBuckets()
+			throws Exception {
+		Bucket failsTransfer = TUtilsBucket.createBucket();
+		Bucket failsImport = TUtilsBucket.createBucket();
+		when(
+				listsBucketsFiltered.listFilteredBucketsAtIndex(index, earliestTime,
+						latestTime)).thenReturn(asList(failsTransfer, failsImport));
+		when(getsBucketsFromArchive.transferBucket(failsTransfer)).thenThrow(
+				new ThawTransferFailException(failsTransfer));
+		when(
+				getsBucketsFromArchive.importBucket(eq(failsImport),
+						any(LocalBucket.class))).thenThrow(
+				new ImportThawedBucketFailException(new RuntimeException()));
+
+		BucketThawer pipelinedThawer = new BucketThawer(listsBucketsFiltered,
+				getsBucketsFromArchive, localBuckets, thawBucketLocker,
+				new CallingThreadExecutor(), new CallingThreadExecutor(),
+				ThawSpaceAdmission.unlimited());
+		pipelinedThawer.thawBuckets(index, earliestTime, latestTime);
+
+		assertEquals(2, pipelinedThawer.getFailedBuckets().size());
+		assertTrue(pipelinedThawer.getThawedBuckets().isEmpty());
+	}
 }
@@ -0,0 +1,185 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.thaw;
+
+import static java.util.Arrays.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.archive.BucketFormat;
+import com.splunk.shuttl.archiver.metastore.ArchiveBucketSize;
+import com.splunk.shuttl.archiver.model.Bucket;
+import com.splunk.shuttl.archiver.model.RemoteBucket;
+import com.splunk.shuttl.archiver.util.CallingThreadExecutor;
+
+@Test(groups = { "fast-unit" })
+public class ConcurrentBucketSizeResolverTest {
+
+	private ArchiveBucketSize archiveBucketSize;
+	private ConcurrentBucketSizeResolver resolver;
+	private Bucket bucket1;
+	private Bucket bucket2;
+
+	@BeforeMethod
+	public void setUp() {
+		archiveBucketSize = mock(ArchiveBucketSize.class);
+		resolver = createResolver(new CallingThreadExecutor(), 10);
+		bucket1 = new RemoteBucket("/b1", "index1", "b1", BucketFormat.CSV);
+		bucket2 = new RemoteBucket("/b2", "index2", "b2", BucketFormat.CSV);
+	}
+
+	private ConcurrentBucketSizeResolver createResolver(
+			Executor executor, int cacheSize) {
+		return new ConcurrentBucketSizeResolver(new BucketSizeResolver(
+				archiveBucketSize), executor, cacheSize);
+	}
+
+	public void resolveBucketSizes_buckets_bucketsWithSizesInSameOrder() {
+		when(archiveBucketSize.readBucketSize(bucket1)).thenReturn(1L);
+		when(archiveBucketSize.readBucketSize(bucket2)).thenReturn(2L);
+
+		List<Bucket> buckets = resolver.resolveBucketSizes(asList(bucket1,
+				bucket2));
+
+		assertEquals(bucket1.getName(), buckets.get(0).getName());
+		assertEquals(1L, (long) buckets.get(0).getSize());
+		assertEquals(bucket2.getName(), buckets.get(1).getName());
+		assertEquals(2L, (long) buckets.get(1).getSize());
+	}
+
+	public void resolveBucketSizes_sizeResolvedBefore_doesNotReadItAgain() {
+		when(archiveBucketSize.readBucketSize(bucket1)).thenReturn(1L);
+		resolver.resolveBucketSizes(asList(bucket1));
+
+		List<Bucket> buckets = resolver.resolveBucketSizes(asList(bucket1));
+
+		assertEquals(1L, (long) buckets.get(0).getSize());
+		verify(archiveBucketSize, times(1)).readBucketSize(any(Bucket.class));
+	}
+
+	public void resolveBucketSizes_sameBucketInOtherFormat_readsItsSize() {
+		Bucket tgz = new RemoteBucket("/b1", "index1", "b1",
+				BucketFormat.SPLUNK_BUCKET_TGZ);
+		when(archiveBucketSize.readBucketSize(any(Bucket.class))).thenAnswer(
+				new Answer<Long>() {
+					@Override
+					public Long answer(InvocationOnMock invocation) {
+						Bucket bucket = (Bucket) invocation.getArguments()[0];
+						return bucket.getFormat() == BucketFormat.CSV ? 1L : 2L;
+					}
+				});
+		resolver.resolveBucketSizes(asList(bucket1));
+
+		assertEquals(2L,
+				(long) resolver.resolveBucketSizes(asList(tgz)).get(0).getSize());
+	}
+
+	public void resolveBucketSizes_sizeCouldNotBeRead_readsItAgainNextTime() {
+		when(archiveBucketSize.readBucketSize(bucket1)).thenReturn(null);
+		resolver.resolveBucketSizes(asList(bucket1));
+		resolver.resolveBucketSizes(asList(bucket1));
+		verify(archiveBucketSize, times(2)).readBucketSize(bucket1);
+	}
+
+	public void resolveBucketSizes_cacheIsFull_evictsLeastRecentlyUsedSize() {
+		resolver = createResolver(new CallingThreadExecutor(), 2);
+		Bucket bucket3 = new RemoteBucket("/b3", "index3", "b3", BucketFormat.CSV);
+		when(archiveBucketSize.readBucketSize(any(Bucket.class))).thenReturn(1L);
+		resolver.resolveBucketSizes(asList(bucket1, bucket2));
+		resolver.resolveBucketSizes(asList(bucket1));
+		resolver.resolveBucketSizes(asList(bucket3));
+
+		resolver.resolveBucketSizes(asList(bucket1, bucket2));
+
+		verify(archiveBucketSize, times(1)).readBucketSize(bucket1);
+		verify(archiveBucketSize, times(2)).readBucketSize(bucket2);
+	}
+
+	public void resolveBucketSizes_readingSizeThrows_bucketWithoutSize() {
+		when(archiveBucketSize.readBucketSize(bucket1)).thenThrow(
+				new RuntimeException());
+		when(archiveBucketSize.readBucketSize(bucket2)).thenReturn(2L);
+
+		List<Bucket> buckets = resolver.resolveBucketSizes(asList(bucket1,
+				bucket2));
+
+		assertNull(buckets.get(0).getSize());
+		assertEquals(2L, (long) buckets.get(1).getSize());
+	}
+
+	public void resolveBucketSizes_executorWithThreads_readsSizesInParallel() {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			resolver = createResolver(executor, 10);
+			final CountDownLatch bothReading = new CountDownLatch(2);
+			when(archiveBucketSize.readBucketSize(any(Bucket.class))).thenAnswer(
+					new Answer<Long>() {
+						@Override
+						public Long answer(InvocationOnMock invocation)
+								throws Throwable {
+							bothReading.countDown();
+							if (!bothReading.await(5, TimeUnit.SECONDS))
+								throw new RuntimeException("sizes were read one at a time");
+							return 1L;
+						}
+					});
+
+			List<Bucket> buckets = resolver.resolveBucketSizes(asList(bucket1,
+					bucket2));
+
+			assertEquals(1L, (long) buckets.get(0).getSize());
+			assertEquals(1L, (long) buckets.get(1).getSize());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	public void resolveBucketSizes_sizeIsBeingRead_waitsForItInsteadOfReadingItAgain() {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			resolver = createResolver(executor, 10);
+			when(archiveBucketSize.readBucketSize(bucket1)).thenAnswer(
+					new Answer<Long>() {
+						@Override
+						public Long answer(InvocationOnMock invocation)
+								throws Throwable {
+							Thread.sleep(200);
+							return 1L;
+						}
+					});
+
+			List<Bucket> buckets = resolver.resolveBucketSizes(asList(bucket1,
+					bucket1));
+
+			assertEquals(1L, (long) buckets.get(1).getSize());
+			verify(archiveBucketSize, times(1)).readBucketSize(bucket1);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -71,6 +71,29 @@ public class GetsBucketsFromArchiveTest {
 		assertEquals(sizedBucket.getSize(), actualBucket.getSize());
 	}
 
+	public void transferBucket_givenBucket_transfersWithoutImporting()
+			throws Exception {
+		LocalBucket transferredBucket = TUtilsBucket.createBucket();
+		when(thawBucketTransferer.transferBucketToThaw(bucket)).thenReturn(
+				transferredBucket);
+		assertEquals(transferredBucket,
+				getsBucketsFromArchive.transferBucket(bucket));
+		verifyZeroInteractions(bucketImportController, bucketSizeResolver);
+	}
+
+	public void importBucket_transferredBucket_importsItAndResolvesSize()
+			throws Exception {
+		LocalBucket transferredBucket = TUtilsBucket.createBucket();
+		when(bucketImportController.restoreToSplunkBucketFormat(transferredBucket))
+				.thenReturn(transferredBucket);
+		when(bucketSizeResolver.resolveBucketSize(bucket)).thenReturn(bucket);
+		getsBucketsFromArchive.importBucket(bucket, transferredBucket);
+		verify(bucketImportController).restoreToSplunkBucketFormat(
+				transferredBucket);
+		verify(bucketSizeResolver).resolveBucketSize(bucket);
+		verifyZeroInteractions(thawBucketTransferer);
+	}
+
 	// Sad path
 
 	@Test(expectedExceptions = { ThawTransferFailException.class })
@@ -0,0 +1,77 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.thaw;
+
+import static java.util.Arrays.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.archive.BucketFormat;
+import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
+import com.splunk.shuttl.archiver.filesystem.GlobsPaths;
+import com.splunk.shuttl.archiver.filesystem.PathResolver;
+
+@Test(groups = { "fast-unit" })
+public class IndexFormatsListerTest {
+
+	private GlobsPaths globsPaths;
+	private PathResolver pathResolver;
+	private IndexFormatsLister lister;
+
+	@BeforeMethod
+	public void setUp() {
+		globsPaths = mock(GlobsPaths.class);
+		pathResolver = mock(PathResolver.class);
+		lister = new IndexFormatsLister(globsPaths, pathResolver);
+		when(pathResolver.getFormatsGlob("index")).thenReturn("/index/*/*");
+	}
+
+	public void listFormatsInIndex_globbedFormats_formatsByBucketName()
+			throws IOException {
+		when(globsPaths.globPaths("/index/*/*")).thenReturn(
+				asList("/index/b1/CSV", "/index/b1/SPLUNK_BUCKET", "/index/b2/CSV"));
+		Map<String, List<BucketFormat>> formats = lister
+				.listFormatsInIndex("index");
+		assertEquals(formats.size(), 2);
+		assertEquals(formats.get("b1"),
+				asList(BucketFormat.CSV, BucketFormat.SPLUNK_BUCKET));
+		assertEquals(formats.get("b2"), asList(BucketFormat.CSV));
+	}
+
+	public void listFormatsInIndex_pathThatIsNotAFormat_skipsPath()
+			throws IOException {
+		when(globsPaths.globPaths("/index/*/*")).thenReturn(
+				asList("/index/b1/some-file"));
+		assertTrue(lister.listFormatsInIndex("index").isEmpty());
+	}
+
+	public void create_archiveThatCanNotGlob_null() {
+		assertNull(IndexFormatsLister.create(mock(ArchiveFileSystem.class),
+				pathResolver));
+	}
+
+	public void create_archiveThatGlobs_lister() {
+		assertNotNull(IndexFormatsLister.create(
+				mock(ArchiveFileSystem.class,
+						withSettings().extraInterfaces(GlobsPaths.class)), pathResolver));
+	}
+}
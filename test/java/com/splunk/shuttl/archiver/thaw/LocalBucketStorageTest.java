@@ -27,6 +27,7 @@ import org.testng.annotations.Test;
 import com.splunk.shuttl.archiver.copy.IndexStoragePaths;
 import com.splunk.shuttl.archiver.model.LocalBucket;
 import com.splunk.shuttl.testutil.TUtilsBucket;
+import com.splunk.shuttl.testutil.TUtilsFile;
 
 @Test(groups = { "fast-unit" })
 public class LocalBucketStorageTest {
@@ -57,4 +58,25 @@ public class LocalBucketStorageTest {
 
 		assertTrue(localBucketStorage.hasBucket(bucket));
 	}
+
+	public void markAccessed_bucketExistsLocally_modifiesItsDirectoryNow() {
+		LocalBucket bucketWithSameName = TUtilsBucket.createBucketWithName(bucket
+				.getName());
+		File directory = bucketWithSameName.getDirectory();
+		assertTrue(directory.setLastModified(1000));
+		when(indexStoragePaths.getDbPathsForIndex(bucket.getIndex())).thenReturn(
+				asList(directory.getParentFile()));
+
+		long before = System.currentTimeMillis() / 1000 * 1000;
+		localBucketStorage.markAccessed(bucket);
+		assertTrue(directory.lastModified() >= before);
+	}
+
+	public void markAccessed_bucketDoesNotExistLocally_doesNotCreateIt() {
+		File dbPath = TUtilsFile.createDirectory();
+		when(indexStoragePaths.getDbPathsForIndex(bucket.getIndex())).thenReturn(
+				asList(dbPath));
+		localBucketStorage.markAccessed(bucket);
+		assertFalse(new File(dbPath, bucket.getName()).exists());
+	}
 }
@@ -25,12 +25,15 @@ import java.io.IOException;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.splunk.shuttl.archiver.archive.BucketFormat;
 import com.splunk.shuttl.archiver.filesystem.ArchiveFileSystem;
+import com.splunk.shuttl.archiver.filesystem.ReadsFiles;
 import com.splunk.shuttl.archiver.filesystem.transaction.TransactionExecuter;
 import com.splunk.shuttl.archiver.filesystem.transaction.bucket.GetBucketTransaction;
 import com.splunk.shuttl.archiver.model.Bucket;
 import com.splunk.shuttl.archiver.model.BucketFactory;
 import com.splunk.shuttl.archiver.model.LocalBucket;
+import com.splunk.shuttl.archiver.model.RemoteBucket;
 import com.splunk.shuttl.testutil.TUtilsBucket;
 
 @Test(groups = { "fast-unit" })
@@ -50,7 +53,7 @@ public class ThawBucketTransfererTest {
 		archiveFileSystem = mock(ArchiveFileSystem.class);
 		bucketFactory = mock(BucketFactory.class);
 		transactionExecuter = mock(TransactionExecuter.class);
-		bucketTransferer = new ThawBucketTransferer(thawLocationProvider,
+		bucketTransferer = ThawBucketTransferer.create(thawLocationProvider,
 				archiveFileSystem, bucketFactory, transactionExecuter);
 	}
 
@@ -89,4 +92,25 @@ public class ThawBucketTransfererTest {
 		assertEquals(bucketOnLocalDisk, actualBucket);
 	}
 
+	public void _tgzBucketAndArchiveReadsFiles_returnsBucketInSplunkBucketFormat()
+			throws Exception {
+		archiveFileSystem = mock(ArchiveFileSystem.class,
+				withSettings().extraInterfaces(ReadsFiles.class));
+		bucketTransferer = ThawBucketTransferer.create(thawLocationProvider,
+				archiveFileSystem, bucketFactory, transactionExecuter);
+		Bucket tgzBucket = new RemoteBucket(bucket.getPath(), bucket.getIndex(),
+				bucket.getName(), BucketFormat.SPLUNK_BUCKET_TGZ);
+		File dst = createDirectory();
+		when(thawLocationProvider.getThawTransferLocation(tgzBucket)).thenReturn(
+				createDirectory());
+		when(thawLocationProvider.getLocationInThawForBucket(tgzBucket))
+				.thenReturn(dst);
+
+		bucketTransferer.transferBucketToThaw(tgzBucket);
+
+		verify(transactionExecuter).execute(any(GetBucketTransaction.class));
+		verify(bucketFactory).createWithIndexDirectoryAndSize(tgzBucket.getIndex(),
+				dst, BucketFormat.SPLUNK_BUCKET, tgzBucket.getSize());
+	}
+
 }
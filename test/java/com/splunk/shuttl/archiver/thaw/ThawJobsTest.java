@@ -0,0 +1,112 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.thaw;
+
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import java.util.Date;
+import java.util.concurrent.Executor;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.thaw.ThawJob.State;
+import com.splunk.shuttl.archiver.util.CallingThreadExecutor;
+
+@Test(groups = { "fast-unit" })
+public class ThawJobsTest {
+
+	private ThawJobs thawJobs;
+	private BucketThawer bucketThawer;
+	private Date earliest;
+	private Date latest;
+
+	@BeforeMethod
+	public void setUp() {
+		thawJobs = new ThawJobs(new CallingThreadExecutor());
+		bucketThawer = mock(BucketThawer.class);
+		earliest = new Date(0);
+		latest = new Date(1000);
+	}
+
+	public void submit_noJobId_generatesIdForTheJob() {
+		ThawJob job = thawJobs.submit(null, "index", earliest, latest,
+				bucketThawer);
+		assertNotNull(job.getId());
+		assertSame(job, thawJobs.getJob(job.getId()));
+	}
+
+	public void submit_jobId_jobHasTheId() {
+		ThawJob job = thawJobs.submit("id", "index", earliest, latest,
+				bucketThawer);
+		assertEquals("id", job.getId());
+		assertSame(job, thawJobs.getJob("id"));
+	}
+
+	@Test(expectedExceptions = { IllegalArgumentException.class })
+	public void submit_jobIdAlreadyExists_throws() {
+		thawJobs.submit("id", "index", earliest, latest, bucketThawer);
+		thawJobs.submit("id", "index", earliest, latest, bucketThawer);
+	}
+
+	public void submit_executorRunsJob_thawsBucketsAndJobIsDone() {
+		ThawJob job = thawJobs.submit(null, "index", earliest, latest,
+				bucketThawer);
+		verify(bucketThawer).thawBuckets("index", earliest, latest);
+		assertEquals(State.DONE, job.getState());
+		assertEquals(0, job.estimateMillisLeft());
+	}
+
+	public void submit_executorHasNotRunJob_jobIsQueued() {
+		thawJobs = new ThawJobs(mock(Executor.class));
+		ThawJob job = thawJobs.submit(null, "index", earliest, latest,
+				bucketThawer);
+		assertEquals(State.QUEUED, job.getState());
+		assertEquals(-1, job.estimateMillisLeft());
+		assertEquals(0, job.getElapsedMillis());
+	}
+
+	public void submit_thawingThrows_jobFailedWithTheException() {
+		RuntimeException exception = new RuntimeException();
+		doThrow(exception).when(bucketThawer).thawBuckets(anyString(),
+				any(Date.class), any(Date.class));
+		ThawJob job = thawJobs.submit(null, "index", earliest, latest,
+				bucketThawer);
+		assertEquals(State.FAILED, job.getState());
+		assertSame(exception, job.getException());
+	}
+
+	public void getJob_noSuchJob_null() {
+		assertNull(thawJobs.getJob("id"));
+	}
+
+	public void submit_moreFinishedJobsThanKept_removesOldestFinishedJobs() {
+		thawJobs.submit("first", "index", earliest, latest, bucketThawer);
+		for (int i = 0; i < ThawJobs.FINISHED_JOBS_KEPT; i++)
+			thawJobs.submit(null, "index", earliest, latest, bucketThawer);
+		assertNull(thawJobs.getJob("first"));
+	}
+
+	public void submit_moreFinishedJobsThanKept_keepsUnfinishedJobs() {
+		ThawJobs queuedJobs = new ThawJobs(mock(Executor.class));
+		queuedJobs.submit("queued", "index", earliest, latest, bucketThawer);
+		for (int i = 0; i < ThawJobs.FINISHED_JOBS_KEPT + 1; i++)
+			queuedJobs.submit(null, "index", earliest, latest, bucketThawer)
+					.run();
+		assertNotNull(queuedJobs.getJob("queued"));
+	}
+}
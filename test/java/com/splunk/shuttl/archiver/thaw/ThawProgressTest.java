@@ -0,0 +1,103 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.thaw;
+
+import static java.util.Arrays.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.model.Bucket;
+import com.splunk.shuttl.archiver.thaw.ThawProgress.BucketState;
+
+@Test(groups = { "fast-unit" })
+public class ThawProgressTest {
+
+	private ThawProgress progress;
+	private Bucket small;
+	private Bucket large;
+
+	@BeforeMethod
+	public void setUp() {
+		progress = new ThawProgress();
+		small = bucketWithSize(100L);
+		large = bucketWithSize(300L);
+	}
+
+	private Bucket bucketWithSize(Long size) {
+		Bucket bucket = mock(Bucket.class);
+		when(bucket.getSize()).thenReturn(size);
+		return bucket;
+	}
+
+	public void bucketsListed_buckets_everyBucketIsPendingInListedOrder() {
+		progress.bucketsListed(asList(small, large));
+		assertEquals(asList(small, large), progress.getBuckets());
+		assertEquals(BucketState.PENDING, progress.getState(small));
+		assertEquals(2, progress.countBuckets(BucketState.PENDING));
+	}
+
+	public void setState_bucketNotListed_isIgnored() {
+		progress.setState(small, BucketState.THAWED);
+		assertNull(progress.getState(small));
+		assertTrue(progress.getBuckets().isEmpty());
+	}
+
+	public void getTransferredBytes_importingAndThawedBuckets_sumsTheirSizes() {
+		Bucket importing = bucketWithSize(50L);
+		progress.bucketsListed(asList(small, large, importing));
+		progress.setState(small, BucketState.THAWED);
+		progress.setState(importing, BucketState.IMPORTING);
+		assertEquals(150, progress.getTransferredBytes());
+		assertEquals(450, progress.getTotalBytes());
+	}
+
+	public void getTotalBytes_skippedAndFailedBuckets_areNotCounted() {
+		progress.bucketsListed(asList(small, large));
+		progress.setState(small, BucketState.SKIPPED);
+		progress.setState(large, BucketState.FAILED);
+		assertEquals(0, progress.getTotalBytes());
+	}
+
+	public void estimateMillisLeft_partOfTheBytesTransferred_scalesElapsedTimeWithBytesLeft() {
+		progress.bucketsListed(asList(small, large));
+		progress.setState(small, BucketState.THAWED);
+		assertEquals(3000, progress.estimateMillisLeft(1000));
+	}
+
+	public void estimateMillisLeft_nothingTransferred_minusOne() {
+		progress.bucketsListed(asList(small, large));
+		progress.setState(small, BucketState.TRANSFERRING);
+		assertEquals(-1, progress.estimateMillisLeft(1000));
+	}
+
+	public void estimateMillisLeft_everyBucketDone_zero() {
+		progress.bucketsListed(asList(small, large));
+		progress.setState(small, BucketState.THAWED);
+		progress.setState(large, BucketState.FAILED);
+		assertEquals(0, progress.estimateMillisLeft(1000));
+	}
+
+	public void estimateMillisLeft_unknownSizes_scalesElapsedTimeWithBucketsLeft() {
+		Bucket b1 = bucketWithSize(null);
+		Bucket b2 = bucketWithSize(null);
+		Bucket b3 = bucketWithSize(null);
+		progress.bucketsListed(asList(b1, b2, b3));
+		progress.setState(b1, BucketState.THAWED);
+		assertEquals(2000, progress.estimateMillisLeft(1000));
+	}
+}
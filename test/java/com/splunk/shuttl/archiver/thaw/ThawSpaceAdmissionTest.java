@@ -0,0 +1,145 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.thaw;
+
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.splunk.shuttl.archiver.model.Bucket;
+import com.splunk.shuttl.archiver.thaw.ThawSpaceAdmission.Reservations;
+
+@Test(groups = { "fast-unit" })
+public class ThawSpaceAdmissionTest {
+
+	private ThawLocationProvider thawLocationProvider;
+	private BucketSizeResolver bucketSizeResolver;
+	private Reservations reservations;
+	private ThawSpaceAdmission admission;
+	private File disk;
+
+	@BeforeMethod
+	public void setUp() throws IOException {
+		thawLocationProvider = mock(ThawLocationProvider.class);
+		bucketSizeResolver = mock(BucketSizeResolver.class);
+		reservations = new Reservations();
+		admission = new ThawSpaceAdmission(thawLocationProvider,
+				bucketSizeResolver, 90, reservations);
+		disk = mock(File.class);
+		when(disk.exists()).thenReturn(true);
+		when(disk.getTotalSpace()).thenReturn(1000L);
+		when(disk.getUsableSpace()).thenReturn(500L);
+		when(thawLocationProvider.getLocationInThawForBucket(any(Bucket.class)))
+				.thenReturn(disk);
+	}
+
+	private Bucket bucketWithSize(Long size) {
+		Bucket bucket = mock(Bucket.class);
+		when(bucket.getSize()).thenReturn(size);
+		return bucket;
+	}
+
+	public void reserve_bucketFitsUnderWatermark_reservesItsSize()
+			throws InsufficientThawSpaceException {
+		assertEquals(400, admission.reserve(bucketWithSize(400L)));
+		assertEquals(400, reservations.getReservedBytes());
+	}
+
+	@Test(expectedExceptions = { InsufficientThawSpaceException.class })
+	public void reserve_bucketCrossesWatermarkWithoutOtherReservations_throws()
+			throws InsufficientThawSpaceException {
+		admission.reserve(bucketWithSize(401L));
+	}
+
+	public void release_reservedBytes_areNoLongerReserved()
+			throws InsufficientThawSpaceException {
+		long reserved = admission.reserve(bucketWithSize(300L));
+		admission.release(reserved);
+		assertEquals(0, reservations.getReservedBytes());
+	}
+
+	public void reserve_sizeNotOnListedBucket_reservesResolvedSize()
+			throws InsufficientThawSpaceException {
+		Bucket bucket = bucketWithSize(null);
+		Bucket resolved = bucketWithSize(100L);
+		when(bucketSizeResolver.resolveBucketSize(bucket)).thenReturn(resolved);
+		assertEquals(100, admission.reserve(bucket));
+	}
+
+	public void reserve_sizeUnknown_reservesNothing()
+			throws InsufficientThawSpaceException {
+		Bucket bucket = bucketWithSize(null);
+		Bucket resolved = bucketWithSize(null);
+		when(bucketSizeResolver.resolveBucketSize(bucket)).thenReturn(resolved);
+		assertEquals(0, admission.reserve(bucket));
+	}
+
+	public void reserve_thawLocationDoesNotExist_checksSpaceOfExistingParent()
+			throws IOException, InsufficientThawSpaceException {
+		File location = mock(File.class);
+		when(location.getParentFile()).thenReturn(disk);
+		when(thawLocationProvider.getLocationInThawForBucket(any(Bucket.class)))
+				.thenReturn(location);
+		admission.reserve(bucketWithSize(400L));
+		verify(disk).getUsableSpace();
+	}
+
+	public void reserve_otherReservationsAreInTheWay_waitsForThemToBeReleased()
+			throws Exception {
+		final long reserved = admission.reserve(bucketWithSize(300L));
+		final CountDownLatch admitted = new CountDownLatch(1);
+		Thread waiting = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					admission.reserve(bucketWithSize(300L));
+					admitted.countDown();
+				} catch (InsufficientThawSpaceException e) {
+				}
+			}
+		});
+		waiting.start();
+		assertFalse(admitted.await(100, TimeUnit.MILLISECONDS));
+
+		admission.release(reserved);
+		assertTrue(admitted.await(5, TimeUnit.SECONDS));
+		assertEquals(300, reservations.getReservedBytes());
+	}
+
+	public void reserve_reservationsSharedWithOtherAdmission_countsTheirBytes()
+			throws InsufficientThawSpaceException {
+		ThawSpaceAdmission other = new ThawSpaceAdmission(thawLocationProvider,
+				bucketSizeResolver, 90, reservations);
+		other.reserve(bucketWithSize(300L));
+		admission.reserve(bucketWithSize(100L));
+		assertEquals(400, reservations.getReservedBytes());
+	}
+
+	public void reserve_unlimited_admitsBucketWithoutReservingSpace()
+			throws InsufficientThawSpaceException {
+		assertEquals(0,
+				ThawSpaceAdmission.unlimited().reserve(bucketWithSize(1000L)));
+		verifyZeroInteractions(thawLocationProvider, bucketSizeResolver);
+	}
+}
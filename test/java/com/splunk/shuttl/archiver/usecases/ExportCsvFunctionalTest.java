@@ -65,7 +65,7 @@ public class ExportCsvFunctionalTest {
 		PathResolver pathResolver = new PathResolver(csvConfig);
 		ArchivedIndexesLister indexesLister = new ArchivedIndexesLister(
 				pathResolver, localFileSystem);
-		bucketsLister = new ArchiveBucketsLister(localFileSystem, indexesLister,
+		bucketsLister = ArchiveBucketsLister.create(localFileSystem, indexesLister,
 				pathResolver);
 		BucketFormatChooser bucketFormatChooser = new BucketFormatChooser(csvConfig);
 		bucketFormatResolver = new BucketFormatResolver(pathResolver,
@@ -17,6 +17,7 @@ package com.splunk.shuttl.archiver.util;
 import static java.util.Arrays.*;
 import static org.testng.Assert.*;
 
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -26,6 +27,7 @@ import org.testng.annotations.Test;
 import com.amazonaws.util.json.JSONArray;
 import com.amazonaws.util.json.JSONException;
 import com.amazonaws.util.json.JSONObject;
+import com.splunk.shuttl.archiver.model.Bucket;
 import com.splunk.shuttl.archiver.model.LocalBucket;
 import com.splunk.shuttl.server.mbeans.util.JsonObjectNames;
 import com.splunk.shuttl.server.model.BucketBean;
@@ -237,6 +239,24 @@ public class JsonUtilsTest {
 				new JSONObject(BucketBean.createBeanFromBucket(bucket)).toString());
 	}
 
+	public void writeBucketsAsJson_bucketsAndKeyValues_sameJsonAsWriteKeyValueAsJson()
+			throws JSONException {
+		LocalBucket bucket = TUtilsBucket.createBucket();
+		StringWriter writer = new StringWriter();
+		JsonUtils.writeBucketsAsJson(writer, "buckets", asList(bucket), "k", "v");
+
+		JSONObject expected = JsonUtils.writeKeyValueAsJson("buckets",
+				asList(bucket), "k", "v");
+		assertJsonEquals(expected, json(writer.toString()));
+	}
+
+	public void writeBucketsAsJson_noBuckets_emptyArray() {
+		StringWriter writer = new StringWriter();
+		JsonUtils.writeBucketsAsJson(writer, "buckets",
+				new ArrayList<Bucket>());
+		assertEquals(writer.toString(), "{\"buckets\":[]}");
+	}
+
 	private void assertJsonEquals(JSONObject o1, JSONObject o2) {
 		assertEquals(o1.toString(), o2.toString());
 	}
@@ -0,0 +1,88 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.archiver.util;
+
+import static org.testng.Assert.*;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups = { "fast-unit" })
+public class WaitForQueuePolicyTest {
+
+	private ThreadPoolExecutor executor;
+	private CountDownLatch release;
+
+	@BeforeMethod
+	public void setUp() {
+		executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(1), new WaitForQueuePolicy());
+		release = new CountDownLatch(1);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		release.countDown();
+		executor.shutdownNow();
+	}
+
+	public void rejectedExecution_fullQueue_waitsForRoomAndRunsCommand()
+			throws InterruptedException {
+		executor.execute(new AwaitRelease());
+		executor.execute(new AwaitRelease());
+		final CountDownLatch thirdRan = new CountDownLatch(1);
+		Thread releaser = new Thread() {
+
+			@Override
+			public void run() {
+				release.countDown();
+			}
+		};
+		releaser.start();
+		executor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				thirdRan.countDown();
+			}
+		});
+		assertTrue(thirdRan.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test(expectedExceptions = { RejectedExecutionException.class })
+	public void rejectedExecution_shutDown_throws() {
+		executor.shutdown();
+		executor.execute(new AwaitRelease());
+	}
+
+	private class AwaitRelease implements Runnable {
+
+		@Override
+		public void run() {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
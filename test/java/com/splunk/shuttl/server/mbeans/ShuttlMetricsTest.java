@@ -0,0 +1,76 @@
+// Copyright (C) 2011 Splunk Inc.
+//
+// Splunk Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.splunk.shuttl.server.mbeans;
+
+import static java.util.Arrays.*;
+import static org.testng.Assert.*;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.amazonaws.util.json.JSONException;
+import com.amazonaws.util.json.JSONObject;
+import com.splunk.shuttl.archiver.filesystem.throttle.TransferLimiter;
+import com.splunk.shuttl.archiver.filesystem.throttle.TransferThrottle;
+import com.splunk.shuttl.archiver.metrics.Stage;
+import com.splunk.shuttl.archiver.metrics.TransferMetrics;
+import com.splunk.shuttl.server.mbeans.util.JsonObjectNames;
+
+@Test(groups = { "fast-unit" })
+public class ShuttlMetricsTest {
+
+	private TransferMetrics transferMetrics;
+	private ShuttlMetrics shuttlMetrics;
+
+	@BeforeMethod
+	public void setUp() {
+		transferMetrics = new TransferMetrics();
+		shuttlMetrics = new ShuttlMetrics(transferMetrics, new TransferThrottle(
+				TransferLimiter.create(), TransferLimiter.create()));
+	}
+
+	public void getMetricNames_measuredStages_backendDotStageNames() {
+		transferMetrics.get("hdfs", Stage.COMMIT);
+		transferMetrics.get("hdfs", Stage.PREPARE);
+		assertEquals(shuttlMetrics.getMetricNames(),
+				asList("hdfs.commit", "hdfs.prepare"));
+	}
+
+	public void getCount_recordedStage_timesRecorded() {
+		transferMetrics.forBackend("s3").record(Stage.PREPARE, System.nanoTime(),
+				false);
+		assertEquals(shuttlMetrics.getCount("s3.prepare"), 1);
+		assertEquals(shuttlMetrics.getFailures("s3.prepare"), 1);
+	}
+
+	public void getCount_unknownMetric_zero() {
+		assertEquals(shuttlMetrics.getCount("nothing.here"), 0);
+	}
+
+	public void getMetricsAsJson_metrics_metricsAndThroughputs()
+			throws JSONException {
+		transferMetrics.get("hdfs", Stage.COMMIT);
+		JSONObject json = new JSONObject(shuttlMetrics.getMetricsAsJson());
+		assertEquals(json.getJSONArray(JsonObjectNames.METRICS).length(), 1);
+		assertEquals(json.getLong(JsonObjectNames.UPLOAD_THROUGHPUT), 0);
+		assertEquals(json.getLong(JsonObjectNames.DOWNLOAD_THROUGHPUT), 0);
+	}
+
+	public void reset_metrics_noMetricNames() {
+		transferMetrics.get("hdfs", Stage.COMMIT);
+		shuttlMetrics.reset();
+		assertTrue(shuttlMetrics.getMetricNames().isEmpty());
+	}
+}